@@ -29,7 +29,8 @@ public class WebClientAssetsRestSdk implements AssetsReactiveSdk {
             .uri(uriBuilder -> {
                 UriBuilder path = uriBuilder.path("/assets");
                 if (!CollectionUtils.isEmpty(params.getIds())) {
-                    path.queryParam("ids", params.getIds());
+                    // ids are sent as a single comma separated value, allowing multiple assets per request
+                    path.queryParam("ids", String.join(",", params.getIds()));
                 }
                 if (!CollectionUtils.isEmpty(params.getSearch())) {
                     path.queryParam("search", params.getSearch());
@@ -1,13 +1,40 @@
 package com.dmsc.coincapjavasdk.model;
 
+import java.time.Duration;
+
+/**
+ * Interval between the points of the history API, with the max range CoinCap accepts on a single request for it
+ */
 public enum IntervalValue {
-    M1,
-    M5,
-    M15,
-    M30,
-    H1,
-    H2,
-    H6,
-    H12,
-    D1
+    M1(Duration.ofMinutes(1), Duration.ofDays(1)),
+    M5(Duration.ofMinutes(5), Duration.ofDays(5)),
+    M15(Duration.ofMinutes(15), Duration.ofDays(7)),
+    M30(Duration.ofMinutes(30), Duration.ofDays(14)),
+    H1(Duration.ofHours(1), Duration.ofDays(30)),
+    H2(Duration.ofHours(2), Duration.ofDays(61)),
+    H6(Duration.ofHours(6), Duration.ofDays(183)),
+    H12(Duration.ofHours(12), Duration.ofDays(365)),
+    D1(Duration.ofDays(1), Duration.ofDays(3650));
+
+    private final Duration step;
+    private final Duration maxSpan;
+
+    IntervalValue(Duration step, Duration maxSpan) {
+        this.step = step;
+        this.maxSpan = maxSpan;
+    }
+
+    /**
+     * @return time between two points
+     */
+    public Duration getStep() {
+        return step;
+    }
+
+    /**
+     * @return max time between start and end of a single history request
+     */
+    public Duration getMaxSpan() {
+        return maxSpan;
+    }
 }
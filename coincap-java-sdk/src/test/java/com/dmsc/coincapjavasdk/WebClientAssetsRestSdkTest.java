@@ -21,6 +21,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 
 import java.io.File;
 import java.nio.file.Files;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -56,6 +57,21 @@ class WebClientAssetsRestSdkTest {
         Assertions.assertNotNull(assets);
     }
 
+    @Test
+    void testGetAssetsWithMultipleIds() {
+        String json = getString("getAssets.json");
+
+        enqueueMockResponse(json, HttpStatus.OK);
+
+        CryptoDataRequest request = new CryptoDataRequest();
+        request.setIds(List.of("bitcoin", "ethereum"));
+        CryptoData assets = classUnderTest.getAssets(request);
+
+        assertValidGetRequest("/assets?ids=bitcoin,ethereum");
+
+        Assertions.assertNotNull(assets);
+    }
+
     @Test
     void testGetAssetsById() {
         String json = getString("getAssetsById.json");
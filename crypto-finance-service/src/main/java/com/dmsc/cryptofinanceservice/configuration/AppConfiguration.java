@@ -1,5 +1,8 @@
 package com.dmsc.cryptofinanceservice.configuration;
 
+import com.dmsc.cryptofinanceservice.properties.BackfillProperties;
+import com.dmsc.cryptofinanceservice.properties.CacheProperties;
+import com.dmsc.cryptofinanceservice.properties.CryptoPricePartitionProperties;
 import com.dmsc.cryptofinanceservice.properties.JobServiceProperties;
 import com.dmsc.cryptofinanceservice.properties.WalletRequestProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -20,4 +23,22 @@ public class AppConfiguration {
     public JobServiceProperties jobServiceProperties() {
         return new JobServiceProperties();
     }
+
+    @Bean
+    @ConfigurationProperties(prefix = CryptoPricePartitionProperties.PREFIX)
+    public CryptoPricePartitionProperties cryptoPricePartitionProperties() {
+        return new CryptoPricePartitionProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = BackfillProperties.PREFIX)
+    public BackfillProperties backfillProperties() {
+        return new BackfillProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = CacheProperties.PREFIX)
+    public CacheProperties cacheProperties() {
+        return new CacheProperties();
+    }
 }
@@ -0,0 +1,34 @@
+package com.dmsc.cryptofinanceservice.controller;
+
+import com.dmsc.cryptofinanceservice.model.rest.BackfillRequest;
+import com.dmsc.cryptofinanceservice.model.rest.BackfillResponse;
+import com.dmsc.cryptofinanceservice.service.BackfillService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(path = BackfillController.BASE_URL, produces = "application/json")
+public class BackfillController {
+    static final String BASE_URL = "/v1/backfill";
+
+    private final BackfillService backfillService;
+
+    public BackfillController(BackfillService backfillService) {
+        this.backfillService = backfillService;
+    }
+
+    /**
+     * Load the price history of the assets between both dates.
+     * The history is fetched in background, the response holds the number of windows still to load.
+     *
+     * @param request BackfillRequest
+     * @return ResponseEntity<BackfillResponse>
+     */
+    @PostMapping(consumes = "application/json")
+    public ResponseEntity<BackfillResponse> backfill(@RequestBody BackfillRequest request) {
+        return backfillService.startBackfill(request);
+    }
+}
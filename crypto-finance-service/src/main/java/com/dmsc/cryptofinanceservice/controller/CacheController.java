@@ -0,0 +1,52 @@
+package com.dmsc.cryptofinanceservice.controller;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheStatistics;
+import com.dmsc.cryptofinanceservice.service.AsOfPriceCachingService;
+import com.dmsc.cryptofinanceservice.service.CacheWarmupService;
+import com.dmsc.cryptofinanceservice.service.CryptoCachingService;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(path = CacheController.BASE_URL, produces = "application/json")
+public class CacheController {
+    static final String BASE_URL = "/v1/cache";
+
+    private final AsOfPriceCachingService asOfPriceCachingService;
+    private final CryptoCachingService cryptoCachingService;
+    private final CacheWarmupService cacheWarmupService;
+
+    public CacheController(AsOfPriceCachingService asOfPriceCachingService, CryptoCachingService cryptoCachingService, CacheWarmupService cacheWarmupService) {
+        this.asOfPriceCachingService = asOfPriceCachingService;
+        this.cryptoCachingService = cryptoCachingService;
+        this.cacheWarmupService = cacheWarmupService;
+    }
+
+    /**
+     * Size, hits, misses and evictions of the bounded in memory caches
+     *
+     * @return ResponseEntity<List<CacheStatistics>>
+     */
+    @GetMapping("/statistics")
+    public ResponseEntity<List<CacheStatistics>> getStatistics() {
+        return ResponseEntity.ok(List.of(asOfPriceCachingService.getStatistics(), cryptoCachingService.getStatistics()));
+    }
+
+    /**
+     * Readiness of the application, refusing traffic until the startup cache warmup completes
+     *
+     * @return ResponseEntity<ReadinessState>, 503 while refusing traffic
+     */
+    @GetMapping("/readiness")
+    public ResponseEntity<ReadinessState> getReadiness() {
+        ReadinessState readinessState = cacheWarmupService.getReadinessState();
+        return ResponseEntity.status(readinessState == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+            .body(readinessState);
+    }
+}
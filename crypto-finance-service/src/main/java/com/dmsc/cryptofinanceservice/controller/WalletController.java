@@ -2,19 +2,28 @@ package com.dmsc.cryptofinanceservice.controller;
 
 import com.dmsc.cryptofinanceservice.model.rest.CreateWalletRequest;
 import com.dmsc.cryptofinanceservice.model.rest.CreateWalletResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletHistoryPointResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletImportResponse;
 import com.dmsc.cryptofinanceservice.model.rest.WalletResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletValuationResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletsValuationRequest;
 import com.dmsc.cryptofinanceservice.service.WalletAggregatorService;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.InputStream;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
@@ -53,18 +62,66 @@ public class WalletController {
         return walletAggregatorService.manageWallet(request, frequency);
     }
 
+    /**
+     * Import a wallet from a plain text or csv body, read and stored as it's received, for big portfolios.
+     * Each line holds the symbol, quantity and price separated by a comma or a tab, with an optional header line.
+     * Invalid lines are skipped and reported with their line number.
+     *
+     * @param body      InputStream
+     * @param frequency Duration
+     * @return ResponseEntity<WalletImportResponse>
+     */
+    @PutMapping(value = "/import", consumes = {"text/plain", "text/csv"})
+    public ResponseEntity<WalletImportResponse> importWallet(InputStream body, @RequestParam(value = "frequency") Duration frequency) {
+        return walletAggregatorService.importWallet(body, frequency);
+    }
+
     /**
      * Get wallet info
-     * Returns details based on last available data or based on specified date
+     * Returns details based on last available data or based on specified date, the request thread is released
+     * while the prices are loaded.
+     * Without date the response has the version of the valuation as ETag, 304 is returned while it matches If-None-Match
      *
-     * @param walletId String walletId
-     * @param date     Instant
-     * @return ResponseEntity<WalletResponse>
+     * @param walletId    String walletId
+     * @param date        Instant
+     * @param ifNoneMatch String If-None-Match header
+     * @return Mono<ResponseEntity<WalletResponse>>
      */
     @GetMapping
-    public ResponseEntity<WalletResponse> getWalletInfo(@RequestParam(value = "walletId") String walletId,
-                                                        @RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant date) {
-        return walletAggregatorService.fetchWalletInfo(walletId, Optional.ofNullable(date));
+    public Mono<ResponseEntity<WalletResponse>> getWalletInfo(@RequestParam(value = "walletId") String walletId,
+                                                              @RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant date,
+                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return walletAggregatorService.fetchWalletInfo(walletId, Optional.ofNullable(date), Optional.ofNullable(ifNoneMatch));
+    }
+
+    /**
+     * Get wallet info of many wallets
+     * Returns details based on last available data or based on specified date, each wallet is streamed as a json line as soon as it's valued
+     *
+     * @param request WalletsValuationRequest
+     * @return Flux<WalletValuationResponse>
+     */
+    @PostMapping(value = "/valuations", consumes = "application/json", produces = "application/x-ndjson")
+    public Flux<WalletValuationResponse> getWalletsInfo(@RequestBody WalletsValuationRequest request) {
+        return walletAggregatorService.fetchWalletsInfo(request.getWalletIds(), Optional.ofNullable(request.getDate()));
+    }
+
+    /**
+     * Get wallet info over time
+     * Returns details at each step between both dates based on the stored prices, each point is streamed as a json line
+     *
+     * @param walletId String walletId
+     * @param start    Instant
+     * @param end      Instant
+     * @param step     Duration between points
+     * @return Flux<WalletHistoryPointResponse>
+     */
+    @GetMapping(value = "/{walletId}/history", produces = "application/x-ndjson")
+    public Flux<WalletHistoryPointResponse> getWalletHistory(@PathVariable(value = "walletId") String walletId,
+                                                             @RequestParam(value = "start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+                                                             @RequestParam(value = "end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end,
+                                                             @RequestParam(value = "step") Duration step) {
+        return walletAggregatorService.fetchWalletHistory(walletId, start, end, step);
     }
 
     /**
@@ -8,6 +8,10 @@ import java.io.Serializable;
 @Builder
 @Data
 public class CacheCryptoDetails implements Serializable {
+    /**
+     * Surrogate key of the asset table
+     */
+    private Integer assetId;
     private String externalId;
     private String symbol;
     private String name;
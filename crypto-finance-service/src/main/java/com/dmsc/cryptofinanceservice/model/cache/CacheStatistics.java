@@ -0,0 +1,15 @@
+package com.dmsc.cryptofinanceservice.model.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class CacheStatistics {
+    private String name;
+    private int size;
+    private int maxSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+}
@@ -0,0 +1,160 @@
+package com.dmsc.cryptofinanceservice.model.cache;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Thread safe map bounded to a max number of entries, the least recently used entry is evicted first.
+ * Hits, misses and evictions are counted for {@link CacheStatistics}.
+ * Optionally the keys are indexed by group, ordered within the group, so a range of a group is removed
+ * without scanning the whole map.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class LruCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final Map<K, V> entries;
+    // Entries by group, guarded by entries, null without group. Read without touching the access order of the entries
+    private final Function<K, ?> group;
+    private final Comparator<K> order;
+    private final Map<Object, NavigableMap<K, V>> entriesByGroup;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LruCache(String name, int maxSize) {
+        this(name, maxSize, null, null);
+    }
+
+    /**
+     * @param group function of the group of a key
+     * @param order order of the keys within a group
+     */
+    public LruCache(String name, int maxSize, Function<K, ?> group, Comparator<K> order) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.group = group;
+        this.order = order;
+        this.entriesByGroup = group == null ? null : new HashMap<>();
+        // Access order, a read moves the entry to the tail and the eldest entry is the least recently used
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.increment();
+                    unindex(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<V> get(K key) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return Optional.ofNullable(value);
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            // Indexed before the put, which can evict the eldest entry
+            index(key, value);
+            entries.put(key, value);
+        }
+    }
+
+    public void remove(K key) {
+        synchronized (entries) {
+            if (entries.remove(key) != null) {
+                unindex(key);
+            }
+        }
+    }
+
+    /**
+     * Remove the entries of the group of the key, from the key on, matching the predicate.
+     * Only the keys of the group from the key are visited, not the whole map.
+     *
+     * @param fromKey   first key of the range, inclusive
+     * @param predicate BiPredicate of key and value
+     * @return number of removed entries
+     */
+    public int removeFrom(K fromKey, BiPredicate<K, V> predicate) {
+        if (entriesByGroup == null) {
+            throw new IllegalStateException("Cache " + name + " is not indexed by group");
+        }
+        synchronized (entries) {
+            Object fromGroup = group.apply(fromKey);
+            NavigableMap<K, V> groupEntries = entriesByGroup.get(fromGroup);
+            if (groupEntries == null) {
+                return 0;
+            }
+            int removed = 0;
+            Iterator<Map.Entry<K, V>> iterator = groupEntries.tailMap(fromKey, true).entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, V> entry = iterator.next();
+                if (predicate.test(entry.getKey(), entry.getValue())) {
+                    entries.remove(entry.getKey());
+                    iterator.remove();
+                    removed++;
+                }
+            }
+            if (groupEntries.isEmpty()) {
+                entriesByGroup.remove(fromGroup);
+            }
+            return removed;
+        }
+    }
+
+    private void index(K key, V value) {
+        if (entriesByGroup != null) {
+            entriesByGroup.computeIfAbsent(group.apply(key), keyGroup -> new TreeMap<>(order)).put(key, value);
+        }
+    }
+
+    private void unindex(K key) {
+        if (entriesByGroup != null) {
+            Object keyGroup = group.apply(key);
+            NavigableMap<K, V> groupEntries = entriesByGroup.get(keyGroup);
+            if (groupEntries != null && groupEntries.remove(key) != null && groupEntries.isEmpty()) {
+                entriesByGroup.remove(keyGroup);
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        return CacheStatistics.builder()
+            .name(name)
+            .size(size())
+            .maxSize(maxSize)
+            .hits(hits.sum())
+            .misses(misses.sum())
+            .evictions(evictions.sum())
+            .build();
+    }
+}
@@ -0,0 +1,21 @@
+package com.dmsc.cryptofinanceservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.util.List;
+
+@AllArgsConstructor
+@Builder
+@Data
+@NoArgsConstructor
+public class AssetPriceHistoryDto {
+    private String externalId;
+    // Max age of a price to be used as the price at a later date
+    private Duration tolerance;
+    // Ordered by timestamp
+    private List<CryptoItemDto> prices;
+}
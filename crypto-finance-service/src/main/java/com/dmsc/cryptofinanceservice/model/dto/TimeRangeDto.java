@@ -0,0 +1,16 @@
+package com.dmsc.cryptofinanceservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeRangeDto {
+    private Instant start;
+    // Exclusive
+    private Instant end;
+}
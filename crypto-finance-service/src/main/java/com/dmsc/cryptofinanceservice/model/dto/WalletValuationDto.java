@@ -0,0 +1,19 @@
+package com.dmsc.cryptofinanceservice.model.dto;
+
+import com.dmsc.cryptofinanceservice.model.rest.WalletResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Data
+public class WalletValuationDto {
+    private WalletResponse wallet;
+    /**
+     * Version of the valuation, changes with the latest price applied to any asset of the wallet
+     */
+    private String version;
+}
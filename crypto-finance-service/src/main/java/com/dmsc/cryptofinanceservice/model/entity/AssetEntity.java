@@ -0,0 +1,26 @@
+package com.dmsc.cryptofinanceservice.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+/**
+ * Asset metadata, referenced by {@link CryptoPriceEntity} and {@link WalletAssetEntity} through its surrogate key
+ */
+@Data
+@Entity(name = "asset")
+public class AssetEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    /**
+     * External ID will be the coincap id field
+     */
+    @Column(unique = true, nullable = false)
+    private String externalId;
+    private String symbol;
+    private String name;
+}
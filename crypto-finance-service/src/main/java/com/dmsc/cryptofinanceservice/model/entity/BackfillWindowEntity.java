@@ -0,0 +1,46 @@
+package com.dmsc.cryptofinanceservice.model.entity;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Range of history of an asset, fetched with a single upstream request and bulk loaded into crypto_price.
+ * The table is created by the flyway migrations.
+ */
+@Data
+@Entity(name = "backfill_window")
+public class BackfillWindowEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    /**
+     * Surrogate key of the {@link AssetEntity}
+     */
+    private Integer assetId;
+    @Enumerated(EnumType.STRING)
+    private IntervalValue intervalValue;
+    private Instant windowStart;
+    private Instant windowEnd;
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    /**
+     * Number of failed runs of the window, each run already retries the upstream request
+     */
+    private int attempts;
+    private long loadedPrices;
+    private Instant updatedAt;
+
+    public enum Status {
+        PENDING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -4,6 +4,9 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -11,16 +14,25 @@ import java.time.Instant;
 
 @Data
 @Entity(name = "crypto_price")
+@Table(name = "crypto_price", indexes = {
+    // Serves latest and as-of lookups by asset, the table and its partitions are created by the flyway migrations
+    @Index(name = "idx_crypto_price_asset_id_time", columnList = "asset_id, time DESC")
+})
 public class CryptoPriceEntity {
+    public static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
+    /**
+     * Pooled sequence, one nextval call reserves ids for {@link CryptoPriceEntity#SEQUENCE_ALLOCATION_SIZE} rows.
+     * The increment of crypto_price_seq must match the allocation size.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "crypto_price_seq")
+    @SequenceGenerator(name = "crypto_price_seq", sequenceName = "crypto_price_seq", allocationSize = CryptoPriceEntity.SEQUENCE_ALLOCATION_SIZE)
     private Long id;
-    private String externalId;
     /**
-     * Probably duplicated data, can be normalized
+     * Surrogate key of the {@link AssetEntity}
      */
-    private String name;
-    private String symbol;
+    private Integer assetId;
     private BigDecimal price;
     private Instant time;
 }
@@ -0,0 +1,35 @@
+package com.dmsc.cryptofinanceservice.model.entity;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Range of history of an asset already stored on crypto_price, with a price every interval step.
+ * The table is created by the flyway migrations.
+ */
+@Data
+@Entity(name = "history_coverage")
+public class HistoryCoverageEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    /**
+     * Surrogate key of the {@link AssetEntity}
+     */
+    private Integer assetId;
+    @Enumerated(EnumType.STRING)
+    private IntervalValue intervalValue;
+    private Instant rangeStart;
+    /**
+     * Exclusive
+     */
+    private Instant rangeEnd;
+}
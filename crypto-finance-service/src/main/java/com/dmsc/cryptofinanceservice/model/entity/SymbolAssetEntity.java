@@ -0,0 +1,27 @@
+package com.dmsc.cryptofinanceservice.model.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Asset resolved for a symbol, shared by the wallet assets of every wallet.
+ * The table is created by the flyway migrations.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "symbol_asset")
+public class SymbolAssetEntity {
+    /**
+     * Upper case symbol
+     */
+    @Id
+    private String symbol;
+    /**
+     * Surrogate key of the {@link AssetEntity}
+     */
+    private Integer assetId;
+}
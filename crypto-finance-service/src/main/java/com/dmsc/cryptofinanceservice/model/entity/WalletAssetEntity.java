@@ -22,11 +22,10 @@ public class WalletAssetEntity {
     @JoinColumn(name = "wallet_id", nullable = false)
     private WalletEntity wallet;
     /**
-     * External ID will be the coincap id field
+     * Surrogate key of the {@link AssetEntity}, set once the symbol is resolved
      */
-    private String externalId;
+    private Integer assetId;
     private String symbol;
-    private String name;
     /**
      * Asset quantity in wallet
      */
@@ -41,9 +40,8 @@ public class WalletAssetEntity {
         return "WalletAssetEntity{" +
             "id=" + id +
             ", wallet=" + wallet.getId() +
-            ", externalId='" + externalId + '\'' +
+            ", assetId=" + assetId +
             ", symbol='" + symbol + '\'' +
-            ", name='" + name + '\'' +
             ", quantity=" + quantity +
             ", price=" + price +
             '}';
@@ -0,0 +1,22 @@
+package com.dmsc.cryptofinanceservice.model.rest;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@AllArgsConstructor
+@Data
+@NoArgsConstructor
+public class BackfillRequest {
+    // coincap ids of the assets
+    private List<String> assets;
+    // Interval between prices, M1 when not set
+    private IntervalValue interval;
+    private Instant start;
+    // Now when not set
+    private Instant end;
+}
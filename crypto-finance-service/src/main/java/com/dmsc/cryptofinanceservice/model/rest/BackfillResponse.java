@@ -0,0 +1,17 @@
+package com.dmsc.cryptofinanceservice.model.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@Builder
+@Data
+@NoArgsConstructor
+public class BackfillResponse {
+    // Windows of the requested range
+    private int windows;
+    // Windows not loaded yet, fetched in background
+    private int pendingWindows;
+}
@@ -0,0 +1,17 @@
+package com.dmsc.cryptofinanceservice.model.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@AllArgsConstructor
+@Builder
+@Data
+@NoArgsConstructor
+public class WalletHistoryPointResponse {
+    private Instant date;
+    private WalletResponse wallet;
+}
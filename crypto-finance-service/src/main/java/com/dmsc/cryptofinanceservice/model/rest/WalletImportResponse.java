@@ -0,0 +1,26 @@
+package com.dmsc.cryptofinanceservice.model.rest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@AllArgsConstructor
+@Builder
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WalletImportResponse {
+    // Wallet ID for future tracking, missing when no asset was imported
+    private UUID walletId;
+    private long importedAssets;
+    private long rejectedLines;
+    /**
+     * Reason of the first rejected lines, with their line number
+     */
+    private List<String> errors;
+}
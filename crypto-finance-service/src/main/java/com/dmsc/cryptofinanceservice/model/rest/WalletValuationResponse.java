@@ -0,0 +1,17 @@
+package com.dmsc.cryptofinanceservice.model.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@Builder
+@Data
+@NoArgsConstructor
+public class WalletValuationResponse {
+    private String walletId;
+    // Not set when the wallet could not be valued
+    private WalletResponse wallet;
+    private String error;
+}
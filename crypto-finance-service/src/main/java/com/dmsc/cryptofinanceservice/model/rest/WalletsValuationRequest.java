@@ -0,0 +1,17 @@
+package com.dmsc.cryptofinanceservice.model.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@AllArgsConstructor
+@Data
+@NoArgsConstructor
+public class WalletsValuationRequest {
+    private List<String> walletIds;
+    // Latest prices when not set
+    private Instant date;
+}
@@ -0,0 +1,30 @@
+package com.dmsc.cryptofinanceservice.properties;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class BackfillProperties {
+    public static final String PREFIX = "backfill";
+
+    /**
+     * Max number of history windows fetched and loaded at the same time
+     */
+    private int parallelism = 4;
+
+    /**
+     * Number of retries of a failed window before it's marked as failed
+     */
+    private int maxRetries = 3;
+
+    /**
+     * Initial delay between retries, doubled on each retry
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    /**
+     * When enabled the windows not completed by a previous run are resumed on startup
+     */
+    private boolean resumeOnStartup = true;
+}
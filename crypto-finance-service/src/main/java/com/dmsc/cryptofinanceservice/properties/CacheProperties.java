@@ -0,0 +1,33 @@
+package com.dmsc.cryptofinanceservice.properties;
+
+import lombok.Data;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+public class CacheProperties {
+    public static final String PREFIX = "cache";
+
+    /**
+     * Heap budget of the as-of price cache, the max number of entries is derived from it
+     */
+    private DataSize asOfPriceMaxMemory = DataSize.ofMegabytes(16);
+
+    /**
+     * Max number of assets kept in memory, evicted assets are read again from the database
+     */
+    private int assetMaxEntries = 10000;
+
+    /**
+     * Local file with a snapshot of the asset cache, loaded on startup instead of querying the asset table.
+     * Empty disables the snapshot.
+     */
+    private String assetSnapshotFile = Path.of(System.getProperty("java.io.tmpdir"), "crypto-finance-service", "asset-cache.snapshot").toString();
+
+    /**
+     * Snapshots older than this are ignored, the asset table is queried and a new snapshot is written
+     */
+    private Duration assetSnapshotMaxAge = Duration.ofDays(1);
+}
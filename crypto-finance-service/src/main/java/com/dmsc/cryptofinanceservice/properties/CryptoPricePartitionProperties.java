@@ -0,0 +1,25 @@
+package com.dmsc.cryptofinanceservice.properties;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class CryptoPricePartitionProperties {
+    public static final String PREFIX = "crypto-price.partitions";
+
+    /**
+     * When enabled the monthly crypto_price partitions are created ahead of time
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of months, after the current one, that must always have a partition
+     */
+    private int monthsAhead = 2;
+
+    /**
+     * Interval between checks for missing partitions
+     */
+    private Duration checkInterval = Duration.ofHours(12);
+}
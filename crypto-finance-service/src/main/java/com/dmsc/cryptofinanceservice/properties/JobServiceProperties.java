@@ -2,6 +2,7 @@ package com.dmsc.cryptofinanceservice.properties;
 
 import lombok.Data;
 
+import java.time.Duration;
 import java.time.Instant;
 
 @Data
@@ -9,4 +10,35 @@ public class JobServiceProperties {
     public static final String PREFIX = "jobs";
 
     private Instant jobDelayStartTime = Instant.ofEpochSecond(1);
+
+    /**
+     * How wallet jobs are scheduled
+     */
+    private Mode mode = Mode.PER_WALLET;
+
+    /**
+     * Interval used by the market poller to check which wallets are due for a refresh
+     */
+    private Duration marketPollerTick = Duration.ofSeconds(1);
+
+    /**
+     * When enabled each wallet job execution runs on its own virtual thread
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * Max number of wallet jobs running at the same time when {@link JobServiceProperties#virtualThreads} is enabled
+     */
+    private int maxConcurrentWallets = 256;
+
+    public enum Mode {
+        /**
+         * Each wallet has its own scheduled job fetching the prices of its assets
+         */
+        PER_WALLET,
+        /**
+         * A single market poller fetches, once per tick, the union of assets of all the wallets due for a refresh
+         */
+        MARKET_POLLER
+    }
 }
@@ -2,9 +2,71 @@ package com.dmsc.cryptofinanceservice.properties;
 
 import lombok.Data;
 
+import java.time.Duration;
+
 @Data
 public class WalletRequestProperties {
     public static final String PREFIX = "wallet.requests";
 
     private int numberOfThreads = 3;
+
+    /**
+     * Strategy used to refresh the latest prices of a wallet
+     */
+    private RefreshMode refreshMode = RefreshMode.PER_ASSET;
+
+    /**
+     * Max length of the comma separated ids sent on a single /assets?ids= request
+     */
+    private int maxIdsQueryLength = 1500;
+
+    /**
+     * Number of assets requested on a market snapshot, used when the requested ids don't fit a single request.
+     * A value of 0 disables the snapshot.
+     */
+    private int marketSnapshotLimit = 2000;
+
+    /**
+     * Max age of a stored price, before the requested date, to be used as the price at that date
+     */
+    private Duration asOfTolerance = Duration.ofMinutes(1);
+
+    /**
+     * Number of wallets whose assets and prices are loaded with a single query by the bulk valuation
+     */
+    private int bulkWalletsPerQuery = 1000;
+
+    /**
+     * Max number of points of a wallet history
+     */
+    private int maxHistoryPoints = 10_000;
+
+    /**
+     * Number of assets inserted with a single JDBC batch by the streaming wallet import
+     */
+    private int importBatchSize = 1000;
+
+    /**
+     * Max number of line errors reported by the streaming wallet import, the remaining ones are only counted
+     */
+    private int maxImportErrors = 100;
+
+    public enum RefreshMode {
+        /**
+         * One upstream request per asset, processed in groups of {@link WalletRequestProperties#numberOfThreads}
+         */
+        PER_ASSET,
+        /**
+         * Assets with a known external id are resolved with as few multi-id upstream requests as possible
+         */
+        MULTI_ASSET,
+        /**
+         * Non-blocking pipeline keeping up to {@link WalletRequestProperties#numberOfThreads} assets in flight
+         */
+        REACTIVE,
+        /**
+         * One virtual thread per asset, with up to {@link WalletRequestProperties#numberOfThreads} assets in flight
+         */
+        VIRTUAL_THREADS
+    }
 }
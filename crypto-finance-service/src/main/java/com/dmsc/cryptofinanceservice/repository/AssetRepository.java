@@ -0,0 +1,12 @@
+package com.dmsc.cryptofinanceservice.repository;
+
+import com.dmsc.cryptofinanceservice.model.entity.AssetEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AssetRepository extends JpaRepository<AssetEntity, Integer> {
+    Optional<AssetEntity> findByExternalId(String externalId);
+}
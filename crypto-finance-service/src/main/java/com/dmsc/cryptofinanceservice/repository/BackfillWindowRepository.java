@@ -0,0 +1,18 @@
+package com.dmsc.cryptofinanceservice.repository;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import com.dmsc.cryptofinanceservice.model.entity.BackfillWindowEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BackfillWindowRepository extends JpaRepository<BackfillWindowEntity, Long> {
+
+    List<BackfillWindowEntity> findByAssetIdAndIntervalValueAndWindowStartIn(Integer assetId, IntervalValue intervalValue, Collection<Instant> windowStarts);
+
+    List<BackfillWindowEntity> findByStatusNot(BackfillWindowEntity.Status status);
+}
@@ -1,34 +1,46 @@
 package com.dmsc.cryptofinanceservice.repository;
 
 import com.dmsc.cryptofinanceservice.model.entity.CryptoPriceEntity;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CryptoPriceRepository extends JpaRepository<CryptoPriceEntity, Long>, CryptoPriceRepositoryCustom {
-    Optional<CryptoPriceEntity> findTopByExternalIdOrderByTimeDesc(String externalId);
+    Optional<CryptoPriceEntity> findTopByAssetIdOrderByTimeDesc(Integer assetId);
 
     /**
-     * Find the first price for an externalId at the second mark and not full instant
+     * Find the latest price of each asset
      *
-     * @param externalId String
-     * @param time       Instant
+     * @return List<CryptoPriceEntity>
+     */
+    @Query(value = "SELECT DISTINCT ON (c.asset_id) c.* FROM crypto_price c " +
+        "ORDER BY c.asset_id, c.time DESC", nativeQuery = true)
+    List<CryptoPriceEntity> findLatestPrices();
+
+    /**
+     * Find the as-of price for an asset: the latest price at or before the given instant, not older than the lower bound.
+     * Expressed as a range on (asset_id, time) to be served by the composite index
+     *
+     * @param assetId Integer
+     * @param from    Instant lower bound, inclusive
+     * @param time    Instant as-of instant, inclusive
      * @return Optional<CryptoPriceEntity>
      */
-    @Query("SELECT c FROM crypto_price c " +
-        "WHERE c.externalId = :externalId " +
-        "AND DATE_TRUNC('second', c.time) = DATE_TRUNC('second', CAST(:time AS TIMESTAMP)) " +
-        "ORDER BY c.time DESC")
-    Page<CryptoPriceEntity> findTopByExternalIdAndTimeOrderByTimeDesc(
-        @Param("externalId") String externalId,
-        @Param("time") Instant time,
-        Pageable pageable
-    );
+    Optional<CryptoPriceEntity> findTopByAssetIdAndTimeBetweenOrderByTimeDesc(Integer assetId, Instant from, Instant time);
+
+    /**
+     * Find the prices of an asset between both instants, ordered by time.
+     * Expressed as a range on (asset_id, time) to be served by the composite index
+     *
+     * @param assetId Integer
+     * @param from    Instant lower bound, inclusive
+     * @param to      Instant upper bound, inclusive
+     * @return List<CryptoPriceEntity>
+     */
+    List<CryptoPriceEntity> findByAssetIdAndTimeBetweenOrderByTimeAsc(Integer assetId, Instant from, Instant to);
 }
@@ -2,8 +2,10 @@ package com.dmsc.cryptofinanceservice.repository;
 
 import com.dmsc.cryptofinanceservice.model.entity.CryptoPriceEntity;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface CryptoPriceRepositoryCustom {
-    List<CryptoPriceEntity> findDistinctEntities();
+    List<CryptoPriceEntity> findLatestPricesByAssetIds(Collection<Integer> assetIds, Instant from, Instant date);
 }
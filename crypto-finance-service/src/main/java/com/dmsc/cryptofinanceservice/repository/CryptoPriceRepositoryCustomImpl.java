@@ -2,12 +2,12 @@ package com.dmsc.cryptofinanceservice.repository;
 
 import com.dmsc.cryptofinanceservice.model.entity.CryptoPriceEntity;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Root;
-import jakarta.persistence.criteria.Subquery;
+import jakarta.persistence.Query;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -20,36 +20,40 @@ public class CryptoPriceRepositoryCustomImpl implements CryptoPriceRepositoryCus
     }
 
     /**
-     * Find all distinct entities for {@link CryptoPriceEntity}
-     * This method demonstrates the use of the Criteria API to query the {@link CryptoPriceEntity} database table.
-     * It selects distinct {@link CryptoPriceEntity} rows based on the fields {@link CryptoPriceEntity#getExternalId()}, {@link CryptoPriceEntity#getName()}, and {@link CryptoPriceEntity#getSymbol()},
-     * while ensuring these fields are non-null.
+     * Find the latest {@link CryptoPriceEntity} of each asset with a single query.
+     * Uses Postgres DISTINCT ON, ordering each asset by time desc, to keep only the first row per asset.
+     * When the date is set, the as-of price is returned: the latest price at or before the date, not older than from.
+     * Both bounds are plain range predicates on time, so the (asset_id, time) index can be used.
      *
-     * @return List<CryptoPriceEntity>
+     * @param assetIds Collection of asset ids
+     * @param from     Instant lower bound, optional
+     * @param date     Instant upper bound, optional
+     * @return List<CryptoPriceEntity> with at most one entity per asset
      */
-    public List<CryptoPriceEntity> findDistinctEntities() {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<CryptoPriceEntity> cq = cb.createQuery(CryptoPriceEntity.class);
-        Root<CryptoPriceEntity> root = cq.from(CryptoPriceEntity.class);
-
-        // Filter non-null fields before performing group by
-        cq.where(
-            cb.isNotNull(root.get("externalId")),
-            cb.isNotNull(root.get("name")),
-            cb.isNotNull(root.get("symbol"))
-        );
-
-        // Subquery to get the minimum ID for each distinct externalId, name, and symbol
-        Subquery<Long> subquery = cq.subquery(Long.class);
-        Root<CryptoPriceEntity> subRoot = subquery.from(CryptoPriceEntity.class);
-
-        // Group by externalId, name, and symbol in the subquery
-        subquery.select(cb.min(subRoot.get("id")));
-        subquery.groupBy(subRoot.get("externalId"), subRoot.get("name"), subRoot.get("symbol"));
-
-        // Add condition to the main query: only select those entities where the ID is in the subquery result
-        cq.select(root).where(cb.in(root.get("id")).value(subquery));
-
-        return entityManager.createQuery(cq).getResultList();
+    @SuppressWarnings("unchecked")
+    public List<CryptoPriceEntity> findLatestPricesByAssetIds(Collection<Integer> assetIds, Instant from, Instant date) {
+        if (assetIds == null || assetIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT DISTINCT ON (c.asset_id) c.* FROM crypto_price c ")
+            .append("WHERE c.asset_id IN (:assetIds) ");
+        if (from != null) {
+            sql.append("AND c.time >= :from ");
+        }
+        if (date != null) {
+            sql.append("AND c.time <= :time ");
+        }
+        sql.append("ORDER BY c.asset_id, c.time DESC");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), CryptoPriceEntity.class)
+            .setParameter("assetIds", assetIds);
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (date != null) {
+            query.setParameter("time", date);
+        }
+        return query.getResultList();
     }
 }
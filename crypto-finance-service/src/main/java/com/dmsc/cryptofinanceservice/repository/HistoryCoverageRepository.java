@@ -0,0 +1,9 @@
+package com.dmsc.cryptofinanceservice.repository;
+
+import com.dmsc.cryptofinanceservice.model.entity.HistoryCoverageEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HistoryCoverageRepository extends JpaRepository<HistoryCoverageEntity, Long> {
+}
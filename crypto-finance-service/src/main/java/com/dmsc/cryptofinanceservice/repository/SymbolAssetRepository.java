@@ -0,0 +1,25 @@
+package com.dmsc.cryptofinanceservice.repository;
+
+import com.dmsc.cryptofinanceservice.model.entity.SymbolAssetEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SymbolAssetRepository extends JpaRepository<SymbolAssetEntity, String> {
+
+    /**
+     * Map the symbol to the asset, keeping the existing mapping when the symbol is already mapped
+     *
+     * @param symbol  upper case symbol
+     * @param assetId Integer
+     * @return number of inserted rows
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO symbol_asset (symbol, asset_id) VALUES (:symbol, :assetId) ON CONFLICT (symbol) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("symbol") String symbol, @Param("assetId") Integer assetId);
+}
@@ -2,15 +2,48 @@ package com.dmsc.cryptofinanceservice.repository;
 
 import com.dmsc.cryptofinanceservice.model.entity.WalletAssetEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
 public interface WalletAssetRepository extends JpaRepository<WalletAssetEntity, Long> {
     List<WalletAssetEntity> findByWalletId(UUID uuid);
 
-    Optional<WalletAssetEntity> findByWalletIdAndId(UUID walletId, Long walletAssetId);
+    List<WalletAssetEntity> findByWalletIdIn(Collection<UUID> walletIds);
+
+    /**
+     * Find the union of asset ids held by the given wallets
+     *
+     * @param walletIds Collection of wallet ids
+     * @return Set<Integer>
+     */
+    @Query("SELECT DISTINCT a.assetId FROM wallet_assets a " +
+        "WHERE a.wallet.id IN :walletIds " +
+        "AND a.assetId IS NOT NULL")
+    Set<Integer> findDistinctAssetIdsByWalletIdIn(@Param("walletIds") Collection<UUID> walletIds);
+
+    List<WalletAssetEntity> findByWalletIdInAndAssetIdIsNull(Collection<UUID> walletIds);
+
+    /**
+     * Set the asset of a wallet asset
+     *
+     * @param walletId      UUID
+     * @param walletAssetId Long
+     * @param assetId       Integer
+     * @return number of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE wallet_assets a SET a.assetId = :assetId " +
+        "WHERE a.wallet.id = :walletId " +
+        "AND a.id = :walletAssetId")
+    int updateAssetId(@Param("walletId") UUID walletId, @Param("walletAssetId") Long walletAssetId, @Param("assetId") Integer assetId);
 }
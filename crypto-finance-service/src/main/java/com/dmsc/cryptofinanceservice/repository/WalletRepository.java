@@ -2,10 +2,24 @@ package com.dmsc.cryptofinanceservice.repository;
 
 import com.dmsc.cryptofinanceservice.model.entity.WalletEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
 public interface WalletRepository extends JpaRepository<WalletEntity, UUID> {
+
+    /**
+     * Find which of the given wallets exist, only their ids are selected.
+     * Loading the entities would also load the job of each wallet, its one to one mapping can't be lazy.
+     *
+     * @param walletIds Collection of wallet ids
+     * @return Set<UUID>
+     */
+    @Query("SELECT w.id FROM wallet w WHERE w.id IN :walletIds")
+    Set<UUID> findIdsByIdIn(@Param("walletIds") Collection<UUID> walletIds);
 }
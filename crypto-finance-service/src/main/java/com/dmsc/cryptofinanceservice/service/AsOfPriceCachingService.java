@@ -0,0 +1,107 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheStatistics;
+import com.dmsc.cryptofinanceservice.model.cache.LruCache;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.properties.CacheProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.Optional;
+
+/**
+ * In memory table with the as-of price of an asset at a minute, the latest price at or before the start of the minute,
+ * keyed by external id and minute. Every date of the minute shares the entry, so callers look up the as-of price
+ * at the minute of the date, not at the date itself.
+ * Used as the first lookup tier for the historical prices, the database is only queried on a miss.
+ * Entries don't expire, they are evicted when the cache is full, the least recently used first,
+ * or when history stored afterwards holds a closer price, see {@link AsOfPriceCachingService#evictPrices(String, Instant, Instant)}.
+ */
+@Service
+public class AsOfPriceCachingService {
+    /**
+     * Estimated heap of an entry: map and index nodes, key with the external id, and CryptoItemDto with its strings, BigDecimal and Instant
+     */
+    static final long ENTRY_SIZE_BYTES = 512;
+
+    private final LruCache<AsOfKey, CryptoItemDto> asOfPrices;
+    private final Clock clock;
+
+    @Autowired
+    public AsOfPriceCachingService(CacheProperties cacheProperties) {
+        this(cacheProperties, Clock.systemUTC());
+    }
+
+    AsOfPriceCachingService(CacheProperties cacheProperties, Clock clock) {
+        long maxEntries = cacheProperties.getAsOfPriceMaxMemory().toBytes() / ENTRY_SIZE_BYTES;
+        // Indexed by external id, so evicting the prices of an asset only visits its own minutes
+        this.asOfPrices = new LruCache<>("as-of-price", (int) Math.min(Integer.MAX_VALUE, maxEntries),
+            AsOfKey::externalId, Comparator.comparing(AsOfKey::minute));
+        this.clock = clock;
+    }
+
+    /**
+     * Get the cached as-of price of the asset at the minute of the date
+     *
+     * @param externalId CryptoAsset ExternalId
+     * @param date       Instant
+     * @return Optional<CryptoItemDto>
+     */
+    public Optional<CryptoItemDto> getPrice(String externalId, Instant date) {
+        if (externalId == null || date == null) {
+            return Optional.empty();
+        }
+        return asOfPrices.get(new AsOfKey(externalId, date.truncatedTo(ChronoUnit.MINUTES)));
+    }
+
+    /**
+     * Cache the as-of price of the asset at the minute of the date.
+     * Prices of the current minute, or after it, are not cached, a newer price can still be ingested for it.
+     * Prices after the start of the minute are not the as-of price of the minute and are not cached either.
+     *
+     * @param externalId    CryptoAsset ExternalId
+     * @param date          Instant
+     * @param cryptoItemDto CryptoItemDto
+     */
+    public void putPrice(String externalId, Instant date, CryptoItemDto cryptoItemDto) {
+        if (externalId == null || date == null || cryptoItemDto == null) {
+            return;
+        }
+        Instant minute = date.truncatedTo(ChronoUnit.MINUTES);
+        if (!minute.plus(1, ChronoUnit.MINUTES).isBefore(clock.instant())) {
+            return;
+        }
+        if (cryptoItemDto.getTimestamp() != null && cryptoItemDto.getTimestamp().isAfter(minute)) {
+            return;
+        }
+        asOfPrices.put(new AsOfKey(externalId, minute), cryptoItemDto);
+    }
+
+    /**
+     * Evict the as-of prices of the asset that prices stored between both dates can replace:
+     * the minutes from the start whose cached price is older than the end.
+     *
+     * @param externalId CryptoAsset ExternalId
+     * @param start      Instant of the first stored price
+     * @param end        Instant, exclusive
+     */
+    public void evictPrices(String externalId, Instant start, Instant end) {
+        if (externalId == null || start == null || end == null) {
+            return;
+        }
+        Instant startMinute = start.truncatedTo(ChronoUnit.MINUTES);
+        asOfPrices.removeFrom(new AsOfKey(externalId, startMinute),
+            (key, cryptoItemDto) -> cryptoItemDto.getTimestamp() == null || cryptoItemDto.getTimestamp().isBefore(end));
+    }
+
+    public CacheStatistics getStatistics() {
+        return asOfPrices.getStatistics();
+    }
+
+    private record AsOfKey(String externalId, Instant minute) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.entity.AssetEntity;
+import com.dmsc.cryptofinanceservice.repository.AssetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Owns the asset dimension table.
+ * The assets are kept on {@link CryptoCachingService}, so resolving an asset id or an externalId doesn't hit the database,
+ * only the assets evicted from it are read again.
+ */
+@Slf4j
+@Service
+public class AssetService {
+
+    private final AssetRepository assetRepository;
+    private final CryptoCachingService cryptoCachingService;
+    private final AssetSnapshotService assetSnapshotService;
+
+    private volatile boolean warmedUp;
+
+    public AssetService(AssetRepository assetRepository, CryptoCachingService cryptoCachingService, AssetSnapshotService assetSnapshotService) {
+        this.assetRepository = assetRepository;
+        this.cryptoCachingService = cryptoCachingService;
+        this.assetSnapshotService = assetSnapshotService;
+    }
+
+    /**
+     * Method responsible to load the asset table into {@link CryptoCachingService}.
+     * The assets are loaded from the local snapshot when there's a recent one, otherwise from the asset table,
+     * writing a new snapshot.
+     * Until it completes, lookups of assets not loaded yet fall back to the database.
+     *
+     * @return number of loaded assets
+     */
+    public int warmUpCache() {
+        Optional<List<CacheCryptoDetails>> snapshot = assetSnapshotService.read();
+        int loaded;
+        if (snapshot.isPresent()) {
+            snapshot.get().forEach(asset -> cryptoCachingService.addToCache(asset.getAssetId(), asset.getExternalId(), asset.getName(), asset.getSymbol()));
+            loaded = snapshot.get().size();
+            log.info("Loaded {} assets from the local snapshot", loaded);
+        } else {
+            List<AssetEntity> assets = assetRepository.findAll();
+            assets.forEach(this::addToCache);
+            loaded = assets.size();
+            log.info("Loaded {} assets from the database", loaded);
+            assetSnapshotService.write(cryptoCachingService.getAllAssetDetails());
+        }
+        warmedUp = true;
+        return loaded;
+    }
+
+    /**
+     * Write the cached assets, with the ones created since the warmup, to the local snapshot for the next start
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void writeSnapshot() {
+        // A snapshot of a cache not fully loaded would leave the next start without the assets not loaded yet
+        if (warmedUp) {
+            assetSnapshotService.write(cryptoCachingService.getAllAssetDetails());
+        }
+    }
+
+    private CacheCryptoDetails addToCache(AssetEntity assetEntity) {
+        return cryptoCachingService.addToCache(assetEntity.getId(), assetEntity.getExternalId(), assetEntity.getName(), assetEntity.getSymbol());
+    }
+
+    public Optional<CacheCryptoDetails> findByAssetId(Integer assetId) {
+        if (assetId == null) {
+            return Optional.empty();
+        }
+        return cryptoCachingService.getAssetDetails(assetId)
+            .or(() -> assetRepository.findById(assetId).map(this::addToCache));
+    }
+
+    public Optional<CacheCryptoDetails> findByExternalId(String externalId) {
+        if (!StringUtils.hasText(externalId)) {
+            return Optional.empty();
+        }
+        return cryptoCachingService.getAssetDetails(externalId)
+            .or(() -> assetRepository.findByExternalId(externalId).map(this::addToCache));
+    }
+
+    /**
+     * Resolve the externalId of a symbol from the cached assets, without requesting the search by symbol upstream
+     *
+     * @param symbol String
+     * @return Optional with the externalId, empty when the symbol is not cached
+     */
+    public Optional<String> findExternalIdBySymbol(String symbol) {
+        return cryptoCachingService.getExternalIdBySymbol(symbol);
+    }
+
+    /**
+     * Get the asset of the externalId, creating it when it doesn't exist yet.
+     * Missing name or symbol of an existing asset are filled with the given values.
+     *
+     * @param externalId CryptoAsset ExternalId
+     * @param name       String, optional
+     * @param symbol     String, optional
+     * @return CacheCryptoDetails
+     */
+    public CacheCryptoDetails getOrCreateAsset(String externalId, String name, String symbol) {
+        Optional<CacheCryptoDetails> existing = findByExternalId(externalId);
+        if (existing.isPresent() && !isMissingDetails(existing.get(), name, symbol)) {
+            return existing.get();
+        }
+
+        synchronized (this) {
+            AssetEntity assetEntity = assetRepository.findByExternalId(externalId).orElseGet(() -> {
+                AssetEntity newAsset = new AssetEntity();
+                newAsset.setExternalId(externalId);
+                return newAsset;
+            });
+            if (!StringUtils.hasText(assetEntity.getName()) && StringUtils.hasText(name)) {
+                assetEntity.setName(name);
+            }
+            if (!StringUtils.hasText(assetEntity.getSymbol()) && StringUtils.hasText(symbol)) {
+                assetEntity.setSymbol(symbol);
+            }
+
+            try {
+                return addToCache(assetRepository.save(assetEntity));
+            } catch (DataIntegrityViolationException e) {
+                // Created by another instance in the meantime
+                log.debug("Asset {} already exists: {}", externalId, e.getMessage());
+                return assetRepository.findByExternalId(externalId)
+                    .map(this::addToCache)
+                    .orElseThrow(() -> e);
+            }
+        }
+    }
+
+    private static boolean isMissingDetails(CacheCryptoDetails cacheCryptoDetails, String name, String symbol) {
+        return (!StringUtils.hasText(cacheCryptoDetails.getName()) && StringUtils.hasText(name))
+            || (!StringUtils.hasText(cacheCryptoDetails.getSymbol()) && StringUtils.hasText(symbol));
+    }
+}
@@ -0,0 +1,145 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.properties.CacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Local snapshot of the asset cache, so a restart loads the assets from a file instead of the asset table.
+ * <p>
+ * The file is a header, with a magic number, the creation time and the number of assets, followed by one record per asset:
+ * the asset id and the length prefixed UTF-8 externalId, symbol and name, a length of -1 for null.
+ * It's read by memory mapping it, the records are decoded straight from the mapped buffer.
+ * A snapshot not matching the layout or older than {@link CacheProperties#getAssetSnapshotMaxAge()} is ignored.
+ */
+@Slf4j
+@Service
+public class AssetSnapshotService {
+    static final int MAGIC = 0x41534E31;
+
+    private final Path snapshotFile;
+    private final Duration maxAge;
+    private final Clock clock;
+
+    @Autowired
+    public AssetSnapshotService(CacheProperties cacheProperties) {
+        this(cacheProperties, Clock.systemUTC());
+    }
+
+    AssetSnapshotService(CacheProperties cacheProperties, Clock clock) {
+        this.snapshotFile = StringUtils.hasText(cacheProperties.getAssetSnapshotFile()) ? Path.of(cacheProperties.getAssetSnapshotFile()) : null;
+        this.maxAge = cacheProperties.getAssetSnapshotMaxAge();
+        this.clock = clock;
+    }
+
+    /**
+     * Read the assets of the snapshot
+     *
+     * @return Optional with the assets, empty when the snapshot is disabled, missing, invalid or too old
+     */
+    public Optional<List<CacheCryptoDetails>> read() {
+        if (snapshotFile == null || !Files.isReadable(snapshotFile)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                log.warn("Ignoring asset snapshot {}, unknown format", snapshotFile);
+                return Optional.empty();
+            }
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+            if (createdAt.plus(maxAge).isBefore(clock.instant())) {
+                log.info("Ignoring asset snapshot {}, created at {}", snapshotFile, createdAt);
+                return Optional.empty();
+            }
+            int count = buffer.getInt();
+            List<CacheCryptoDetails> assets = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                assets.add(CacheCryptoDetails.builder()
+                    .assetId(buffer.getInt())
+                    .externalId(readString(buffer))
+                    .symbol(readString(buffer))
+                    .name(readString(buffer))
+                    .build());
+            }
+            return Optional.of(assets);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Ignoring asset snapshot {}: {}", snapshotFile, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replace the snapshot with the given assets.
+     * The snapshot is written to a temporary file and moved over the previous one, a reader never sees a partial snapshot.
+     *
+     * @param assets Collection of CacheCryptoDetails
+     */
+    public void write(Collection<CacheCryptoDetails> assets) {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            Path directory = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                output.writeInt(MAGIC);
+                output.writeLong(clock.millis());
+                output.writeInt(assets.size());
+                for (CacheCryptoDetails asset : assets) {
+                    output.writeInt(asset.getAssetId());
+                    writeString(output, asset.getExternalId());
+                    writeString(output, asset.getSymbol());
+                    writeString(output, asset.getName());
+                }
+            }
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Asset snapshot {} written with {} assets", snapshotFile, assets.size());
+        } catch (IOException e) {
+            log.warn("Failed to write asset snapshot {}: {}", snapshotFile, e.toString());
+        }
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
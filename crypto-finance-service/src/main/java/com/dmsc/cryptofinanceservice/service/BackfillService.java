@@ -0,0 +1,245 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.entity.BackfillWindowEntity;
+import com.dmsc.cryptofinanceservice.model.rest.BackfillRequest;
+import com.dmsc.cryptofinanceservice.model.rest.BackfillResponse;
+import com.dmsc.cryptofinanceservice.properties.BackfillProperties;
+import com.dmsc.cryptofinanceservice.repository.BackfillWindowRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the price history of a set of assets into crypto_price.
+ * The requested range is split into windows aligned to the max span upstream accepts for the interval, so the same
+ * window is always requested for the same time, independently of the requested range.
+ * Windows are fetched with bounded parallelism, retried with backoff and bulk loaded with {@link CryptoPriceBulkLoadService}.
+ * Each window is recorded on backfill_window, completed windows are skipped and the pending ones are resumed on startup.
+ * The windows running on this instance are tracked, a window is not planned nor run again while it's running.
+ * The range of a completed window is added to {@link HistoryCoverageService}, and the as-of prices cached for it are evicted.
+ */
+@Slf4j
+@Service
+public class BackfillService {
+    private static final IntervalValue DEFAULT_INTERVAL = IntervalValue.M1;
+
+    private final BackfillWindowRepository backfillWindowRepository;
+    private final CryptoPriceBulkLoadService cryptoPriceBulkLoadService;
+    private final AssetService assetService;
+    private final HistoryCoverageService historyCoverageService;
+    private final AsOfPriceCachingService asOfPriceCachingService;
+    private final int parallelism;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final boolean resumeOnStartup;
+    // Ids of the windows running on this instance
+    private final Set<Long> runningWindows = ConcurrentHashMap.newKeySet();
+
+    public BackfillService(BackfillWindowRepository backfillWindowRepository,
+                           CryptoPriceBulkLoadService cryptoPriceBulkLoadService,
+                           AssetService assetService,
+                           HistoryCoverageService historyCoverageService,
+                           AsOfPriceCachingService asOfPriceCachingService,
+                           BackfillProperties backfillProperties) {
+        this.backfillWindowRepository = backfillWindowRepository;
+        this.cryptoPriceBulkLoadService = cryptoPriceBulkLoadService;
+        this.assetService = assetService;
+        this.historyCoverageService = historyCoverageService;
+        this.asOfPriceCachingService = asOfPriceCachingService;
+        this.parallelism = backfillProperties.getParallelism();
+        this.maxRetries = backfillProperties.getMaxRetries();
+        this.retryBackoff = backfillProperties.getRetryBackoff();
+        this.resumeOnStartup = backfillProperties.isResumeOnStartup();
+    }
+
+    /**
+     * Split the range in windows aligned to the max span of the interval.
+     * The end of a window is capped at now, a window still open is loaded again on the next backfill.
+     *
+     * @param interval IntervalValue
+     * @param start    Instant
+     * @param end      Instant, exclusive
+     * @param now      Instant
+     * @return List of windows, without asset
+     */
+    static List<BackfillWindowEntity> splitRange(IntervalValue interval, Instant start, Instant end, Instant now) {
+        long spanMillis = interval.getMaxSpan().toMillis();
+        Instant rangeEnd = end.isAfter(now) ? now : end;
+        List<BackfillWindowEntity> windows = new ArrayList<>();
+        Instant windowStart = Instant.ofEpochMilli(Math.floorDiv(start.toEpochMilli(), spanMillis) * spanMillis);
+        while (windowStart.isBefore(rangeEnd)) {
+            Instant windowEnd = windowStart.plusMillis(spanMillis);
+            BackfillWindowEntity window = new BackfillWindowEntity();
+            window.setIntervalValue(interval);
+            window.setWindowStart(windowStart);
+            window.setWindowEnd(windowEnd.isAfter(now) ? now : windowEnd);
+            window.setStatus(BackfillWindowEntity.Status.PENDING);
+            windows.add(window);
+            windowStart = windowEnd;
+        }
+        return windows;
+    }
+
+    /**
+     * Plan the windows of the request and load the pending ones in background
+     *
+     * @param request BackfillRequest
+     * @return ResponseEntity<BackfillResponse>
+     */
+    public ResponseEntity<BackfillResponse> startBackfill(BackfillRequest request) {
+        if (CollectionUtils.isEmpty(request.getAssets()) || request.getStart() == null ||
+            (request.getEnd() != null && !request.getStart().isBefore(request.getEnd()))) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        IntervalValue interval = request.getInterval() == null ? DEFAULT_INTERVAL : request.getInterval();
+        Instant now = Instant.now();
+        Instant end = request.getEnd() == null ? now : request.getEnd();
+
+        int windows = 0;
+        List<BackfillWindowEntity> pendingWindows = new ArrayList<>();
+        for (String externalId : new LinkedHashSet<>(request.getAssets())) {
+            if (!StringUtils.hasText(externalId)) {
+                continue;
+            }
+            List<BackfillWindowEntity> assetWindows = splitRange(interval, request.getStart(), end, now);
+            windows += assetWindows.size();
+            pendingWindows.addAll(planWindows(externalId, assetWindows));
+        }
+
+        log.info("Backfill of {} windows, {} pending, for {} between {} and {} with interval {}",
+            windows, pendingWindows.size(), request.getAssets(), request.getStart(), end, interval);
+        runWindows(pendingWindows).subscribe();
+
+        BackfillResponse response = BackfillResponse.builder()
+            .windows(windows)
+            .pendingWindows(pendingWindows.size())
+            .build();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    /**
+     * Persist the windows of an asset, windows already completed up to their planned end or running are left out
+     *
+     * @param externalId CryptoAsset ExternalId
+     * @param windows    windows from {@link BackfillService#splitRange(IntervalValue, Instant, Instant, Instant)}
+     * @return List of pending windows
+     */
+    synchronized List<BackfillWindowEntity> planWindows(String externalId, List<BackfillWindowEntity> windows) {
+        if (windows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Integer assetId = assetService.getOrCreateAsset(externalId, null, null).getAssetId();
+        IntervalValue interval = windows.getFirst().getIntervalValue();
+        Map<Instant, BackfillWindowEntity> existingWindows = backfillWindowRepository.findByAssetIdAndIntervalValueAndWindowStartIn(
+                assetId, interval, windows.stream().map(BackfillWindowEntity::getWindowStart).toList())
+            .stream()
+            .collect(Collectors.toMap(BackfillWindowEntity::getWindowStart, Function.identity()));
+
+        List<BackfillWindowEntity> pendingWindows = new ArrayList<>();
+        for (BackfillWindowEntity window : windows) {
+            BackfillWindowEntity existingWindow = existingWindows.get(window.getWindowStart());
+            if (existingWindow != null && existingWindow.getId() != null && runningWindows.contains(existingWindow.getId())) {
+                continue;
+            }
+            if (existingWindow == null) {
+                window.setAssetId(assetId);
+                window.setUpdatedAt(Instant.now());
+                pendingWindows.add(window);
+            } else if (existingWindow.getStatus() != BackfillWindowEntity.Status.COMPLETED ||
+                existingWindow.getWindowEnd().isBefore(window.getWindowEnd())) {
+                existingWindow.setWindowEnd(window.getWindowEnd());
+                existingWindow.setStatus(BackfillWindowEntity.Status.PENDING);
+                existingWindow.setUpdatedAt(Instant.now());
+                pendingWindows.add(existingWindow);
+            }
+        }
+        return backfillWindowRepository.saveAll(pendingWindows);
+    }
+
+    /**
+     * Load the windows, at most {@link BackfillService#parallelism} at the same time.
+     * Windows already running on this instance are skipped.
+     *
+     * @param windows List of BackfillWindowEntity
+     * @return Mono with the number of inserted prices
+     */
+    Mono<Long> runWindows(List<BackfillWindowEntity> windows) {
+        return Flux.fromIterable(windows)
+            .filter(window -> window.getId() == null || runningWindows.add(window.getId()))
+            .flatMap(window -> runWindow(window)
+                .doFinally(signal -> {
+                    if (window.getId() != null) {
+                        runningWindows.remove(window.getId());
+                    }
+                }), parallelism)
+            .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> runWindow(BackfillWindowEntity window) {
+        return Mono.fromCallable(() -> assetService.findByAssetId(window.getAssetId())
+                .map(CacheCryptoDetails::getExternalId)
+                .orElseThrow(() -> new IllegalStateException("Unknown asset " + window.getAssetId())))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(externalId -> cryptoPriceBulkLoadService.loadHistory(externalId, window.getIntervalValue(), window.getWindowStart(), window.getWindowEnd())
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff))
+                .doOnNext(loadedPrices -> {
+                    if (loadedPrices > 0) {
+                        asOfPriceCachingService.evictPrices(externalId, window.getWindowStart(), window.getWindowEnd());
+                    }
+                }))
+            .publishOn(Schedulers.boundedElastic())
+            .map(loadedPrices -> {
+                window.setStatus(BackfillWindowEntity.Status.COMPLETED);
+                window.setLoadedPrices(loadedPrices);
+                window.setUpdatedAt(Instant.now());
+                backfillWindowRepository.save(window);
+                historyCoverageService.addCoverage(window.getAssetId(), window.getIntervalValue(), window.getWindowStart(), window.getWindowEnd());
+                return loadedPrices;
+            })
+            .onErrorResume(e -> Mono.fromCallable(() -> {
+                log.error("Failed to backfill asset {} between {} and {}: {}", window.getAssetId(), window.getWindowStart(), window.getWindowEnd(), e.getMessage());
+                window.setStatus(BackfillWindowEntity.Status.FAILED);
+                window.setAttempts(window.getAttempts() + 1);
+                window.setUpdatedAt(Instant.now());
+                backfillWindowRepository.save(window);
+                return 0L;
+            }).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    /**
+     * Resume the windows left pending or failed by a previous run
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeBackfills() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        List<BackfillWindowEntity> windows = backfillWindowRepository.findByStatusNot(BackfillWindowEntity.Status.COMPLETED);
+        if (!windows.isEmpty()) {
+            log.info("Resuming {} backfill windows", windows.size());
+            runWindows(windows).subscribe();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.repository.CryptoPriceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Warms up the asset and latest price caches and the history coverage once the application is ready, without holding the startup.
+ * The asset cache, the latest prices query and the history coverage run in parallel, the latest prices are mapped once the assets are loaded.
+ * The readiness reported is refusing traffic until the warmup completes, requests served in the meantime
+ * fall back to the database. The application availability is only read, no readiness event is published.
+ */
+@Slf4j
+@Service
+public class CacheWarmupService {
+
+    private final AssetService assetService;
+    private final CryptoPriceService cryptoPriceService;
+    private final CryptoPriceRepository cryptoPriceRepository;
+    private final HistoryCoverageService historyCoverageService;
+    private final ApplicationAvailability applicationAvailability;
+
+    private volatile boolean warmedUp;
+
+    public CacheWarmupService(AssetService assetService,
+                              CryptoPriceService cryptoPriceService,
+                              CryptoPriceRepository cryptoPriceRepository,
+                              HistoryCoverageService historyCoverageService,
+                              ApplicationAvailability applicationAvailability) {
+        this.assetService = assetService;
+        this.cryptoPriceService = cryptoPriceService;
+        this.cryptoPriceRepository = cryptoPriceRepository;
+        this.historyCoverageService = historyCoverageService;
+        this.applicationAvailability = applicationAvailability;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWarmup() {
+        warmUp().subscribe();
+    }
+
+    /**
+     * Readiness of the application, refusing traffic until the warmup completes, then the readiness of the application
+     *
+     * @return ReadinessState
+     */
+    public ReadinessState getReadinessState() {
+        return warmedUp ? applicationAvailability.getReadinessState() : ReadinessState.REFUSING_TRAFFIC;
+    }
+
+    Mono<Void> warmUp() {
+        Instant start = Instant.now();
+        return Mono.zip(
+                Mono.fromCallable(assetService::warmUpCache).subscribeOn(Schedulers.boundedElastic()),
+                Mono.fromCallable(cryptoPriceRepository::findLatestPrices).subscribeOn(Schedulers.boundedElastic()),
+                Mono.fromCallable(historyCoverageService::warmUpCoverage).subscribeOn(Schedulers.boundedElastic()))
+            .doOnNext(loaded -> {
+                cryptoPriceService.populateLatestPriceCache(loaded.getT2());
+                log.info("Caches warmed up with {} assets, {} latest prices and {} history ranges in {} ms", loaded.getT1(), loaded.getT2().size(),
+                    loaded.getT3(), Duration.between(start, Instant.now()).toMillis());
+            })
+            .doOnError(e -> log.error("Cache warmup failed, the lookups fall back to the database: {}", e.getMessage()))
+            .onErrorComplete()
+            .then(Mono.fromRunnable(() -> warmedUp = true));
+    }
+}
@@ -1,44 +1,280 @@
 package com.dmsc.cryptofinanceservice.service;
 
 import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.cache.CacheStatistics;
+import com.dmsc.cryptofinanceservice.properties.CacheProperties;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
-// improvement: fetch details from asset, since history API only will return price and timestamp
-// improvement: denormalize data to have this information on separate table
+/**
+ * In memory copy of the asset table, by externalId, by asset id and by symbol.
+ * Populated and kept up to date by {@link AssetService}, which falls back to the database for the evicted assets.
+ * <p>
+ * Reads don't take a lock, only the returned Optional is allocated: asset ids are dense, from the identity of the asset table,
+ * and index an array, externalId and symbol are looked up on concurrent maps of String.
+ * Symbols are not unique, a symbol shared by several cached assets is held by the one with the lowest asset id,
+ * independently of the order the assets are cached in. That's the order of the asset table, not the rank of the assets,
+ * so the symbol index is not used to map a symbol, see {@link SymbolResolutionService}.
+ * The cache is bounded to {@link CacheProperties#getAssetMaxEntries()}, when full the entry to evict is chosen by a clock
+ * sweep, a read only marks the entry as referenced and the sweep skips, once, the entries referenced since its last pass.
+ */
 @Service
 public class CryptoCachingService {
-    private final Map<String, CacheCryptoDetails> cryptoAssetCache;
+    /**
+     * Asset ids above are kept on a map instead of the array, bounding the array to 8 MB of references
+     */
+    static final int MAX_DENSE_ASSET_ID = 1 << 20;
 
-    public CryptoCachingService() {
-        cryptoAssetCache = new HashMap<>();
-        // improvement populate cache by id on startup
+    private final int maxEntries;
+    private final Map<String, Entry> cryptoAssetCache = new ConcurrentHashMap<>();
+    private final Map<String, Entry> cryptoAssetCacheBySymbol = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry> cryptoAssetCacheBySparseAssetId = new ConcurrentHashMap<>();
+    private volatile AtomicReferenceArray<Entry> cryptoAssetCacheByAssetId = new AtomicReferenceArray<>(64);
+
+    // Clock of the cached entries, guarded by this
+    private final Entry[] clock;
+    private int clockHand;
+    private int size;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CryptoCachingService(CacheProperties cacheProperties) {
+        this.maxEntries = Math.max(1, cacheProperties.getAssetMaxEntries());
+        this.clock = new Entry[maxEntries];
     }
 
-    public void addToCache(String id, String name, String symbol) {
+    /**
+     * Cache the asset, replacing the cached entry of the asset id
+     *
+     * @param assetId Integer
+     * @param id      CryptoAsset ExternalId
+     * @param name    String, optional
+     * @param symbol  String, optional
+     * @return the cached CacheCryptoDetails, null when the asset id or the externalId is missing
+     */
+    public synchronized CacheCryptoDetails addToCache(Integer assetId, String id, String name, String symbol) {
         // Validate is ID is valid
-        if (!StringUtils.hasText(id)) {
-            return;
+        if (assetId == null || !StringUtils.hasText(id)) {
+            return null;
+        }
+
+        CacheCryptoDetails cacheCryptoDetails = CacheCryptoDetails.builder()
+            .assetId(assetId)
+            .externalId(id)
+            .name(name)
+            .symbol(symbol)
+            .build();
+
+        Entry existing = getEntry(assetId);
+        int slot;
+        if (existing != null) {
+            unlink(existing);
+            slot = existing.slot;
+        } else if (size < maxEntries) {
+            slot = size++;
+        } else {
+            slot = sweep();
+            unlink(clock[slot]);
+            evictions.increment();
         }
 
-        // Check if cache already exists
-        if (!cryptoAssetCache.containsKey(id)
-            && StringUtils.hasText(name)
-            && StringUtils.hasText(symbol)) {
-            // if not, add item to cache
-            cryptoAssetCache.put(id, CacheCryptoDetails.builder()
-                .externalId(id)
-                .name(name)
-                .symbol(symbol)
-                .build());
+        Entry entry = new Entry(cacheCryptoDetails, slot);
+        clock[slot] = entry;
+        setEntry(assetId, entry);
+        cryptoAssetCache.put(id, entry);
+        if (StringUtils.hasText(symbol)) {
+            linkSymbol(normalizeSymbol(symbol), entry);
         }
+        return cacheCryptoDetails;
     }
 
     public Optional<CacheCryptoDetails> getAssetDetails(String id) {
-        return Optional.ofNullable(cryptoAssetCache.get(id));
+        return Optional.ofNullable(recordAccess(id == null ? null : cryptoAssetCache.get(id)));
+    }
+
+    public Optional<CacheCryptoDetails> getAssetDetails(Integer assetId) {
+        return Optional.ofNullable(recordAccess(assetId == null ? null : getEntry(assetId)));
+    }
+
+    /**
+     * Find the externalId of the cached asset with the symbol, case insensitive.
+     * A symbol shared by several cached assets resolves to the one with the lowest asset id.
+     *
+     * @param symbol String
+     * @return Optional with the externalId, empty when no cached asset has the symbol
+     */
+    public Optional<String> getExternalIdBySymbol(String symbol) {
+        CacheCryptoDetails cacheCryptoDetails = recordAccess(StringUtils.hasText(symbol) ? cryptoAssetCacheBySymbol.get(normalizeSymbol(symbol)) : null);
+        return Optional.ofNullable(cacheCryptoDetails).map(CacheCryptoDetails::getExternalId);
+    }
+
+    /**
+     * Copy of the cached assets
+     *
+     * @return List of CacheCryptoDetails
+     */
+    public synchronized List<CacheCryptoDetails> getAllAssetDetails() {
+        List<CacheCryptoDetails> assets = new ArrayList<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            assets.add(clock[slot].details);
+        }
+        return assets;
+    }
+
+    public CacheStatistics getStatistics() {
+        int currentSize;
+        synchronized (this) {
+            currentSize = size;
+        }
+        return CacheStatistics.builder()
+            .name("asset")
+            .size(currentSize)
+            .maxSize(maxEntries)
+            .hits(hits.sum())
+            .misses(misses.sum())
+            .evictions(evictions.sum())
+            .build();
+    }
+
+    private CacheCryptoDetails recordAccess(Entry entry) {
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hits.increment();
+        return entry.details;
+    }
+
+    private Entry getEntry(int assetId) {
+        if (assetId >= MAX_DENSE_ASSET_ID || assetId < 0) {
+            return cryptoAssetCacheBySparseAssetId.get(assetId);
+        }
+        AtomicReferenceArray<Entry> byAssetId = cryptoAssetCacheByAssetId;
+        return assetId < byAssetId.length() ? byAssetId.get(assetId) : null;
+    }
+
+    private void setEntry(int assetId, Entry entry) {
+        if (assetId >= MAX_DENSE_ASSET_ID || assetId < 0) {
+            if (entry == null) {
+                cryptoAssetCacheBySparseAssetId.remove(assetId);
+            } else {
+                cryptoAssetCacheBySparseAssetId.put(assetId, entry);
+            }
+            return;
+        }
+        AtomicReferenceArray<Entry> byAssetId = cryptoAssetCacheByAssetId;
+        if (assetId >= byAssetId.length()) {
+            if (entry == null) {
+                return;
+            }
+            AtomicReferenceArray<Entry> grown = new AtomicReferenceArray<>(Math.min(MAX_DENSE_ASSET_ID, Integer.highestOneBit(assetId) << 1));
+            for (int i = 0; i < byAssetId.length(); i++) {
+                grown.set(i, byAssetId.get(i));
+            }
+            cryptoAssetCacheByAssetId = grown;
+            byAssetId = grown;
+        }
+        byAssetId.set(assetId, entry);
+    }
+
+    /**
+     * Advance the clock hand to the first entry not referenced since the last pass, clearing the references it skips
+     *
+     * @return slot of the entry to evict
+     */
+    private int sweep() {
+        while (true) {
+            Entry candidate = clock[clockHand];
+            int slot = clockHand;
+            clockHand = (clockHand + 1) % maxEntries;
+            if (!candidate.referenced) {
+                return slot;
+            }
+            candidate.referenced = false;
+        }
+    }
+
+    private void unlink(Entry entry) {
+        CacheCryptoDetails details = entry.details;
+        if (getEntry(details.getAssetId()) == entry) {
+            setEntry(details.getAssetId(), null);
+        }
+        cryptoAssetCache.remove(details.getExternalId(), entry);
+        if (StringUtils.hasText(details.getSymbol())) {
+            unlinkSymbol(normalizeSymbol(details.getSymbol()), entry);
+        }
+    }
+
+    /**
+     * Insert the entry on the chain of the symbol, ordered by asset id, the head of the chain holds the symbol
+     */
+    private void linkSymbol(String symbol, Entry entry) {
+        Entry head = cryptoAssetCacheBySymbol.get(symbol);
+        if (head == null || entry.details.getAssetId() < head.details.getAssetId()) {
+            entry.nextBySymbol = head;
+            cryptoAssetCacheBySymbol.put(symbol, entry);
+            return;
+        }
+        Entry previous = head;
+        while (previous.nextBySymbol != null && previous.nextBySymbol.details.getAssetId() < entry.details.getAssetId()) {
+            previous = previous.nextBySymbol;
+        }
+        entry.nextBySymbol = previous.nextBySymbol;
+        previous.nextBySymbol = entry;
+    }
+
+    /**
+     * Remove the entry from the chain of the symbol, the next asset of the chain takes the symbol over
+     */
+    private void unlinkSymbol(String symbol, Entry entry) {
+        Entry head = cryptoAssetCacheBySymbol.get(symbol);
+        if (head == entry) {
+            if (entry.nextBySymbol == null) {
+                cryptoAssetCacheBySymbol.remove(symbol);
+            } else {
+                cryptoAssetCacheBySymbol.put(symbol, entry.nextBySymbol);
+            }
+        } else if (head != null) {
+            Entry previous = head;
+            while (previous.nextBySymbol != null && previous.nextBySymbol != entry) {
+                previous = previous.nextBySymbol;
+            }
+            if (previous.nextBySymbol == entry) {
+                previous.nextBySymbol = entry.nextBySymbol;
+            }
+        }
+        entry.nextBySymbol = null;
+    }
+
+    private static String normalizeSymbol(String symbol) {
+        // Returns the same instance when the symbol is already upper case
+        return symbol.toUpperCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final CacheCryptoDetails details;
+        private int slot;
+        private volatile boolean referenced;
+        // Next cached asset with the same symbol, guarded by the cache
+        private Entry nextBySymbol;
+
+        private Entry(CacheCryptoDetails details, int slot) {
+            this.details = details;
+            this.slot = slot;
+        }
     }
 }
@@ -0,0 +1,301 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import com.dmsc.coincapjavasdk.model.response.PriceData;
+import com.dmsc.cryptofinanceservice.model.entity.CryptoPriceEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk loads price history into crypto_price with the Postgres binary COPY protocol, bypassing JPA and its persistence context.
+ * The {@link PriceData} points are encoded as they are written to the COPY stream, without creating any entity.
+ * Points already stored for the asset are skipped, so loading an overlapping or the same range again is harmless.
+ */
+@Slf4j
+@Service
+public class CryptoPriceBulkLoadService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Binary COPY header: signature, flags and header extension length
+    private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final short COPY_FIELD_COUNT = 4;
+    private static final short COPY_TRAILER = -1;
+    // Postgres timestamps are microseconds since 2000-01-01T00:00:00Z
+    private static final long POSTGRES_EPOCH_MILLIS = 946_684_800_000L;
+
+    private static final short NUMERIC_POSITIVE = 0x0000;
+    private static final short NUMERIC_NEGATIVE = 0x4000;
+    private static final int NUMERIC_DIGITS_PER_GROUP = 4;
+
+    private static final String CREATE_STAGING_TABLE = "CREATE TEMP TABLE crypto_price_staging " +
+        "(id BIGINT, asset_id INTEGER, price NUMERIC, time TIMESTAMP WITH TIME ZONE) ON COMMIT DROP";
+    private static final String COPY_STAGING_TABLE = "COPY crypto_price_staging (id, asset_id, price, time) FROM STDIN (FORMAT BINARY)";
+    private static final String COPY_CRYPTO_PRICE = "COPY crypto_price (id, asset_id, price, time) FROM STDIN (FORMAT BINARY)";
+    // Serializes loads of the same asset, so concurrent loads can't insert the same point twice
+    private static final String LOCK_ASSET = "SELECT pg_advisory_xact_lock(hashtext('crypto_price'), ?)";
+    private static final String HAS_PRICES = "SELECT EXISTS (SELECT 1 FROM crypto_price WHERE asset_id = ? AND time BETWEEN ? AND ?)";
+    private static final String NEXT_ID_BLOCKS = "SELECT nextval('crypto_price_seq') FROM generate_series(1, ?)";
+    private static final String INSERT_MISSING_PRICES = "INSERT INTO crypto_price (id, asset_id, price, time) " +
+        "SELECT s.id, s.asset_id, s.price, s.time FROM crypto_price_staging s " +
+        "WHERE NOT EXISTS (SELECT 1 FROM crypto_price c WHERE c.asset_id = s.asset_id AND c.time = s.time AND c.time BETWEEN ? AND ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CryptoPricePartitionService cryptoPricePartitionService;
+    private final AssetService assetService;
+    private final CryptoProvider cryptoProvider;
+
+    public CryptoPriceBulkLoadService(JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate,
+                                      CryptoPricePartitionService cryptoPricePartitionService,
+                                      AssetService assetService,
+                                      CryptoProvider cryptoProvider) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.cryptoPricePartitionService = cryptoPricePartitionService;
+        this.assetService = assetService;
+        this.cryptoProvider = cryptoProvider;
+    }
+
+    /**
+     * Fetch the history of an asset between both dates and bulk load it
+     *
+     * @param externalId CryptoAsset ExternalId
+     * @param interval   interval between points, the range must respect the max span upstream allows for it
+     * @param start      Instant
+     * @param end        Instant
+     * @return Mono with the number of inserted prices
+     */
+    public Mono<Long> loadHistory(String externalId, IntervalValue interval, Instant start, Instant end) {
+        return cryptoProvider.getAssetHistory(externalId, interval, start, end)
+            .collectList()
+            .publishOn(Schedulers.boundedElastic())
+            .map(prices -> {
+                if (prices.isEmpty()) {
+                    return 0L;
+                }
+                // History API only returns price and timestamp, name and symbol are filled once the asset is fetched by id or symbol
+                Integer assetId = assetService.getOrCreateAsset(externalId, null, null).getAssetId();
+                return loadPrices(assetId, prices);
+            });
+    }
+
+    /**
+     * Bulk load the prices of an asset in a single transaction.
+     * When the asset has no prices stored in the range, as on a first backfill, the points are copied straight into crypto_price.
+     * Otherwise they are copied into a staging table and only the points not stored yet are inserted.
+     * Points repeated on the input are only loaded once.
+     *
+     * @param assetId Surrogate key of the asset
+     * @param prices  List of PriceData
+     * @return number of inserted prices
+     */
+    public long loadPrices(Integer assetId, List<PriceData> prices) {
+        Set<Long> times = new HashSet<>();
+        List<PriceData> distinctPrices = prices.stream()
+            .filter(price -> times.add(price.getTime()))
+            .toList();
+        if (distinctPrices.isEmpty()) {
+            return 0;
+        }
+        Instant from = Instant.ofEpochMilli(Collections.min(times));
+        Instant to = Instant.ofEpochMilli(Collections.max(times));
+        cryptoPricePartitionService.ensurePartitions(from, to);
+
+        Long inserted = transactionTemplate.execute(status -> jdbcTemplate.execute((ConnectionCallback<Long>) connection ->
+            copyPrices(connection, assetId, distinctPrices, from, to)));
+        long result = inserted == null ? 0 : inserted;
+        log.info("Loaded {} of {} prices for asset {} between {} and {}", result, prices.size(), assetId, from, to);
+        return result;
+    }
+
+    private static long copyPrices(Connection connection, Integer assetId, List<PriceData> prices, Instant from, Instant to) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement(LOCK_ASSET)) {
+            lock.setInt(1, assetId);
+            lock.execute();
+        }
+        if (!hasPrices(connection, assetId, from, to)) {
+            return copy(connection, COPY_CRYPTO_PRICE, assetId, prices);
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_TABLE);
+        }
+        copy(connection, COPY_STAGING_TABLE, assetId, prices);
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_MISSING_PRICES)) {
+            insert.setTimestamp(1, Timestamp.from(from));
+            insert.setTimestamp(2, Timestamp.from(to));
+            return insert.executeUpdate();
+        }
+    }
+
+    private static boolean hasPrices(Connection connection, Integer assetId, Instant from, Instant to) throws SQLException {
+        try (PreparedStatement hasPrices = connection.prepareStatement(HAS_PRICES)) {
+            hasPrices.setInt(1, assetId);
+            hasPrices.setTimestamp(2, Timestamp.from(from));
+            hasPrices.setTimestamp(3, Timestamp.from(to));
+            try (ResultSet resultSet = hasPrices.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Stream the prices to the COPY statement in chunks of {@link CryptoPriceBulkLoadService#BUFFER_SIZE}
+     *
+     * @return number of copied rows
+     */
+    private static long copy(Connection connection, String copySql, Integer assetId, List<PriceData> prices) throws SQLException {
+        long[] ids = allocateIds(connection, prices.size());
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            writeHeader(buffer);
+            for (int i = 0; i < prices.size(); i++) {
+                PriceData priceData = prices.get(i);
+                byte[] price = priceData.getPriceUsd() == null ? null : toNumeric(new BigDecimal(priceData.getPriceUsd()));
+                if (buffer.remaining() < getRowSize(price)) {
+                    flush(copyIn, buffer);
+                }
+                writeRow(buffer, ids[i], assetId, price, priceData.getTime());
+            }
+            if (buffer.remaining() < Short.BYTES) {
+                flush(copyIn, buffer);
+            }
+            buffer.putShort(COPY_TRAILER);
+            flush(copyIn, buffer);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+    /**
+     * Reserve ids the same way the pooled optimizer of {@link CryptoPriceEntity} does,
+     * each nextval returns the upper bound of a block of {@link CryptoPriceEntity#SEQUENCE_ALLOCATION_SIZE} ids.
+     * Ids of skipped duplicates are lost, as with a rolled back JPA insert.
+     */
+    private static long[] allocateIds(Connection connection, int count) throws SQLException {
+        long[] ids = new long[count];
+        int allocated = 0;
+        try (PreparedStatement nextIdBlocks = connection.prepareStatement(NEXT_ID_BLOCKS)) {
+            while (allocated < count) {
+                nextIdBlocks.setInt(1, Math.ceilDiv(count - allocated, CryptoPriceEntity.SEQUENCE_ALLOCATION_SIZE));
+                try (ResultSet resultSet = nextIdBlocks.executeQuery()) {
+                    while (resultSet.next()) {
+                        long hi = resultSet.getLong(1);
+                        // The first value of the sequence only has itself below it
+                        for (long id = Math.max(hi - CryptoPriceEntity.SEQUENCE_ALLOCATION_SIZE + 1, 1); id <= hi && allocated < count; id++) {
+                            ids[allocated++] = id;
+                        }
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void flush(CopyIn copyIn, ByteBuffer buffer) throws SQLException {
+        copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    static void writeHeader(ByteBuffer buffer) {
+        buffer.put(COPY_SIGNATURE);
+        buffer.putInt(0);
+        buffer.putInt(0);
+    }
+
+    static int getRowSize(byte[] price) {
+        return Short.BYTES + (Integer.BYTES + Long.BYTES) + (Integer.BYTES + Integer.BYTES)
+            + (Integer.BYTES + (price == null ? 0 : price.length)) + (Integer.BYTES + Long.BYTES);
+    }
+
+    /**
+     * Write one tuple of the binary COPY format, each field is its length followed by its value in network byte order
+     *
+     * @param buffer     ByteBuffer with room for {@link CryptoPriceBulkLoadService#getRowSize(byte[])}
+     * @param id         crypto_price id
+     * @param assetId    Surrogate key of the asset
+     * @param price      binary numeric value from {@link CryptoPriceBulkLoadService#toNumeric(BigDecimal)}, null when missing
+     * @param timeMillis epoch millis of the price
+     */
+    static void writeRow(ByteBuffer buffer, long id, int assetId, byte[] price, long timeMillis) {
+        buffer.putShort(COPY_FIELD_COUNT);
+        buffer.putInt(Long.BYTES).putLong(id);
+        buffer.putInt(Integer.BYTES).putInt(assetId);
+        if (price == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(price.length).put(price);
+        }
+        buffer.putInt(Long.BYTES).putLong((timeMillis - POSTGRES_EPOCH_MILLIS) * 1000);
+    }
+
+    /**
+     * Binary representation of a Postgres numeric: number of digits, weight of the first digit, sign and display scale,
+     * followed by the digits in base 10000. Leading and trailing zero digits are left out.
+     * The value is rounded to the scale of the column by Postgres.
+     *
+     * @param value BigDecimal
+     * @return numeric value bytes
+     */
+    static byte[] toNumeric(BigDecimal value) {
+        int scale = Math.max(value.scale(), 0);
+        String plain = value.abs().setScale(scale).toPlainString();
+        int pointIndex = plain.indexOf('.');
+        String integerPart = pointIndex < 0 ? plain : plain.substring(0, pointIndex);
+        String fractionPart = pointIndex < 0 ? "" : plain.substring(pointIndex + 1);
+
+        // Align both parts to whole groups of 4 digits around the decimal point
+        String digits = "0".repeat(Math.floorMod(-integerPart.length(), NUMERIC_DIGITS_PER_GROUP)) + integerPart
+            + fractionPart + "0".repeat(Math.floorMod(-fractionPart.length(), NUMERIC_DIGITS_PER_GROUP));
+        int integerGroups = Math.ceilDiv(integerPart.length(), NUMERIC_DIGITS_PER_GROUP);
+        int groups = digits.length() / NUMERIC_DIGITS_PER_GROUP;
+
+        int first = 0;
+        while (first < groups && getGroup(digits, first) == 0) {
+            first++;
+        }
+        int last = groups - 1;
+        while (last >= first && getGroup(digits, last) == 0) {
+            last--;
+        }
+        int ndigits = last - first + 1;
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 * Short.BYTES + ndigits * Short.BYTES);
+        buffer.putShort((short) ndigits);
+        buffer.putShort((short) (ndigits == 0 ? 0 : integerGroups - 1 - first));
+        buffer.putShort(value.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE);
+        buffer.putShort((short) scale);
+        for (int i = first; i <= last; i++) {
+            buffer.putShort((short) getGroup(digits, i));
+        }
+        return buffer.array();
+    }
+
+    private static int getGroup(String digits, int group) {
+        return Integer.parseInt(digits, group * NUMERIC_DIGITS_PER_GROUP, (group + 1) * NUMERIC_DIGITS_PER_GROUP, 10);
+    }
+}
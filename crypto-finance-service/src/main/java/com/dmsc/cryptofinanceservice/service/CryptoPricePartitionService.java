@@ -0,0 +1,95 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.properties.CryptoPricePartitionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Keeps the monthly partitions of crypto_price created ahead of time, so new prices never land on the default partition.
+ * The partitions are created by the ensure_crypto_price_partition function of the V1 migration.
+ */
+@Slf4j
+@Service
+public class CryptoPricePartitionService {
+    private static final String ENSURE_PARTITION_QUERY = "SELECT ensure_crypto_price_partition(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final Duration checkInterval;
+    private TaskScheduler taskScheduler;
+
+    public CryptoPricePartitionService(JdbcTemplate jdbcTemplate, CryptoPricePartitionProperties cryptoPricePartitionProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = cryptoPricePartitionProperties.isEnabled();
+        this.monthsAhead = cryptoPricePartitionProperties.getMonthsAhead();
+        this.checkInterval = cryptoPricePartitionProperties.getCheckInterval();
+        this.taskScheduler = getThreadPoolTaskScheduler();
+    }
+
+    private static ThreadPoolTaskScheduler getThreadPoolTaskScheduler() {
+        ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
+        threadPoolTaskScheduler.setThreadNamePrefix("crypto-price-partitions-");
+        threadPoolTaskScheduler.initialize();
+        return threadPoolTaskScheduler;
+    }
+
+    void setTaskScheduler(TaskScheduler taskScheduler) {
+        this.taskScheduler = taskScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void schedulePartitionMaintenance() {
+        if (!enabled) {
+            log.info("crypto_price partition maintenance is disabled");
+            return;
+        }
+        taskScheduler.scheduleAtFixedRate(() -> ensurePartitions(LocalDate.now(ZoneOffset.UTC)), checkInterval);
+    }
+
+    /**
+     * Create the partitions of the current month and of the next {@link CryptoPricePartitionProperties#getMonthsAhead()} months
+     *
+     * @param today LocalDate in UTC
+     */
+    void ensurePartitions(LocalDate today) {
+        LocalDate month = today.withDayOfMonth(1);
+        for (int i = 0; i <= monthsAhead; i++) {
+            ensurePartition(month.plusMonths(i));
+        }
+    }
+
+    /**
+     * Create the partitions of every month between both dates, used before loading history in bulk,
+     * so old prices don't pile up on the default partition
+     *
+     * @param from Instant
+     * @param to   Instant
+     */
+    public void ensurePartitions(Instant from, Instant to) {
+        LocalDate lastMonth = LocalDate.ofInstant(to, ZoneOffset.UTC).withDayOfMonth(1);
+        for (LocalDate month = LocalDate.ofInstant(from, ZoneOffset.UTC).withDayOfMonth(1); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            ensurePartition(month);
+        }
+    }
+
+    private void ensurePartition(LocalDate partitionMonth) {
+        try {
+            jdbcTemplate.queryForObject(ENSURE_PARTITION_QUERY, Object.class, partitionMonth);
+        } catch (DataAccessException e) {
+            // Retried on the next check, rows are kept on the default partition meanwhile
+            log.error("Failed to create crypto_price partition for {}", partitionMonth, e);
+        }
+    }
+}
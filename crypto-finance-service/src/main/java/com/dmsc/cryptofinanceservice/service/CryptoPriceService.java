@@ -1,17 +1,22 @@
 package com.dmsc.cryptofinanceservice.service;
 
+import com.dmsc.coincapjavasdk.model.IntervalValue;
 import com.dmsc.cryptofinanceservice.exception.AssetDataNotFound;
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.dto.AssetPriceHistoryDto;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoHistoryDto;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoHistoryItemDto;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.model.dto.TimeRangeDto;
 import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
 import com.dmsc.cryptofinanceservice.model.entity.CryptoPriceEntity;
 import com.dmsc.cryptofinanceservice.properties.WalletRequestProperties;
 import com.dmsc.cryptofinanceservice.repository.CryptoPriceRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
@@ -19,115 +24,298 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class CryptoPriceService {
+    // History fetched before and after a date, to answer the requests for the neighbouring minutes
+    private static final Duration HISTORY_WINDOW = Duration.ofMinutes(5);
 
     private final WalletAssetService walletAssetService;
     private final CryptoPriceRepository cryptoPriceRepository;
     private final CryptoProvider cryptoProvider;
-    private final CryptoCachingService cryptoCachingService;
+    private final AssetService assetService;
+    private final LatestPriceCachingService latestPriceCachingService;
+    private final AsOfPriceCachingService asOfPriceCachingService;
+    private final HistoryCoverageService historyCoverageService;
+    private final SymbolResolutionService symbolResolutionService;
 
     // configurable value for max number of threads per wallet
     private final int numberOfThreadsPerWallet;
+    private final WalletRequestProperties.RefreshMode refreshMode;
+    private final int maxIdsQueryLength;
+    private final int marketSnapshotLimit;
+    private final Duration asOfTolerance;
 
     // Handle multiple simultaneous access to the hashmap
     private final Map<UUID, Queue<WalletAssetDto>> walletQueue = new ConcurrentHashMap<>();
+    // Upstream price fetches in flight, by asset and minute
+    private final SingleFlight<PriceFetch, SharedPrices> priceFetches = new SingleFlight<>();
 
     public CryptoPriceService(WalletAssetService walletAssetService,
                               CryptoPriceRepository cryptoPriceRepository,
                               CryptoProvider cryptoProvider,
-                              CryptoCachingService cryptoCachingService, WalletRequestProperties walletRequestProperties) {
+                              AssetService assetService,
+                              LatestPriceCachingService latestPriceCachingService,
+                              AsOfPriceCachingService asOfPriceCachingService,
+                              HistoryCoverageService historyCoverageService,
+                              SymbolResolutionService symbolResolutionService,
+                              WalletRequestProperties walletRequestProperties) {
         this.walletAssetService = walletAssetService;
         this.cryptoPriceRepository = cryptoPriceRepository;
         this.cryptoProvider = cryptoProvider;
-        this.cryptoCachingService = cryptoCachingService;
+        this.assetService = assetService;
+        this.latestPriceCachingService = latestPriceCachingService;
+        this.asOfPriceCachingService = asOfPriceCachingService;
+        this.historyCoverageService = historyCoverageService;
+        this.symbolResolutionService = symbolResolutionService;
         this.numberOfThreadsPerWallet = walletRequestProperties.getNumberOfThreads();
-        populateCacheWithExistingCryptoData();
+        this.refreshMode = walletRequestProperties.getRefreshMode();
+        this.maxIdsQueryLength = walletRequestProperties.getMaxIdsQueryLength();
+        this.marketSnapshotLimit = walletRequestProperties.getMarketSnapshotLimit();
+        this.asOfTolerance = walletRequestProperties.getAsOfTolerance();
     }
 
-    private static CryptoItemDto getCryptoItemDto(CryptoPriceEntity cryptoPriceEntity) {
-        return CryptoItemDto.builder()
-            .price(cryptoPriceEntity.getPrice())
-            .name(cryptoPriceEntity.getName())
-            .id(cryptoPriceEntity.getExternalId())
-            .symbol(cryptoPriceEntity.getSymbol())
+    /**
+     * Map the price to the dto, the externalId, name and symbol come from the referenced asset
+     *
+     * @param cryptoPriceEntity CryptoPriceEntity
+     * @return CryptoItemDto
+     */
+    private CryptoItemDto getCryptoItemDto(CryptoPriceEntity cryptoPriceEntity) {
+        CryptoItemDto cryptoItemDto = CryptoItemDto.builder()
             .price(cryptoPriceEntity.getPrice())
+            .timestamp(cryptoPriceEntity.getTime())
             .build();
+        assetService.findByAssetId(cryptoPriceEntity.getAssetId())
+            .ifPresent(asset -> {
+                cryptoItemDto.setId(asset.getExternalId());
+                cryptoItemDto.setName(asset.getName());
+                cryptoItemDto.setSymbol(asset.getSymbol());
+            });
+        return cryptoItemDto;
+    }
+
+    /**
+     * Map the dto to a price, creating its asset when it's not known yet
+     *
+     * @param cryptoItemDto CryptoItemDto
+     * @return CryptoPriceEntity
+     */
+    private CryptoPriceEntity getCryptoPriceEntity(CryptoItemDto cryptoItemDto) {
+        CryptoPriceEntity cryptoPriceEntity = new CryptoPriceEntity();
+        cryptoPriceEntity.setAssetId(assetService.getOrCreateAsset(cryptoItemDto.getId(), cryptoItemDto.getName(), cryptoItemDto.getSymbol()).getAssetId());
+        cryptoPriceEntity.setPrice(cryptoItemDto.getPrice());
+        cryptoPriceEntity.setTime(cryptoItemDto.getTimestamp());
+        return cryptoPriceEntity;
     }
 
-    private CryptoPriceEntity updateCryptoPrice(String cryptoAssetId) {
+    /**
+     * Split the ids in chunks where the comma separated value of each chunk does not exceed the max length.
+     * Duplicated ids are only added once.
+     * An id longer than the max length is still sent, alone, on its own chunk.
+     *
+     * @param ids       external ids
+     * @param maxLength max length of the comma separated ids
+     * @return List of chunks
+     */
+    static List<List<String>> chunkIdsByQueryLength(Collection<String> ids, int maxLength) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentLength = 0;
+        for (String id : new LinkedHashSet<>(ids)) {
+            int lengthWithId = current.isEmpty() ? id.length() : currentLength + 1 + id.length();
+            if (!current.isEmpty() && lengthWithId > maxLength) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                lengthWithId = id.length();
+            }
+            current.add(id);
+            currentLength = lengthWithId;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    private List<CryptoPriceEntity> fetchCryptoPrice(String cryptoAssetId) {
         CryptoItemDto cryptoItemDto = cryptoProvider.getAssetsById(Collections.singletonList(cryptoAssetId)).block().getFirst();
         // fetching first item, it will just fetch one asset
         if (cryptoItemDto == null) {
             log.warn("No info for cryptoAssetId: {}", cryptoAssetId);
-            return null;
+            return new ArrayList<>();
         }
         log.debug("Updating crypto price: {} timestamp: {}", cryptoAssetId, cryptoItemDto.getTimestamp());
 
-        CryptoPriceEntity cryptoPriceEntity = new CryptoPriceEntity();
-        cryptoPriceEntity.setPrice(cryptoItemDto.getPrice());
-        cryptoPriceEntity.setSymbol(cryptoItemDto.getSymbol());
-        cryptoPriceEntity.setTime(cryptoItemDto.getTimestamp());
-        cryptoPriceEntity.setExternalId(cryptoItemDto.getId());
-        cryptoPriceEntity.setName(cryptoItemDto.getName());
-
         log.info("End for: {}", cryptoAssetId);
-        return cryptoPriceRepository.save(cryptoPriceEntity);
+        return List.of(getCryptoPriceEntity(cryptoItemDto));
+    }
+
+    /**
+     * Persist all the prices fetched on a refresh cycle with a single saveAll, so they are sent as JDBC batches.
+     * History prices are already persisted when fetched, with their coverage, and are not persisted again.
+     * Without date the prices are the latest ones and are made available on {@link LatestPriceCachingService}.
+     * With date, only the price matching the minute of the date is returned for each asset, and made available on {@link AsOfPriceCachingService}.
+     *
+     * @param pricesPerAsset prices fetched for each asset
+     * @param date           Instant, optional
+     * @return List<CryptoItemDto>
+     */
+    private List<CryptoItemDto> savePrices(Collection<List<CryptoPriceEntity>> pricesPerAsset, Instant date) {
+        List<CryptoPriceEntity> entitiesToAdd = pricesPerAsset.stream()
+            .flatMap(List::stream)
+            .filter(entity -> entity.getId() == null)
+            .toList();
+        if (!entitiesToAdd.isEmpty()) {
+            // Persisted entities are the same instances, now with their ids
+            cryptoPriceRepository.saveAll(entitiesToAdd);
+        }
+
+        if (date != null) {
+            List<CryptoItemDto> asOfPrices = pricesPerAsset.stream()
+                .map(prices -> findEntityAtMinute(prices, date))
+                .flatMap(Optional::stream)
+                .map(this::getCryptoItemDto)
+                .toList();
+            asOfPrices.forEach(asOfPrice -> asOfPriceCachingService.putPrice(asOfPrice.getId(), date, asOfPrice));
+            return asOfPrices;
+        }
+        List<CryptoItemDto> latestPrices = entitiesToAdd.stream()
+            .map(this::getCryptoItemDto)
+            .toList();
+        latestPrices.forEach(latestPriceCachingService::updateLatestPrice);
+        return latestPrices;
     }
 
     /**
-     * Method responsible to fetch all unique data from {@link CryptoPriceEntity} and populate cache
+     * Method responsible to populate the latest price cache with the latest price of each asset, run by {@link CacheWarmupService}
+     *
+     * @param latestPrices List of CryptoPriceEntity, the latest price of each asset
      */
-    private void populateCacheWithExistingCryptoData() {
-        List<CryptoPriceEntity> allUniqueExternalIds = this.cryptoPriceRepository.findDistinctEntities();
-        if (!CollectionUtils.isEmpty(allUniqueExternalIds)) {
-            allUniqueExternalIds.forEach(existingUniqueEntities ->
-                this.cryptoCachingService.addToCache(
-                    existingUniqueEntities.getExternalId(),
-                    existingUniqueEntities.getName(),
-                    existingUniqueEntities.getSymbol()
-                ));
+    public void populateLatestPriceCache(List<CryptoPriceEntity> latestPrices) {
+        if (!CollectionUtils.isEmpty(latestPrices)) {
+            latestPrices.forEach(latestPrice -> latestPriceCachingService.updateLatestPrice(getCryptoItemDto(latestPrice)));
         }
     }
 
-    private Optional<CryptoPriceEntity> updateCryptoPriceByDate(String cryptoAssetId, Instant instant) {
-        // Set before and after 1 day to get maximum data (?)
-        CryptoHistoryDto cryptoItemDto = cryptoProvider.getAssetByIdAtGivenDate(cryptoAssetId, instant).block();
+    /**
+     * Fetch the 1 minute history around the date, only the part not stored yet is requested upstream.
+     * Nothing is requested when the date is already covered, its price is answered from the database.
+     *
+     * @param cryptoAssetId CryptoAsset ExternalId
+     * @param instant       Instant
+     * @return List of CryptoPriceEntity, already persisted
+     */
+    private List<CryptoPriceEntity> fetchCryptoPriceByDate(String cryptoAssetId, Instant instant) {
+        // History API only returns price and timestamp, name and symbol are filled once the asset is fetched by id or symbol
+        Integer assetId = assetService.getOrCreateAsset(cryptoAssetId, null, null).getAssetId();
+        Optional<TimeRangeDto> missingRange = getMissingHistoryRange(assetId, instant);
+        if (missingRange.isEmpty()) {
+            log.debug("History of {} already stored at {}", cryptoAssetId, instant);
+            return new ArrayList<>();
+        }
+        CryptoHistoryDto cryptoItemDto = cryptoProvider.getAssetByIdBetweenDates(cryptoAssetId, missingRange.get().getStart(), missingRange.get().getEnd()).block();
         // fetching first item, it will just fetch one asset
         if (cryptoItemDto == null) {
             log.warn("No info for cryptoAssetId: {}", cryptoAssetId);
+            return new ArrayList<>();
+        }
+
+        log.info("End for: {}", cryptoAssetId);
+        // All the history is saved on the database but only the date matching the request is returned
+        return saveHistory(cryptoAssetId, assetId, missingRange.get(), cryptoItemDto);
+    }
+
+    /**
+     * Get the range of history to request for the date, the window of {@link CryptoPriceService#HISTORY_WINDOW} around it,
+     * aligned to the minute and capped at now, without the parts already stored.
+     *
+     * @param assetId Integer
+     * @param instant Instant
+     * @return Optional with the range to request, empty when the date is already covered or in the future
+     */
+    private Optional<TimeRangeDto> getMissingHistoryRange(Integer assetId, Instant instant) {
+        if (historyCoverageService.isCovered(assetId, instant)) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        Instant start = instant.minus(HISTORY_WINDOW).truncatedTo(ChronoUnit.MINUTES);
+        Instant windowEnd = instant.plus(HISTORY_WINDOW).truncatedTo(ChronoUnit.MINUTES).plus(1, ChronoUnit.MINUTES);
+        Instant end = windowEnd.isAfter(now) ? now : windowEnd;
+        if (!start.isBefore(end)) {
             return Optional.empty();
         }
+        return historyCoverageService.getMissingRange(assetId, start, end);
+    }
 
-        List<CryptoPriceEntity> entitiesToAdd = cryptoItemDto.getCryptoHistory().stream()
+    /**
+     * Persist the fetched history and add its range to {@link HistoryCoverageService}, up to the minute of the last returned price.
+     * Nothing is covered when no price is returned for the range, the range is requested again on the next lookup.
+     * Prices outside the requested range or already covered are left out, they are stored already or will be with their own range.
+     * The as-of prices cached for the range are evicted, the stored history can hold a closer price for them.
+     *
+     * @param externalId       CryptoAsset ExternalId
+     * @param assetId          Integer
+     * @param range            TimeRangeDto requested
+     * @param cryptoHistoryDto CryptoHistoryDto
+     * @return List of CryptoPriceEntity
+     */
+    private List<CryptoPriceEntity> saveHistory(String externalId, Integer assetId, TimeRangeDto range, CryptoHistoryDto cryptoHistoryDto) {
+        List<CryptoHistoryItemDto> historyInRange = cryptoHistoryDto.getCryptoHistory().stream()
+            .filter(item -> !item.getTime().isBefore(range.getStart()) && item.getTime().isBefore(range.getEnd()))
+            .toList();
+        List<CryptoPriceEntity> cryptoPriceEntities = historyInRange.stream()
+            .filter(item -> !historyCoverageService.isCovered(assetId, item.getTime()))
             .map(item -> {
                 CryptoPriceEntity cryptoPriceEntity = new CryptoPriceEntity();
-                cryptoPriceEntity.setExternalId(cryptoAssetId);
+                cryptoPriceEntity.setAssetId(assetId);
                 cryptoPriceEntity.setPrice(item.getPrice());
                 cryptoPriceEntity.setTime(item.getTime());
-                cryptoCachingService.getAssetDetails(cryptoAssetId)
-                    .ifPresent(cachedItem -> {
-                        cryptoPriceEntity.setName(cachedItem.getName());
-                        cryptoPriceEntity.setSymbol(cachedItem.getSymbol());
-                    });
                 return cryptoPriceEntity;
             })
             .toList();
-        log.info("End for: {}", cryptoAssetId);
-        // Save all on the database but should only return the date matching the request..
-        List<CryptoPriceEntity> cryptoPriceEntities = cryptoPriceRepository.saveAll(entitiesToAdd);
+        if (!cryptoPriceEntities.isEmpty()) {
+            cryptoPriceRepository.saveAll(cryptoPriceEntities);
+            asOfPriceCachingService.evictPrices(externalId, range.getStart(), range.getEnd());
+        }
+        historyInRange.stream()
+            .map(CryptoHistoryItemDto::getTime)
+            .max(Comparator.naturalOrder())
+            .map(lastTime -> lastTime.truncatedTo(ChronoUnit.MINUTES).plus(1, ChronoUnit.MINUTES))
+            .map(coveredEnd -> coveredEnd.isAfter(range.getEnd()) ? range.getEnd() : coveredEnd)
+            .ifPresent(coveredEnd -> historyCoverageService.addCoverage(assetId, IntervalValue.M1, range.getStart(), coveredEnd));
+        return cryptoPriceEntities;
+    }
 
-        // Get only the request that matches the minute of the input date
+    /**
+     * Get only the entity that matches the minute of the input date
+     *
+     * @param cryptoPriceEntities List of CryptoPriceEntity
+     * @param instant             Instant
+     * @return Optional<CryptoPriceEntity>
+     */
+    private static Optional<CryptoPriceEntity> findEntityAtMinute(List<CryptoPriceEntity> cryptoPriceEntities, Instant instant) {
         Instant instantAtMinute = instant.truncatedTo(ChronoUnit.MINUTES);
         return cryptoPriceEntities.stream()
             .filter(entityDate -> entityDate.getTime().truncatedTo(ChronoUnit.MINUTES).equals(instantAtMinute))
@@ -141,14 +329,20 @@ public class CryptoPriceService {
      * To perform the batch of parallelized, it will create a List of {@link Mono} using {@link Mono#fromRunnable(Runnable)}.
      * The list will be run using {@link Schedulers#boundedElastic()} that will assure that each request will run on a seperated thread.
      * The {@link Mono#block(Duration)} in the end will ensure the requests are executed synchronously on the code block, before executing the next requests
+     * All the fetched prices are persisted at the end with {@link CryptoPriceService#savePrices(Collection, Instant)}
      *
      * @param walletId UUID
      * @param queue    Queue of WalletAssetDto
      * @return List<CryptoPriceEntity>
      */
     private List<CryptoItemDto> processInBatches(UUID walletId, Queue<WalletAssetDto> queue, Instant date) {
+        return savePrices(fetchInBatches(walletId, queue, date), date);
+    }
+
+    private List<List<CryptoPriceEntity>> fetchInBatches(UUID walletId, Queue<WalletAssetDto> queue, Instant date) {
         log.info("Now its {}", Instant.now());
-        List<CryptoPriceEntity> results = new ArrayList<>();
+        // Results are added concurrently by the batch threads
+        List<List<CryptoPriceEntity>> results = Collections.synchronizedList(new ArrayList<>());
 
         // Create a reactive queue (simulating fixed concurrency)
         while (!queue.isEmpty()) {
@@ -169,33 +363,58 @@ public class CryptoPriceService {
         }
 
         log.info("Results processed: {}", results.size());
-        return results.stream()
-            .map(CryptoPriceService::getCryptoItemDto)
-            .toList();
+        return results;
     }
 
-    private CryptoPriceEntity updateCryptoPriceBySymbol(UUID walletId, Long walletAssetId, String cryptoAssetSymbol) {
+    /**
+     * Virtual thread processing of queue items.
+     * Each asset request runs on its own virtual thread, concurrency is bounded by a {@link Semaphore} with
+     * {@link CryptoPriceService#numberOfThreadsPerWallet} permits instead of a pool size.
+     * A permit is acquired before submitting the next asset, so a new request starts as soon as any other one ends.
+     * The executor close waits for all the submitted requests to finish.
+     *
+     * @param walletId UUID
+     * @param queue    Queue of WalletAssetDto
+     * @param date     Instant
+     * @return List<CryptoItemDto>
+     */
+    private List<CryptoItemDto> processWithVirtualThreads(UUID walletId, Queue<WalletAssetDto> queue, Instant date) {
+        log.info("Now its {}", Instant.now());
+        List<List<CryptoPriceEntity>> results = Collections.synchronizedList(new ArrayList<>());
+        Semaphore permits = new Semaphore(numberOfThreadsPerWallet);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (!queue.isEmpty()) {
+                WalletAssetDto asset = queue.poll();
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        createBatchRequestEntry(walletId, asset, results, date);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        log.info("Results processed: {}", results.size());
+        return savePrices(results, date);
+    }
+
+    private List<CryptoPriceEntity> fetchCryptoPriceBySymbol(UUID walletId, Long walletAssetId, String cryptoAssetSymbol) {
         CryptoItemDto cryptoItemDto = cryptoProvider.getAssetsBySymbols(Collections.singletonList(cryptoAssetSymbol)).block().getFirst();
         // fetching first item, it will just fetch one asset
         log.debug("Updating crypto price: {} timestamp: {}", cryptoAssetSymbol, cryptoItemDto.getTimestamp());
 
-        CryptoPriceEntity cryptoPriceEntity = new CryptoPriceEntity();
-        cryptoPriceEntity.setPrice(cryptoItemDto.getPrice());
-        cryptoPriceEntity.setSymbol(cryptoItemDto.getSymbol());
-        cryptoPriceEntity.setTime(cryptoItemDto.getTimestamp());
-        cryptoPriceEntity.setExternalId(cryptoItemDto.getId());
-        cryptoPriceEntity.setName(cryptoItemDto.getName());
-
-        CryptoPriceEntity save = cryptoPriceRepository.save(cryptoPriceEntity);
+        CryptoPriceEntity cryptoPriceEntity = getCryptoPriceEntity(cryptoItemDto);
 
         // Update asset external id to allow to use coincap find by id API
         if (walletId != null && walletAssetId != null) {
             walletAssetService.updateWalletAsset(walletId, walletAssetId, cryptoItemDto);
-            cryptoCachingService.addToCache(cryptoItemDto.getId(), cryptoItemDto.getName(), cryptoAssetSymbol);
         }
 
         log.info("End for: {}", cryptoItemDto.getId());
-        return save;
+        return List.of(cryptoPriceEntity);
     }
 
     /**
@@ -208,15 +427,205 @@ public class CryptoPriceService {
     }
 
     public List<CryptoItemDto> fetchWalletPricesManuallyTriggeredByDate(UUID walletId, List<WalletAssetDto> listWalletAssets, Instant date) {
-        Queue<WalletAssetDto> queue;
-        if (walletQueue.containsKey(walletId)) {
-            queue = walletQueue.get(walletId);
-        } else {
-            queue = new LinkedList<>();
-        }
+        // Concurrent refreshes of the same wallet drain the same queue, each asset is taken once
+        Queue<WalletAssetDto> queue = walletQueue.computeIfAbsent(walletId, key -> new ConcurrentLinkedQueue<>());
         queue.addAll(listWalletAssets);
-        walletQueue.put(walletId, queue);
-        return processInBatches(walletId, walletQueue.get(walletId), date);
+        return switch (refreshMode) {
+            case MULTI_ASSET -> date == null ?
+                processInMultiAssetBatches(walletId, queue) :
+                processInBatches(walletId, queue, date);
+            case REACTIVE -> processReactive(walletId, queue, date);
+            case VIRTUAL_THREADS -> processWithVirtualThreads(walletId, queue, date);
+            default -> processInBatches(walletId, queue, date);
+        };
+    }
+
+    private List<CryptoItemDto> processReactive(UUID walletId, Queue<WalletAssetDto> queue, Instant date) {
+        List<WalletAssetDto> assets = new ArrayList<>(queue.size());
+        while (!queue.isEmpty()) {
+            assets.add(queue.poll());
+        }
+        List<CryptoItemDto> results = fetchWalletPricesAsync(walletId, assets, date)
+            .collectList()
+            .block();
+        log.info("Results processed: {}", results == null ? 0 : results.size());
+        return results == null ? new ArrayList<>() : results;
+    }
+
+    /**
+     * Reactive processing of the wallet assets.
+     * Each asset goes through provider call, entity mapping and persistence as a single pipeline.
+     * {@link Flux#flatMap(java.util.function.Function, int)} keeps at most {@link CryptoPriceService#numberOfThreadsPerWallet}
+     * assets in flight, a new asset starts as soon as any other one completes instead of waiting for the whole batch.
+     * Provider calls don't block any thread, only the JPA calls are offloaded to {@link Schedulers#boundedElastic()}.
+     * Failed assets are logged and skipped.
+     * Once all the assets complete, their prices are persisted with a single {@link CryptoPriceService#savePrices(Collection, Instant)}.
+     * Concurrent fetches of the same asset and minute share a single upstream request, see {@link SingleFlight},
+     * its price is persisted once, by the caller that claims it.
+     *
+     * @param walletId UUID
+     * @param assets   List of WalletAssetDto
+     * @param date     Instant, when null the latest price is fetched
+     * @return Flux<CryptoItemDto>
+     */
+    public Flux<CryptoItemDto> fetchWalletPricesAsync(UUID walletId, List<WalletAssetDto> assets, Instant date) {
+        return Flux.fromIterable(assets)
+            .flatMap(asset -> createReactiveRequestEntry(walletId, asset, date)
+                .onErrorResume(e -> {
+                    log.error("Error processing request for {}: {}", asset.getSymbol(), e.getMessage());
+                    return Mono.empty();
+                }), numberOfThreadsPerWallet)
+            .collectList()
+            .flatMapMany(fetchedPerAsset -> Mono.fromCallable(() -> saveFetchedPrices(fetchedPerAsset, date))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(Function.identity()));
+    }
+
+    /**
+     * Persist the prices claimed by the caller, with a single {@link CryptoPriceService#savePrices(Collection, Instant)}.
+     * Latest prices claimed by a concurrent caller are persisted by that caller, they are only mapped.
+     *
+     * @param fetchedPerAsset prices fetched for each asset
+     * @param date            Instant, optional
+     * @return List<CryptoItemDto>
+     */
+    private List<CryptoItemDto> saveFetchedPrices(List<FetchedPrices> fetchedPerAsset, Instant date) {
+        List<List<CryptoPriceEntity>> pricesPerAsset = new ArrayList<>();
+        List<CryptoPriceEntity> sharedPrices = new ArrayList<>();
+        fetchedPerAsset.forEach(fetched -> {
+            // History is persisted when fetched, whoever claims it
+            if (fetched.claimed() || date != null) {
+                pricesPerAsset.add(fetched.prices());
+            } else {
+                sharedPrices.addAll(fetched.prices());
+            }
+        });
+
+        List<CryptoItemDto> results = new ArrayList<>(savePrices(pricesPerAsset, date));
+        sharedPrices.forEach(price -> results.add(getCryptoItemDto(price)));
+        return results;
+    }
+
+    private Mono<FetchedPrices> createReactiveRequestEntry(UUID walletId, WalletAssetDto asset, Instant date) {
+        return Mono.defer(() -> {
+            log.info("Submitted request {} at {}", asset.getSymbol(), Instant.now());
+            if (!StringUtils.hasText(asset.getExternalId())) {
+                // Reading the symbol mapping and linking the wallet asset are blocking
+                return Mono.fromCallable(() -> Optional.ofNullable(resolveExternalId(walletId, asset)))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(externalId -> externalId.isPresent() ?
+                        fetchCryptoPriceAsync(externalId.get(), date) :
+                        fetchCryptoPriceBySymbolAsync(walletId, asset.getId(), asset.getSymbol()).map(prices -> new FetchedPrices(prices, true)));
+            }
+            return fetchCryptoPriceAsync(asset.getExternalId(), date);
+        });
+    }
+
+    /**
+     * Fetch the prices of the asset, by date or the latest one, joining the fetch of the same asset and minute in flight
+     *
+     * @param externalId String
+     * @param date       Instant, when null the latest price is fetched
+     * @return Mono<FetchedPrices>, claimed by a single caller
+     */
+    private Mono<FetchedPrices> fetchCryptoPriceAsync(String externalId, Instant date) {
+        return Mono.defer(() -> {
+            PriceFetch key = new PriceFetch(externalId, Optional.ofNullable(date).orElseGet(Instant::now).truncatedTo(ChronoUnit.MINUTES), date == null);
+            return priceFetches.execute(key, () -> (date != null ? fetchCryptoPriceByDateAsync(externalId, date) : fetchCryptoPriceAsync(externalId))
+                    .map(SharedPrices::new))
+                .map(SharedPrices::claim);
+        });
+    }
+
+    /**
+     * Get the externalId of the wallet asset, skipping the search by symbol upstream when the symbol is known.
+     * A wallet asset without externalId, with a symbol mapped by {@link SymbolResolutionService}, is linked to the mapped asset.
+     * Otherwise the asset cached by {@link AssetService} with the symbol is used for this fetch only, without linking it:
+     * the cache doesn't know the rank of the assets sharing a symbol.
+     *
+     * @param walletId UUID
+     * @param asset    WalletAssetDto
+     * @return externalId, null when the symbol is neither mapped nor cached
+     */
+    private String resolveExternalId(UUID walletId, WalletAssetDto asset) {
+        if (StringUtils.hasText(asset.getExternalId())) {
+            return asset.getExternalId();
+        }
+        Optional<CacheCryptoDetails> mappedAsset = symbolResolutionService.findMappedAsset(asset.getSymbol());
+        if (mappedAsset.isPresent()) {
+            if (walletId != null && asset.getId() != null) {
+                walletAssetService.linkWalletAsset(walletId, asset.getId(), mappedAsset.get().getAssetId());
+            }
+            return mappedAsset.get().getExternalId();
+        }
+        return assetService.findExternalIdBySymbol(asset.getSymbol()).orElse(null);
+    }
+
+    private Mono<List<CryptoPriceEntity>> fetchCryptoPriceAsync(String cryptoAssetId) {
+        return cryptoProvider.getAssetsById(Collections.singletonList(cryptoAssetId))
+            .flatMap(items -> Mono.justOrEmpty(items.stream().findFirst()))
+            .switchIfEmpty(Mono.fromRunnable(() -> log.warn("No info for cryptoAssetId: {}", cryptoAssetId)))
+            .flatMap(cryptoItemDto -> Mono.fromCallable(() -> List.of(getCryptoPriceEntity(cryptoItemDto)))
+                .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private Mono<List<CryptoPriceEntity>> fetchCryptoPriceByDateAsync(String cryptoAssetId, Instant instant) {
+        return Mono.fromCallable(() -> assetService.getOrCreateAsset(cryptoAssetId, null, null).getAssetId())
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(assetId -> Mono.justOrEmpty(getMissingHistoryRange(assetId, instant))
+                .flatMap(missingRange -> cryptoProvider.getAssetByIdBetweenDates(cryptoAssetId, missingRange.getStart(), missingRange.getEnd())
+                    .switchIfEmpty(Mono.fromRunnable(() -> log.warn("No info for cryptoAssetId: {}", cryptoAssetId)))
+                    .flatMap(cryptoHistoryDto -> Mono.fromCallable(() -> saveHistory(cryptoAssetId, assetId, missingRange, cryptoHistoryDto))
+                        .subscribeOn(Schedulers.boundedElastic()))));
+    }
+
+    private Mono<List<CryptoPriceEntity>> fetchCryptoPriceBySymbolAsync(UUID walletId, Long walletAssetId, String cryptoAssetSymbol) {
+        return cryptoProvider.getAssetsBySymbols(Collections.singletonList(cryptoAssetSymbol))
+            .flatMap(items -> Mono.justOrEmpty(items.stream().findFirst()))
+            .switchIfEmpty(Mono.fromRunnable(() -> log.warn("No info for cryptoAssetSymbol: {}", cryptoAssetSymbol)))
+            .flatMap(cryptoItemDto -> Mono.fromCallable(() -> {
+                    CryptoPriceEntity cryptoPriceEntity = getCryptoPriceEntity(cryptoItemDto);
+                    // Update asset external id to allow to use coincap find by id API
+                    if (walletId != null && walletAssetId != null) {
+                        walletAssetService.updateWalletAsset(walletId, walletAssetId, cryptoItemDto);
+                    }
+                    return List.of(cryptoPriceEntity);
+                })
+                .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    /**
+     * Multi asset processing of queue items.
+     * Assets with an external id are grouped in chunks limited by {@link CryptoPriceService#maxIdsQueryLength},
+     * each chunk is resolved with a single upstream request.
+     * Assets without external id still need the search by symbol, so they are fetched by {@link CryptoPriceService#fetchInBatches(UUID, Queue, Instant)}.
+     * All the results are persisted with one saveAll.
+     *
+     * @param walletId UUID
+     * @param queue    Queue of WalletAssetDto
+     * @return List<CryptoItemDto>
+     */
+    private List<CryptoItemDto> processInMultiAssetBatches(UUID walletId, Queue<WalletAssetDto> queue) {
+        List<String> externalIds = new ArrayList<>();
+        Queue<WalletAssetDto> withoutExternalId = new LinkedList<>();
+        while (!queue.isEmpty()) {
+            WalletAssetDto asset = queue.poll();
+            if (StringUtils.hasText(asset.getExternalId())) {
+                externalIds.add(asset.getExternalId());
+            } else {
+                withoutExternalId.add(asset);
+            }
+        }
+
+        List<List<CryptoPriceEntity>> pricesPerAsset = new ArrayList<>();
+        fetchLatestPricesByExternalIds(externalIds).forEach(entity -> pricesPerAsset.add(List.of(entity)));
+        if (!withoutExternalId.isEmpty()) {
+            pricesPerAsset.addAll(fetchInBatches(walletId, withoutExternalId, null));
+        }
+
+        List<CryptoItemDto> results = savePrices(pricesPerAsset, null);
+        log.info("Results processed: {}", results.size());
+        return results;
     }
 
     /**
@@ -231,18 +640,83 @@ public class CryptoPriceService {
         return fetchWalletPricesManuallyTriggeredByDate(walletId, listWalletAssets, null);
     }
 
-    private void createBatchRequestEntry(UUID walletId, WalletAssetDto asset, List<CryptoPriceEntity> results, Instant date) {
+    /**
+     * Fetch the latest price of each external id once.
+     * When the ids don't fit a single request and {@link CryptoPriceService#marketSnapshotLimit} is enabled,
+     * a market snapshot is requested first and only the ids missing from it are requested by id.
+     *
+     * @param externalIds Collection of external ids
+     * @return List of CryptoPriceEntity, not persisted yet
+     */
+    private List<CryptoPriceEntity> fetchLatestPricesByExternalIds(Collection<String> externalIds) {
+        Set<String> pendingIds = new LinkedHashSet<>(externalIds);
+        List<CryptoPriceEntity> entitiesToAdd = new ArrayList<>();
+
+        List<List<String>> chunks = chunkIdsByQueryLength(pendingIds, maxIdsQueryLength);
+        if (chunks.size() > 1 && marketSnapshotLimit > 0) {
+            log.info("Submitted market snapshot request for {} assets at {}", marketSnapshotLimit, Instant.now());
+            try {
+                List<CryptoItemDto> snapshot = cryptoProvider.getAssetsSnapshot(marketSnapshotLimit).block();
+                if (!CollectionUtils.isEmpty(snapshot)) {
+                    snapshot.stream()
+                        .filter(item -> pendingIds.remove(item.getId()))
+                        .forEach(item -> entitiesToAdd.add(getCryptoPriceEntity(item)));
+                }
+            } catch (Exception e) {
+                log.error("Error processing market snapshot request: {}", e.getMessage());
+            }
+            chunks = chunkIdsByQueryLength(pendingIds, maxIdsQueryLength);
+        }
+
+        for (List<String> chunk : chunks) {
+            log.info("Submitted request for {} assets at {}", chunk.size(), Instant.now());
+            try {
+                List<CryptoItemDto> cryptoItemDtos = cryptoProvider.getAssetsById(chunk).block();
+                if (!CollectionUtils.isEmpty(cryptoItemDtos)) {
+                    cryptoItemDtos.forEach(item -> entitiesToAdd.add(getCryptoPriceEntity(item)));
+                }
+            } catch (Exception e) {
+                log.error("Error processing request for {}: {}", chunk, e.getMessage());
+            }
+        }
+
+        return entitiesToAdd;
+    }
+
+    /**
+     * Market poller entry point.
+     * Fetches the union of external ids held by the given wallets only once and stores one price per asset,
+     * independently of how many wallets hold it.
+     * Assets without external id are resolved by symbol, per wallet, until the external id is known.
+     * The prices of all the wallets are persisted with one saveAll.
+     *
+     * @param walletIds Collection of wallet ids due for a refresh
+     * @return List<CryptoItemDto>
+     */
+    public List<CryptoItemDto> fetchMarketPrices(Collection<UUID> walletIds) {
+        Set<String> externalIds = walletAssetService.findDistinctExternalIds(walletIds);
+        log.info("Market poll for {} wallets with {} distinct assets", walletIds.size(), externalIds.size());
+
+        List<List<CryptoPriceEntity>> pricesPerAsset = new ArrayList<>();
+        fetchLatestPricesByExternalIds(externalIds).forEach(entity -> pricesPerAsset.add(List.of(entity)));
+
+        walletAssetService.findWalletAssetsWithoutExternalId(walletIds)
+            .forEach((walletId, assets) -> pricesPerAsset.addAll(fetchInBatches(walletId, new LinkedList<>(assets), null)));
+        return savePrices(pricesPerAsset, null);
+    }
+
+    private void createBatchRequestEntry(UUID walletId, WalletAssetDto asset, List<List<CryptoPriceEntity>> results, Instant date) {
         log.info("Submitted request {} at {}", asset.getSymbol(), Instant.now());
         try {
-            String externalId = asset.getExternalId();
+            String externalId = resolveExternalId(walletId, asset);
             if (StringUtils.hasText(externalId)) {
                 if (date != null) {
-                    updateCryptoPriceByDate(externalId, date).ifPresent(results::add);
+                    results.add(fetchCryptoPriceByDate(externalId, date));
                 } else {
-                    results.add(updateCryptoPrice(externalId));
+                    results.add(fetchCryptoPrice(externalId));
                 }
             } else {
-                results.add(updateCryptoPriceBySymbol(walletId, asset.getId(), asset.getSymbol()));
+                results.add(fetchCryptoPriceBySymbol(walletId, asset.getId(), asset.getSymbol()));
             }
         } catch (Exception e) {
             log.error("Error processing request for {}: {}", asset.getSymbol(), e.getMessage());
@@ -262,6 +736,10 @@ public class CryptoPriceService {
     /**
      * Get latest price from database.
      * Will allow to search using with or without date {@link Instant}
+     * With date, the latest price at or before the minute of the date, within {@link CryptoPriceService#asOfTolerance}, is returned,
+     * or within the interval of the stored history when the date is covered on {@link HistoryCoverageService}.
+     * The as-of prices are first looked up on {@link AsOfPriceCachingService}, by minute of the date
+     * Without date the price is first looked up on {@link LatestPriceCachingService}, the database is only queried on a miss
      * Throws runtime exception {@link AssetDataNotFound} when no result is found
      *
      * @param externalId CryptoAsset ExternalId
@@ -271,14 +749,164 @@ public class CryptoPriceService {
     public CryptoItemDto getAssetLatestPrice(String externalId, Instant date) {
         CryptoPriceEntity lastByExternalId;
         if (date == null) {
-            lastByExternalId = cryptoPriceRepository.findTopByExternalIdOrderByTimeDesc(externalId)
+            Optional<CryptoItemDto> cachedLatestPrice = latestPriceCachingService.getLatestPrice(externalId);
+            if (cachedLatestPrice.isPresent()) {
+                return cachedLatestPrice.get();
+            }
+            Integer assetId = getAssetId(externalId);
+            lastByExternalId = cryptoPriceRepository.findTopByAssetIdOrderByTimeDesc(assetId)
                 .orElseThrow(AssetDataNotFound::new);
+            CryptoItemDto cryptoItemDto = getCryptoItemDto(lastByExternalId);
+            latestPriceCachingService.updateLatestPrice(cryptoItemDto);
+            return cryptoItemDto;
         } else {
-            lastByExternalId = cryptoPriceRepository.findTopByExternalIdAndTimeOrderByTimeDesc(externalId, date, PageRequest.of(0, 1))
-                .stream()
-                .findFirst()
+            Optional<CryptoItemDto> cachedAsOfPrice = asOfPriceCachingService.getPrice(externalId, date);
+            if (cachedAsOfPrice.isPresent()) {
+                return cachedAsOfPrice.get();
+            }
+            Integer assetId = getAssetId(externalId);
+            Instant minute = date.truncatedTo(ChronoUnit.MINUTES);
+            Duration tolerance = getAsOfTolerance(historyCoverageService.getCoveredSteps(List.of(assetId), minute).get(assetId));
+            lastByExternalId = cryptoPriceRepository.findTopByAssetIdAndTimeBetweenOrderByTimeDesc(assetId, minute.minus(tolerance), minute)
                 .orElseThrow(AssetDataNotFound::new);
+            CryptoItemDto cryptoItemDto = getCryptoItemDto(lastByExternalId);
+            asOfPriceCachingService.putPrice(externalId, minute, cryptoItemDto);
+            return cryptoItemDto;
+        }
+    }
+
+    /**
+     * Stored history only has a price per interval, any price within the interval before the date is the as-of price
+     *
+     * @param coveredStep interval between the stored prices holding the date, null when not covered
+     * @return Duration
+     */
+    private Duration getAsOfTolerance(Duration coveredStep) {
+        return coveredStep != null && coveredStep.compareTo(asOfTolerance) > 0 ? coveredStep : asOfTolerance;
+    }
+
+    private Integer getAssetId(String externalId) {
+        return assetService.findByExternalId(externalId)
+            .map(CacheCryptoDetails::getAssetId)
+            .orElseThrow(AssetDataNotFound::new);
+    }
+
+    /**
+     * Get latest price from database for a set of assets with a single query.
+     * Without date the prices are first looked up on {@link LatestPriceCachingService}, only the misses are queried.
+     * With date they are first looked up on {@link AsOfPriceCachingService}, and the as-of price at the minute of the date is returned.
+     * With date, assets with stored history at the date are queried with the interval of the history as tolerance,
+     * so historical wallet queries don't need an upstream request for them.
+     * Assets without data are not present on the returned map.
+     *
+     * @param externalIds Collection of CryptoAsset ExternalIds
+     * @param date        Instant, optional
+     * @return Map<String, CryptoItemDto> by externalId
+     */
+    public Map<String, CryptoItemDto> getAssetsLatestPrice(Collection<String> externalIds, Instant date) {
+        Map<String, CryptoItemDto> latestPrices = new HashMap<>();
+        List<Integer> missingAssetIds = new ArrayList<>();
+        for (String externalId : new LinkedHashSet<>(externalIds)) {
+            if (!StringUtils.hasText(externalId)) {
+                continue;
+            }
+            Optional<CryptoItemDto> cachedLatestPrice = date == null ?
+                latestPriceCachingService.getLatestPrice(externalId) :
+                asOfPriceCachingService.getPrice(externalId, date);
+            if (cachedLatestPrice.isPresent()) {
+                latestPrices.put(externalId, cachedLatestPrice.get());
+            } else {
+                // Assets never stored have no price either
+                assetService.findByExternalId(externalId)
+                    .ifPresent(asset -> missingAssetIds.add(asset.getAssetId()));
+            }
+        }
+
+        if (missingAssetIds.isEmpty()) {
+            return latestPrices;
+        }
+        if (date == null) {
+            cryptoPriceRepository.findLatestPricesByAssetIds(missingAssetIds, null, null)
+                .forEach(entity -> {
+                    CryptoItemDto cryptoItemDto = getCryptoItemDto(entity);
+                    latestPriceCachingService.updateLatestPrice(cryptoItemDto);
+                    latestPrices.put(cryptoItemDto.getId(), cryptoItemDto);
+                });
+            return latestPrices;
+        }
+
+        // Assets with stored history use the interval of the history as tolerance, one query per tolerance
+        Instant minute = date.truncatedTo(ChronoUnit.MINUTES);
+        Map<Integer, Duration> coveredSteps = historyCoverageService.getCoveredSteps(missingAssetIds, minute);
+        missingAssetIds.stream()
+            .collect(Collectors.groupingBy(assetId -> getAsOfTolerance(coveredSteps.get(assetId))))
+            .forEach((tolerance, assetIds) -> cryptoPriceRepository.findLatestPricesByAssetIds(assetIds, minute.minus(tolerance), minute)
+                .forEach(entity -> {
+                    CryptoItemDto cryptoItemDto = getCryptoItemDto(entity);
+                    asOfPriceCachingService.putPrice(cryptoItemDto.getId(), minute, cryptoItemDto);
+                    latestPrices.put(cryptoItemDto.getId(), cryptoItemDto);
+                }));
+        return latestPrices;
+    }
+
+    /**
+     * Get the stored prices of each asset between both dates, with a range query per asset.
+     * The prices start within the as-of tolerance before the start, so the price at the start is included.
+     * Assets with stored history at the start use the interval of the history as tolerance.
+     * Assets never stored are not present on the returned map.
+     *
+     * @param externalIds Collection of CryptoAsset ExternalIds
+     * @param start       Instant
+     * @param end         Instant
+     * @return Map<String, AssetPriceHistoryDto> by externalId
+     */
+    public Map<String, AssetPriceHistoryDto> getAssetsPriceHistory(Collection<String> externalIds, Instant start, Instant end) {
+        Map<Integer, String> externalIdsByAssetId = new HashMap<>();
+        for (String externalId : new LinkedHashSet<>(externalIds)) {
+            if (StringUtils.hasText(externalId)) {
+                assetService.findByExternalId(externalId)
+                    .ifPresent(asset -> externalIdsByAssetId.put(asset.getAssetId(), externalId));
+            }
+        }
+        if (externalIdsByAssetId.isEmpty()) {
+            return new HashMap<>();
         }
-        return getCryptoItemDto(lastByExternalId);
+
+        Map<Integer, Duration> coveredSteps = historyCoverageService.getCoveredSteps(externalIdsByAssetId.keySet(), start);
+        Map<String, AssetPriceHistoryDto> histories = new HashMap<>();
+        externalIdsByAssetId.forEach((assetId, externalId) -> {
+            Duration tolerance = getAsOfTolerance(coveredSteps.get(assetId));
+            List<CryptoItemDto> prices = cryptoPriceRepository.findByAssetIdAndTimeBetweenOrderByTimeAsc(assetId, start.minus(tolerance), end).stream()
+                .map(this::getCryptoItemDto)
+                .toList();
+            histories.put(externalId, new AssetPriceHistoryDto(externalId, tolerance, prices));
+        });
+        return histories;
+    }
+
+    /**
+     * Key of an upstream price fetch, the minute of the date or of the request for the latest price
+     */
+    private record PriceFetch(String externalId, Instant minute, boolean latest) {
+    }
+
+    /**
+     * Prices fetched once for the concurrent callers, the first caller to claim them persists them
+     */
+    private record SharedPrices(List<CryptoPriceEntity> prices, AtomicBoolean claimed) {
+
+        private SharedPrices(List<CryptoPriceEntity> prices) {
+            this(prices, new AtomicBoolean());
+        }
+
+        private FetchedPrices claim() {
+            return new FetchedPrices(prices, claimed.compareAndSet(false, true));
+        }
+    }
+
+    /**
+     * Prices fetched for a caller, claimed when the caller persists them
+     */
+    private record FetchedPrices(List<CryptoPriceEntity> prices, boolean claimed) {
     }
 }
@@ -1,7 +1,10 @@
 package com.dmsc.cryptofinanceservice.service;
 
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import com.dmsc.coincapjavasdk.model.response.PriceData;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoHistoryDto;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
@@ -15,5 +18,32 @@ public interface CryptoProvider {
 
     Mono<List<CryptoItemDto>> getAssetsById(List<String> id);
 
-    Mono<CryptoHistoryDto> getAssetByIdAtGivenDate(String id, Instant date);
+    /**
+     * Fetch a snapshot of the market with the first assets ordered by rank
+     *
+     * @param limit max number of assets to return
+     * @return Mono<List<CryptoItemDto>>
+     */
+    Mono<List<CryptoItemDto>> getAssetsSnapshot(int limit);
+
+    /**
+     * Fetch the history of an asset in 1 minute intervals, the range must not exceed the max span of {@link IntervalValue#M1}
+     *
+     * @param id    asset external id
+     * @param start Instant
+     * @param end   Instant
+     * @return Mono<CryptoHistoryDto>
+     */
+    Mono<CryptoHistoryDto> getAssetByIdBetweenDates(String id, Instant start, Instant end);
+
+    /**
+     * Fetch the raw price history of an asset, without mapping the points, used by the bulk history loads
+     *
+     * @param id       asset external id
+     * @param interval interval between points
+     * @param start    Instant
+     * @param end      Instant
+     * @return Flux<PriceData>
+     */
+    Flux<PriceData> getAssetHistory(String id, IntervalValue interval, Instant start, Instant end);
 }
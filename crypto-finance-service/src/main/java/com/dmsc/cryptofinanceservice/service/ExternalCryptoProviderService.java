@@ -4,17 +4,19 @@ import com.dmsc.coincapjavasdk.WebClientAssetsRestSdk;
 import com.dmsc.coincapjavasdk.model.IntervalValue;
 import com.dmsc.coincapjavasdk.model.request.CryptoDataRequest;
 import com.dmsc.coincapjavasdk.model.request.CryptoHistoryRequest;
+import com.dmsc.coincapjavasdk.model.response.CryptoPriceHistoryData;
 import com.dmsc.coincapjavasdk.model.response.DataDetails;
+import com.dmsc.coincapjavasdk.model.response.PriceData;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoHistoryDto;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoHistoryItemDto;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -29,11 +31,12 @@ public class ExternalCryptoProviderService implements CryptoProvider {
 
     @Override
     public Mono<List<CryptoItemDto>> getAssetsBySymbols(List<String> listSymbols) {
-        return getAssets(listSymbols, null);
+        return getAssets(listSymbols, null, null);
     }
 
-    private Mono<List<CryptoItemDto>> getAssets(List<String> listSymbols, List<String> listIds) {
+    private Mono<List<CryptoItemDto>> getAssets(List<String> listSymbols, List<String> listIds, Integer limit) {
         CryptoDataRequest request = new CryptoDataRequest();
+        request.setLimit(limit);
         if (!CollectionUtils.isEmpty(listSymbols)) {
             request.setSearch(listSymbols);
         }
@@ -59,17 +62,22 @@ public class ExternalCryptoProviderService implements CryptoProvider {
 
     @Override
     public Mono<List<CryptoItemDto>> getAssetsById(List<String> id) {
-        return getAssets(null, id);
+        return getAssets(null, id, null);
     }
 
     @Override
-    public Mono<CryptoHistoryDto> getAssetByIdAtGivenDate(String id, Instant date) {
+    public Mono<List<CryptoItemDto>> getAssetsSnapshot(int limit) {
+        return getAssets(null, null, limit);
+    }
+
+    @Override
+    public Mono<CryptoHistoryDto> getAssetByIdBetweenDates(String id, Instant start, Instant end) {
         CryptoHistoryRequest request = new CryptoHistoryRequest();
         // Find Date in 1 Minute Intervals to match minute timestamp
         request.setDuration(IntervalValue.M1);
         // To use M1 we only are able to search with 1 day or less periods
-        request.setStart(date.minus(5, ChronoUnit.MINUTES));
-        request.setEnd(date.plus(5, ChronoUnit.MINUTES));
+        request.setStart(start);
+        request.setEnd(end);
         return assetsReactiveSdk.getHistoryByAssetAsync(id, request)
             .map(item -> {
                 CryptoHistoryDto cryptoHistoryDto = new CryptoHistoryDto();
@@ -84,4 +92,15 @@ public class ExternalCryptoProviderService implements CryptoProvider {
                 return cryptoHistoryDto;
             });
     }
+
+    @Override
+    public Flux<PriceData> getAssetHistory(String id, IntervalValue interval, Instant start, Instant end) {
+        CryptoHistoryRequest request = new CryptoHistoryRequest();
+        request.setDuration(interval);
+        request.setStart(start);
+        request.setEnd(end);
+        return assetsReactiveSdk.getHistoryByAssetAsync(id, request)
+            .filter(item -> item.getData() != null)
+            .flatMapIterable(CryptoPriceHistoryData::getData);
+    }
 }
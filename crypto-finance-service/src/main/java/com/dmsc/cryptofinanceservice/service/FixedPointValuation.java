@@ -0,0 +1,399 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Valuation arithmetic of the wallets on primitives, the results are scaled longs at {@link #DECIMAL_SCALE}:
+ * cents for the values and hundredths of a percent for the performances.
+ * <p>
+ * The results are the same as the {@link BigDecimal} arithmetic, with the same rounding:
+ * the value of an asset is added to the total and rounded HALF_UP to {@link #DECIMAL_SCALE},
+ * the performance is the change of price divided by the initial price, rounded HALF_UP to {@link #DIVISION_SCALE},
+ * as a percentage rounded HALF_UP to {@link #DECIMAL_SCALE}.
+ * <p>
+ * Decimals are converted once to a {@link ScaledDecimal}, then each operation is computed on the first exact tier:
+ * <ul>
+ *     <li>unscaled longs, when the operands and the intermediate results fit a long</li>
+ *     <li>doubles, prices from upstream have around 20 significant digits and don't fit a long,
+ *     the double result is within a known error of the exact one, so its rounding is exact unless it's that close to a tie</li>
+ *     <li>{@link BigDecimal}, otherwise</li>
+ * </ul>
+ */
+public final class FixedPointValuation {
+    public static final int DECIMAL_SCALE = 2;
+    public static final int DIVISION_SCALE = 10;
+    public static final int MAX_SCALE = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+    // Remainders up to this bound are multiplied by 10^DIVISION_SCALE at once
+    private static final long MAX_SINGLE_STEP_DIVISOR = Long.MAX_VALUE / 10_000_000_000L;
+    // Doubles up to 2^52 have a fractional part exact to 2^-1
+    private static final double MAX_EXACT_DOUBLE = 0x1p52;
+    // Relative error of a double product of two converted decimals, with margin
+    private static final double VALUE_RELATIVE_ERROR = 1e-14;
+    // Error of the double ratio times 10^DIVISION_SCALE, by unit of ratio + 2, with margin
+    private static final double RATIO_ERROR = 1e-4;
+    // Result of a tier that can't compute the exact result, never an operand nor a result
+    private static final long NOT_EXACT = Long.MIN_VALUE;
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPointValuation() {
+    }
+
+    /**
+     * Decimal converted for the valuation arithmetic, its unscaled long and scale when it fits a long and its closest double
+     *
+     * @param decimal       BigDecimal
+     * @param fitsLong      true when unscaled and scale represent the decimal
+     * @param unscaled      unscaled value
+     * @param scale         scale, not negative
+     * @param approximation closest double, NaN when out of the normal double range
+     */
+    public record ScaledDecimal(BigDecimal decimal, boolean fitsLong, long unscaled, int scale, double approximation) {
+
+        public static ScaledDecimal of(BigDecimal decimal) {
+            double approximation = decimal.doubleValue();
+            if (decimal.signum() != 0 && !(Math.abs(approximation) >= Double.MIN_NORMAL && Math.abs(approximation) <= Double.MAX_VALUE)) {
+                // Subnormal or infinite doubles don't have the relative error of the double tier
+                approximation = Double.NaN;
+            }
+            int scale = Math.max(0, decimal.scale());
+            if (scale <= MAX_SCALE) {
+                try {
+                    long unscaled = decimal.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+                    return new ScaledDecimal(decimal, unscaled != NOT_EXACT, unscaled, scale, approximation);
+                } catch (ArithmeticException e) {
+                    // Out of the long range
+                }
+            }
+            return new ScaledDecimal(decimal, false, 0, 0, approximation);
+        }
+
+        public int signum() {
+            return decimal.signum();
+        }
+    }
+
+    /**
+     * Value of the asset, price times quantity, rounded HALF_UP to {@link #DECIMAL_SCALE}
+     *
+     * @param price    ScaledDecimal
+     * @param quantity ScaledDecimal
+     * @return unscaled value at {@link #DECIMAL_SCALE}
+     */
+    public static long value(ScaledDecimal price, ScaledDecimal quantity) {
+        if (price.fitsLong() && quantity.fitsLong()) {
+            long value = exactAddValue(0, price.unscaled(), price.scale(), quantity.unscaled(), quantity.scale());
+            if (value != NOT_EXACT) {
+                return value;
+            }
+        }
+        double cents = price.approximation() * quantity.approximation() * 100;
+        long value = roundHalfUp(cents, Math.abs(cents) * VALUE_RELATIVE_ERROR);
+        if (value != NOT_EXACT) {
+            return value;
+        }
+        return price.decimal().multiply(quantity.decimal())
+            .setScale(DECIMAL_SCALE, RoundingMode.HALF_UP)
+            .unscaledValue().longValueExact();
+    }
+
+    /**
+     * Add the value of the asset to the total, rounded HALF_UP to {@link #DECIMAL_SCALE}
+     *
+     * @param total    unscaled total at {@link #DECIMAL_SCALE}
+     * @param price    ScaledDecimal
+     * @param quantity ScaledDecimal
+     * @return unscaled total at {@link #DECIMAL_SCALE}
+     */
+    public static long addValue(long total, ScaledDecimal price, ScaledDecimal quantity) {
+        if (price.fitsLong() && quantity.fitsLong()) {
+            long updatedTotal = exactAddValue(total, price.unscaled(), price.scale(), quantity.unscaled(), quantity.scale());
+            if (updatedTotal != NOT_EXACT) {
+                return updatedTotal;
+            }
+        }
+        // Rounding HALF_UP is symmetric, adding the rounded value is the same as rounding the sum when both have the same sign
+        int valueSign = price.signum() * quantity.signum();
+        if (total == 0 || valueSign == 0 || Long.signum(total) == valueSign) {
+            return Math.addExact(total, value(price, quantity));
+        }
+        return BigDecimal.valueOf(total, DECIMAL_SCALE)
+            .add(price.decimal().multiply(quantity.decimal()))
+            .setScale(DECIMAL_SCALE, RoundingMode.HALF_UP)
+            .unscaledValue().longValueExact();
+    }
+
+    /**
+     * Performance of the asset, as a percentage, rounded HALF_UP to {@link #DECIMAL_SCALE}
+     *
+     * @param latestPrice  ScaledDecimal
+     * @param initialPrice ScaledDecimal
+     * @return unscaled performance at {@link #DECIMAL_SCALE}, 0 when the initial price is 0
+     */
+    public static long performance(ScaledDecimal latestPrice, ScaledDecimal initialPrice) {
+        if (initialPrice.signum() == 0) {
+            return 0;
+        }
+        long performance = NOT_EXACT;
+        if (latestPrice.fitsLong() && initialPrice.fitsLong()) {
+            performance = exactPerformance(latestPrice.unscaled(), latestPrice.scale(), initialPrice.unscaled(), initialPrice.scale());
+        }
+        if (performance == NOT_EXACT) {
+            performance = approximatePerformance(latestPrice.approximation(), initialPrice.approximation());
+        }
+        if (performance != NOT_EXACT) {
+            return performance;
+        }
+        return bigDecimalPerformance(latestPrice.decimal(), initialPrice.decimal())
+            .unscaledValue().longValueExact();
+    }
+
+    /**
+     * Add the value of the asset, price times quantity, to the total, rounded HALF_UP to {@link #DECIMAL_SCALE}
+     *
+     * @param total         unscaled total at {@link #DECIMAL_SCALE}
+     * @param price         unscaled price
+     * @param priceScale    scale of the price
+     * @param quantity      unscaled quantity
+     * @param quantityScale scale of the quantity
+     * @return unscaled total at {@link #DECIMAL_SCALE}
+     * @throws ArithmeticException when out of the long range
+     */
+    public static long addValue(long total, long price, int priceScale, long quantity, int quantityScale) {
+        return requireExact(exactAddValue(total, price, priceScale, quantity, quantityScale));
+    }
+
+    /**
+     * Performance of the asset, as a percentage, rounded HALF_UP to {@link #DECIMAL_SCALE}
+     *
+     * @param latestPrice       unscaled latest price
+     * @param latestPriceScale  scale of the latest price
+     * @param initialPrice      unscaled initial price
+     * @param initialPriceScale scale of the initial price
+     * @return unscaled performance at {@link #DECIMAL_SCALE}, 0 when the initial price is 0
+     * @throws ArithmeticException when out of the long range
+     */
+    public static long performance(long latestPrice, int latestPriceScale, long initialPrice, int initialPriceScale) {
+        return requireExact(exactPerformance(latestPrice, latestPriceScale, initialPrice, initialPriceScale));
+    }
+
+    public static BigDecimal toDecimal(long unscaled) {
+        return BigDecimal.valueOf(unscaled, DECIMAL_SCALE);
+    }
+
+    /**
+     * Add the value of the asset to the total, see {@link #addValue(long, ScaledDecimal, ScaledDecimal)}
+     *
+     * @param total    BigDecimal, null as 0
+     * @param price    BigDecimal
+     * @param quantity BigDecimal
+     * @return BigDecimal at {@link #DECIMAL_SCALE}
+     */
+    public static BigDecimal addValue(BigDecimal total, BigDecimal price, BigDecimal quantity) {
+        if (total != null && total.scale() > DECIMAL_SCALE) {
+            return total.add(price.multiply(quantity)).setScale(DECIMAL_SCALE, RoundingMode.HALF_UP);
+        }
+        try {
+            long unscaledTotal = total == null ? 0 : total.setScale(DECIMAL_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+            return toDecimal(addValue(unscaledTotal, ScaledDecimal.of(price), ScaledDecimal.of(quantity)));
+        } catch (ArithmeticException e) {
+            return (total == null ? BigDecimal.ZERO : total).add(price.multiply(quantity))
+                .setScale(DECIMAL_SCALE, RoundingMode.HALF_UP);
+        }
+    }
+
+    /**
+     * Calculate the performance of the asset, see {@link #performance(ScaledDecimal, ScaledDecimal)}
+     *
+     * @param latestPrice  BigDecimal
+     * @param initialPrice BigDecimal
+     * @return BigDecimal at {@link #DECIMAL_SCALE}, 0 when a price is missing or the initial price is 0
+     */
+    public static BigDecimal calculateAssetPerformance(BigDecimal latestPrice, BigDecimal initialPrice) {
+        if (latestPrice == null || initialPrice == null || initialPrice.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        try {
+            return toDecimal(performance(ScaledDecimal.of(latestPrice), ScaledDecimal.of(initialPrice)));
+        } catch (ArithmeticException e) {
+            return bigDecimalPerformance(latestPrice, initialPrice);
+        }
+    }
+
+    // The long tier returns NOT_EXACT instead of throwing on overflow, it's expected for the prices from upstream
+
+    private static long exactAddValue(long total, long price, int priceScale, long quantity, int quantityScale) {
+        long value = multiply(price, quantity);
+        int valueScale = priceScale + quantityScale;
+        if (value == NOT_EXACT || total == NOT_EXACT || valueScale - DECIMAL_SCALE > MAX_SCALE) {
+            return NOT_EXACT;
+        }
+        if (valueScale <= DECIMAL_SCALE) {
+            return add(total, multiply(value, POWERS_OF_TEN[DECIMAL_SCALE - valueScale]));
+        }
+        long divisor = POWERS_OF_TEN[valueScale - DECIMAL_SCALE];
+        long sum = add(multiply(total, divisor), value);
+        return sum == NOT_EXACT ? NOT_EXACT : divideHalfUp(sum, divisor);
+    }
+
+    private static long exactPerformance(long latestPrice, int latestPriceScale, long initialPrice, int initialPriceScale) {
+        if (initialPrice == 0) {
+            return 0;
+        }
+        if (Math.abs(latestPriceScale - initialPriceScale) > MAX_SCALE) {
+            return NOT_EXACT;
+        }
+        // The ratio doesn't depend on the scale once both prices have the same one
+        if (latestPriceScale < initialPriceScale) {
+            latestPrice = multiply(latestPrice, POWERS_OF_TEN[initialPriceScale - latestPriceScale]);
+        } else if (initialPriceScale < latestPriceScale) {
+            initialPrice = multiply(initialPrice, POWERS_OF_TEN[latestPriceScale - initialPriceScale]);
+        }
+        if (latestPrice == NOT_EXACT || initialPrice == NOT_EXACT) {
+            return NOT_EXACT;
+        }
+        long ratio = divideHalfUpAtDivisionScale(add(latestPrice, -initialPrice), initialPrice);
+        return ratio == NOT_EXACT ? NOT_EXACT : ratioToPerformance(ratio);
+    }
+
+    /**
+     * @return the product, {@link #NOT_EXACT} when it overflows or an operand is {@link #NOT_EXACT}
+     */
+    private static long multiply(long left, long right) {
+        long product = left * right;
+        long high = Math.multiplyHigh(left, right);
+        if (left == NOT_EXACT || right == NOT_EXACT || high != (product >> 63)) {
+            return NOT_EXACT;
+        }
+        return product;
+    }
+
+    /**
+     * @return the sum, {@link #NOT_EXACT} when it overflows or an operand is {@link #NOT_EXACT}
+     */
+    private static long add(long left, long right) {
+        long sum = left + right;
+        if (left == NOT_EXACT || right == NOT_EXACT || ((left ^ sum) & (right ^ sum)) < 0) {
+            return NOT_EXACT;
+        }
+        return sum;
+    }
+
+    private static long requireExact(long value) {
+        if (value == NOT_EXACT) {
+            throw new ArithmeticException("Out of the long range");
+        }
+        return value;
+    }
+
+    private static BigDecimal bigDecimalPerformance(BigDecimal latestPrice, BigDecimal initialPrice) {
+        return latestPrice.subtract(initialPrice)
+            .divide(initialPrice, DIVISION_SCALE, RoundingMode.HALF_UP)
+            .multiply(ONE_HUNDRED)
+            .setScale(DECIMAL_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Performance from the double prices
+     *
+     * @return unscaled performance at {@link #DECIMAL_SCALE}, {@link #NOT_EXACT} when the rounding can't be decided
+     */
+    private static long approximatePerformance(double latestPrice, double initialPrice) {
+        double ratio = (latestPrice - initialPrice) / initialPrice;
+        long scaledRatio = roundHalfUp(ratio * POWERS_OF_TEN[DIVISION_SCALE], RATIO_ERROR * (Math.abs(ratio) + 2));
+        return scaledRatio == NOT_EXACT ? NOT_EXACT : ratioToPerformance(scaledRatio);
+    }
+
+    /**
+     * Round HALF_UP to an integer a double within the error of the exact value
+     *
+     * @return long, {@link #NOT_EXACT} when the exact value may be on the other side of a tie, out of range or NaN
+     */
+    private static long roundHalfUp(double value, double error) {
+        double magnitude = Math.abs(value);
+        if (!(magnitude < MAX_EXACT_DOUBLE)) {
+            return NOT_EXACT;
+        }
+        double floor = Math.floor(magnitude);
+        double fraction = magnitude - floor;
+        if (Math.abs(fraction - 0.5) <= error) {
+            return NOT_EXACT;
+        }
+        long rounded = (long) floor + (fraction > 0.5 ? 1 : 0);
+        return value < 0 ? -rounded : rounded;
+    }
+
+    /**
+     * The ratio times 100 is exact at {@link #DIVISION_SCALE}, then rounded to {@link #DECIMAL_SCALE}
+     */
+    private static long ratioToPerformance(long ratio) {
+        return divideHalfUp(ratio, POWERS_OF_TEN[DIVISION_SCALE - DECIMAL_SCALE - 2]);
+    }
+
+    /**
+     * Divide, rounding HALF_UP, ties away from zero
+     *
+     * @param dividend long
+     * @param divisor  long, positive
+     * @return long
+     */
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= divisor - remainder) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+
+    /**
+     * Divide, rounding HALF_UP to {@link #DIVISION_SCALE} digits
+     *
+     * @param dividend long
+     * @param divisor  long, not 0
+     * @return unscaled quotient at {@link #DIVISION_SCALE}, {@link #NOT_EXACT} when out of the long range
+     */
+    private static long divideHalfUpAtDivisionScale(long dividend, long divisor) {
+        if (dividend == NOT_EXACT || divisor == NOT_EXACT || Math.abs(divisor) > Long.MAX_VALUE / 10) {
+            return NOT_EXACT;
+        }
+        int sign = Long.signum(dividend) * Long.signum(divisor);
+        long absoluteDividend = Math.abs(dividend);
+        long absoluteDivisor = Math.abs(divisor);
+
+        long integerPart = absoluteDividend / absoluteDivisor;
+        long remainder = absoluteDividend % absoluteDivisor;
+        long fractionalPart;
+        if (absoluteDivisor <= MAX_SINGLE_STEP_DIVISOR) {
+            long scaledRemainder = remainder * POWERS_OF_TEN[DIVISION_SCALE];
+            fractionalPart = scaledRemainder / absoluteDivisor;
+            remainder = scaledRemainder % absoluteDivisor;
+        } else {
+            // Long division, a digit at a time, the remainder times 10 fits as the divisor is below Long.MAX_VALUE / 10
+            fractionalPart = 0;
+            for (int digit = 0; digit < DIVISION_SCALE; digit++) {
+                remainder *= 10;
+                fractionalPart = fractionalPart * 10 + remainder / absoluteDivisor;
+                remainder %= absoluteDivisor;
+            }
+        }
+
+        long quotient = add(multiply(integerPart, POWERS_OF_TEN[DIVISION_SCALE]), fractionalPart);
+        if (quotient == NOT_EXACT) {
+            return NOT_EXACT;
+        }
+        if (remainder >= absoluteDivisor - remainder) {
+            quotient++;
+        }
+        return sign * quotient;
+    }
+}
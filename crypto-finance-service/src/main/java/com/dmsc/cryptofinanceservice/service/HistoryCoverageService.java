@@ -0,0 +1,217 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import com.dmsc.cryptofinanceservice.model.dto.TimeRangeDto;
+import com.dmsc.cryptofinanceservice.model.entity.HistoryCoverageEntity;
+import com.dmsc.cryptofinanceservice.repository.HistoryCoverageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * Index of the history ranges already stored on crypto_price, per asset and interval.
+ * The ranges are kept in memory, by start, with overlapping and adjacent ranges merged, and persisted on history_coverage.
+ * Historical lookups inside a covered range are answered from the database, upstream is only requested for the gaps.
+ * The stored ranges are loaded by {@link CacheWarmupService} after startup, until then only the ranges added since are known.
+ */
+@Slf4j
+@Service
+public class HistoryCoverageService {
+
+    private final HistoryCoverageRepository historyCoverageRepository;
+
+    // Covered ranges by asset id and interval, by range start
+    private final Map<Integer, Map<IntervalValue, NavigableMap<Instant, HistoryCoverageEntity>>> coverage = new ConcurrentHashMap<>();
+
+    public HistoryCoverageService(HistoryCoverageRepository historyCoverageRepository) {
+        this.historyCoverageRepository = historyCoverageRepository;
+    }
+
+    /**
+     * Method responsible to load the stored ranges, together with the ranges added since startup.
+     * Ranges overlapping a previous one, left by a merge not completed, are merged in memory and on the next added range.
+     * The ranges of an asset are replaced at once, lookups running meanwhile see either the previous or the loaded ones.
+     *
+     * @return number of loaded ranges
+     */
+    public synchronized int warmUpCoverage() {
+        List<HistoryCoverageEntity> storedRanges = historyCoverageRepository.findAll();
+        Set<Long> storedIds = storedRanges.stream().map(HistoryCoverageEntity::getId).filter(Objects::nonNull).collect(Collectors.toSet());
+        List<HistoryCoverageEntity> allRanges = new ArrayList<>(storedRanges);
+        coverage.values().forEach(intervals -> intervals.values().forEach(ranges -> ranges.values().stream()
+            .filter(range -> range.getId() == null || !storedIds.contains(range.getId()))
+            .forEach(allRanges::add)));
+        allRanges.sort(Comparator.comparing(HistoryCoverageEntity::getRangeStart));
+
+        Map<Integer, Map<IntervalValue, NavigableMap<Instant, HistoryCoverageEntity>>> loadedCoverage = new HashMap<>();
+        allRanges.forEach(range -> {
+            NavigableMap<Instant, HistoryCoverageEntity> ranges = getRanges(loadedCoverage, range.getAssetId(), range.getIntervalValue());
+            Map.Entry<Instant, HistoryCoverageEntity> previous = ranges.lastEntry();
+            if (previous != null && !previous.getValue().getRangeEnd().isBefore(range.getRangeStart())) {
+                if (previous.getValue().getRangeEnd().isBefore(range.getRangeEnd())) {
+                    previous.getValue().setRangeEnd(range.getRangeEnd());
+                }
+            } else {
+                ranges.put(range.getRangeStart(), range);
+            }
+        });
+        coverage.putAll(loadedCoverage);
+        return storedRanges.size();
+    }
+
+    private NavigableMap<Instant, HistoryCoverageEntity> getRanges(Integer assetId, IntervalValue interval) {
+        return getRanges(coverage, assetId, interval);
+    }
+
+    private static NavigableMap<Instant, HistoryCoverageEntity> getRanges(Map<Integer, Map<IntervalValue, NavigableMap<Instant, HistoryCoverageEntity>>> coverage,
+                                                                          Integer assetId, IntervalValue interval) {
+        return coverage.computeIfAbsent(assetId, id -> new ConcurrentHashMap<>())
+            .computeIfAbsent(interval, i -> new ConcurrentSkipListMap<>());
+    }
+
+    private static Optional<HistoryCoverageEntity> findRangeAt(NavigableMap<Instant, HistoryCoverageEntity> ranges, Instant time) {
+        return Optional.ofNullable(ranges.floorEntry(time))
+            .map(Map.Entry::getValue)
+            .filter(range -> time.isBefore(range.getRangeEnd()));
+    }
+
+    /**
+     * Record a range of history of the asset as stored, merged with the overlapping and adjacent ranges of the same interval
+     *
+     * @param assetId  Integer
+     * @param interval IntervalValue
+     * @param start    Instant
+     * @param end      Instant, exclusive
+     */
+    public synchronized void addCoverage(Integer assetId, IntervalValue interval, Instant start, Instant end) {
+        if (assetId == null || !start.isBefore(end)) {
+            return;
+        }
+        NavigableMap<Instant, HistoryCoverageEntity> ranges = getRanges(assetId, interval);
+        List<HistoryCoverageEntity> mergedRanges = new ArrayList<>();
+        Map.Entry<Instant, HistoryCoverageEntity> previous = ranges.lowerEntry(start);
+        if (previous != null && !previous.getValue().getRangeEnd().isBefore(start)) {
+            mergedRanges.add(previous.getValue());
+        }
+        mergedRanges.addAll(ranges.subMap(start, true, end, true).values());
+
+        Instant mergedStart = start;
+        Instant mergedEnd = end;
+        for (HistoryCoverageEntity range : mergedRanges) {
+            mergedStart = range.getRangeStart().isBefore(mergedStart) ? range.getRangeStart() : mergedStart;
+            mergedEnd = range.getRangeEnd().isAfter(mergedEnd) ? range.getRangeEnd() : mergedEnd;
+        }
+        if (mergedRanges.size() == 1 && mergedRanges.getFirst().getRangeStart().equals(mergedStart) &&
+            mergedRanges.getFirst().getRangeEnd().equals(mergedEnd)) {
+            // Already covered
+            return;
+        }
+
+        HistoryCoverageEntity mergedRange = new HistoryCoverageEntity();
+        mergedRange.setAssetId(assetId);
+        mergedRange.setIntervalValue(interval);
+        mergedRange.setRangeStart(mergedStart);
+        mergedRange.setRangeEnd(mergedEnd);
+        // The merged range is stored before the ranges it replaces are deleted, no covered range is lost on failure
+        historyCoverageRepository.save(mergedRange);
+        List<Long> mergedIds = mergedRanges.stream().map(HistoryCoverageEntity::getId).toList();
+        if (!mergedIds.isEmpty()) {
+            historyCoverageRepository.deleteAllByIdInBatch(mergedIds);
+        }
+
+        ranges.put(mergedStart, mergedRange);
+        Instant newStart = mergedStart;
+        mergedRanges.stream()
+            .map(HistoryCoverageEntity::getRangeStart)
+            .filter(rangeStart -> !rangeStart.equals(newStart))
+            .forEach(ranges::remove);
+        log.debug("History of asset {} with interval {} covered between {} and {}", assetId, interval, mergedStart, mergedEnd);
+    }
+
+    /**
+     * Check if the history of the asset holding the time is stored, on any interval
+     *
+     * @param assetId Integer
+     * @param time    Instant
+     * @return boolean
+     */
+    public boolean isCovered(Integer assetId, Instant time) {
+        return coverage.getOrDefault(assetId, Map.of()).values().stream()
+            .anyMatch(ranges -> findRangeAt(ranges, time).isPresent());
+    }
+
+    /**
+     * Find the parts of the range not stored for the asset, on any interval.
+     * The gaps are merged into a single range, from the start of the first gap to the end of the last one,
+     * so they are requested upstream at once.
+     *
+     * @param assetId Integer
+     * @param start   Instant
+     * @param end     Instant, exclusive
+     * @return Optional with the range to request, empty when the range is fully covered
+     */
+    public Optional<TimeRangeDto> getMissingRange(Integer assetId, Instant start, Instant end) {
+        List<HistoryCoverageEntity> overlappingRanges = new ArrayList<>();
+        coverage.getOrDefault(assetId, Map.of()).values().forEach(ranges -> {
+            findRangeAt(ranges, start).ifPresent(overlappingRanges::add);
+            overlappingRanges.addAll(ranges.subMap(start, false, end, false).values());
+        });
+        overlappingRanges.sort(Comparator.comparing(HistoryCoverageEntity::getRangeStart));
+
+        Instant firstGapStart = null;
+        Instant lastGapEnd = null;
+        Instant coveredUntil = start;
+        for (HistoryCoverageEntity range : overlappingRanges) {
+            if (range.getRangeStart().isAfter(coveredUntil)) {
+                firstGapStart = firstGapStart == null ? coveredUntil : firstGapStart;
+                lastGapEnd = range.getRangeStart();
+            }
+            coveredUntil = range.getRangeEnd().isAfter(coveredUntil) ? range.getRangeEnd() : coveredUntil;
+        }
+        if (coveredUntil.isBefore(end)) {
+            firstGapStart = firstGapStart == null ? coveredUntil : firstGapStart;
+            lastGapEnd = end;
+        }
+        return firstGapStart == null ? Optional.empty() : Optional.of(new TimeRangeDto(firstGapStart, lastGapEnd));
+    }
+
+    /**
+     * Find the assets with stored history holding the date, with the interval between their stored prices.
+     * When more than one interval holds the date the largest one is kept,
+     * the as-of price within the largest interval is still the closest price of the smaller ones.
+     *
+     * @param assetIds Collection of asset ids
+     * @param date     Instant
+     * @return Map of interval step by asset id
+     */
+    public Map<Integer, Duration> getCoveredSteps(Collection<Integer> assetIds, Instant date) {
+        Map<Integer, Duration> steps = new HashMap<>();
+        if (CollectionUtils.isEmpty(assetIds)) {
+            return steps;
+        }
+        for (Integer assetId : assetIds) {
+            coverage.getOrDefault(assetId, Map.of()).forEach((interval, ranges) -> {
+                if (findRangeAt(ranges, date).isPresent()) {
+                    steps.merge(assetId, interval.getStep(), (current, step) -> current.compareTo(step) >= 0 ? current : step);
+                }
+            });
+        }
+        return steps;
+    }
+}
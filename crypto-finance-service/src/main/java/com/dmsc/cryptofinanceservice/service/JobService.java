@@ -4,28 +4,47 @@ import com.dmsc.cryptofinanceservice.properties.JobServiceProperties;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Service
 public class JobService {
     private final CryptoPriceService cryptoPriceService;
     private TaskScheduler taskScheduler;
-    private final Map<UUID, JobDetails> walletJobs = new HashMap<>();
+    // Accessed by the market poller thread while jobs are added or updated
+    private final Map<UUID, JobDetails> walletJobs = new ConcurrentHashMap<>();
     private final Instant jobStartTimeDelay;
+    private final JobServiceProperties.Mode mode;
+    private final Duration marketPollerTick;
+    private ScheduledFuture<?> marketPollerFuture;
+    // Only used with virtual threads, bounds the number of wallet jobs running at the same time
+    private final Semaphore walletJobPermits;
 
     public JobService(CryptoPriceService cryptoPriceService, JobServiceProperties jobServiceProperties) {
         this.cryptoPriceService = cryptoPriceService;
-        this.taskScheduler = getThreadPoolTaskScheduler();
         this.jobStartTimeDelay = jobServiceProperties.getJobDelayStartTime();
+        this.mode = jobServiceProperties.getMode();
+        this.marketPollerTick = jobServiceProperties.getMarketPollerTick();
+        if (jobServiceProperties.isVirtualThreads()) {
+            this.taskScheduler = getVirtualThreadTaskScheduler();
+            this.walletJobPermits = new Semaphore(jobServiceProperties.getMaxConcurrentWallets());
+        } else {
+            this.taskScheduler = getThreadPoolTaskScheduler();
+            this.walletJobPermits = null;
+        }
     }
 
     private static ThreadPoolTaskScheduler getThreadPoolTaskScheduler() {
@@ -34,6 +53,19 @@ public class JobService {
         return threadPoolTaskScheduler;
     }
 
+    /**
+     * Scheduler that triggers every execution on a new virtual thread, instead of the single platform thread
+     * used by the default {@link ThreadPoolTaskScheduler}
+     *
+     * @return SimpleAsyncTaskScheduler
+     */
+    private static SimpleAsyncTaskScheduler getVirtualThreadTaskScheduler() {
+        SimpleAsyncTaskScheduler simpleAsyncTaskScheduler = new SimpleAsyncTaskScheduler();
+        simpleAsyncTaskScheduler.setVirtualThreads(true);
+        simpleAsyncTaskScheduler.setThreadNamePrefix("wallet-job-");
+        return simpleAsyncTaskScheduler;
+    }
+
     void setTaskScheduler(TaskScheduler taskScheduler) {
         this.taskScheduler = taskScheduler;
     }
@@ -58,11 +90,57 @@ public class JobService {
             log.info("Creating wallet job id: {} with frequency: {}", walletId, duration);
         }
 
+        if (mode == JobServiceProperties.Mode.MARKET_POLLER) {
+            // Wallet is only subscribed to the poller, next tick will refresh it
+            jobDetails.setNextRun(Instant.EPOCH);
+            walletJobs.put(walletId, jobDetails);
+            startMarketPoller();
+            return;
+        }
+
         startJob(walletId, jobDetails);
 
         walletJobs.put(walletId, jobDetails);
     }
 
+    /**
+     * Schedule the market poller, only once, at a fixed rate of {@link JobService#marketPollerTick}.
+     */
+    private synchronized void startMarketPoller() {
+        if (marketPollerFuture != null) {
+            return;
+        }
+        log.info("Starting market poller with tick: {}", marketPollerTick);
+        marketPollerFuture = taskScheduler.scheduleAtFixedRate(() -> {
+            try {
+                pollDueWallets(Instant.now());
+            } catch (Exception e) {
+                log.error("Error while polling market prices", e);
+            }
+        }, jobStartTimeDelay, marketPollerTick);
+    }
+
+    /**
+     * Collect every wallet whose frequency is due and refresh all of them with a single
+     * {@link CryptoPriceService#fetchMarketPrices(java.util.Collection)} call, so each asset is fetched once per tick.
+     *
+     * @param now Instant of the tick
+     */
+    void pollDueWallets(Instant now) {
+        List<UUID> dueWallets = new ArrayList<>();
+        walletJobs.forEach((walletId, jobDetails) -> {
+            if (!now.isBefore(jobDetails.getNextRun())) {
+                dueWallets.add(walletId);
+                jobDetails.setNextRun(now.plus(jobDetails.getDuration()));
+            }
+        });
+
+        if (!dueWallets.isEmpty()) {
+            log.debug("Fetching market prices for {} wallets", dueWallets.size());
+            cryptoPriceService.fetchMarketPrices(dueWallets);
+        }
+    }
+
     /**
      * Method responsible to check if there is an existing-scheduled job or if it can create a new one.
      * In case of existing job will attempt to cancel the task, before starting the updated one.
@@ -84,22 +162,57 @@ public class JobService {
         }
 
         // Schedule new job
-        ScheduledFuture<?> schedulerFuture = taskScheduler.scheduleAtFixedRate(() -> {
-            try {
-                log.debug("Fetching wallet prices for walletId: {}", walletId);
-                cryptoPriceService.fetchWalletPrices(walletId);
-            } catch (Exception e) {
-                log.error("Error while fetching wallet prices for walletId: {}", walletId, e);
-            }
-        }, jobStartTimeDelay, jobDetails.getDuration());
+        ScheduledFuture<?> schedulerFuture = taskScheduler.scheduleAtFixedRate(
+            () -> runWalletJob(walletId, jobDetails), jobStartTimeDelay, jobDetails.getDuration());
 
         // Update jobDetails with the new future
         jobDetails.setSchedulerFuture(schedulerFuture);
     }
 
+    /**
+     * Run a wallet job execution.
+     * With virtual threads, executions may overlap, so an execution is skipped while the previous one for the same wallet
+     * is still running, and the number of wallets running at the same time is bounded by {@link JobService#walletJobPermits}.
+     *
+     * @param walletId   UUID
+     * @param jobDetails JobDetails
+     */
+    private void runWalletJob(UUID walletId, JobDetails jobDetails) {
+        if (walletJobPermits == null) {
+            fetchWalletPrices(walletId);
+            return;
+        }
+
+        if (!jobDetails.getRunning().compareAndSet(false, true)) {
+            log.warn("Previous job for walletId {} still running, skipping execution", walletId);
+            return;
+        }
+        try {
+            walletJobPermits.acquireUninterruptibly();
+            try {
+                fetchWalletPrices(walletId);
+            } finally {
+                walletJobPermits.release();
+            }
+        } finally {
+            jobDetails.getRunning().set(false);
+        }
+    }
+
+    private void fetchWalletPrices(UUID walletId) {
+        try {
+            log.debug("Fetching wallet prices for walletId: {}", walletId);
+            cryptoPriceService.fetchWalletPrices(walletId);
+        } catch (Exception e) {
+            log.error("Error while fetching wallet prices for walletId: {}", walletId, e);
+        }
+    }
+
     @Data
     public static class JobDetails {
         private Duration duration;
         private ScheduledFuture<?> schedulerFuture;
+        private Instant nextRun;
+        private final AtomicBoolean running = new AtomicBoolean(false);
     }
 }
@@ -0,0 +1,62 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In memory table with the latest ingested price of each asset, keyed by external id.
+ * Used as the first lookup tier for the latest price, the database is only queried on a miss.
+ * Listeners are notified of every price that replaces the latest one, see {@link WalletValuationService}.
+ */
+@Service
+public class LatestPriceCachingService {
+    private final Map<String, CryptoItemDto> latestPrices = new ConcurrentHashMap<>();
+    private final List<Consumer<CryptoItemDto>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Update the latest price of the asset, an older price never replaces a newer one
+     *
+     * @param cryptoItemDto CryptoItemDto
+     */
+    public void updateLatestPrice(CryptoItemDto cryptoItemDto) {
+        if (cryptoItemDto == null || !StringUtils.hasText(cryptoItemDto.getId()) || cryptoItemDto.getPrice() == null) {
+            return;
+        }
+        CryptoItemDto latestPrice = latestPrices.merge(cryptoItemDto.getId(), cryptoItemDto,
+            (current, candidate) -> isNewer(candidate, current) ? candidate : current);
+        if (latestPrice == cryptoItemDto) {
+            listeners.forEach(listener -> listener.accept(cryptoItemDto));
+        }
+    }
+
+    /**
+     * Register a listener of the prices accepted as the latest ones, called on the thread updating the price
+     *
+     * @param listener Consumer of CryptoItemDto
+     */
+    public void addListener(Consumer<CryptoItemDto> listener) {
+        listeners.add(listener);
+    }
+
+    public Optional<CryptoItemDto> getLatestPrice(String externalId) {
+        if (externalId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(latestPrices.get(externalId));
+    }
+
+    private static boolean isNewer(CryptoItemDto candidate, CryptoItemDto current) {
+        if (current.getTimestamp() == null) {
+            return true;
+        }
+        return candidate.getTimestamp() != null && !candidate.getTimestamp().isBefore(current.getTimestamp());
+    }
+}
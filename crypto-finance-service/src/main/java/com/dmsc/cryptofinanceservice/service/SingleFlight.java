@@ -0,0 +1,45 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Shares one in-flight {@link Mono} between the concurrent callers asking for the same key.
+ * The first caller starts the computation and the callers arriving before it terminates get the same result,
+ * the key is released once it terminates, so the next callers start a new computation.
+ *
+ * @param <K> key of the computation
+ * @param <V> result of the computation
+ */
+final class SingleFlight<K, V> {
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Join the computation in flight for the key or start a new one, on subscription
+     *
+     * @param key         K
+     * @param computation Supplier of the computation, only assembled when there is none in flight
+     * @return Mono<V> shared by the callers of the key
+     */
+    Mono<V> execute(K key, Supplier<Mono<V>> computation) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<V>> flight = new AtomicReference<>();
+            // A flight terminating late only releases the key when it still holds it, not a newer flight of the key
+            flight.set(computation.get()
+                .doFinally(signal -> inFlight.remove(k, flight.get()))
+                .cache());
+            return flight.get();
+        }));
+    }
+
+    /**
+     * @return number of keys in flight
+     */
+    int size() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,184 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.properties.WalletRequestProperties;
+import com.dmsc.cryptofinanceservice.repository.SymbolAssetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Resolves the symbols of the wallet assets to assets, backed by the symbol_asset table shared by all the wallets.
+ * Symbols not mapped yet are resolved from the assets cached by {@link AssetService},
+ * the remaining ones with a single market snapshot request upstream instead of a search by symbol per asset.
+ * Only the symbols resolved by the snapshot, ordered by rank, are mapped on symbol_asset.
+ */
+@Slf4j
+@Service
+public class SymbolResolutionService {
+
+    private final SymbolAssetRepository symbolAssetRepository;
+    private final AssetService assetService;
+    private final CryptoProvider cryptoProvider;
+    private final int marketSnapshotLimit;
+
+    public SymbolResolutionService(SymbolAssetRepository symbolAssetRepository,
+                                   AssetService assetService,
+                                   CryptoProvider cryptoProvider,
+                                   WalletRequestProperties walletRequestProperties) {
+        this.symbolAssetRepository = symbolAssetRepository;
+        this.assetService = assetService;
+        this.cryptoProvider = cryptoProvider;
+        this.marketSnapshotLimit = walletRequestProperties.getMarketSnapshotLimit();
+    }
+
+    /**
+     * Resolve the symbols to assets, case insensitive.
+     * The snapshot is ordered by rank, a symbol held by more than one asset is resolved to the highest ranked one.
+     * The cache doesn't know the rank of the assets, a symbol resolved from the cache is not mapped,
+     * so a shared symbol isn't mapped to a lower ranked asset for all the wallets.
+     * Symbols out of the snapshot are not resolved, they are still searched by symbol on the first price refresh.
+     *
+     * @param symbols Collection of symbols
+     * @return Map of asset by the given symbol, without the symbols not resolved
+     */
+    public Map<String, CacheCryptoDetails> resolveSymbols(Collection<String> symbols) {
+        return resolveSymbols(symbols, this::fetchMarketSnapshot);
+    }
+
+    /**
+     * Resolve the symbols to assets, see {@link SymbolResolutionService#resolveSymbols(Collection)},
+     * the snapshot is only taken from the supplier when some symbols are neither mapped nor cached.
+     *
+     * @param symbols        Collection of symbols
+     * @param marketSnapshot Supplier of the market snapshot, as {@link SymbolResolutionService#getSharedMarketSnapshot()}
+     * @return Map of asset by the given symbol, without the symbols not resolved
+     */
+    public Map<String, CacheCryptoDetails> resolveSymbols(Collection<String> symbols, Supplier<List<CryptoItemDto>> marketSnapshot) {
+        Set<String> pending = new LinkedHashSet<>();
+        symbols.stream()
+            .filter(StringUtils::hasText)
+            .map(SymbolResolutionService::normalizeSymbol)
+            .forEach(pending::add);
+        Map<String, CacheCryptoDetails> resolved = new HashMap<>();
+        if (pending.isEmpty()) {
+            return Map.of();
+        }
+
+        symbolAssetRepository.findAllById(pending)
+            .forEach(mapping -> assetService.findByAssetId(mapping.getAssetId())
+                .ifPresent(asset -> resolved.put(mapping.getSymbol(), asset)));
+        pending.removeAll(resolved.keySet());
+
+        pending.forEach(symbol -> assetService.findExternalIdBySymbol(symbol)
+            .flatMap(assetService::findByExternalId)
+            .ifPresent(asset -> resolved.put(symbol, asset)));
+        pending.removeAll(resolved.keySet());
+
+        Map<String, CacheCryptoDetails> newMappings = new HashMap<>();
+
+        if (!pending.isEmpty() && marketSnapshotLimit > 0) {
+            log.info("Resolving {} symbols with a market snapshot of {} assets", pending.size(), marketSnapshotLimit);
+            for (CryptoItemDto item : marketSnapshot.get()) {
+                String symbol = StringUtils.hasText(item.getSymbol()) ? normalizeSymbol(item.getSymbol()) : null;
+                if (symbol != null && pending.remove(symbol)) {
+                    newMappings.put(symbol, assetService.getOrCreateAsset(item.getId(), item.getName(), item.getSymbol()));
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            log.info("Symbols {} not resolved, searched by symbol on the first price refresh", pending);
+        }
+
+        newMappings.forEach((symbol, asset) -> resolved.put(symbol, saveMapping(symbol, asset)));
+
+        Map<String, CacheCryptoDetails> resolvedBySymbol = new HashMap<>();
+        symbols.stream()
+            .filter(StringUtils::hasText)
+            .forEach(symbol -> {
+                CacheCryptoDetails asset = resolved.get(normalizeSymbol(symbol));
+                if (asset != null) {
+                    resolvedBySymbol.put(symbol, asset);
+                }
+            });
+        return resolvedBySymbol;
+    }
+
+    /**
+     * Find the asset mapped to the symbol on symbol_asset, case insensitive, without resolving the symbol otherwise
+     *
+     * @param symbol String
+     * @return Optional with the mapped asset, empty when the symbol is not mapped
+     */
+    public Optional<CacheCryptoDetails> findMappedAsset(String symbol) {
+        if (!StringUtils.hasText(symbol)) {
+            return Optional.empty();
+        }
+        return symbolAssetRepository.findById(normalizeSymbol(symbol))
+            .flatMap(mapping -> assetService.findByAssetId(mapping.getAssetId()));
+    }
+
+    /**
+     * Map the symbol to the asset, the asset already mapped to the symbol is kept
+     *
+     * @param symbol String
+     * @param asset  CacheCryptoDetails
+     */
+    public void addMapping(String symbol, CacheCryptoDetails asset) {
+        if (!StringUtils.hasText(symbol) || asset == null) {
+            return;
+        }
+        saveMapping(normalizeSymbol(symbol), asset);
+    }
+
+    private CacheCryptoDetails saveMapping(String symbol, CacheCryptoDetails asset) {
+        if (symbolAssetRepository.insertIfAbsent(symbol, asset.getAssetId()) > 0) {
+            return asset;
+        }
+        // Mapped by another wallet in the meantime, its asset is kept
+        return symbolAssetRepository.findById(symbol)
+            .flatMap(mapping -> assetService.findByAssetId(mapping.getAssetId()))
+            .orElse(asset);
+    }
+
+    /**
+     * Market snapshot requested on the first call only and shared by the next ones,
+     * for the callers resolving symbols in many calls, as the wallet import does per batch
+     *
+     * @return Supplier of the market snapshot
+     */
+    public Supplier<List<CryptoItemDto>> getSharedMarketSnapshot() {
+        Mono<List<CryptoItemDto>> marketSnapshot = requestMarketSnapshot().cache();
+        return () -> marketSnapshot.blockOptional().orElse(List.of());
+    }
+
+    private List<CryptoItemDto> fetchMarketSnapshot() {
+        return requestMarketSnapshot()
+            .blockOptional()
+            .orElse(List.of());
+    }
+
+    private Mono<List<CryptoItemDto>> requestMarketSnapshot() {
+        return cryptoProvider.getAssetsSnapshot(marketSnapshotLimit)
+            .onErrorResume(e -> {
+                log.warn("Market snapshot request failed: {}", e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    private static String normalizeSymbol(String symbol) {
+        return symbol.toUpperCase(Locale.ROOT);
+    }
+}
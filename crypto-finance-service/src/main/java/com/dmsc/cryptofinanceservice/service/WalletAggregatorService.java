@@ -1,31 +1,44 @@
 package com.dmsc.cryptofinanceservice.service;
 
-import com.dmsc.cryptofinanceservice.exception.AssetDataNotFound;
+import com.dmsc.cryptofinanceservice.model.dto.AssetPriceHistoryDto;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
 import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
 import com.dmsc.cryptofinanceservice.model.dto.WalletDto;
 import com.dmsc.cryptofinanceservice.model.dto.WalletPerformance;
+import com.dmsc.cryptofinanceservice.model.dto.WalletValuationDto;
 import com.dmsc.cryptofinanceservice.model.rest.CreateWalletRequest;
 import com.dmsc.cryptofinanceservice.model.rest.CreateWalletResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletHistoryPointResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletImportResponse;
 import com.dmsc.cryptofinanceservice.model.rest.WalletItem;
 import com.dmsc.cryptofinanceservice.model.rest.WalletResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletValuationResponse;
+import com.dmsc.cryptofinanceservice.properties.WalletRequestProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -33,17 +46,30 @@ import java.util.stream.Collectors;
 public class WalletAggregatorService {
 
     private static final int DECIMAL_SCALE = 2;
-    private static final int DIVISION_SCALE = 10;
-    private static final BigDecimal DEFAULT_BIG_DECIMAL = new BigDecimal(0);
 
     private final WalletService walletService;
     private final WalletAssetService walletAssetService;
     private final CryptoPriceService cryptoPriceService;
+    private final WalletValuationService walletValuationService;
+    private final WalletImportService walletImportService;
+    // Wallet reads in flight, by wallet and date
+    private final SingleFlight<WalletRead, ResponseEntity<WalletResponse>> walletReads = new SingleFlight<>();
+    private final int bulkWalletsPerQuery;
+    private final int maxHistoryPoints;
 
-    public WalletAggregatorService(WalletService walletService, WalletAssetService walletAssetService, CryptoPriceService cryptoPriceService) {
+    public WalletAggregatorService(WalletService walletService,
+                                   WalletAssetService walletAssetService,
+                                   CryptoPriceService cryptoPriceService,
+                                   WalletValuationService walletValuationService,
+                                   WalletImportService walletImportService,
+                                   WalletRequestProperties walletRequestProperties) {
         this.walletService = walletService;
         this.walletAssetService = walletAssetService;
         this.cryptoPriceService = cryptoPriceService;
+        this.walletValuationService = walletValuationService;
+        this.walletImportService = walletImportService;
+        this.bulkWalletsPerQuery = walletRequestProperties.getBulkWalletsPerQuery();
+        this.maxHistoryPoints = walletRequestProperties.getMaxHistoryPoints();
     }
 
     public ResponseEntity<CreateWalletResponse> manageWallet(CreateWalletRequest request, Duration frequency) {
@@ -75,61 +101,352 @@ public class WalletAggregatorService {
         return manageWallet(request, frequency);
     }
 
-    public ResponseEntity<WalletResponse> fetchWalletInfo(String walletId, Optional<Instant> date) {
-        WalletDto wallet = walletService.findWalletById(UUID.fromString(walletId));
+    /**
+     * Create the wallet from a plain text or csv body read as a stream, see {@link WalletImportService}
+     *
+     * @param body      InputStream
+     * @param frequency Duration
+     * @return ResponseEntity<WalletImportResponse>, bad request when no line could be imported
+     */
+    public ResponseEntity<WalletImportResponse> importWallet(InputStream body, Duration frequency) {
+        WalletImportResponse response = walletImportService.importWallet(body, frequency);
+        HttpStatus status = response.getWalletId() == null ? HttpStatus.BAD_REQUEST : HttpStatus.CREATED;
+        return ResponseEntity.status(status).body(response);
+    }
 
-        List<WalletAssetDto> walletAssetsByWalletId = walletAssetService.findWalletAssetsByWalletId(wallet.getId());
+    /**
+     * Get the wallet total and best and worst performing assets.
+     * Without date the valuation materialized by {@link WalletValuationService} is returned, once the wallet is valued,
+     * the first request values the wallet from the latest prices of its assets.
+     * The wallet and its stored prices are loaded on {@link Schedulers#boundedElastic()} and the missing prices are
+     * fetched with the reactive pipeline, so no request thread waits on the database or upstream.
+     * Concurrent requests for the same wallet and date share a single load, see {@link SingleFlight}.
+     * Fails with 503 when a price is still missing once fetched, the wallet is not valued without an asset.
+     * The materialized valuation is returned with its version as ETag, a request whose If-None-Match holds
+     * the current version is answered with 304 from a memory lookup.
+     *
+     * @param walletId    String
+     * @param date        Optional<Instant>
+     * @param ifNoneMatch Optional<String> If-None-Match header
+     * @return Mono<ResponseEntity<WalletResponse>>
+     */
+    public Mono<ResponseEntity<WalletResponse>> fetchWalletInfo(String walletId, Optional<Instant> date, Optional<String> ifNoneMatch) {
+        UUID walletUuid = UUID.fromString(walletId);
+        if (date.isEmpty()) {
+            Optional<WalletValuationDto> valuation = walletValuationService.getVersionedValuation(walletUuid);
+            if (valuation.isPresent()) {
+                return Mono.just(getConditionalResponse(getVersionedResponse(valuation.get()), ifNoneMatch));
+            }
+        }
 
-        Map<WalletAssetDto, CryptoItemDto> assetData = new HashMap<>();
-        List<WalletAssetDto> shouldFetchDataByDate = new ArrayList<>();
-        List<WalletAssetDto> shouldFetchDataByCurrentDate = new ArrayList<>();
-        for (WalletAssetDto itemDto : walletAssetsByWalletId) {
-            try {
-                if (date.isPresent()) {
-                    // Fetch price by the specified date
-                    Instant targetDate = date.get();
-                    assetData.put(itemDto, cryptoPriceService.getAssetLatestPrice(itemDto.getExternalId(), targetDate));
-                } else {
-                    // Fetch the latest price
-                    assetData.put(itemDto, cryptoPriceService.getAssetLatestPrice(itemDto.getExternalId()));
+        return walletReads.execute(new WalletRead(walletUuid, date.orElse(null)), () -> Mono.fromCallable(() -> loadWalletAssetData(walletUuid, date))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(wallet -> wallet.missingAssets().isEmpty() ?
+                Mono.just(wallet) :
+                fetchMissingPrices(List.of(wallet), date).thenReturn(wallet))
+            .flatMap(wallet -> {
+                // A valuation without an asset would under-count the total, it's never returned nor registered
+                List<String> assetsWithoutPrice = getAssetsWithoutPrice(wallet);
+                return assetsWithoutPrice.isEmpty() ?
+                    Mono.just(wallet) :
+                    Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No price for assets " + assetsWithoutPrice));
+            })
+            .map(wallet -> {
+                if (date.isEmpty() && walletValuationService.register(wallet.walletId(), wallet.assetData()).isPresent()) {
+                    return getVersionedResponse(walletValuationService.getVersionedValuation(wallet.walletId()).orElseThrow());
+                }
+                return ResponseEntity.status(HttpStatus.OK).body(getWalletResponse(wallet.assetData()));
+            }))
+            .map(response -> getConditionalResponse(response, ifNoneMatch));
+    }
+
+    private static ResponseEntity<WalletResponse> getVersionedResponse(WalletValuationDto valuation) {
+        return ResponseEntity.status(HttpStatus.OK)
+            .eTag(valuation.getVersion())
+            .body(valuation.getWallet());
+    }
+
+    /**
+     * Replace the response by a 304 without body when its ETag is one of the If-None-Match ETags, compared weakly
+     *
+     * @param response    ResponseEntity<WalletResponse>
+     * @param ifNoneMatch Optional<String> If-None-Match header
+     * @return ResponseEntity<WalletResponse>
+     */
+    private static ResponseEntity<WalletResponse> getConditionalResponse(ResponseEntity<WalletResponse> response, Optional<String> ifNoneMatch) {
+        String eTag = response.getHeaders().getETag();
+        if (eTag == null || ifNoneMatch.isEmpty()) {
+            return response;
+        }
+        String opaqueTag = getOpaqueTag(eTag);
+        for (String candidate : ifNoneMatch.get().split(",")) {
+            String candidateTag = candidate.trim();
+            if (candidateTag.equals("*") || getOpaqueTag(candidateTag).equals(opaqueTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+        return response;
+    }
+
+    private static String getOpaqueTag(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    /**
+     * Load the assets of the wallet and their price, by the date or the latest one, with a single lookup
+     *
+     * @param walletId UUID
+     * @param date     Optional<Instant>
+     * @return BulkWallet
+     */
+    private BulkWallet loadWalletAssetData(UUID walletId, Optional<Instant> date) {
+        WalletDto wallet = walletService.findWalletById(walletId);
+        List<WalletAssetDto> walletAssets = walletAssetService.findWalletAssetsByWalletId(wallet.getId());
+        Map<String, CryptoItemDto> latestPrices = cryptoPriceService.getAssetsLatestPrice(
+            walletAssets.stream().map(WalletAssetDto::getExternalId).filter(Objects::nonNull).toList(),
+            date.orElse(null));
+
+        BulkWallet bulkWallet = new BulkWallet(wallet.getId(), true, new HashMap<>(), new ArrayList<>());
+        for (WalletAssetDto asset : walletAssets) {
+            CryptoItemDto cryptoItemDto = asset.getExternalId() == null ? null : latestPrices.get(asset.getExternalId());
+            if (cryptoItemDto != null) {
+                bulkWallet.assetData().put(asset, cryptoItemDto);
+            } else {
+                bulkWallet.missingAssets().add(asset);
+            }
+        }
+        return bulkWallet;
+    }
+
+    /**
+     * Get the wallet info of many wallets, each wallet is streamed as soon as it's valued.
+     * The wallets are processed in chunks of {@link WalletRequestProperties#getBulkWalletsPerQuery()}:
+     * the wallets and their assets are loaded with a query each, and the price of each distinct asset is looked up once.
+     * Wallets with all their prices found are emitted right away, the missing prices are then fetched upstream,
+     * once per asset, before valuing the remaining wallets.
+     * Without date the valuations materialized by {@link WalletValuationService} are emitted first,
+     * and the other wallets are registered on it once valued.
+     * Wallets that are not found or can't be valued are emitted with an error.
+     *
+     * @param walletIds List of wallet ids
+     * @param date      Optional<Instant>
+     * @return Flux<WalletValuationResponse>
+     */
+    public Flux<WalletValuationResponse> fetchWalletsInfo(List<String> walletIds, Optional<Instant> date) {
+        List<WalletValuationResponse> responses = new ArrayList<>();
+        List<UUID> pendingWalletIds = new ArrayList<>();
+        for (String walletId : new LinkedHashSet<>(Optional.ofNullable(walletIds).orElseGet(List::of))) {
+            Optional<UUID> walletUuid = parseWalletId(walletId);
+            if (walletUuid.isEmpty()) {
+                responses.add(getErrorResponse(walletId, "Invalid wallet id"));
+                continue;
+            }
+            Optional<WalletResponse> valuation = date.isEmpty() ? walletValuationService.getValuation(walletUuid.get()) : Optional.empty();
+            if (valuation.isPresent()) {
+                responses.add(WalletValuationResponse.builder().walletId(walletId).wallet(valuation.get()).build());
+            } else {
+                pendingWalletIds.add(walletUuid.get());
+            }
+        }
+
+        List<List<UUID>> chunks = new ArrayList<>();
+        for (int i = 0; i < pendingWalletIds.size(); i += bulkWalletsPerQuery) {
+            chunks.add(pendingWalletIds.subList(i, Math.min(i + bulkWalletsPerQuery, pendingWalletIds.size())));
+        }
+        return Flux.fromIterable(responses)
+            .concatWith(Flux.fromIterable(chunks)
+                .concatMap(chunk -> fetchWalletsInfoChunk(chunk, date)));
+    }
+
+    /**
+     * Get the wallet total and best and worst performing assets at each step between both dates.
+     * The stored price history of each asset is loaded once, with a range query, and the histories are merged
+     * as-of by {@link WalletValuationHistory}, so the cost grows with the assets and points, not their product.
+     * Points are streamed as they are valued, points where an asset has no stored price are skipped.
+     * Missing history can be loaded with the backfill.
+     *
+     * @param walletId String
+     * @param start    Instant
+     * @param end      Instant, inclusive
+     * @param step     Duration between points
+     * @return Flux<WalletHistoryPointResponse>
+     */
+    public Flux<WalletHistoryPointResponse> fetchWalletHistory(String walletId, Instant start, Instant end, Duration step) {
+        if (start == null || end == null || step == null || start.isAfter(end) || step.isNegative() || step.isZero()) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid range or step"));
+        }
+        if (Duration.between(start, end).dividedBy(step) >= maxHistoryPoints) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "More than " + maxHistoryPoints + " points"));
+        }
+
+        return Mono.fromCallable(() -> {
+                WalletDto wallet = walletService.findWalletById(UUID.fromString(walletId));
+                List<WalletAssetDto> walletAssets = walletAssetService.findWalletAssetsByWalletId(wallet.getId());
+                Map<String, AssetPriceHistoryDto> histories = cryptoPriceService.getAssetsPriceHistory(
+                    walletAssets.stream().map(WalletAssetDto::getExternalId).filter(Objects::nonNull).collect(Collectors.toSet()),
+                    start, end);
+                return new WalletValuationHistory(walletAssets, histories, start, end, step);
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(history -> Flux.fromIterable(() -> history));
+    }
+
+    private Flux<WalletValuationResponse> fetchWalletsInfoChunk(List<UUID> walletIds, Optional<Instant> date) {
+        return Mono.fromCallable(() -> loadWalletsAssetData(walletIds, date))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(wallets -> {
+                List<BulkWallet> pricedWallets = wallets.stream().filter(wallet -> wallet.missingAssets().isEmpty()).toList();
+                List<BulkWallet> walletsMissingPrices = wallets.stream().filter(wallet -> !wallet.missingAssets().isEmpty()).toList();
+                Flux<WalletValuationResponse> pricedResponses = Flux.fromIterable(pricedWallets)
+                    .map(wallet -> getWalletValuationResponse(wallet, date));
+                if (walletsMissingPrices.isEmpty()) {
+                    return pricedResponses;
                 }
-            } catch (AssetDataNotFound exc) {
-                // Handle missing data by date or current date
-                if (date.isPresent()) {
-                    shouldFetchDataByDate.add(itemDto);
+                return pricedResponses.concatWith(fetchMissingPrices(walletsMissingPrices, date)
+                    .thenMany(Flux.fromIterable(walletsMissingPrices))
+                    .map(wallet -> getWalletValuationResponse(wallet, date)));
+            });
+    }
+
+    /**
+     * Load the assets of the wallets and the price of each distinct asset, by the date or the latest one
+     *
+     * @param walletIds List of wallet ids
+     * @param date      Optional<Instant>
+     * @return List<BulkWallet> on the same order as the wallet ids
+     */
+    private List<BulkWallet> loadWalletsAssetData(List<UUID> walletIds, Optional<Instant> date) {
+        Set<UUID> existingWalletIds = walletService.findExistingWalletIds(walletIds);
+        Map<UUID, List<WalletAssetDto>> assetsByWalletId = walletAssetService.findWalletAssetsByWalletIds(existingWalletIds);
+        Map<String, CryptoItemDto> latestPrices = cryptoPriceService.getAssetsLatestPrice(
+            assetsByWalletId.values().stream()
+                .flatMap(List::stream)
+                .map(WalletAssetDto::getExternalId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()),
+            date.orElse(null));
+
+        List<BulkWallet> wallets = new ArrayList<>(walletIds.size());
+        for (UUID walletId : walletIds) {
+            BulkWallet wallet = new BulkWallet(walletId, existingWalletIds.contains(walletId), new HashMap<>(), new ArrayList<>());
+            for (WalletAssetDto asset : assetsByWalletId.getOrDefault(walletId, List.of())) {
+                CryptoItemDto cryptoItemDto = asset.getExternalId() == null ? null : latestPrices.get(asset.getExternalId());
+                if (cryptoItemDto != null) {
+                    wallet.assetData().put(asset, cryptoItemDto);
                 } else {
-                    shouldFetchDataByCurrentDate.add(itemDto);
+                    wallet.missingAssets().add(asset);
                 }
             }
+            wallets.add(wallet);
         }
+        return wallets;
+    }
+
+    /**
+     * Fetch upstream the prices missing for the wallets, once per asset.
+     * Assets without externalId are still resolved by symbol, per wallet.
+     *
+     * @param wallets List of BulkWallet with missing prices
+     * @param date    Optional<Instant>
+     * @return Mono<Void> completing once the prices found are set on the wallets
+     */
+    private Mono<Void> fetchMissingPrices(List<BulkWallet> wallets, Optional<Instant> date) {
+        Map<String, WalletAssetDto> assetsByExternalId = new LinkedHashMap<>();
+        Map<UUID, List<WalletAssetDto>> assetsWithoutExternalId = new LinkedHashMap<>();
+        wallets.forEach(wallet -> wallet.missingAssets().forEach(asset -> {
+            if (StringUtils.hasText(asset.getExternalId())) {
+                assetsByExternalId.putIfAbsent(asset.getExternalId(), asset);
+            } else {
+                assetsWithoutExternalId.computeIfAbsent(wallet.walletId(), key -> new ArrayList<>()).add(asset);
+            }
+        }));
+        log.info("Perform manually request for {} assets of {} wallets: {}", assetsByExternalId.size(), wallets.size(), date);
 
-        if (!CollectionUtils.isEmpty(shouldFetchDataByDate)) {
-            Instant targetDate = date.get();
-            log.info("Perform manually request by date: {}", targetDate);
-            Map<String, CryptoItemDto> cryptoItemDtos = cryptoPriceService.fetchWalletPricesManuallyTriggeredByDate(wallet.getId(), shouldFetchDataByDate, targetDate)
-                .stream()
-                .collect(Collectors.toMap(CryptoItemDto::getId, Function.identity()));
-            shouldFetchDataByDate.forEach(i -> assetData.put(i, cryptoItemDtos.get(i.getExternalId())));
+        Instant targetDate = date.orElse(null);
+        Mono<Map<String, CryptoItemDto>> pricesByExternalId = cryptoPriceService.fetchWalletPricesAsync(null, new ArrayList<>(assetsByExternalId.values()), targetDate)
+            .collectMap(CryptoItemDto::getId);
+        Mono<Map<UUID, Map<String, CryptoItemDto>>> pricesBySymbol = Flux.fromIterable(assetsWithoutExternalId.entrySet())
+            .concatMap(entry -> cryptoPriceService.fetchWalletPricesAsync(entry.getKey(), entry.getValue(), targetDate)
+                .collectMap(cryptoItemDto -> normalizeSymbol(cryptoItemDto.getSymbol()))
+                .map(prices -> Map.entry(entry.getKey(), prices)))
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+
+        return Mono.zip(pricesByExternalId, pricesBySymbol)
+            .doOnNext(prices -> wallets.forEach(wallet -> wallet.missingAssets().forEach(asset -> {
+                CryptoItemDto cryptoItemDto = StringUtils.hasText(asset.getExternalId()) ?
+                    prices.getT1().get(asset.getExternalId()) :
+                    prices.getT2().getOrDefault(wallet.walletId(), Map.of()).get(normalizeSymbol(asset.getSymbol()));
+                if (cryptoItemDto != null) {
+                    wallet.assetData().put(asset, cryptoItemDto);
+                }
+            })))
+            .then();
+    }
+
+    private WalletValuationResponse getWalletValuationResponse(BulkWallet wallet, Optional<Instant> date) {
+        String walletId = wallet.walletId().toString();
+        if (!wallet.found()) {
+            return getErrorResponse(walletId, "Wallet with id " + walletId + " not found");
+        }
+        if (wallet.assetData().isEmpty() && wallet.missingAssets().isEmpty()) {
+            return getErrorResponse(walletId, "Wallet without assets");
+        }
+        List<String> assetsWithoutPrice = getAssetsWithoutPrice(wallet);
+        if (!assetsWithoutPrice.isEmpty()) {
+            return getErrorResponse(walletId, "No price for assets " + assetsWithoutPrice);
         }
 
-        if (!CollectionUtils.isEmpty(shouldFetchDataByCurrentDate)) {
-            log.info("Perform manually request to get latest crypto data: {}", date);
-            Map<String, CryptoItemDto> cryptoItemDtos = cryptoPriceService.fetchWalletPricesManuallyTriggered(wallet.getId(), shouldFetchDataByCurrentDate)
-                .stream()
-                .collect(Collectors.toMap(CryptoItemDto::getId, Function.identity()));
-            shouldFetchDataByCurrentDate.forEach(i -> assetData.put(i, cryptoItemDtos.get(i.getExternalId())));
+        Optional<WalletResponse> valuation = date.isEmpty() ? walletValuationService.register(wallet.walletId(), wallet.assetData()) : Optional.empty();
+        return WalletValuationResponse.builder()
+            .walletId(walletId)
+            .wallet(valuation.orElseGet(() -> getWalletResponse(wallet.assetData())))
+            .build();
+    }
+
+    /**
+     * Symbols of the assets of the wallet still without price, once the missing prices are fetched
+     *
+     * @param wallet BulkWallet
+     * @return List of symbols
+     */
+    private static List<String> getAssetsWithoutPrice(BulkWallet wallet) {
+        return wallet.missingAssets().stream()
+            .filter(asset -> !wallet.assetData().containsKey(asset))
+            .map(WalletAssetDto::getSymbol)
+            .toList();
+    }
+
+    private static WalletValuationResponse getErrorResponse(String walletId, String error) {
+        return WalletValuationResponse.builder()
+            .walletId(walletId)
+            .error(error)
+            .build();
+    }
+
+    private static Optional<UUID> parseWalletId(String walletId) {
+        if (!StringUtils.hasText(walletId)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(UUID.fromString(walletId));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
         }
+    }
 
-        WalletPerformance walletPerformance = getWalletPerformance(assetData);
+    private static String normalizeSymbol(String symbol) {
+        return symbol == null ? null : symbol.trim().toUpperCase(Locale.ROOT);
+    }
 
-        WalletResponse response = WalletResponse.builder()
+    private WalletResponse getWalletResponse(Map<WalletAssetDto, CryptoItemDto> assetData) {
+        WalletPerformance walletPerformance = getWalletPerformance(assetData);
+        return WalletResponse.builder()
             .total(walletPerformance.getTotalValue())
             .bestPerformance(walletPerformance.getBestPerformingValue())
             .bestAsset(walletPerformance.getBestPerformingAsset().getSymbol())
             .worstPerformance(walletPerformance.getWorstPerformingValue())
             .worstAsset(walletPerformance.getWorstPerformingAsset().getSymbol())
             .build();
-        return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
     private WalletPerformance getWalletPerformance(Map<WalletAssetDto, CryptoItemDto> assetData) {
@@ -139,7 +456,7 @@ public class WalletAggregatorService {
             updateTotalValue(walletPerformance, itemDto, assetLatestPrice);
 
             // Calculate asset performance
-            BigDecimal assetPerformance = calculateAssetPerformance(assetLatestPrice.getPrice(), itemDto.getPrice());
+            BigDecimal assetPerformance = FixedPointValuation.calculateAssetPerformance(assetLatestPrice.getPrice(), itemDto.getPrice());
 
             // Update best and worst-performing values
             updateBestPerforming(walletPerformance, assetPerformance, assetLatestPrice);
@@ -149,36 +466,14 @@ public class WalletAggregatorService {
     }
 
     /**
-     * Set the wallet total value
+     * Set the wallet total value, computed with {@link FixedPointValuation}
      *
      * @param walletPerformance WalletPerformance
      * @param itemDto           WalletAssetDto
      * @param assetLatestPrice  CryptoItemDto
      */
     private void updateTotalValue(WalletPerformance walletPerformance, WalletAssetDto itemDto, CryptoItemDto assetLatestPrice) {
-        BigDecimal currentTotalValue = Optional.ofNullable(walletPerformance.getTotalValue()).orElse(DEFAULT_BIG_DECIMAL);
-        BigDecimal updatedTotalValue = currentTotalValue.add(
-            assetLatestPrice.getPrice().multiply(itemDto.getQuantity())
-        ).setScale(DECIMAL_SCALE, RoundingMode.HALF_UP);
-
-        walletPerformance.setTotalValue(updatedTotalValue);
-    }
-
-    /**
-     * Calculate the performance of a asset based on the initial price
-     *
-     * @param latestPrice  BigDecimal
-     * @param initialPrice BigDecimal
-     * @return BigDecimal
-     */
-    private BigDecimal calculateAssetPerformance(BigDecimal latestPrice, BigDecimal initialPrice) {
-        if (latestPrice == null || initialPrice == null) {
-            return DEFAULT_BIG_DECIMAL;
-        }
-        return latestPrice.subtract(initialPrice)
-            .divide(initialPrice, DIVISION_SCALE, RoundingMode.HALF_UP)
-            .multiply(BigDecimal.valueOf(100))
-            .setScale(DECIMAL_SCALE, RoundingMode.HALF_UP);
+        walletPerformance.setTotalValue(FixedPointValuation.addValue(walletPerformance.getTotalValue(), assetLatestPrice.getPrice(), itemDto.getQuantity()));
     }
 
     /**
@@ -215,4 +510,16 @@ public class WalletAggregatorService {
             HttpStatus.NOT_MODIFIED;
         return ResponseEntity.status(httpStatus).build();
     }
+
+    /**
+     * Key of a wallet read, the date is null for the latest valuation
+     */
+    private record WalletRead(UUID walletId, Instant date) {
+    }
+
+    /**
+     * Wallet being valued, with the price of its assets and the assets still without price
+     */
+    private record BulkWallet(UUID walletId, boolean found, Map<WalletAssetDto, CryptoItemDto> assetData, List<WalletAssetDto> missingAssets) {
+    }
 }
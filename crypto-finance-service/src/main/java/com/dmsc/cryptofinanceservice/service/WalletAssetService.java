@@ -1,5 +1,6 @@
 package com.dmsc.cryptofinanceservice.service;
 
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
 import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
 import com.dmsc.cryptofinanceservice.model.entity.WalletAssetEntity;
@@ -8,16 +9,27 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class WalletAssetService {
 
     private final WalletAssetRepository walletAssetRepository;
+    private final AssetService assetService;
+    private final SymbolResolutionService symbolResolutionService;
 
-    public WalletAssetService(WalletAssetRepository walletAssetRepository) {
+    public WalletAssetService(WalletAssetRepository walletAssetRepository, AssetService assetService, SymbolResolutionService symbolResolutionService) {
         this.walletAssetRepository = walletAssetRepository;
+        this.assetService = assetService;
+        this.symbolResolutionService = symbolResolutionService;
     }
 
     public List<WalletAssetDto> findWalletAssetsByWalletId(UUID uuid) {
@@ -27,29 +39,105 @@ public class WalletAssetService {
         }
 
         return walletAssets.stream()
-            .map(asset ->
-                WalletAssetDto.builder()
-                    .id(asset.getId())
-                    .externalId(asset.getExternalId())
-                    .symbol(asset.getSymbol())
-                    .name(asset.getName())
-                    .quantity(asset.getQuantity())
-                    .price(asset.getPrice())
-                    .build())
+            .map(this::getWalletAssetDto)
             .toList();
     }
 
+    /**
+     * Find the assets of all the given wallets with a single query, grouped by wallet id.
+     * Wallets without assets are not present on the returned map.
+     *
+     * @param walletIds Collection of wallet ids
+     * @return Map<UUID, List<WalletAssetDto>>
+     */
+    public Map<UUID, List<WalletAssetDto>> findWalletAssetsByWalletIds(Collection<UUID> walletIds) {
+        if (CollectionUtils.isEmpty(walletIds)) {
+            return new HashMap<>();
+        }
+        return walletAssetRepository.findByWalletIdIn(walletIds).stream()
+            .collect(Collectors.groupingBy(asset -> asset.getWallet().getId(),
+                Collectors.mapping(this::getWalletAssetDto, Collectors.toList())));
+    }
+
+    /**
+     * Find the distinct external ids held by all the given wallets
+     *
+     * @param walletIds Collection of wallet ids
+     * @return Set<String>
+     */
+    public Set<String> findDistinctExternalIds(Collection<UUID> walletIds) {
+        if (CollectionUtils.isEmpty(walletIds)) {
+            return new HashSet<>();
+        }
+        return walletAssetRepository.findDistinctAssetIdsByWalletIdIn(walletIds).stream()
+            .map(assetService::findByAssetId)
+            .flatMap(Optional::stream)
+            .map(CacheCryptoDetails::getExternalId)
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Find the assets that still don't have an external id, grouped by wallet id
+     *
+     * @param walletIds Collection of wallet ids
+     * @return Map<UUID, List<WalletAssetDto>>
+     */
+    public Map<UUID, List<WalletAssetDto>> findWalletAssetsWithoutExternalId(Collection<UUID> walletIds) {
+        if (CollectionUtils.isEmpty(walletIds)) {
+            return new HashMap<>();
+        }
+        return walletAssetRepository.findByWalletIdInAndAssetIdIsNull(walletIds).stream()
+            .collect(Collectors.groupingBy(asset -> asset.getWallet().getId(),
+                Collectors.mapping(this::getWalletAssetDto, Collectors.toList())));
+    }
+
+    /**
+     * Map the entity to the dto, the externalId and name come from the referenced asset
+     *
+     * @param asset WalletAssetEntity
+     * @return WalletAssetDto
+     */
+    private WalletAssetDto getWalletAssetDto(WalletAssetEntity asset) {
+        WalletAssetDto walletAssetDto = WalletAssetDto.builder()
+            .id(asset.getId())
+            .symbol(asset.getSymbol())
+            .quantity(asset.getQuantity())
+            .price(asset.getPrice())
+            .build();
+        assetService.findByAssetId(asset.getAssetId())
+            .ifPresent(assetDetails -> {
+                walletAssetDto.setExternalId(assetDetails.getExternalId());
+                walletAssetDto.setName(assetDetails.getName());
+            });
+        return walletAssetDto;
+    }
+
     public void saveWalletAssetsForWallet(List<WalletAssetEntity> assetList) {
         walletAssetRepository.saveAll(assetList);
     }
 
+    /**
+     * Link the wallet asset to the asset of the item resolved by symbol, so the next prices are fetched by externalId.
+     * The symbol is mapped to the asset for the next wallets holding it.
+     *
+     * @param walletId      UUID
+     * @param walletAssetId Long
+     * @param cryptoItemDto CryptoItemDto
+     */
     public void updateWalletAsset(UUID walletId, Long walletAssetId, CryptoItemDto cryptoItemDto) {
-        // improvement: add cache to mat symbol to external id to avoid operation
-        walletAssetRepository.findByWalletIdAndId(walletId, walletAssetId)
-            .ifPresent(toUpdate -> {
-                toUpdate.setName(cryptoItemDto.getName());
-                toUpdate.setExternalId(cryptoItemDto.getId());
-                walletAssetRepository.save(toUpdate);
-            });
+        CacheCryptoDetails asset = assetService.getOrCreateAsset(cryptoItemDto.getId(), cryptoItemDto.getName(), cryptoItemDto.getSymbol());
+        linkWalletAsset(walletId, walletAssetId, asset.getAssetId());
+        symbolResolutionService.addMapping(cryptoItemDto.getSymbol(), asset);
+    }
+
+    /**
+     * Set the asset of the wallet asset, with a single update and without loading it
+     *
+     * @param walletId      UUID
+     * @param walletAssetId Long
+     * @param assetId       Integer
+     */
+    public void linkWalletAsset(UUID walletId, Long walletAssetId, Integer assetId) {
+        walletAssetRepository.updateAssetId(walletId, walletAssetId, assetId);
     }
 }
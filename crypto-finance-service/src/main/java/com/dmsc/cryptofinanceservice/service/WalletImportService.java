@@ -0,0 +1,194 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.model.rest.WalletImportResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletItem;
+import com.dmsc.cryptofinanceservice.properties.WalletRequestProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Imports a wallet from a plain text or csv body while it's read, for portfolios too big to be held in memory.
+ * The lines are parsed by {@link WalletItemReader} and the assets inserted with JDBC batches of a fixed size,
+ * bypassing JPA and its persistence context, so the memory used doesn't grow with the number of lines.
+ * Each batch is committed on its own short transaction, no connection is held while the body is uploaded
+ * or while symbols are resolved.
+ * Invalid lines are reported with their line number and don't stop the import.
+ */
+@Slf4j
+@Service
+public class WalletImportService {
+    private static final String INSERT_WALLET_ASSET = "INSERT INTO wallet_assets (wallet_id, asset_id, symbol, quantity, price) VALUES (?, ?, ?, ?, ?)";
+    private static final int[] INSERT_WALLET_ASSET_TYPES = {Types.OTHER, Types.INTEGER, Types.VARCHAR, Types.NUMERIC, Types.NUMERIC};
+    private static final String DELETE_WALLET_ASSETS = "DELETE FROM wallet_assets WHERE wallet_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletService walletService;
+    private final SymbolResolutionService symbolResolutionService;
+    private final JobService jobService;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public WalletImportService(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               WalletService walletService,
+                               SymbolResolutionService symbolResolutionService,
+                               JobService jobService,
+                               WalletRequestProperties walletRequestProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.walletService = walletService;
+        this.symbolResolutionService = symbolResolutionService;
+        this.jobService = jobService;
+        this.batchSize = walletRequestProperties.getImportBatchSize();
+        this.maxErrors = walletRequestProperties.getMaxImportErrors();
+    }
+
+    /**
+     * Create the wallet with the assets of the body and schedule its price refresh.
+     * The wallet is created with the first batch, no wallet is created when no line could be imported.
+     * A body that can't be read to the end discards the wallet and the batches already committed.
+     *
+     * @param body      InputStream of the lines, UTF-8
+     * @param frequency Duration
+     * @return WalletImportResponse, without walletId when no asset was imported
+     */
+    public WalletImportResponse importWallet(InputStream body, Duration frequency) {
+        WalletImport walletImport = new WalletImport(frequency, symbolResolutionService.getSharedMarketSnapshot());
+        try {
+            WalletItemReader reader = new WalletItemReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            WalletItemReader.Line line;
+            while ((line = reader.next()) != null) {
+                walletImport.add(line);
+            }
+            walletImport.flush();
+        } catch (IOException e) {
+            walletImport.discard();
+            throw new UncheckedIOException("Error while reading the wallet import", e);
+        } catch (RuntimeException e) {
+            walletImport.discard();
+            throw e;
+        }
+
+        WalletImportResponse response = WalletImportResponse.builder()
+            .importedAssets(walletImport.imported)
+            .rejectedLines(walletImport.rejected)
+            .errors(walletImport.errors)
+            .build();
+        if (walletImport.imported == 0) {
+            log.info("Wallet import rejected, {} invalid lines", walletImport.rejected);
+            return response;
+        }
+
+        log.info("Imported wallet id: {} with {} assets, {} invalid lines", walletImport.walletId, walletImport.imported, walletImport.rejected);
+        jobService.addOrUpdateJob(walletImport.walletId, frequency);
+        response.setWalletId(walletImport.walletId);
+        return response;
+    }
+
+    /**
+     * State of an import: the pending batch, the counters and the asset of each symbol already resolved.
+     * The symbols are kept to resolve each one once, so the memory used grows with the distinct symbols only.
+     */
+    private final class WalletImport {
+        private final Duration frequency;
+        private final Supplier<List<CryptoItemDto>> marketSnapshot;
+        private final List<Object[]> batch = new ArrayList<>(batchSize);
+        // Asset id by symbol, null when not resolved
+        private final Map<String, Integer> assetIds = new HashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private UUID walletId;
+        private long imported;
+        private long rejected;
+
+        private WalletImport(Duration frequency, Supplier<List<CryptoItemDto>> marketSnapshot) {
+            this.frequency = frequency;
+            this.marketSnapshot = marketSnapshot;
+        }
+
+        private void add(WalletItemReader.Line line) {
+            if (line.error() != null) {
+                rejected++;
+                if (errors.size() < maxErrors) {
+                    errors.add("Line " + line.number() + ": " + line.error());
+                }
+                return;
+            }
+            WalletItem item = line.item();
+            batch.add(new Object[]{null, null, item.getSymbol(), item.getQuantity(), item.getPrice()});
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Resolve the symbols not seen yet with a single lookup, outside the transaction,
+         * then insert the batch on its own transaction, with the wallet when it's the first one.
+         * The market snapshot is requested once for the whole import.
+         */
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            Set<String> newSymbols = new LinkedHashSet<>();
+            batch.forEach(args -> {
+                if (!assetIds.containsKey((String) args[2])) {
+                    newSymbols.add((String) args[2]);
+                }
+            });
+            if (!newSymbols.isEmpty()) {
+                Map<String, CacheCryptoDetails> resolved = symbolResolutionService.resolveSymbols(newSymbols, marketSnapshot);
+                newSymbols.forEach(symbol -> assetIds.put(symbol,
+                    resolved.containsKey(symbol) ? resolved.get(symbol).getAssetId() : null));
+            }
+
+            transactionTemplate.execute(status -> {
+                if (walletId == null) {
+                    walletId = walletService.createEmptyWallet(frequency).getId();
+                }
+                batch.forEach(args -> {
+                    args[0] = walletId;
+                    args[1] = assetIds.get((String) args[2]);
+                });
+                return jdbcTemplate.batchUpdate(INSERT_WALLET_ASSET, batch, INSERT_WALLET_ASSET_TYPES);
+            });
+            imported += batch.size();
+            batch.clear();
+        }
+
+        /**
+         * Delete the wallet and the assets of the batches already committed
+         */
+        private void discard() {
+            if (walletId == null) {
+                return;
+            }
+            log.warn("Wallet import of wallet id: {} failed, discarding {} imported assets", walletId, imported);
+            transactionTemplate.execute(status -> {
+                jdbcTemplate.update(DELETE_WALLET_ASSETS, walletId);
+                walletService.deleteWallet(walletId);
+                return null;
+            });
+        }
+    }
+}
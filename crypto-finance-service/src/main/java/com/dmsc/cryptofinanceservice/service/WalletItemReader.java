@@ -0,0 +1,174 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.rest.WalletItem;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+
+/**
+ * Reads the wallet items of a plain text or csv body line by line, scanning a fixed buffer instead of splitting strings,
+ * so the memory used doesn't depend on the size of the body.
+ * Each line holds the symbol, quantity and price separated by a comma or a tab.
+ * Blank lines and a leading header line are skipped, lines longer than {@link WalletItemReader#MAX_LINE_LENGTH} are rejected.
+ */
+final class WalletItemReader {
+    static final int MAX_LINE_LENGTH = 256;
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int FIELDS = 3;
+    private static final String HEADER_SYMBOL = "symbol";
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final char[] line = new char[MAX_LINE_LENGTH];
+    private final int[] fieldStart = new int[FIELDS];
+    private final int[] fieldEnd = new int[FIELDS];
+
+    private int position;
+    private int limit;
+    private long lineNumber;
+    private boolean firstLine = true;
+
+    WalletItemReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Read the next line with content
+     *
+     * @return the item or the error of the line, null at the end of the body
+     * @throws IOException when the body can't be read
+     */
+    Line next() throws IOException {
+        int length;
+        while ((length = readLine()) >= 0) {
+            lineNumber++;
+            if (length > MAX_LINE_LENGTH) {
+                firstLine = false;
+                return Line.error(lineNumber, "line longer than " + MAX_LINE_LENGTH + " characters");
+            }
+            Line parsed = parse(length);
+            if (parsed != null) {
+                return parsed;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copy the next line to {@link WalletItemReader#line}, without the line break
+     *
+     * @return length of the line, MAX_LINE_LENGTH + 1 when longer, -1 at the end of the body
+     */
+    private int readLine() throws IOException {
+        int length = 0;
+        boolean read = false;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return read ? length : -1;
+                }
+            }
+            read = true;
+            char c = buffer[position++];
+            if (c == '\n') {
+                return length;
+            }
+            if (length < MAX_LINE_LENGTH) {
+                line[length++] = c;
+            } else {
+                length = MAX_LINE_LENGTH + 1;
+            }
+        }
+    }
+
+    /**
+     * Parse the line copied to {@link WalletItemReader#line}
+     *
+     * @return the item or the error of the line, null when the line is blank or the header
+     */
+    private Line parse(int length) {
+        int fields = 0;
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || line[i] == ',' || line[i] == '\t') {
+                if (fields == FIELDS) {
+                    firstLine = false;
+                    return Line.error(lineNumber, "expected symbol, quantity and price");
+                }
+                fieldStart[fields] = start;
+                fieldEnd[fields] = i;
+                trim(fields);
+                fields++;
+                start = i + 1;
+            }
+        }
+
+        if (fields == 1 && fieldStart[0] == fieldEnd[0]) {
+            return null;
+        }
+        boolean header = firstLine && fieldLength(0) == HEADER_SYMBOL.length()
+            && HEADER_SYMBOL.regionMatches(true, 0, new String(line, fieldStart[0], fieldLength(0)), 0, HEADER_SYMBOL.length());
+        firstLine = false;
+        if (header) {
+            return null;
+        }
+        if (fields != FIELDS) {
+            return Line.error(lineNumber, "expected symbol, quantity and price");
+        }
+        if (fieldLength(0) == 0) {
+            return Line.error(lineNumber, "missing symbol");
+        }
+
+        BigDecimal quantity = parseDecimal(1);
+        if (quantity == null) {
+            return Line.error(lineNumber, "invalid quantity");
+        }
+        BigDecimal price = parseDecimal(2);
+        if (price == null) {
+            return Line.error(lineNumber, "invalid price");
+        }
+        return new Line(lineNumber, new WalletItem(new String(line, fieldStart[0], fieldLength(0)), quantity, price), null);
+    }
+
+    private void trim(int field) {
+        while (fieldStart[field] < fieldEnd[field] && Character.isWhitespace(line[fieldStart[field]])) {
+            fieldStart[field]++;
+        }
+        while (fieldEnd[field] > fieldStart[field] && Character.isWhitespace(line[fieldEnd[field] - 1])) {
+            fieldEnd[field]--;
+        }
+    }
+
+    private int fieldLength(int field) {
+        return fieldEnd[field] - fieldStart[field];
+    }
+
+    private BigDecimal parseDecimal(int field) {
+        if (fieldLength(field) == 0) {
+            return null;
+        }
+        try {
+            return new BigDecimal(line, fieldStart[field], fieldLength(field));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Line of the body, with its item or the reason it was rejected
+     *
+     * @param number line number, starting at 1
+     * @param item   WalletItem, null when rejected
+     * @param error  String, null when parsed
+     */
+    record Line(long number, WalletItem item, String error) {
+
+        private static Line error(long number, String error) {
+            return new Line(number, null, error);
+        }
+    }
+}
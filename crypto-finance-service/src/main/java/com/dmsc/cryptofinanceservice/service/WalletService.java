@@ -1,20 +1,27 @@
 package com.dmsc.cryptofinanceservice.service;
 
 import com.dmsc.cryptofinanceservice.exception.WalletNotFoundException;
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
 import com.dmsc.cryptofinanceservice.model.dto.WalletDto;
 import com.dmsc.cryptofinanceservice.model.entity.WalletAssetEntity;
 import com.dmsc.cryptofinanceservice.model.entity.WalletEntity;
 import com.dmsc.cryptofinanceservice.model.entity.WalletJobEntity;
 import com.dmsc.cryptofinanceservice.model.rest.CreateWalletRequest;
+import com.dmsc.cryptofinanceservice.model.rest.WalletItem;
 import com.dmsc.cryptofinanceservice.repository.WalletJobRepository;
 import com.dmsc.cryptofinanceservice.repository.WalletRepository;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -23,33 +30,46 @@ public class WalletService {
     private final WalletRepository walletRepository;
     private final WalletJobRepository walletJobRepository;
     private final WalletAssetService walletAssetService;
+    private final SymbolResolutionService symbolResolutionService;
     private final JobService jobService;
     private final ModelMapper modelMapper;
 
     public WalletService(WalletRepository walletRepository,
                          WalletJobRepository walletJobRepository,
                          WalletAssetService walletAssetService,
+                         SymbolResolutionService symbolResolutionService,
                          JobService jobService) {
         this.walletRepository = walletRepository;
         this.walletJobRepository = walletJobRepository;
         this.walletAssetService = walletAssetService;
+        this.symbolResolutionService = symbolResolutionService;
         this.jobService = jobService;
         this.modelMapper = new ModelMapper();
     }
 
+    /**
+     * Create the wallet with its assets and schedule its price refresh.
+     * The symbols of all the assets are resolved at once before the wallet is stored,
+     * the assets are stored already linked to their asset, so their prices are fetched by externalId from the first refresh.
+     *
+     * @param frequency Duration
+     * @param request   CreateWalletRequest
+     * @return WalletDto
+     */
     public WalletDto createWallet(Duration frequency, CreateWalletRequest request) {
-        WalletEntity wallet = walletRepository.save(new WalletEntity());
-        WalletJobEntity walletJobEntity = new WalletJobEntity();
-        walletJobEntity.setWallet(wallet);
-        walletJobEntity.setFrequency(frequency);
-        walletJobRepository.save(walletJobEntity);
+        Map<String, CacheCryptoDetails> assetsBySymbol = symbolResolutionService.resolveSymbols(request.getWallet().stream()
+            .map(WalletItem::getSymbol)
+            .toList());
+
+        WalletEntity wallet = saveWallet(frequency);
 
         List<WalletAssetEntity> assetList = new ArrayList<>();
-        // external id and name missing, update on API call (?)
         request.getWallet()
             .forEach(asset -> {
                 WalletAssetEntity assetEntity = new WalletAssetEntity();
                 assetEntity.setSymbol(asset.getSymbol());
+                Optional.ofNullable(assetsBySymbol.get(asset.getSymbol()))
+                    .ifPresent(assetDetails -> assetEntity.setAssetId(assetDetails.getAssetId()));
                 assetEntity.setPrice(asset.getPrice());
                 assetEntity.setQuantity(asset.getQuantity());
                 assetEntity.setWallet(wallet);
@@ -62,12 +82,56 @@ public class WalletService {
         return modelMapper.map(wallet, WalletDto.class);
     }
 
+    /**
+     * Create the wallet with its job, without assets and without scheduling the job.
+     * The wallet is flushed, so its assets can be inserted with plain JDBC on the same transaction.
+     *
+     * @param frequency Duration
+     * @return WalletDto
+     */
+    public WalletDto createEmptyWallet(Duration frequency) {
+        WalletEntity wallet = saveWallet(frequency);
+        walletRepository.flush();
+        return modelMapper.map(wallet, WalletDto.class);
+    }
+
+    /**
+     * Delete the wallet and its job, the assets inserted with plain JDBC must be deleted before
+     *
+     * @param walletId UUID
+     */
+    public void deleteWallet(UUID walletId) {
+        walletRepository.deleteById(walletId);
+    }
+
+    private WalletEntity saveWallet(Duration frequency) {
+        WalletEntity wallet = walletRepository.save(new WalletEntity());
+        WalletJobEntity walletJobEntity = new WalletJobEntity();
+        walletJobEntity.setWallet(wallet);
+        walletJobEntity.setFrequency(frequency);
+        walletJobRepository.save(walletJobEntity);
+        return wallet;
+    }
+
     public WalletDto findWalletById(UUID uuid) {
         WalletEntity wallet = walletRepository.findById(uuid)
             .orElseThrow(() -> new WalletNotFoundException("Wallet with id " + uuid + " not found"));
         return modelMapper.map(wallet, WalletDto.class);
     }
 
+    /**
+     * Find which of the given wallets exist, with a single query selecting only their ids
+     *
+     * @param walletIds Collection of wallet ids
+     * @return Set<UUID> of the existing wallet ids
+     */
+    public Set<UUID> findExistingWalletIds(Collection<UUID> walletIds) {
+        if (CollectionUtils.isEmpty(walletIds)) {
+            return new HashSet<>();
+        }
+        return walletRepository.findIdsByIdIn(walletIds);
+    }
+
     public boolean updateWalletIdConfigurations(String walletId, Optional<Duration> frequency) {
         if (frequency.isEmpty()) {
             return false;
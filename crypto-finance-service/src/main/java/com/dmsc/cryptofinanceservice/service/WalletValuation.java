@@ -0,0 +1,191 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
+import com.dmsc.cryptofinanceservice.model.dto.WalletValuationDto;
+import com.dmsc.cryptofinanceservice.model.rest.WalletResponse;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Valuation of a wallet, with its total and best and worst performing assets, updated price by price.
+ * The total is adjusted by the change of value of the asset, and the assets are kept ordered by performance,
+ * so best and worst are the ends of the ordering. Applying a price costs O(log n), reading the valuation O(1).
+ * Values and performances are kept as scaled longs and computed with {@link FixedPointValuation},
+ * {@link BigDecimal} is only used to convert the prices and to build the response.
+ * The total is the sum of the values rounded to cents, the same as rounding each addition while the values are positive.
+ * The version is a hash of the timestamp and value of each holding, kept up to date with the total,
+ * so the same prices give the same version, also once the wallet is valued again.
+ */
+final class WalletValuation {
+    private static final Comparator<Holding> BY_PERFORMANCE = Comparator.<Holding>comparingLong(holding -> holding.performance)
+        .thenComparingInt(holding -> holding.index);
+
+    private final Map<String, List<Holding>> holdingsByExternalId = new HashMap<>();
+    // Guarded by this
+    private final TreeSet<Holding> byPerformance = new TreeSet<>(BY_PERFORMANCE);
+    // Sum of the values of the holdings, unscaled at FixedPointValuation.DECIMAL_SCALE
+    private long total;
+    // Sum of the hashes of the holdings
+    private long version;
+
+    private volatile WalletValuationDto snapshot;
+
+    /**
+     * @param assetData price of each asset of the wallet, not empty and with all the prices set
+     */
+    WalletValuation(Map<WalletAssetDto, CryptoItemDto> assetData) {
+        assetData.forEach((walletAsset, price) -> {
+            Holding holding = new Holding(byPerformance.size(), price.getId(), walletAsset.getQuantity(), walletAsset.getPrice());
+            holdingsByExternalId.computeIfAbsent(holding.externalId, key -> new ArrayList<>()).add(holding);
+            updatePrice(holding, LatestPrice.of(price));
+        });
+        publish();
+    }
+
+    Set<String> getExternalIds() {
+        return holdingsByExternalId.keySet();
+    }
+
+    WalletResponse getSnapshot() {
+        return snapshot.getWallet();
+    }
+
+    /**
+     * @return the valuation with its version, published together
+     */
+    WalletValuationDto getVersionedSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Apply the price to the holdings of the asset, when it's newer than their current price
+     *
+     * @param latestPrice LatestPrice
+     */
+    synchronized void updatePrice(LatestPrice latestPrice) {
+        if (applyPrice(latestPrice)) {
+            publish();
+        }
+    }
+
+    /**
+     * Apply the prices and build the valuation once
+     *
+     * @param latestPrices Collection of LatestPrice
+     */
+    synchronized void updatePrices(Collection<LatestPrice> latestPrices) {
+        boolean updated = false;
+        for (LatestPrice latestPrice : latestPrices) {
+            updated |= applyPrice(latestPrice);
+        }
+        if (updated) {
+            publish();
+        }
+    }
+
+    private boolean applyPrice(LatestPrice latestPrice) {
+        List<Holding> holdings = holdingsByExternalId.get(latestPrice.item().getId());
+        if (holdings == null || !holdings.stream().allMatch(holding -> holding.accepts(latestPrice.item()))) {
+            return false;
+        }
+        holdings.forEach(holding -> updatePrice(holding, latestPrice));
+        return true;
+    }
+
+    private void updatePrice(Holding holding, LatestPrice latestPrice) {
+        if (holding.hasPrice) {
+            byPerformance.remove(holding);
+            total -= holding.value;
+            version -= holding.hash();
+        }
+        holding.updatePrice(latestPrice);
+        total = Math.addExact(total, holding.value);
+        version += holding.hash();
+        byPerformance.add(holding);
+    }
+
+    private void publish() {
+        Holding best = byPerformance.last();
+        Holding worst = byPerformance.first();
+        WalletResponse wallet = WalletResponse.builder()
+            .total(FixedPointValuation.toDecimal(total))
+            .bestPerformance(FixedPointValuation.toDecimal(best.performance))
+            .bestAsset(best.symbol)
+            .worstPerformance(FixedPointValuation.toDecimal(worst.performance))
+            .worstAsset(worst.symbol)
+            .build();
+        snapshot = new WalletValuationDto(wallet, Long.toHexString(version));
+    }
+
+    /**
+     * Price converted for {@link FixedPointValuation}, once for all the wallets holding the asset
+     */
+    record LatestPrice(CryptoItemDto item, FixedPointValuation.ScaledDecimal price) {
+        static LatestPrice of(CryptoItemDto item) {
+            return new LatestPrice(item, FixedPointValuation.ScaledDecimal.of(item.getPrice()));
+        }
+    }
+
+    /**
+     * Asset of the wallet, its quantity and initial price are converted for {@link FixedPointValuation} once, when the wallet is valued
+     */
+    private static final class Holding {
+        private final int index;
+        private final String externalId;
+        private final FixedPointValuation.ScaledDecimal quantity;
+        private final FixedPointValuation.ScaledDecimal initialPrice;
+
+        private String symbol;
+        private boolean hasPrice;
+        private Instant timestamp;
+        // Unscaled at FixedPointValuation.DECIMAL_SCALE
+        private long value;
+        private long performance;
+
+        private Holding(int index, String externalId, BigDecimal quantity, BigDecimal initialPrice) {
+            this.index = index;
+            this.externalId = externalId;
+            this.quantity = FixedPointValuation.ScaledDecimal.of(quantity == null ? BigDecimal.ZERO : quantity);
+            this.initialPrice = initialPrice == null ? null : FixedPointValuation.ScaledDecimal.of(initialPrice);
+        }
+
+        private boolean accepts(CryptoItemDto candidate) {
+            return !hasPrice || timestamp == null ||
+                (candidate.getTimestamp() != null && candidate.getTimestamp().isAfter(timestamp));
+        }
+
+        private void updatePrice(LatestPrice latestPrice) {
+            CryptoItemDto item = latestPrice.item();
+            hasPrice = true;
+            timestamp = item.getTimestamp();
+            if (item.getSymbol() != null) {
+                symbol = item.getSymbol();
+            }
+            value = FixedPointValuation.value(latestPrice.price(), quantity);
+            performance = initialPrice == null ? 0 : FixedPointValuation.performance(latestPrice.price(), initialPrice);
+        }
+
+        /**
+         * Hash of the asset, timestamp and value of the price, mixed with the SplitMix64 finalizer
+         */
+        private long hash() {
+            long hash = Objects.hashCode(externalId);
+            hash = hash * 31 + (timestamp == null ? 0 : timestamp.getEpochSecond() * 1_000_000_000L + timestamp.getNano());
+            hash = hash * 31 + value;
+            hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+            hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+            return hash ^ (hash >>> 31);
+        }
+    }
+}
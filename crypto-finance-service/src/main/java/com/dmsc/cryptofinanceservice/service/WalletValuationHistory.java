@@ -0,0 +1,167 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.dto.AssetPriceHistoryDto;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
+import com.dmsc.cryptofinanceservice.model.rest.WalletHistoryPointResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Values a wallet at each step of a range, from the price history of its assets, in a single pass.
+ * The histories are merged as-of: at each point the price of an asset is its latest price at or before the point,
+ * not older than the tolerance of the asset.
+ * Only the prices changed since the previous point are applied, on a {@link WalletValuation}, so the cost grows with
+ * the number of prices and points instead of their product.
+ * Points where an asset has no price are skipped.
+ */
+final class WalletValuationHistory implements Iterator<WalletHistoryPointResponse> {
+    private static final Comparator<AssetCursor> BY_NEXT_PRICE = Comparator.<AssetCursor, Instant>comparing(cursor -> cursor.nextPrice().getTimestamp())
+        .thenComparingInt(cursor -> cursor.index);
+    private static final Comparator<AssetCursor> BY_EXPIRY = Comparator.<AssetCursor, Instant>comparing(cursor -> cursor.expiry)
+        .thenComparingInt(cursor -> cursor.index);
+
+    private final List<WalletAssetDto> walletAssets;
+    private final Map<String, AssetCursor> cursors = new LinkedHashMap<>();
+    // Cursors with a price not applied yet, by the time of that price
+    private final PriorityQueue<AssetCursor> pending = new PriorityQueue<>(BY_NEXT_PRICE);
+    // Cursors by the time their current price gets too old, the first one tells if all the assets have a price
+    private final TreeSet<AssetCursor> byExpiry = new TreeSet<>(BY_EXPIRY);
+    // Prices moved to and not applied on the valuation yet, kept across the skipped points
+    private final Map<String, CryptoItemDto> changedPrices = new HashMap<>();
+    private final Instant end;
+    private final Duration step;
+    // An asset without externalId never has a price
+    private final boolean valuable;
+
+    private Instant point;
+    private WalletValuation valuation;
+    private WalletHistoryPointResponse next;
+
+    /**
+     * @param walletAssets assets of the wallet
+     * @param histories    price history of the assets by externalId, ordered by timestamp
+     * @param start        first point
+     * @param end          last point, inclusive
+     * @param step         interval between points
+     */
+    WalletValuationHistory(List<WalletAssetDto> walletAssets, Map<String, AssetPriceHistoryDto> histories, Instant start, Instant end, Duration step) {
+        this.walletAssets = walletAssets;
+        this.point = start;
+        this.end = end;
+        this.step = step;
+        for (WalletAssetDto walletAsset : walletAssets) {
+            String externalId = walletAsset.getExternalId();
+            if (externalId == null || cursors.containsKey(externalId)) {
+                continue;
+            }
+            AssetPriceHistoryDto history = histories.get(externalId);
+            AssetCursor cursor = new AssetCursor(cursors.size(),
+                history == null ? List.of() : history.getPrices(),
+                history == null ? Duration.ZERO : history.getTolerance());
+            cursors.put(externalId, cursor);
+            byExpiry.add(cursor);
+            if (cursor.hasNextPrice()) {
+                pending.add(cursor);
+            }
+        }
+        this.valuable = !walletAssets.isEmpty() && walletAssets.stream().allMatch(walletAsset -> walletAsset.getExternalId() != null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && valuable && !point.isAfter(end)) {
+            next = valueAt(point);
+            point = point.plus(step);
+        }
+        return next != null;
+    }
+
+    @Override
+    public WalletHistoryPointResponse next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        WalletHistoryPointResponse result = next;
+        next = null;
+        return result;
+    }
+
+    /**
+     * Move every asset to its latest price at or before the date and value the wallet
+     *
+     * @param date Instant
+     * @return the point, null when an asset has no price at the date
+     */
+    private WalletHistoryPointResponse valueAt(Instant date) {
+        while (!pending.isEmpty() && !pending.peek().nextPrice().getTimestamp().isAfter(date)) {
+            AssetCursor cursor = pending.poll();
+            byExpiry.remove(cursor);
+            cursor.advance();
+            byExpiry.add(cursor);
+            if (cursor.hasNextPrice()) {
+                pending.add(cursor);
+            }
+            changedPrices.put(cursor.current.getId(), cursor.current);
+        }
+
+        if (byExpiry.first().expiry.isBefore(date)) {
+            return null;
+        }
+        if (valuation == null) {
+            Map<WalletAssetDto, CryptoItemDto> assetData = new HashMap<>();
+            walletAssets.forEach(walletAsset -> assetData.put(walletAsset, cursors.get(walletAsset.getExternalId()).current));
+            valuation = new WalletValuation(assetData);
+        } else if (!changedPrices.isEmpty()) {
+            List<WalletValuation.LatestPrice> latestPrices = new ArrayList<>(changedPrices.size());
+            changedPrices.values().forEach(price -> latestPrices.add(WalletValuation.LatestPrice.of(price)));
+            valuation.updatePrices(latestPrices);
+        }
+        changedPrices.clear();
+        return new WalletHistoryPointResponse(date, valuation.getSnapshot());
+    }
+
+    /**
+     * Position on the price history of an asset
+     */
+    private static final class AssetCursor {
+        private final int index;
+        private final List<CryptoItemDto> prices;
+        private final Duration tolerance;
+
+        private int nextIndex;
+        private CryptoItemDto current;
+        // Instant.MIN until the asset has a price
+        private Instant expiry = Instant.MIN;
+
+        private AssetCursor(int index, List<CryptoItemDto> prices, Duration tolerance) {
+            this.index = index;
+            this.prices = prices;
+            this.tolerance = tolerance;
+        }
+
+        private boolean hasNextPrice() {
+            return nextIndex < prices.size();
+        }
+
+        private CryptoItemDto nextPrice() {
+            return prices.get(nextIndex);
+        }
+
+        private void advance() {
+            current = prices.get(nextIndex++);
+            expiry = current.getTimestamp().plus(tolerance);
+        }
+    }
+}
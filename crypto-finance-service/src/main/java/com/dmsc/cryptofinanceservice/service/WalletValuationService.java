@@ -0,0 +1,125 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
+import com.dmsc.cryptofinanceservice.model.dto.WalletValuationDto;
+import com.dmsc.cryptofinanceservice.model.rest.WalletResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Materialized valuation of the wallets, with their total and best and worst performing assets, kept up to date
+ * as the latest prices are ingested, so the wallet info without date is answered without computing it.
+ * <p>
+ * A wallet is valued once, from the latest prices of all its assets, on the first request without date.
+ * From then on, each price accepted by {@link LatestPriceCachingService} is applied to the {@link WalletValuation}
+ * of the wallets holding the asset, found with an inverted index by externalId.
+ * Applying a price costs O(log n) for each wallet holding the asset, reading a valuation O(1).
+ */
+@Service
+public class WalletValuationService {
+    private final LatestPriceCachingService latestPriceCachingService;
+    private final Map<UUID, WalletValuation> valuations = new ConcurrentHashMap<>();
+    private final Map<String, Set<WalletValuation>> valuationsByExternalId = new ConcurrentHashMap<>();
+
+    public WalletValuationService(LatestPriceCachingService latestPriceCachingService) {
+        this.latestPriceCachingService = latestPriceCachingService;
+        latestPriceCachingService.addListener(this::updatePrice);
+    }
+
+    /**
+     * Get the current valuation of the wallet
+     *
+     * @param walletId UUID
+     * @return Optional with the valuation, empty when the wallet was not valued yet
+     */
+    public Optional<WalletResponse> getValuation(UUID walletId) {
+        WalletValuation valuation = walletId == null ? null : valuations.get(walletId);
+        return valuation == null ? Optional.empty() : Optional.of(valuation.getSnapshot());
+    }
+
+    /**
+     * Get the current valuation of the wallet with its version, a memory lookup to answer the conditional requests
+     *
+     * @param walletId UUID
+     * @return Optional with the valuation, empty when the wallet was not valued yet
+     */
+    public Optional<WalletValuationDto> getVersionedValuation(UUID walletId) {
+        WalletValuation valuation = walletId == null ? null : valuations.get(walletId);
+        return valuation == null ? Optional.empty() : Optional.of(valuation.getVersionedSnapshot());
+    }
+
+    /**
+     * Value the wallet from the latest prices of its assets and keep the valuation up to date from then on.
+     * Wallets with an asset without price are not valued, they are valued on the next request.
+     * A wallet valued again replaces its previous valuation, which stops being updated.
+     *
+     * @param walletId  UUID
+     * @param assetData latest price of each asset of the wallet
+     * @return the valuation, empty when the wallet is not valued
+     */
+    public Optional<WalletResponse> register(UUID walletId, Map<WalletAssetDto, CryptoItemDto> assetData) {
+        if (walletId == null || CollectionUtils.isEmpty(assetData) || assetData.values().stream().anyMatch(WalletValuationService::hasNoPrice)) {
+            return Optional.empty();
+        }
+
+        WalletValuation valuation = new WalletValuation(assetData);
+
+        // Indexed before catching up with the latest prices, a price accepted meanwhile is applied either way.
+        // The wallet is locked while the valuations are swapped, so concurrent registrations leave only one indexed
+        valuations.compute(walletId, (key, replaced) -> {
+            if (replaced != null) {
+                replaced.getExternalIds().forEach(externalId -> valuationsByExternalId.computeIfPresent(externalId, (k, walletValuations) -> {
+                    walletValuations.remove(replaced);
+                    return walletValuations.isEmpty() ? null : walletValuations;
+                }));
+            }
+            valuation.getExternalIds().forEach(externalId -> valuationsByExternalId.compute(externalId, (k, walletValuations) -> {
+                Set<WalletValuation> indexed = walletValuations == null ? ConcurrentHashMap.newKeySet() : walletValuations;
+                indexed.add(valuation);
+                return indexed;
+            }));
+            return valuation;
+        });
+        valuation.getExternalIds()
+            .forEach(externalId -> latestPriceCachingService.getLatestPrice(externalId)
+                .ifPresent(latestPrice -> valuation.updatePrice(WalletValuation.LatestPrice.of(latestPrice))));
+        return Optional.of(valuation.getSnapshot());
+    }
+
+    /**
+     * Apply the latest price of an asset to the wallets holding it, the price is converted to a scaled long once for all of them
+     *
+     * @param latestPrice CryptoItemDto
+     */
+    public void updatePrice(CryptoItemDto latestPrice) {
+        if (hasNoPrice(latestPrice)) {
+            return;
+        }
+        Set<WalletValuation> walletValuations = valuationsByExternalId.get(latestPrice.getId());
+        if (walletValuations != null) {
+            WalletValuation.LatestPrice price = WalletValuation.LatestPrice.of(latestPrice);
+            walletValuations.forEach(valuation -> valuation.updatePrice(price));
+        }
+    }
+
+    /**
+     * @param externalId CryptoAsset ExternalId
+     * @return number of valuations updated by the prices of the asset
+     */
+    int countValuationsHolding(String externalId) {
+        Set<WalletValuation> walletValuations = valuationsByExternalId.get(externalId);
+        return walletValuations == null ? 0 : walletValuations.size();
+    }
+
+    private static boolean hasNoPrice(CryptoItemDto cryptoItemDto) {
+        return cryptoItemDto == null || !StringUtils.hasText(cryptoItemDto.getId()) || cryptoItemDto.getPrice() == null;
+    }
+}
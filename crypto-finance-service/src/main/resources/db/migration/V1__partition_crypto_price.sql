@@ -0,0 +1,86 @@
+-- crypto_price is range partitioned by month on time, so latest and as-of lookups only touch the partitions
+-- overlapping the requested range. The remaining tables are still managed by hibernate (ddl-auto=update).
+
+CREATE SEQUENCE IF NOT EXISTS crypto_price_seq START WITH 1 INCREMENT BY 50;
+
+-- Keep the rows stored before the table was partitioned, they are moved at the end of this migration
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class WHERE relname = 'crypto_price' AND relkind = 'r') THEN
+        ALTER TABLE crypto_price RENAME TO crypto_price_legacy;
+        ALTER INDEX IF EXISTS idx_crypto_price_external_id_time RENAME TO idx_crypto_price_legacy_external_id_time;
+    END IF;
+END
+$$;
+
+CREATE TABLE crypto_price
+(
+    id          BIGINT                      NOT NULL,
+    external_id VARCHAR(255),
+    name        VARCHAR(255),
+    symbol      VARCHAR(255),
+    price       NUMERIC(38, 2),
+    time        TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id, time)
+) PARTITION BY RANGE (time);
+
+-- Rows outside any monthly partition, moved to their partition once it is created
+CREATE TABLE crypto_price_default PARTITION OF crypto_price DEFAULT;
+
+-- Latest and as-of lookups by externalId
+CREATE INDEX idx_crypto_price_external_id_time ON crypto_price (external_id, time DESC);
+
+-- Time range scans, prices are appended in time order so a BRIN index stays tiny
+CREATE INDEX idx_crypto_price_time_brin ON crypto_price USING BRIN (time);
+
+-- Creates the partition holding the month of the given date, moving any of its rows out of the default partition.
+-- Bounds are UTC month boundaries. Does nothing when the partition already exists.
+CREATE OR REPLACE FUNCTION ensure_crypto_price_partition(month_date DATE) RETURNS VOID AS
+$$
+DECLARE
+    partition_start DATE        := date_trunc('month', month_date)::DATE;
+    partition_end   DATE        := (date_trunc('month', month_date) + INTERVAL '1 month')::DATE;
+    range_start     TIMESTAMPTZ := partition_start::TIMESTAMP AT TIME ZONE 'UTC';
+    range_end       TIMESTAMPTZ := partition_end::TIMESTAMP AT TIME ZONE 'UTC';
+    partition_name  TEXT        := 'crypto_price_' || to_char(partition_start, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE crypto_price INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM crypto_price_default WHERE time >= %L AND time < %L RETURNING *) '
+                       'INSERT INTO %I SELECT * FROM moved', range_start, range_end, partition_name);
+    EXECUTE format('ALTER TABLE crypto_price ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, range_start, range_end);
+END
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    first_month DATE := date_trunc('month', now() AT TIME ZONE 'UTC')::DATE;
+    month_date  DATE;
+BEGIN
+    IF to_regclass('crypto_price_legacy') IS NOT NULL THEN
+        SELECT COALESCE(date_trunc('month', min(time) AT TIME ZONE 'UTC')::DATE, first_month)
+        INTO first_month
+        FROM crypto_price_legacy
+        WHERE time IS NOT NULL;
+    END IF;
+
+    month_date := LEAST(first_month, date_trunc('month', now() AT TIME ZONE 'UTC')::DATE);
+    WHILE month_date <= date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '1 month'
+        LOOP
+            PERFORM ensure_crypto_price_partition(month_date);
+            month_date := (month_date + INTERVAL '1 month')::DATE;
+        END LOOP;
+
+    IF to_regclass('crypto_price_legacy') IS NOT NULL THEN
+        INSERT INTO crypto_price (id, external_id, name, symbol, price, time)
+        SELECT id, external_id, name, symbol, price, time
+        FROM crypto_price_legacy
+        WHERE time IS NOT NULL;
+        DROP TABLE crypto_price_legacy;
+    END IF;
+END
+$$;
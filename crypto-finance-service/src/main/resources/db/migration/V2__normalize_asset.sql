@@ -0,0 +1,56 @@
+-- Asset metadata is stored once on the asset table, crypto_price and wallet_assets reference it by its surrogate key
+
+CREATE TABLE asset
+(
+    id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    external_id VARCHAR(255) NOT NULL UNIQUE,
+    symbol      VARCHAR(255),
+    name        VARCHAR(255)
+);
+
+-- Keep the latest known name and symbol of each asset
+INSERT INTO asset (external_id, symbol, name)
+SELECT DISTINCT ON (c.external_id) c.external_id, c.symbol, c.name
+FROM crypto_price c
+WHERE c.external_id IS NOT NULL
+ORDER BY c.external_id, (c.name IS NOT NULL AND c.symbol IS NOT NULL) DESC, c.time DESC;
+
+ALTER TABLE crypto_price ADD COLUMN asset_id INTEGER;
+
+UPDATE crypto_price c
+SET asset_id = a.id
+FROM asset a
+WHERE a.external_id = c.external_id;
+
+-- Prices without asset can't be looked up
+DELETE FROM crypto_price WHERE asset_id IS NULL;
+
+DROP INDEX idx_crypto_price_external_id_time;
+ALTER TABLE crypto_price ALTER COLUMN asset_id SET NOT NULL;
+ALTER TABLE crypto_price ADD CONSTRAINT fk_crypto_price_asset FOREIGN KEY (asset_id) REFERENCES asset (id);
+ALTER TABLE crypto_price DROP COLUMN external_id, DROP COLUMN name, DROP COLUMN symbol;
+
+CREATE INDEX idx_crypto_price_asset_id_time ON crypto_price (asset_id, time DESC);
+
+-- wallet_assets is created by hibernate, only existing databases need to be migrated
+DO $$
+BEGIN
+    IF to_regclass('wallet_assets') IS NOT NULL THEN
+        INSERT INTO asset (external_id, symbol, name)
+        SELECT DISTINCT ON (w.external_id) w.external_id, w.symbol, w.name
+        FROM wallet_assets w
+        WHERE w.external_id IS NOT NULL
+        ORDER BY w.external_id, w.id DESC
+        ON CONFLICT (external_id) DO NOTHING;
+
+        ALTER TABLE wallet_assets ADD COLUMN IF NOT EXISTS asset_id INTEGER REFERENCES asset (id);
+
+        UPDATE wallet_assets w
+        SET asset_id = a.id
+        FROM asset a
+        WHERE a.external_id = w.external_id;
+
+        ALTER TABLE wallet_assets DROP COLUMN IF EXISTS external_id, DROP COLUMN IF EXISTS name;
+    END IF;
+END
+$$;
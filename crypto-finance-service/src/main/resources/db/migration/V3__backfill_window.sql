@@ -0,0 +1,19 @@
+-- Progress of the historical backfills, one row per (asset, interval, window) requested upstream.
+-- A backfill interrupted before completing its windows is resumed from the windows not completed yet.
+
+CREATE TABLE backfill_window
+(
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    asset_id       INTEGER                     NOT NULL REFERENCES asset (id),
+    interval_value VARCHAR(8)                  NOT NULL,
+    window_start   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    window_end     TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    status         VARCHAR(16)                 NOT NULL,
+    attempts       INTEGER                     NOT NULL DEFAULT 0,
+    loaded_prices  BIGINT                      NOT NULL DEFAULT 0,
+    updated_at     TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT uk_backfill_window UNIQUE (asset_id, interval_value, window_start)
+);
+
+-- Windows still to run, looked up on startup
+CREATE INDEX idx_backfill_window_status ON backfill_window (status) WHERE status <> 'COMPLETED';
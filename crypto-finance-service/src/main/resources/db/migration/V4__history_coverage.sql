@@ -0,0 +1,13 @@
+-- Time ranges of history already stored on crypto_price, per asset and interval.
+-- Overlapping and adjacent ranges are merged, a historical lookup inside a range is answered without an upstream request.
+
+CREATE TABLE history_coverage
+(
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    asset_id       INTEGER                     NOT NULL REFERENCES asset (id),
+    interval_value VARCHAR(8)                  NOT NULL,
+    range_start    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    range_end      TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_history_coverage_asset ON history_coverage (asset_id, interval_value, range_start);
@@ -0,0 +1,8 @@
+-- Asset resolved for each symbol of the wallet assets, shared by all the wallets.
+-- Symbols are not unique upstream, the asset first resolved for a symbol is kept so every wallet resolves it to the same asset.
+
+CREATE TABLE symbol_asset
+(
+    symbol   VARCHAR(255) PRIMARY KEY,
+    asset_id INTEGER NOT NULL REFERENCES asset (id)
+);
@@ -1,10 +1,62 @@
 package com.dmsc.cryptofinanceservice;
 
+import com.dmsc.cryptofinanceservice.repository.AssetRepository;
+import com.dmsc.cryptofinanceservice.repository.BackfillWindowRepository;
+import com.dmsc.cryptofinanceservice.repository.CryptoPriceRepository;
+import com.dmsc.cryptofinanceservice.repository.HistoryCoverageRepository;
+import com.dmsc.cryptofinanceservice.repository.SymbolAssetRepository;
+import com.dmsc.cryptofinanceservice.repository.WalletAssetRepository;
+import com.dmsc.cryptofinanceservice.repository.WalletJobRepository;
+import com.dmsc.cryptofinanceservice.repository.WalletRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-//@SpringBootTest
+/**
+ * Loads the application context with every service, controller and configuration of the application.
+ * The database is replaced by mocks, so the wiring of the beans is checked without a running Postgres.
+ */
+@SpringBootTest(properties = {
+    "spring.autoconfigure.exclude=" +
+        "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration," +
+        "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration," +
+        "org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration," +
+        "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration",
+    "jobs.job-delay-start-time=2100-01-01T00:00:00Z",
+    "backfill.resume-on-startup=false",
+    "cache.asset-snapshot-file=target/context-test-asset-snapshot.bin"
+})
 class CryptoFinanceServiceApplicationTest {
 
+    @MockBean
+    private EntityManager entityManager;
+    @MockBean
+    private JdbcTemplate jdbcTemplate;
+    @MockBean
+    private PlatformTransactionManager platformTransactionManager;
+    @MockBean
+    private TransactionTemplate transactionTemplate;
+    @MockBean
+    private AssetRepository assetRepository;
+    @MockBean
+    private BackfillWindowRepository backfillWindowRepository;
+    @MockBean
+    private CryptoPriceRepository cryptoPriceRepository;
+    @MockBean
+    private HistoryCoverageRepository historyCoverageRepository;
+    @MockBean
+    private SymbolAssetRepository symbolAssetRepository;
+    @MockBean
+    private WalletAssetRepository walletAssetRepository;
+    @MockBean
+    private WalletJobRepository walletJobRepository;
+    @MockBean
+    private WalletRepository walletRepository;
+
     @Test
     void contextLoads() {
     }
@@ -0,0 +1,128 @@
+package com.dmsc.cryptofinanceservice.benchmark;
+
+import com.dmsc.coincapjavasdk.model.response.PriceData;
+import com.dmsc.cryptofinanceservice.model.entity.CryptoPriceEntity;
+import com.dmsc.cryptofinanceservice.repository.CryptoPriceRepository;
+import com.dmsc.cryptofinanceservice.service.AssetService;
+import com.dmsc.cryptofinanceservice.service.CryptoPriceBulkLoadService;
+import com.dmsc.cryptofinanceservice.service.CryptoPricePartitionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the rows/sec of loading price history through JPA saveAll, as the history fetched by date is stored,
+ * against the binary COPY bulk load of {@link CryptoPriceBulkLoadService}.
+ * Loading the same history again with COPY must not insert any row, it goes through the staging table.
+ * <br>
+ * Starts the application against a Postgres database, run with:
+ * mvn test -Pbenchmark -pl crypto-finance-service -am -Dbenchmark.jdbcUrl=jdbc:postgresql://localhost:5555/compose-postgres
+ * <br>
+ * Credentials can be changed with -Dbenchmark.jdbcUser and -Dbenchmark.jdbcPassword, the number of minute points with -Dbenchmark.rows
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark.jdbcUrl", matches = ".+")
+@SpringBootTest(properties = {
+    "spring.datasource.url=${benchmark.jdbcUrl}",
+    "spring.datasource.username=${benchmark.jdbcUser:compose-postgres}",
+    "spring.datasource.password=${benchmark.jdbcPassword:compose-postgres}",
+    "spring.jpa.show-sql=false",
+    "jobs.job-delay-start-time=2100-01-01T00:00:00Z"
+})
+class HistoryBulkLoadBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 43200);
+
+    @Autowired
+    private CryptoPriceBulkLoadService cryptoPriceBulkLoadService;
+    @Autowired
+    private CryptoPricePartitionService cryptoPricePartitionService;
+    @Autowired
+    private CryptoPriceRepository cryptoPriceRepository;
+    @Autowired
+    private AssetService assetService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Integer> assetIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        assetIds.forEach(assetId -> {
+            jdbcTemplate.update("DELETE FROM crypto_price WHERE asset_id = ?", assetId);
+            jdbcTemplate.update("DELETE FROM asset WHERE id = ?", assetId);
+        });
+    }
+
+    @Test
+    void compareJpaWithBinaryCopy() {
+        Instant end = Instant.now().truncatedTo(ChronoUnit.MINUTES);
+        Instant start = end.minus(ROWS - 1, ChronoUnit.MINUTES);
+        List<PriceData> prices = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            prices.add(new PriceData(BigDecimal.valueOf(4_000_000 + i, 2).toPlainString(), start.plus(i, ChronoUnit.MINUTES).toEpochMilli()));
+        }
+        // Both paths write into existing partitions
+        cryptoPricePartitionService.ensurePartitions(start, end);
+
+        Integer jpaAssetId = createAsset();
+        long jpaStart = System.nanoTime();
+        cryptoPriceRepository.saveAll(prices.stream()
+            .map(price -> {
+                CryptoPriceEntity cryptoPriceEntity = new CryptoPriceEntity();
+                cryptoPriceEntity.setAssetId(jpaAssetId);
+                cryptoPriceEntity.setPrice(new BigDecimal(price.getPriceUsd()));
+                cryptoPriceEntity.setTime(Instant.ofEpochMilli(price.getTime()));
+                return cryptoPriceEntity;
+            })
+            .toList());
+        double jpa = getRowsPerSecond(System.nanoTime() - jpaStart);
+
+        Integer copyAssetId = createAsset();
+        long copyStart = System.nanoTime();
+        long inserted = cryptoPriceBulkLoadService.loadPrices(copyAssetId, prices);
+        double copy = getRowsPerSecond(System.nanoTime() - copyStart);
+        assertEquals(ROWS, inserted);
+
+        long reloadStart = System.nanoTime();
+        long reloaded = cryptoPriceBulkLoadService.loadPrices(copyAssetId, prices);
+        double reload = getRowsPerSecond(System.nanoTime() - reloadStart);
+        assertEquals(0, reloaded);
+        assertEquals(ROWS, jdbcTemplate.queryForObject("SELECT count(*) FROM crypto_price WHERE asset_id = ?", Long.class, copyAssetId));
+        // Both paths store the same prices
+        assertEquals(getPricesSum(jpaAssetId), getPricesSum(copyAssetId));
+
+        System.out.printf("Rows: %d%n", ROWS);
+        System.out.printf("JPA saveAll  %.0f rows/s%n", jpa);
+        System.out.printf("COPY         %.0f rows/s (x%.1f)%n", copy, copy / jpa);
+        System.out.printf("COPY reload  %.0f rows/s, nothing inserted%n", reload);
+    }
+
+    private Integer createAsset() {
+        Integer assetId = assetService.getOrCreateAsset("benchmark-" + UUID.randomUUID(), null, null).getAssetId();
+        assetIds.add(assetId);
+        return assetId;
+    }
+
+    private BigDecimal getPricesSum(Integer assetId) {
+        return jdbcTemplate.queryForObject("SELECT sum(price) FROM crypto_price WHERE asset_id = ?", BigDecimal.class, assetId);
+    }
+
+    private static double getRowsPerSecond(long elapsedNanos) {
+        return ROWS / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+}
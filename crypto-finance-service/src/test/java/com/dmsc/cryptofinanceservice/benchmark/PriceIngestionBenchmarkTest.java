@@ -0,0 +1,157 @@
+package com.dmsc.cryptofinanceservice.benchmark;
+
+import com.dmsc.cryptofinanceservice.model.entity.CryptoPriceEntity;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the rows/sec of the price ingestion write path, issuing the same statements hibernate does.
+ * Per row: one transaction per price, with its own nextval and INSERT, as done by a save per asset.
+ * Batched: a single transaction per refresh cycle, one nextval per {@link CryptoPriceEntity#SEQUENCE_ALLOCATION_SIZE} rows
+ * and JDBC batches rewritten as multi-row inserts by the driver (reWriteBatchedInserts).
+ * <br>
+ * Needs a Postgres database, run with:
+ * mvn test -Pbenchmark -pl crypto-finance-service -am -Dbenchmark.jdbcUrl=jdbc:postgresql://localhost:5555/compose-postgres
+ * <br>
+ * Credentials can be changed with -Dbenchmark.jdbcUser and -Dbenchmark.jdbcPassword, sizes with -Dbenchmark.rows and -Dbenchmark.batchSize
+ */
+@Tag("benchmark")
+class PriceIngestionBenchmarkTest {
+
+    private static final String JDBC_URL = System.getProperty("benchmark.jdbcUrl");
+    private static final String JDBC_USER = System.getProperty("benchmark.jdbcUser", "compose-postgres");
+    private static final String JDBC_PASSWORD = System.getProperty("benchmark.jdbcPassword", "compose-postgres");
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 20000);
+    private static final int BATCH_SIZE = Integer.getInteger("benchmark.batchSize", 500);
+
+    private static final String TABLE = "crypto_price_ingestion_benchmark";
+    private static final String SEQUENCE = "crypto_price_ingestion_benchmark_seq";
+    private static final String INSERT = "INSERT INTO " + TABLE + " (asset_id, price, time, id) VALUES (?, ?, ?, ?)";
+
+    @Test
+    void comparePerRowWithBatchedInserts() throws SQLException {
+        assumeTrue(JDBC_URL != null, "-Dbenchmark.jdbcUrl not set");
+
+        double perRow = run(false);
+        double batched = run(true);
+
+        System.out.printf("Rows: %d, batch size: %d%n", ROWS, BATCH_SIZE);
+        System.out.printf("per-row  %.0f rows/s%n", perRow);
+        System.out.printf("batched  %.0f rows/s (x%.1f)%n", batched, batched / perRow);
+    }
+
+    private double run(boolean batched) throws SQLException {
+        try (Connection connection = getConnection(batched)) {
+            createTable(connection, batched ? CryptoPriceEntity.SEQUENCE_ALLOCATION_SIZE : 1);
+
+            long start = System.nanoTime();
+            if (batched) {
+                insertBatched(connection);
+            } else {
+                insertPerRow(connection);
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            assertEquals(ROWS, count(connection));
+            dropTable(connection);
+            return ROWS / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private static Connection getConnection(boolean reWriteBatchedInserts) throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", JDBC_USER);
+        properties.setProperty("password", JDBC_PASSWORD);
+        properties.setProperty("reWriteBatchedInserts", String.valueOf(reWriteBatchedInserts));
+        return DriverManager.getConnection(JDBC_URL, properties);
+    }
+
+    private static void insertPerRow(Connection connection) throws SQLException {
+        connection.setAutoCommit(true);
+        try (PreparedStatement nextval = connection.prepareStatement("SELECT nextval('" + SEQUENCE + "')");
+             PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (int i = 0; i < ROWS; i++) {
+                setValues(insert, i, nextId(nextval));
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    private static void insertBatched(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement nextval = connection.prepareStatement("SELECT nextval('" + SEQUENCE + "')");
+             PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            long id = 0;
+            long maxId = -1;
+            for (int i = 0; i < ROWS; i++) {
+                // Pooled optimizer: nextval returns the upper bound of the next block of ids
+                if (id > maxId) {
+                    maxId = nextId(nextval);
+                    id = maxId - CryptoPriceEntity.SEQUENCE_ALLOCATION_SIZE + 1;
+                }
+                setValues(insert, i, id++);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private static void setValues(PreparedStatement insert, int row, long id) throws SQLException {
+        insert.setInt(1, row % 100);
+        insert.setBigDecimal(2, BigDecimal.valueOf(row, 2));
+        insert.setTimestamp(3, Timestamp.from(Instant.ofEpochSecond(1_700_000_000L + row)));
+        insert.setLong(4, id);
+    }
+
+    private static long nextId(PreparedStatement nextval) throws SQLException {
+        try (ResultSet resultSet = nextval.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static void createTable(Connection connection, int sequenceIncrement) throws SQLException {
+        dropTable(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SEQUENCE " + SEQUENCE + " START WITH " + sequenceIncrement + " INCREMENT BY " + sequenceIncrement);
+            statement.execute("CREATE TABLE " + TABLE + " (id BIGINT NOT NULL, asset_id INTEGER NOT NULL, price NUMERIC(38, 2), " +
+                "time TIMESTAMP(6) WITH TIME ZONE NOT NULL, PRIMARY KEY (id, time))");
+            statement.execute("CREATE INDEX ON " + TABLE + " (asset_id, time DESC)");
+        }
+    }
+
+    private static void dropTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("DROP SEQUENCE IF EXISTS " + SEQUENCE);
+        }
+    }
+
+    private static long count(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM " + TABLE)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
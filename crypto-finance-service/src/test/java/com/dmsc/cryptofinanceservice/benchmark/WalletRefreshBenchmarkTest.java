@@ -0,0 +1,203 @@
+package com.dmsc.cryptofinanceservice.benchmark;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import com.dmsc.coincapjavasdk.model.response.PriceData;
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoHistoryDto;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
+import com.dmsc.cryptofinanceservice.properties.CacheProperties;
+import com.dmsc.cryptofinanceservice.properties.WalletRequestProperties;
+import com.dmsc.cryptofinanceservice.repository.CryptoPriceRepository;
+import com.dmsc.cryptofinanceservice.repository.HistoryCoverageRepository;
+import com.dmsc.cryptofinanceservice.service.AsOfPriceCachingService;
+import com.dmsc.cryptofinanceservice.service.AssetService;
+import com.dmsc.cryptofinanceservice.service.CryptoPriceService;
+import com.dmsc.cryptofinanceservice.service.CryptoProvider;
+import com.dmsc.cryptofinanceservice.service.HistoryCoverageService;
+import com.dmsc.cryptofinanceservice.service.LatestPriceCachingService;
+import com.dmsc.cryptofinanceservice.service.SymbolResolutionService;
+import com.dmsc.cryptofinanceservice.service.WalletAssetService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Compares the wallet refresh throughput and tail latency of the default mode against the virtual thread mode.
+ * Default mode: wallet jobs run on the single thread of the default ThreadPoolTaskScheduler,
+ * assets are fetched in batches on {@code boundedElastic}.
+ * Virtual thread mode: each wallet job runs on a virtual thread bounded by a semaphore,
+ * each asset is fetched on a virtual thread bounded by a semaphore.
+ * <br>
+ * Run with: mvn test -Pbenchmark -pl crypto-finance-service -am
+ * <br>
+ * Sizes can be changed with -Dbenchmark.wallets, -Dbenchmark.assets and -Dbenchmark.latencyMs
+ */
+@Tag("benchmark")
+class WalletRefreshBenchmarkTest {
+
+    private static final int WALLETS = Integer.getInteger("benchmark.wallets", 1000);
+    private static final int ASSETS_PER_WALLET = Integer.getInteger("benchmark.assets", 6);
+    private static final int LATENCY_MS = Integer.getInteger("benchmark.latencyMs", 5);
+    private static final int MAX_CONCURRENT_WALLETS = 256;
+
+    @Test
+    void compareBoundedElasticWithVirtualThreads() throws InterruptedException {
+        Result boundedElastic = run(WalletRequestProperties.RefreshMode.PER_ASSET, false);
+        Result virtualThreads = run(WalletRequestProperties.RefreshMode.VIRTUAL_THREADS, true);
+
+        System.out.printf("Wallets: %d, assets per wallet: %d, upstream latency: %dms%n", WALLETS, ASSETS_PER_WALLET, LATENCY_MS);
+        System.out.println("bounded-elastic " + boundedElastic);
+        System.out.println("virtual-threads " + virtualThreads);
+
+        assertEquals(WALLETS, boundedElastic.latenciesMs().length);
+        assertEquals(WALLETS, virtualThreads.latenciesMs().length);
+    }
+
+    private Result run(WalletRequestProperties.RefreshMode refreshMode, boolean virtualThreads) throws InterruptedException {
+        WalletRequestProperties walletRequestProperties = new WalletRequestProperties();
+        walletRequestProperties.setRefreshMode(refreshMode);
+        CryptoPriceService cryptoPriceService = new CryptoPriceService(
+            getWalletAssetService(),
+            getCryptoPriceRepository(),
+            new DelayedCryptoProvider(),
+            getAssetService(),
+            new LatestPriceCachingService(),
+            new AsOfPriceCachingService(new CacheProperties()),
+            new HistoryCoverageService(mock(HistoryCoverageRepository.class)),
+            mock(SymbolResolutionService.class),
+            walletRequestProperties);
+
+        List<UUID> walletIds = IntStream.range(0, WALLETS).mapToObj(i -> UUID.randomUUID()).toList();
+        long[] latenciesMs = new long[WALLETS];
+        Semaphore walletPermits = new Semaphore(MAX_CONCURRENT_WALLETS);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = virtualThreads ?
+            Executors.newVirtualThreadPerTaskExecutor() :
+            Executors.newSingleThreadExecutor()) {
+            for (int i = 0; i < walletIds.size(); i++) {
+                int index = i;
+                UUID walletId = walletIds.get(i);
+                // All wallet jobs are due at the same tick
+                executor.execute(() -> {
+                    if (virtualThreads) {
+                        walletPermits.acquireUninterruptibly();
+                    }
+                    try {
+                        cryptoPriceService.fetchWalletPrices(walletId);
+                    } finally {
+                        if (virtualThreads) {
+                            walletPermits.release();
+                        }
+                    }
+                    latenciesMs[index] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                });
+            }
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new Result(elapsedMs, latenciesMs);
+    }
+
+    private static WalletAssetService getWalletAssetService() {
+        List<WalletAssetDto> assets = IntStream.range(0, ASSETS_PER_WALLET)
+            .mapToObj(i -> new WalletAssetDto((long) i, "asset-" + i, "A" + i, "Asset " + i, BigDecimal.ONE, BigDecimal.TEN))
+            .toList();
+        WalletAssetService walletAssetService = mock(WalletAssetService.class, withSettings().stubOnly());
+        when(walletAssetService.findWalletAssetsByWalletId(any())).thenReturn(assets);
+        return walletAssetService;
+    }
+
+    private static AssetService getAssetService() {
+        AssetService assetService = mock(AssetService.class, withSettings().stubOnly());
+        when(assetService.getOrCreateAsset(any(), any(), any())).thenAnswer(invocation -> CacheCryptoDetails.builder()
+            .assetId(1)
+            .externalId(invocation.getArgument(0))
+            .build());
+        return assetService;
+    }
+
+    private static CryptoPriceRepository getCryptoPriceRepository() {
+        CryptoPriceRepository cryptoPriceRepository = mock(CryptoPriceRepository.class, withSettings().stubOnly());
+        when(cryptoPriceRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        return cryptoPriceRepository;
+    }
+
+    private record Result(long elapsedMs, long[] latenciesMs) {
+        private long percentile(double percentile) {
+            long[] sorted = latenciesMs.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(index, 0)];
+        }
+
+        @Override
+        public String toString() {
+            double throughput = latenciesMs.length * 1000.0 / Math.max(elapsedMs, 1);
+            return String.format("elapsed: %dms, throughput: %.1f wallets/s, p50: %dms, p99: %dms, max: %dms",
+                elapsedMs, throughput, percentile(50), percentile(99), percentile(100));
+        }
+    }
+
+    /**
+     * Provider answering every request after a fixed latency, without any network call
+     */
+    private static class DelayedCryptoProvider implements CryptoProvider {
+
+        @Override
+        public Mono<List<CryptoItemDto>> getAssetsBySymbols(List<String> listSymbols) {
+            return getAssets(listSymbols);
+        }
+
+        @Override
+        public Mono<List<CryptoItemDto>> getAssetsById(List<String> id) {
+            return getAssets(id);
+        }
+
+        @Override
+        public Mono<List<CryptoItemDto>> getAssetsSnapshot(int limit) {
+            return getAssets(new ArrayList<>());
+        }
+
+        @Override
+        public Mono<CryptoHistoryDto> getAssetByIdBetweenDates(String id, Instant start, Instant end) {
+            return Mono.delay(Duration.ofMillis(LATENCY_MS)).then(Mono.empty());
+        }
+
+        @Override
+        public Flux<PriceData> getAssetHistory(String id, IntervalValue interval, Instant start, Instant end) {
+            return Mono.delay(Duration.ofMillis(LATENCY_MS)).thenMany(Flux.empty());
+        }
+
+        private Mono<List<CryptoItemDto>> getAssets(List<String> ids) {
+            return Mono.delay(Duration.ofMillis(LATENCY_MS))
+                .map(ignored -> ids.stream()
+                    .map(id -> CryptoItemDto.builder()
+                        .id(id)
+                        .price(BigDecimal.ONE)
+                        .timestamp(Instant.now())
+                        .build())
+                    .toList());
+        }
+    }
+}
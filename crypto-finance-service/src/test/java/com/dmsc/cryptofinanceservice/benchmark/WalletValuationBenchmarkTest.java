@@ -0,0 +1,134 @@
+package com.dmsc.cryptofinanceservice.benchmark;
+
+import com.dmsc.cryptofinanceservice.service.FixedPointValuation;
+import com.dmsc.cryptofinanceservice.service.FixedPointValuation.ScaledDecimal;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the ns/asset of the wallet valuation, total and best and worst performance, on BigDecimal against {@link FixedPointValuation}.
+ * BigDecimal: the arithmetic as done before, an Optional and several BigDecimal allocations per asset.
+ * Stored prices: 2 decimals, as loaded from the database, computed on longs.
+ * Upstream prices: 16 decimals, as ingested, computed on doubles within a known error.
+ * Both convert the decimals once, as the materialized wallet valuation does, and don't allocate per asset.
+ * <br>
+ * Run with: mvn test -Pbenchmark -pl crypto-finance-service -am
+ * <br>
+ * Sizes can be changed with -Dbenchmark.assets and -Dbenchmark.iterations
+ */
+@Tag("benchmark")
+class WalletValuationBenchmarkTest {
+
+    private static final int ASSETS = Integer.getInteger("benchmark.assets", 100_000);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 30);
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final BigDecimal DEFAULT_BIG_DECIMAL = new BigDecimal(0);
+
+    @Test
+    void compareBigDecimalWithFixedPoint() {
+        Random random = new Random(42);
+        BigDecimal[] quantities = new BigDecimal[ASSETS];
+        BigDecimal[] initialPrices = new BigDecimal[ASSETS];
+        BigDecimal[] storedPrices = new BigDecimal[ASSETS];
+        BigDecimal[] upstreamPrices = new BigDecimal[ASSETS];
+        for (int i = 0; i < ASSETS; i++) {
+            quantities[i] = BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2);
+            initialPrices[i] = BigDecimal.valueOf(1 + random.nextInt(10_000_000), 2);
+            storedPrices[i] = BigDecimal.valueOf(1 + random.nextInt(10_000_000), 2);
+            upstreamPrices[i] = new BigDecimal(new BigInteger(64, random).add(BigInteger.ONE), 16);
+        }
+
+        Sample bigDecimalStored = measure(() -> bigDecimalValuation(storedPrices, quantities, initialPrices));
+        Sample fixedPointStored = measureFixedPoint(storedPrices, quantities, initialPrices);
+        Sample bigDecimalUpstream = measure(() -> bigDecimalValuation(upstreamPrices, quantities, initialPrices));
+        Sample fixedPointUpstream = measureFixedPoint(upstreamPrices, quantities, initialPrices);
+
+        System.out.printf("Assets: %d, iterations: %d%n", ASSETS, ITERATIONS);
+        System.out.printf("stored prices    bigdecimal %6.1f ns/asset, fixed point %6.1f ns/asset (x%.1f)%n",
+            bigDecimalStored.nanosPerAsset(), fixedPointStored.nanosPerAsset(), bigDecimalStored.nanosPerAsset() / fixedPointStored.nanosPerAsset());
+        System.out.printf("upstream prices  bigdecimal %6.1f ns/asset, fixed point %6.1f ns/asset (x%.1f)%n",
+            bigDecimalUpstream.nanosPerAsset(), fixedPointUpstream.nanosPerAsset(), bigDecimalUpstream.nanosPerAsset() / fixedPointUpstream.nanosPerAsset());
+
+        assertEquals(bigDecimalStored.result(), fixedPointStored.result());
+        assertEquals(bigDecimalUpstream.result(), fixedPointUpstream.result());
+    }
+
+    private static Sample measureFixedPoint(BigDecimal[] latestPrices, BigDecimal[] quantities, BigDecimal[] initialPrices) {
+        ScaledDecimal[] scaledLatestPrices = new ScaledDecimal[ASSETS];
+        ScaledDecimal[] scaledQuantities = new ScaledDecimal[ASSETS];
+        ScaledDecimal[] scaledInitialPrices = new ScaledDecimal[ASSETS];
+        for (int i = 0; i < ASSETS; i++) {
+            scaledLatestPrices[i] = ScaledDecimal.of(latestPrices[i]);
+            scaledQuantities[i] = ScaledDecimal.of(quantities[i]);
+            scaledInitialPrices[i] = ScaledDecimal.of(initialPrices[i]);
+        }
+        return measure(() -> fixedPointValuation(scaledLatestPrices, scaledQuantities, scaledInitialPrices));
+    }
+
+    private static Sample measure(Valuation valuation) {
+        String result = null;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            result = valuation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            result = valuation.run();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        return new Sample(elapsedNanos / (double) ITERATIONS / ASSETS, result);
+    }
+
+    private static String fixedPointValuation(ScaledDecimal[] latestPrices, ScaledDecimal[] quantities, ScaledDecimal[] initialPrices) {
+        long total = 0;
+        long best = Long.MIN_VALUE;
+        long worst = Long.MAX_VALUE;
+        for (int i = 0; i < latestPrices.length; i++) {
+            total = FixedPointValuation.addValue(total, latestPrices[i], quantities[i]);
+            long performance = FixedPointValuation.performance(latestPrices[i], initialPrices[i]);
+            best = Math.max(best, performance);
+            worst = Math.min(worst, performance);
+        }
+        return FixedPointValuation.toDecimal(total) + " " + FixedPointValuation.toDecimal(best) + " " + FixedPointValuation.toDecimal(worst);
+    }
+
+    /**
+     * Valuation arithmetic replaced by {@link FixedPointValuation}
+     */
+    private static String bigDecimalValuation(BigDecimal[] latestPrices, BigDecimal[] quantities, BigDecimal[] initialPrices) {
+        BigDecimal total = null;
+        BigDecimal best = null;
+        BigDecimal worst = null;
+        for (int i = 0; i < latestPrices.length; i++) {
+            total = Optional.ofNullable(total).orElse(DEFAULT_BIG_DECIMAL)
+                .add(latestPrices[i].multiply(quantities[i]))
+                .setScale(2, RoundingMode.HALF_UP);
+            BigDecimal performance = latestPrices[i].subtract(initialPrices[i])
+                .divide(initialPrices[i], 10, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+                .setScale(2, RoundingMode.HALF_UP);
+            if (best == null || performance.compareTo(best) > 0) {
+                best = performance;
+            }
+            if (worst == null || performance.compareTo(worst) < 0) {
+                worst = performance;
+            }
+        }
+        return total + " " + best + " " + worst;
+    }
+
+    @FunctionalInterface
+    private interface Valuation {
+        String run();
+    }
+
+    private record Sample(double nanosPerAsset, String result) {
+    }
+}
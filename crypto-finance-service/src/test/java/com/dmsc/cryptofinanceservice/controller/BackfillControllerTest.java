@@ -0,0 +1,44 @@
+package com.dmsc.cryptofinanceservice.controller;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import com.dmsc.cryptofinanceservice.model.rest.BackfillRequest;
+import com.dmsc.cryptofinanceservice.model.rest.BackfillResponse;
+import com.dmsc.cryptofinanceservice.service.BackfillService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BackfillControllerTest {
+
+    private BackfillService mockBackfillService;
+
+    private BackfillController classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        mockBackfillService = mock(BackfillService.class);
+        classUnderTest = new BackfillController(mockBackfillService);
+    }
+
+    @Test
+    void shouldStartBackfill() {
+        BackfillRequest request = new BackfillRequest(List.of("bitcoin"), IntervalValue.H1, Instant.parse("2024-01-01T00:00:00Z"), null);
+        BackfillResponse response = BackfillResponse.builder().windows(13).pendingWindows(13).build();
+        when(mockBackfillService.startBackfill(request)).thenReturn(ResponseEntity.status(HttpStatus.ACCEPTED).body(response));
+
+        ResponseEntity<BackfillResponse> result = classUnderTest.backfill(request);
+
+        assertEquals(HttpStatus.ACCEPTED, result.getStatusCode());
+        assertEquals(13, result.getBody().getWindows());
+        verify(mockBackfillService).startBackfill(request);
+    }
+}
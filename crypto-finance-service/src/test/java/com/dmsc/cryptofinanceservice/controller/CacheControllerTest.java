@@ -0,0 +1,57 @@
+package com.dmsc.cryptofinanceservice.controller;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheStatistics;
+import com.dmsc.cryptofinanceservice.service.AsOfPriceCachingService;
+import com.dmsc.cryptofinanceservice.service.CacheWarmupService;
+import com.dmsc.cryptofinanceservice.service.CryptoCachingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CacheControllerTest {
+
+    private AsOfPriceCachingService mockAsOfPriceCachingService;
+    private CryptoCachingService mockCryptoCachingService;
+    private CacheWarmupService mockCacheWarmupService;
+
+    private CacheController classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        mockAsOfPriceCachingService = mock(AsOfPriceCachingService.class);
+        mockCryptoCachingService = mock(CryptoCachingService.class);
+        mockCacheWarmupService = mock(CacheWarmupService.class);
+        classUnderTest = new CacheController(mockAsOfPriceCachingService, mockCryptoCachingService, mockCacheWarmupService);
+    }
+
+    @Test
+    void shouldReturnStatisticsOfCaches() {
+        CacheStatistics statistics = CacheStatistics.builder().name("as-of-price").size(1).maxSize(10).hits(2).build();
+        CacheStatistics assetStatistics = CacheStatistics.builder().name("asset").size(2).maxSize(10).misses(1).build();
+        when(mockAsOfPriceCachingService.getStatistics()).thenReturn(statistics);
+        when(mockCryptoCachingService.getStatistics()).thenReturn(assetStatistics);
+
+        ResponseEntity<List<CacheStatistics>> result = classUnderTest.getStatistics();
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(List.of(statistics, assetStatistics), result.getBody());
+    }
+
+    @Test
+    void shouldRefuseTrafficUntilWarmupCompletes() {
+        when(mockCacheWarmupService.getReadinessState()).thenReturn(ReadinessState.REFUSING_TRAFFIC);
+
+        ResponseEntity<ReadinessState> result = classUnderTest.getReadiness();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, result.getStatusCode());
+        assertEquals(ReadinessState.REFUSING_TRAFFIC, result.getBody());
+    }
+}
@@ -3,7 +3,11 @@ package com.dmsc.cryptofinanceservice.controller;
 import com.dmsc.cryptofinanceservice.model.rest.CreateWalletRequest;
 import com.dmsc.cryptofinanceservice.model.rest.CreateWalletResponse;
 import com.dmsc.cryptofinanceservice.model.rest.WalletItem;
+import com.dmsc.cryptofinanceservice.model.rest.WalletHistoryPointResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletImportResponse;
 import com.dmsc.cryptofinanceservice.model.rest.WalletResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletValuationResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletsValuationRequest;
 import com.dmsc.cryptofinanceservice.service.WalletAggregatorService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -12,7 +16,10 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
@@ -154,6 +161,25 @@ class WalletControllerTest {
         }
     }
 
+    @Nested
+    class ImportWallet {
+
+        @Test
+        void testImportWallet() {
+            ByteArrayInputStream body = new ByteArrayInputStream("BTC,0.12345,37870.5058\nETH,4.89532,2004.9774".getBytes());
+            Duration frequency = Duration.ofMinutes(15);
+            WalletImportResponse response = WalletImportResponse.builder().walletId(UUID.randomUUID()).importedAssets(2).build();
+
+            when(mockWalletAggregatorService.importWallet(body, frequency)).thenReturn(ResponseEntity.status(HttpStatus.CREATED).body(response));
+
+            ResponseEntity<WalletImportResponse> result = classUnderTest.importWallet(body, frequency);
+
+            assertEquals(HttpStatus.CREATED, result.getStatusCode());
+            assertEquals(response, result.getBody());
+            verify(mockWalletAggregatorService, times(1)).importWallet(body, frequency);
+        }
+    }
+
     @Nested
     class GetWalletInfo {
 
@@ -168,15 +194,15 @@ class WalletControllerTest {
             walletResponse.setWorstAsset("ETH");
             walletResponse.setWorstPerformance(BigDecimal.valueOf(-10));
 
-            when(mockWalletAggregatorService.fetchWalletInfo(walletId, Optional.of(date)))
-                .thenReturn(ResponseEntity.ok(walletResponse));
+            when(mockWalletAggregatorService.fetchWalletInfo(walletId, Optional.of(date), Optional.empty()))
+                .thenReturn(Mono.just(ResponseEntity.ok(walletResponse)));
 
-            ResponseEntity<WalletResponse> result = classUnderTest.getWalletInfo(walletId, date);
+            ResponseEntity<WalletResponse> result = classUnderTest.getWalletInfo(walletId, date, null).block();
 
             assertEquals(HttpStatus.OK, result.getStatusCode());
             assertEquals(BigDecimal.valueOf(1000), result.getBody().getTotal());  // Assuming the total balance is used for validation here
             assertEquals("BTC", result.getBody().getBestAsset());
-            verify(mockWalletAggregatorService, times(1)).fetchWalletInfo(walletId, Optional.of(date));
+            verify(mockWalletAggregatorService, times(1)).fetchWalletInfo(walletId, Optional.of(date), Optional.empty());
         }
 
         @Test
@@ -189,14 +215,73 @@ class WalletControllerTest {
             walletResponse.setWorstAsset("ETH");
             walletResponse.setWorstPerformance(BigDecimal.valueOf(-10));
 
-            when(mockWalletAggregatorService.fetchWalletInfo(walletId, Optional.empty()))
-                .thenReturn(ResponseEntity.ok(walletResponse));
+            when(mockWalletAggregatorService.fetchWalletInfo(walletId, Optional.empty(), Optional.empty()))
+                .thenReturn(Mono.just(ResponseEntity.ok(walletResponse)));
 
-            ResponseEntity<WalletResponse> result = classUnderTest.getWalletInfo(walletId, null);
+            ResponseEntity<WalletResponse> result = classUnderTest.getWalletInfo(walletId, null, null).block();
 
             assertEquals(HttpStatus.OK, result.getStatusCode());
             assertEquals("BTC", result.getBody().getBestAsset());
-            verify(mockWalletAggregatorService, times(1)).fetchWalletInfo(walletId, Optional.empty());
+            verify(mockWalletAggregatorService, times(1)).fetchWalletInfo(walletId, Optional.empty(), Optional.empty());
+        }
+    }
+
+    @Nested
+    class GetWalletInfoConditional {
+
+        @Test
+        void testGetWalletInfoNotModified() {
+            String walletId = "wallet1";
+            String eTag = "\"5f3a\"";
+
+            when(mockWalletAggregatorService.fetchWalletInfo(walletId, Optional.empty(), Optional.of(eTag)))
+                .thenReturn(Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build()));
+
+            ResponseEntity<WalletResponse> result = classUnderTest.getWalletInfo(walletId, null, eTag).block();
+
+            assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+            assertEquals(eTag, result.getHeaders().getETag());
+            verify(mockWalletAggregatorService, times(1)).fetchWalletInfo(walletId, Optional.empty(), Optional.of(eTag));
+        }
+    }
+
+    @Nested
+    class GetWalletsInfo {
+
+        @Test
+        void testGetWalletsInfo() {
+            Instant date = Instant.now();
+            WalletsValuationRequest request = new WalletsValuationRequest(List.of("wallet1", "wallet2"), date);
+            WalletValuationResponse first = WalletValuationResponse.builder().walletId("wallet1").wallet(new WalletResponse()).build();
+            WalletValuationResponse second = WalletValuationResponse.builder().walletId("wallet2").error("Wallet with id wallet2 not found").build();
+
+            when(mockWalletAggregatorService.fetchWalletsInfo(request.getWalletIds(), Optional.of(date)))
+                .thenReturn(Flux.just(first, second));
+
+            List<WalletValuationResponse> result = classUnderTest.getWalletsInfo(request).collectList().block();
+
+            assertEquals(List.of(first, second), result);
+            verify(mockWalletAggregatorService, times(1)).fetchWalletsInfo(request.getWalletIds(), Optional.of(date));
+        }
+    }
+
+    @Nested
+    class GetWalletHistory {
+
+        @Test
+        void testGetWalletHistory() {
+            String walletId = "wallet1";
+            Instant start = Instant.now();
+            Instant end = start.plus(Duration.ofHours(1));
+            Duration step = Duration.ofMinutes(5);
+            WalletHistoryPointResponse point = new WalletHistoryPointResponse(start, new WalletResponse());
+
+            when(mockWalletAggregatorService.fetchWalletHistory(walletId, start, end, step)).thenReturn(Flux.just(point));
+
+            List<WalletHistoryPointResponse> result = classUnderTest.getWalletHistory(walletId, start, end, step).collectList().block();
+
+            assertEquals(List.of(point), result);
+            verify(mockWalletAggregatorService, times(1)).fetchWalletHistory(walletId, start, end, step);
         }
     }
 
@@ -0,0 +1,128 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheStatistics;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.properties.CacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsOfPriceCachingServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-12-01T12:00:30Z");
+
+    private AsOfPriceCachingService classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        CacheProperties cacheProperties = new CacheProperties();
+        // Room for two entries
+        cacheProperties.setAsOfPriceMaxMemory(DataSize.ofBytes(2 * AsOfPriceCachingService.ENTRY_SIZE_BYTES));
+        classUnderTest = new AsOfPriceCachingService(cacheProperties, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static CryptoItemDto createCryptoItemDto(String id, BigDecimal price) {
+        return CryptoItemDto.builder().id(id).price(price).build();
+    }
+
+    private static CryptoItemDto createCryptoItemDto(String id, BigDecimal price, Instant timestamp) {
+        return CryptoItemDto.builder().id(id).price(price).timestamp(timestamp).build();
+    }
+
+    @Test
+    void shouldReturnPriceCachedForSameMinute() {
+        classUnderTest.putPrice("bitcoin", Instant.parse("2024-12-01T10:00:05Z"), createCryptoItemDto("bitcoin", BigDecimal.TEN));
+
+        assertEquals(BigDecimal.TEN, classUnderTest.getPrice("bitcoin", Instant.parse("2024-12-01T10:00:59Z")).orElseThrow().getPrice());
+        assertTrue(classUnderTest.getPrice("bitcoin", Instant.parse("2024-12-01T10:01:00Z")).isEmpty());
+        assertTrue(classUnderTest.getPrice("ethereum", Instant.parse("2024-12-01T10:00:05Z")).isEmpty());
+    }
+
+    @Test
+    void shouldNotCachePriceOfCurrentMinute() {
+        classUnderTest.putPrice("bitcoin", NOW, createCryptoItemDto("bitcoin", BigDecimal.TEN));
+        classUnderTest.putPrice("bitcoin", NOW.plusSeconds(3600), createCryptoItemDto("bitcoin", BigDecimal.TEN));
+
+        assertEquals(0, classUnderTest.getStatistics().getSize());
+    }
+
+    @Test
+    void shouldNotCachePriceAfterStartOfMinute() {
+        Instant date = Instant.parse("2024-12-01T10:00:40Z");
+        classUnderTest.putPrice("bitcoin", date, createCryptoItemDto("bitcoin", BigDecimal.TEN, Instant.parse("2024-12-01T10:00:20Z")));
+        classUnderTest.putPrice("ethereum", date, createCryptoItemDto("ethereum", BigDecimal.ONE, Instant.parse("2024-12-01T09:59:50Z")));
+
+        assertTrue(classUnderTest.getPrice("bitcoin", date).isEmpty());
+        assertTrue(classUnderTest.getPrice("ethereum", date).isPresent());
+    }
+
+    @Test
+    void shouldEvictPricesReplaceableByStoredRange() {
+        Instant before = Instant.parse("2024-12-01T09:59:00Z");
+        Instant after = Instant.parse("2024-12-01T10:10:00Z");
+        classUnderTest.putPrice("bitcoin", before, createCryptoItemDto("bitcoin", BigDecimal.ONE, Instant.parse("2024-12-01T09:58:00Z")));
+        classUnderTest.putPrice("bitcoin", after, createCryptoItemDto("bitcoin", BigDecimal.TEN, Instant.parse("2024-12-01T09:58:00Z")));
+
+        classUnderTest.evictPrices("bitcoin", Instant.parse("2024-12-01T10:00:00Z"), Instant.parse("2024-12-01T10:05:00Z"));
+
+        assertTrue(classUnderTest.getPrice("bitcoin", before).isPresent());
+        assertTrue(classUnderTest.getPrice("bitcoin", after).isEmpty());
+    }
+
+    @Test
+    void shouldOnlyEvictPricesOfTheAsset() {
+        Instant date = Instant.parse("2024-12-01T10:01:00Z");
+        classUnderTest.putPrice("bitcoin", date, createCryptoItemDto("bitcoin", BigDecimal.TEN, Instant.parse("2024-12-01T09:58:00Z")));
+        classUnderTest.putPrice("ethereum", date, createCryptoItemDto("ethereum", BigDecimal.ONE, Instant.parse("2024-12-01T09:58:00Z")));
+
+        classUnderTest.evictPrices("bitcoin", Instant.parse("2024-12-01T10:00:00Z"), Instant.parse("2024-12-01T10:05:00Z"));
+
+        assertTrue(classUnderTest.getPrice("bitcoin", date).isEmpty());
+        assertTrue(classUnderTest.getPrice("ethereum", date).isPresent());
+        assertEquals(1, classUnderTest.getStatistics().getSize());
+    }
+
+    @Test
+    void shouldEvictPricesCachedAgainAfterLeastRecentlyUsedEviction() {
+        Instant date = Instant.parse("2024-12-01T10:01:00Z");
+        classUnderTest.putPrice("bitcoin", date, createCryptoItemDto("bitcoin", BigDecimal.TEN));
+        classUnderTest.putPrice("ethereum", date, createCryptoItemDto("ethereum", BigDecimal.ONE));
+        classUnderTest.putPrice("solana", date, createCryptoItemDto("solana", BigDecimal.TWO));
+        classUnderTest.putPrice("bitcoin", date, createCryptoItemDto("bitcoin", BigDecimal.TEN));
+
+        classUnderTest.evictPrices("bitcoin", date, date.plusSeconds(60));
+        classUnderTest.evictPrices("ethereum", date, date.plusSeconds(60));
+
+        assertTrue(classUnderTest.getPrice("bitcoin", date).isEmpty());
+        assertTrue(classUnderTest.getPrice("solana", date).isPresent());
+        assertEquals(1, classUnderTest.getStatistics().getSize());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedPriceWhenFull() {
+        Instant date = Instant.parse("2024-12-01T10:00:00Z");
+        classUnderTest.putPrice("bitcoin", date, createCryptoItemDto("bitcoin", BigDecimal.TEN));
+        classUnderTest.putPrice("ethereum", date, createCryptoItemDto("ethereum", BigDecimal.ONE));
+        classUnderTest.getPrice("bitcoin", date);
+        classUnderTest.putPrice("solana", date, createCryptoItemDto("solana", BigDecimal.TWO));
+
+        assertTrue(classUnderTest.getPrice("bitcoin", date).isPresent());
+        assertTrue(classUnderTest.getPrice("ethereum", date).isEmpty());
+        assertTrue(classUnderTest.getPrice("solana", date).isPresent());
+
+        CacheStatistics statistics = classUnderTest.getStatistics();
+        assertEquals(2, statistics.getSize());
+        assertEquals(2, statistics.getMaxSize());
+        assertEquals(3, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+        assertEquals(1, statistics.getEvictions());
+    }
+}
@@ -0,0 +1,178 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.entity.AssetEntity;
+import com.dmsc.cryptofinanceservice.properties.CacheProperties;
+import com.dmsc.cryptofinanceservice.repository.AssetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AssetServiceTest {
+
+    private AssetRepository mockAssetRepository;
+    private CryptoCachingService cryptoCachingService;
+    private AssetSnapshotService mockAssetSnapshotService;
+
+    private AssetService classUnderTest;
+
+    private static AssetEntity getAssetEntity(Integer id, String externalId, String name, String symbol) {
+        AssetEntity assetEntity = new AssetEntity();
+        assetEntity.setId(id);
+        assetEntity.setExternalId(externalId);
+        assetEntity.setName(name);
+        assetEntity.setSymbol(symbol);
+        return assetEntity;
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockAssetRepository = mock(AssetRepository.class);
+        cryptoCachingService = new CryptoCachingService(new CacheProperties());
+        mockAssetSnapshotService = mock(AssetSnapshotService.class);
+        classUnderTest = new AssetService(mockAssetRepository, cryptoCachingService, mockAssetSnapshotService);
+    }
+
+    @Nested
+    class WarmUpCache {
+
+        @Test
+        void shouldPopulateCacheWithAllAssets() {
+            when(mockAssetRepository.findAll()).thenReturn(List.of(
+                getAssetEntity(1, "bitcoin", "Bitcoin", "BTC"),
+                getAssetEntity(2, "ethereum", "Ethereum", "ETH")));
+
+            classUnderTest.warmUpCache();
+
+            assertEquals("bitcoin", cryptoCachingService.getAssetDetails(1).map(CacheCryptoDetails::getExternalId).orElse(null));
+            assertEquals(2, cryptoCachingService.getAssetDetails("ethereum").map(CacheCryptoDetails::getAssetId).orElse(null));
+            verify(mockAssetSnapshotService).write(cryptoCachingService.getAllAssetDetails());
+        }
+
+        @Test
+        void shouldLoadAssetsFromSnapshotWithoutQueryingDatabase() {
+            when(mockAssetSnapshotService.read()).thenReturn(Optional.of(List.of(
+                CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").name("Bitcoin").symbol("BTC").build())));
+
+            int result = classUnderTest.warmUpCache();
+
+            assertEquals(1, result);
+            assertEquals(Optional.of("bitcoin"), classUnderTest.findExternalIdBySymbol("BTC"));
+            verify(mockAssetRepository, never()).findAll();
+            verify(mockAssetSnapshotService, never()).write(any());
+        }
+
+        @Test
+        void shouldNotWriteSnapshotBeforeWarmup() {
+            classUnderTest.writeSnapshot();
+
+            verify(mockAssetSnapshotService, never()).write(any());
+        }
+    }
+
+    @Nested
+    class FindAsset {
+
+        @Test
+        void shouldFallbackToRepositoryOnCacheMiss() {
+            when(mockAssetRepository.findById(3)).thenReturn(Optional.of(getAssetEntity(3, "solana", "Solana", "SOL")));
+
+            classUnderTest.findByAssetId(3);
+            Optional<CacheCryptoDetails> result = classUnderTest.findByAssetId(3);
+
+            assertTrue(result.isPresent());
+            assertEquals("solana", result.get().getExternalId());
+            verify(mockAssetRepository, times(1)).findById(3);
+        }
+
+        @Test
+        void shouldReturnEmptyForMissingExternalId() {
+            assertTrue(classUnderTest.findByExternalId(null).isEmpty());
+            verify(mockAssetRepository, never()).findByExternalId(any());
+        }
+
+        @Test
+        void shouldResolveExternalIdOfCachedSymbol() {
+            when(mockAssetRepository.findAll()).thenReturn(List.of(getAssetEntity(1, "bitcoin", "Bitcoin", "BTC")));
+            classUnderTest.warmUpCache();
+
+            assertEquals(Optional.of("bitcoin"), classUnderTest.findExternalIdBySymbol("BTC"));
+            assertTrue(classUnderTest.findExternalIdBySymbol("ETH").isEmpty());
+        }
+    }
+
+    @Nested
+    class GetOrCreateAsset {
+
+        @Test
+        void shouldCreateAssetOnlyOnce() {
+            when(mockAssetRepository.findByExternalId("bitcoin")).thenReturn(Optional.empty());
+            when(mockAssetRepository.save(any())).thenAnswer(invocation -> {
+                AssetEntity assetEntity = invocation.getArgument(0);
+                assetEntity.setId(1);
+                return assetEntity;
+            });
+
+            CacheCryptoDetails created = classUnderTest.getOrCreateAsset("bitcoin", "Bitcoin", "BTC");
+            CacheCryptoDetails existing = classUnderTest.getOrCreateAsset("bitcoin", "Bitcoin", "BTC");
+
+            assertEquals(1, created.getAssetId());
+            assertEquals(created, existing);
+            verify(mockAssetRepository, times(1)).save(any());
+        }
+
+        @Test
+        void shouldReturnCreatedAssetWithoutReadingItFromCache() {
+            when(mockAssetRepository.findByExternalId("bitcoin")).thenReturn(Optional.empty());
+            when(mockAssetRepository.save(any())).thenAnswer(invocation -> {
+                AssetEntity assetEntity = invocation.getArgument(0);
+                assetEntity.setId(1);
+                return assetEntity;
+            });
+
+            CacheCryptoDetails result = classUnderTest.getOrCreateAsset("bitcoin", "Bitcoin", "BTC");
+
+            assertEquals(1, result.getAssetId());
+            assertEquals(0, cryptoCachingService.getStatistics().getHits());
+            assertEquals(1, cryptoCachingService.getStatistics().getMisses());
+        }
+
+        @Test
+        void shouldFillMissingDetailsOfExistingAsset() {
+            AssetEntity assetEntity = getAssetEntity(1, "bitcoin", null, null);
+            when(mockAssetRepository.findByExternalId("bitcoin")).thenReturn(Optional.of(assetEntity));
+            when(mockAssetRepository.save(assetEntity)).thenReturn(assetEntity);
+
+            CacheCryptoDetails result = classUnderTest.getOrCreateAsset("bitcoin", "Bitcoin", "BTC");
+
+            assertEquals("Bitcoin", result.getName());
+            assertEquals("BTC", result.getSymbol());
+        }
+
+        @Test
+        void shouldReturnAssetCreatedConcurrently() {
+            when(mockAssetRepository.findByExternalId("bitcoin"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(getAssetEntity(4, "bitcoin", "Bitcoin", "BTC")));
+            when(mockAssetRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+            CacheCryptoDetails result = classUnderTest.getOrCreateAsset("bitcoin", "Bitcoin", "BTC");
+
+            assertEquals(4, result.getAssetId());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.properties.CacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssetSnapshotServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-12-01T10:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    private CacheProperties cacheProperties;
+
+    private AssetSnapshotService classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        cacheProperties = new CacheProperties();
+        cacheProperties.setAssetSnapshotFile(tempDir.resolve("snapshot").resolve("asset-cache.snapshot").toString());
+        classUnderTest = new AssetSnapshotService(cacheProperties, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void shouldReadWrittenAssets() {
+        List<CacheCryptoDetails> assets = List.of(
+            CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").name("Bitcoin").symbol("BTC").build(),
+            CacheCryptoDetails.builder().assetId(2).externalId("ethereum").build(),
+            CacheCryptoDetails.builder().assetId(3).externalId("zcash").name("Zcash ₿").symbol("ZEC").build()
+        );
+
+        classUnderTest.write(assets);
+
+        assertEquals(Optional.of(assets), classUnderTest.read());
+    }
+
+    @Test
+    void shouldIgnoreMissingSnapshot() {
+        assertTrue(classUnderTest.read().isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreSnapshotOlderThanMaxAge() {
+        classUnderTest.write(List.of(CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").build()));
+
+        classUnderTest = new AssetSnapshotService(cacheProperties, Clock.fixed(NOW.plus(Duration.ofDays(2)), ZoneOffset.UTC));
+
+        assertTrue(classUnderTest.read().isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreTruncatedSnapshot() throws IOException {
+        classUnderTest.write(List.of(CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").build()));
+        Path snapshotFile = Path.of(cacheProperties.getAssetSnapshotFile());
+        byte[] content = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(content, content.length - 3));
+
+        assertTrue(classUnderTest.read().isEmpty());
+    }
+}
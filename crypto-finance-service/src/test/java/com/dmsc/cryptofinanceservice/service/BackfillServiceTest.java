@@ -0,0 +1,259 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.entity.BackfillWindowEntity;
+import com.dmsc.cryptofinanceservice.model.rest.BackfillRequest;
+import com.dmsc.cryptofinanceservice.model.rest.BackfillResponse;
+import com.dmsc.cryptofinanceservice.properties.BackfillProperties;
+import com.dmsc.cryptofinanceservice.repository.BackfillWindowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BackfillServiceTest {
+
+    private BackfillWindowRepository mockBackfillWindowRepository;
+    private CryptoPriceBulkLoadService mockCryptoPriceBulkLoadService;
+    private AssetService mockAssetService;
+    private HistoryCoverageService mockHistoryCoverageService;
+    private AsOfPriceCachingService mockAsOfPriceCachingService;
+    private BackfillProperties backfillProperties;
+
+    private BackfillService classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        mockBackfillWindowRepository = mock(BackfillWindowRepository.class);
+        mockCryptoPriceBulkLoadService = mock(CryptoPriceBulkLoadService.class);
+        mockAssetService = mock(AssetService.class);
+        mockHistoryCoverageService = mock(HistoryCoverageService.class);
+        mockAsOfPriceCachingService = mock(AsOfPriceCachingService.class);
+        backfillProperties = new BackfillProperties();
+        backfillProperties.setRetryBackoff(Duration.ofMillis(1));
+        classUnderTest = new BackfillService(mockBackfillWindowRepository, mockCryptoPriceBulkLoadService, mockAssetService, mockHistoryCoverageService, mockAsOfPriceCachingService, backfillProperties);
+        when(mockBackfillWindowRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private static BackfillWindowEntity createWindow(Integer assetId, IntervalValue interval, Instant start, Instant end, BackfillWindowEntity.Status status) {
+        BackfillWindowEntity window = new BackfillWindowEntity();
+        window.setAssetId(assetId);
+        window.setIntervalValue(interval);
+        window.setWindowStart(start);
+        window.setWindowEnd(end);
+        window.setStatus(status);
+        return window;
+    }
+
+    @Nested
+    class SplitRange {
+
+        @Test
+        void shouldAlignWindowsToMaxSpan() {
+            Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+            List<BackfillWindowEntity> result = BackfillService.splitRange(IntervalValue.M1,
+                Instant.parse("2024-12-01T10:30:00Z"), Instant.parse("2024-12-03T05:00:00Z"), now);
+
+            assertEquals(3, result.size());
+            assertEquals(Instant.parse("2024-12-01T00:00:00Z"), result.get(0).getWindowStart());
+            assertEquals(Instant.parse("2024-12-02T00:00:00Z"), result.get(0).getWindowEnd());
+            assertEquals(Instant.parse("2024-12-03T00:00:00Z"), result.get(2).getWindowStart());
+            assertEquals(Instant.parse("2024-12-04T00:00:00Z"), result.get(2).getWindowEnd());
+            assertTrue(result.stream().allMatch(window -> window.getStatus() == BackfillWindowEntity.Status.PENDING));
+        }
+
+        @Test
+        void shouldCapWindowsAtNow() {
+            Instant now = Instant.parse("2024-12-02T12:00:00Z");
+
+            List<BackfillWindowEntity> result = BackfillService.splitRange(IntervalValue.M1,
+                Instant.parse("2024-12-01T00:00:00Z"), Instant.parse("2024-12-10T00:00:00Z"), now);
+
+            assertEquals(2, result.size());
+            assertEquals(now, result.get(1).getWindowEnd());
+        }
+    }
+
+    @Nested
+    class StartBackfill {
+
+        @Test
+        void shouldRejectRequestWithoutStart() {
+            ResponseEntity<BackfillResponse> result = classUnderTest.startBackfill(new BackfillRequest(List.of("bitcoin"), IntervalValue.H1, null, null));
+
+            assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+            verifyNoInteractions(mockBackfillWindowRepository, mockCryptoPriceBulkLoadService);
+        }
+
+        @Test
+        void shouldRejectRequestWithEndBeforeStart() {
+            Instant start = Instant.parse("2024-12-02T00:00:00Z");
+
+            ResponseEntity<BackfillResponse> result = classUnderTest.startBackfill(
+                new BackfillRequest(List.of("bitcoin"), IntervalValue.H1, start, start.minus(Duration.ofDays(1))));
+
+            assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+        }
+
+        @Test
+        void shouldPlanWindowsOfEachAsset() {
+            Instant start = Instant.parse("2024-12-01T00:00:00Z");
+            Instant end = Instant.parse("2024-12-03T00:00:00Z");
+            when(mockAssetService.getOrCreateAsset(eq("bitcoin"), isNull(), isNull()))
+                .thenReturn(CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").build());
+            when(mockAssetService.getOrCreateAsset(eq("ethereum"), isNull(), isNull()))
+                .thenReturn(CacheCryptoDetails.builder().assetId(2).externalId("ethereum").build());
+            when(mockAssetService.findByAssetId(any())).thenReturn(Optional.empty());
+
+            ResponseEntity<BackfillResponse> result = classUnderTest.startBackfill(
+                new BackfillRequest(List.of("bitcoin", "ethereum", "bitcoin"), null, start, end));
+
+            assertEquals(HttpStatus.ACCEPTED, result.getStatusCode());
+            assertEquals(4, result.getBody().getWindows());
+            assertEquals(4, result.getBody().getPendingWindows());
+        }
+    }
+
+    @Nested
+    class PlanWindows {
+
+        @Test
+        void shouldSkipCompletedWindows() {
+            Instant start = Instant.parse("2024-12-01T00:00:00Z");
+            Instant end = Instant.parse("2024-12-03T00:00:00Z");
+            when(mockAssetService.getOrCreateAsset(eq("bitcoin"), isNull(), isNull()))
+                .thenReturn(CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").build());
+            BackfillWindowEntity completed = createWindow(1, IntervalValue.M1, start, start.plus(Duration.ofDays(1)), BackfillWindowEntity.Status.COMPLETED);
+            BackfillWindowEntity failed = createWindow(1, IntervalValue.M1, start.plus(Duration.ofDays(1)), end, BackfillWindowEntity.Status.FAILED);
+            when(mockBackfillWindowRepository.findByAssetIdAndIntervalValueAndWindowStartIn(eq(1), eq(IntervalValue.M1), anyList()))
+                .thenReturn(List.of(completed, failed));
+
+            List<BackfillWindowEntity> result = classUnderTest.planWindows("bitcoin", BackfillService.splitRange(IntervalValue.M1, start, end, end));
+
+            assertEquals(List.of(failed), result);
+            assertEquals(BackfillWindowEntity.Status.PENDING, failed.getStatus());
+        }
+
+        @Test
+        void shouldReloadCompletedWindowCappedBeforeItsEnd() {
+            Instant start = Instant.parse("2024-12-01T00:00:00Z");
+            Instant end = start.plus(Duration.ofDays(1));
+            when(mockAssetService.getOrCreateAsset(eq("bitcoin"), isNull(), isNull()))
+                .thenReturn(CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").build());
+            BackfillWindowEntity partial = createWindow(1, IntervalValue.M1, start, start.plus(Duration.ofHours(6)), BackfillWindowEntity.Status.COMPLETED);
+            when(mockBackfillWindowRepository.findByAssetIdAndIntervalValueAndWindowStartIn(eq(1), eq(IntervalValue.M1), anyList()))
+                .thenReturn(List.of(partial));
+
+            List<BackfillWindowEntity> result = classUnderTest.planWindows("bitcoin", BackfillService.splitRange(IntervalValue.M1, start, end, end));
+
+            assertEquals(List.of(partial), result);
+            assertEquals(end, partial.getWindowEnd());
+            assertEquals(BackfillWindowEntity.Status.PENDING, partial.getStatus());
+        }
+
+        @Test
+        void shouldSkipWindowsRunningOnThisInstance() {
+            Instant start = Instant.parse("2024-12-01T00:00:00Z");
+            Instant end = start.plus(Duration.ofDays(1));
+            when(mockAssetService.getOrCreateAsset(eq("bitcoin"), isNull(), isNull()))
+                .thenReturn(CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").build());
+            when(mockAssetService.findByAssetId(1)).thenReturn(Optional.of(CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").build()));
+            BackfillWindowEntity running = createWindow(1, IntervalValue.M1, start, end, BackfillWindowEntity.Status.PENDING);
+            running.setId(7L);
+            when(mockBackfillWindowRepository.findByAssetIdAndIntervalValueAndWindowStartIn(eq(1), eq(IntervalValue.M1), anyList()))
+                .thenReturn(List.of(running));
+            Sinks.One<Long> loaded = Sinks.one();
+            when(mockCryptoPriceBulkLoadService.loadHistory("bitcoin", IntervalValue.M1, start, end)).thenReturn(loaded.asMono());
+            CompletableFuture<Long> firstRun = classUnderTest.runWindows(List.of(running)).toFuture();
+
+            List<BackfillWindowEntity> result = classUnderTest.planWindows("bitcoin", BackfillService.splitRange(IntervalValue.M1, start, end, end));
+            Long secondRun = classUnderTest.runWindows(List.of(running)).block();
+            loaded.tryEmitValue(1440L);
+
+            assertTrue(result.isEmpty());
+            assertEquals(0L, secondRun);
+            assertEquals(1440L, firstRun.join());
+            verify(mockCryptoPriceBulkLoadService, times(1)).loadHistory(any(), any(), any(), any());
+            assertEquals(1440L, classUnderTest.runWindows(List.of(running)).block());
+        }
+    }
+
+    @Nested
+    class RunWindows {
+
+        @Test
+        void shouldCompleteWindowAfterRetry() {
+            Instant start = Instant.parse("2024-12-01T00:00:00Z");
+            BackfillWindowEntity window = createWindow(1, IntervalValue.M1, start, start.plus(Duration.ofDays(1)), BackfillWindowEntity.Status.PENDING);
+            when(mockAssetService.findByAssetId(1)).thenReturn(Optional.of(CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").build()));
+            AtomicInteger calls = new AtomicInteger();
+            when(mockCryptoPriceBulkLoadService.loadHistory("bitcoin", IntervalValue.M1, window.getWindowStart(), window.getWindowEnd()))
+                .thenReturn(Mono.defer(() -> calls.incrementAndGet() == 1 ? Mono.error(new IllegalStateException("429")) : Mono.just(1440L)));
+
+            Long result = classUnderTest.runWindows(List.of(window)).block();
+
+            assertEquals(1440L, result);
+            assertEquals(2, calls.get());
+            assertEquals(BackfillWindowEntity.Status.COMPLETED, window.getStatus());
+            assertEquals(1440L, window.getLoadedPrices());
+            verify(mockBackfillWindowRepository).save(window);
+            verify(mockHistoryCoverageService).addCoverage(1, IntervalValue.M1, window.getWindowStart(), window.getWindowEnd());
+            verify(mockAsOfPriceCachingService).evictPrices("bitcoin", window.getWindowStart(), window.getWindowEnd());
+        }
+
+        @Test
+        void shouldMarkWindowAsFailedAfterRetries() {
+            Instant start = Instant.parse("2024-12-01T00:00:00Z");
+            BackfillWindowEntity window = createWindow(1, IntervalValue.M1, start, start.plus(Duration.ofDays(1)), BackfillWindowEntity.Status.PENDING);
+            when(mockAssetService.findByAssetId(1)).thenReturn(Optional.of(CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").build()));
+            when(mockCryptoPriceBulkLoadService.loadHistory(any(), any(), any(), any())).thenReturn(Mono.error(new IllegalStateException("503")));
+
+            Long result = classUnderTest.runWindows(List.of(window)).block();
+
+            assertEquals(0L, result);
+            assertEquals(BackfillWindowEntity.Status.FAILED, window.getStatus());
+            assertEquals(1, window.getAttempts());
+            verify(mockHistoryCoverageService, never()).addCoverage(any(), any(), any(), any());
+            verify(mockAsOfPriceCachingService, never()).evictPrices(any(), any(), any());
+        }
+    }
+
+    @Nested
+    class ResumeBackfills {
+
+        @Test
+        void shouldNotResumeWhenDisabled() {
+            backfillProperties.setResumeOnStartup(false);
+            classUnderTest = new BackfillService(mockBackfillWindowRepository, mockCryptoPriceBulkLoadService, mockAssetService, mockHistoryCoverageService, mockAsOfPriceCachingService, backfillProperties);
+
+            classUnderTest.resumeBackfills();
+
+            verify(mockBackfillWindowRepository, never()).findByStatusNot(any());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.entity.CryptoPriceEntity;
+import com.dmsc.cryptofinanceservice.repository.CryptoPriceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CacheWarmupServiceTest {
+
+    private AssetService mockAssetService;
+    private CryptoPriceService mockCryptoPriceService;
+    private CryptoPriceRepository mockCryptoPriceRepository;
+    private HistoryCoverageService mockHistoryCoverageService;
+    private ApplicationAvailability mockApplicationAvailability;
+
+    private CacheWarmupService classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        mockAssetService = mock(AssetService.class);
+        mockCryptoPriceService = mock(CryptoPriceService.class);
+        mockCryptoPriceRepository = mock(CryptoPriceRepository.class);
+        mockHistoryCoverageService = mock(HistoryCoverageService.class);
+        mockApplicationAvailability = mock(ApplicationAvailability.class);
+        when(mockApplicationAvailability.getReadinessState()).thenReturn(ReadinessState.ACCEPTING_TRAFFIC);
+        classUnderTest = new CacheWarmupService(mockAssetService, mockCryptoPriceService, mockCryptoPriceRepository,
+            mockHistoryCoverageService, mockApplicationAvailability);
+    }
+
+    @Test
+    void shouldRefuseTrafficUntilWarmupCompletes() {
+        assertEquals(ReadinessState.REFUSING_TRAFFIC, classUnderTest.getReadinessState());
+    }
+
+    @Test
+    void shouldPopulateLatestPricesAndAcceptTraffic() {
+        List<CryptoPriceEntity> latestPrices = List.of(new CryptoPriceEntity());
+        when(mockAssetService.warmUpCache()).thenReturn(1);
+        when(mockCryptoPriceRepository.findLatestPrices()).thenReturn(latestPrices);
+
+        classUnderTest.warmUp().block();
+
+        verify(mockCryptoPriceService).populateLatestPriceCache(latestPrices);
+        verify(mockHistoryCoverageService).warmUpCoverage();
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, classUnderTest.getReadinessState());
+    }
+
+    @Test
+    void shouldAcceptTrafficWhenWarmupFails() {
+        when(mockAssetService.warmUpCache()).thenThrow(new IllegalStateException("connection refused"));
+
+        classUnderTest.warmUp().block();
+
+        verify(mockCryptoPriceService, never()).populateLatestPriceCache(any());
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, classUnderTest.getReadinessState());
+    }
+
+    @Test
+    void shouldFollowApplicationReadinessOnceWarmedUp() {
+        when(mockCryptoPriceRepository.findLatestPrices()).thenReturn(List.of());
+        when(mockApplicationAvailability.getReadinessState()).thenReturn(ReadinessState.REFUSING_TRAFFIC);
+
+        classUnderTest.warmUp().block();
+
+        assertEquals(ReadinessState.REFUSING_TRAFFIC, classUnderTest.getReadinessState());
+    }
+}
@@ -1,6 +1,8 @@
 package com.dmsc.cryptofinanceservice.service;
 
 import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.cache.CacheStatistics;
+import com.dmsc.cryptofinanceservice.properties.CacheProperties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -8,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CryptoCachingServiceTest {
@@ -16,7 +19,7 @@ public class CryptoCachingServiceTest {
 
     @BeforeEach
     void setUp() {
-        cryptoCachingService = new CryptoCachingService();
+        cryptoCachingService = new CryptoCachingService(new CacheProperties());
     }
 
     @Nested
@@ -28,7 +31,7 @@ public class CryptoCachingServiceTest {
             String name = "Bitcoin";
             String symbol = "BTC";
 
-            cryptoCachingService.addToCache(id, name, symbol);
+            cryptoCachingService.addToCache(1, id, name, symbol);
 
             Optional<CacheCryptoDetails> result = cryptoCachingService.getAssetDetails(id);
             assertTrue(result.isPresent());
@@ -36,45 +39,58 @@ public class CryptoCachingServiceTest {
             assertEquals(symbol, result.get().getSymbol());
         }
 
+        @Test
+        void shouldReturnCachedDetails() {
+            CacheCryptoDetails result = cryptoCachingService.addToCache(1, "bitcoin", "Bitcoin", "BTC");
+
+            assertEquals(CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").name("Bitcoin").symbol("BTC").build(), result);
+            assertEquals(0, cryptoCachingService.getStatistics().getHits());
+        }
+
         @Test
         void shouldNotAddToCacheWhenIdIsInvalid() {
             String id = "";
             String name = "Bitcoin";
             String symbol = "BTC";
 
-            cryptoCachingService.addToCache(id, name, symbol);
+            cryptoCachingService.addToCache(1, id, name, symbol);
 
             Optional<CacheCryptoDetails> result = cryptoCachingService.getAssetDetails(id);
             assertTrue(result.isEmpty());
         }
 
         @Test
-        void shouldNotAddToCacheWhenNameOrSymbolIsInvalid() {
+        void shouldNotAddToCacheWhenAssetIdIsMissing() {
             String id = "123";
-            String name = "";
-            String symbol = "BTC";
 
-            cryptoCachingService.addToCache(id, name, symbol);
+            cryptoCachingService.addToCache(null, id, "Bitcoin", "BTC");
 
             Optional<CacheCryptoDetails> result = cryptoCachingService.getAssetDetails(id);
             assertTrue(result.isEmpty());
         }
 
         @Test
-        void shouldNotOverwriteExistingCacheEntry() {
+        void shouldAddToCacheWithoutNameAndSymbol() {
             String id = "123";
-            String name1 = "Bitcoin";
-            String symbol1 = "BTC";
-            String name2 = "Ethereum";
-            String symbol2 = "ETH";
 
-            cryptoCachingService.addToCache(id, name1, symbol1);
-            cryptoCachingService.addToCache(id, name2, symbol2);
+            cryptoCachingService.addToCache(1, id, null, null);
 
             Optional<CacheCryptoDetails> result = cryptoCachingService.getAssetDetails(id);
             assertTrue(result.isPresent());
-            assertEquals(name1, result.get().getName());
-            assertEquals(symbol1, result.get().getSymbol());
+            assertEquals(1, result.get().getAssetId());
+        }
+
+        @Test
+        void shouldReplaceExistingCacheEntry() {
+            String id = "123";
+
+            cryptoCachingService.addToCache(1, id, null, null);
+            cryptoCachingService.addToCache(1, id, "Bitcoin", "BTC");
+
+            Optional<CacheCryptoDetails> result = cryptoCachingService.getAssetDetails(1);
+            assertTrue(result.isPresent());
+            assertEquals("Bitcoin", result.get().getName());
+            assertEquals("BTC", result.get().getSymbol());
         }
     }
 
@@ -95,13 +111,134 @@ public class CryptoCachingServiceTest {
             String name = "Bitcoin";
             String symbol = "BTC";
 
-            cryptoCachingService.addToCache(id, name, symbol);
+            cryptoCachingService.addToCache(1, id, name, symbol);
 
             Optional<CacheCryptoDetails> result = cryptoCachingService.getAssetDetails(id);
             assertTrue(result.isPresent());
             assertEquals(name, result.get().getName());
             assertEquals(symbol, result.get().getSymbol());
         }
+
+        @Test
+        void shouldReturnCachedDetailsByAssetId() {
+            cryptoCachingService.addToCache(7, "bitcoin", "Bitcoin", "BTC");
+
+            Optional<CacheCryptoDetails> result = cryptoCachingService.getAssetDetails(7);
+            assertTrue(result.isPresent());
+            assertEquals("bitcoin", result.get().getExternalId());
+        }
     }
-}
 
+    @Nested
+    class GetExternalIdBySymbol {
+
+        @Test
+        void shouldResolveSymbolIgnoringCase() {
+            cryptoCachingService.addToCache(1, "bitcoin", "Bitcoin", "BTC");
+
+            assertEquals(Optional.of("bitcoin"), cryptoCachingService.getExternalIdBySymbol("btc"));
+        }
+
+        @Test
+        void shouldResolveSharedSymbolToLowestAssetId() {
+            cryptoCachingService.addToCache(2, "bitcoin-token", "Bitcoin Token", "BTC");
+            cryptoCachingService.addToCache(3, "bitcoin-wrapped", "Wrapped Bitcoin", "BTC");
+            cryptoCachingService.addToCache(1, "bitcoin", "Bitcoin", "BTC");
+
+            assertEquals(Optional.of("bitcoin"), cryptoCachingService.getExternalIdBySymbol("BTC"));
+        }
+
+        @Test
+        void shouldHandSymbolOverToNextAssetIdWhenHolderChangesSymbol() {
+            cryptoCachingService.addToCache(3, "bitcoin-wrapped", "Wrapped Bitcoin", "BTC");
+            cryptoCachingService.addToCache(1, "bitcoin", "Bitcoin", "BTC");
+            cryptoCachingService.addToCache(2, "bitcoin-token", "Bitcoin Token", "BTC");
+
+            cryptoCachingService.addToCache(1, "bitcoin", "Bitcoin", "XBT");
+
+            assertEquals(Optional.of("bitcoin-token"), cryptoCachingService.getExternalIdBySymbol("BTC"));
+            assertEquals(Optional.of("bitcoin"), cryptoCachingService.getExternalIdBySymbol("XBT"));
+        }
+
+        @Test
+        void shouldIndexSymbolFilledLater() {
+            cryptoCachingService.addToCache(1, "bitcoin", null, null);
+            cryptoCachingService.addToCache(1, "bitcoin", "Bitcoin", "BTC");
+
+            assertEquals(Optional.of("bitcoin"), cryptoCachingService.getExternalIdBySymbol("BTC"));
+        }
+    }
+
+    @Nested
+    class Eviction {
+
+        @BeforeEach
+        void setUp() {
+            CacheProperties cacheProperties = new CacheProperties();
+            cacheProperties.setAssetMaxEntries(2);
+            cryptoCachingService = new CryptoCachingService(cacheProperties);
+        }
+
+        @Test
+        void shouldEvictEntryNotReferencedSinceLastSweep() {
+            cryptoCachingService.addToCache(1, "bitcoin", "Bitcoin", "BTC");
+            cryptoCachingService.addToCache(2, "ethereum", "Ethereum", "ETH");
+            cryptoCachingService.getAssetDetails(1);
+
+            cryptoCachingService.addToCache(3, "solana", "Solana", "SOL");
+
+            assertTrue(cryptoCachingService.getAssetDetails(1).isPresent());
+            assertTrue(cryptoCachingService.getAssetDetails(2).isEmpty());
+            assertTrue(cryptoCachingService.getAssetDetails("ethereum").isEmpty());
+            assertTrue(cryptoCachingService.getExternalIdBySymbol("ETH").isEmpty());
+            assertTrue(cryptoCachingService.getAssetDetails("solana").isPresent());
+        }
+
+        @Test
+        void shouldHandSymbolOverWhenHolderIsEvicted() {
+            cryptoCachingService.addToCache(1, "bitcoin", "Bitcoin", "BTC");
+            cryptoCachingService.addToCache(2, "bitcoin-token", "Bitcoin Token", "BTC");
+            cryptoCachingService.getAssetDetails(2);
+
+            cryptoCachingService.addToCache(3, "solana", "Solana", "SOL");
+
+            assertTrue(cryptoCachingService.getAssetDetails(1).isEmpty());
+            assertEquals(Optional.of("bitcoin-token"), cryptoCachingService.getExternalIdBySymbol("BTC"));
+        }
+
+        @Test
+        void shouldNotEvictWhenReplacingEntry() {
+            cryptoCachingService.addToCache(1, "bitcoin", null, null);
+            cryptoCachingService.addToCache(2, "ethereum", null, null);
+            cryptoCachingService.addToCache(1, "bitcoin", "Bitcoin", "BTC");
+
+            assertTrue(cryptoCachingService.getAssetDetails(2).isPresent());
+            assertEquals(0, cryptoCachingService.getStatistics().getEvictions());
+        }
+
+        @Test
+        void shouldCountHitsMissesAndEvictions() {
+            cryptoCachingService.addToCache(1, "bitcoin", "Bitcoin", "BTC");
+            cryptoCachingService.addToCache(2, "ethereum", "Ethereum", "ETH");
+            cryptoCachingService.addToCache(3, "solana", "Solana", "SOL");
+            cryptoCachingService.getAssetDetails("solana");
+            cryptoCachingService.getAssetDetails("bitcoin");
+
+            CacheStatistics result = cryptoCachingService.getStatistics();
+
+            assertEquals(2, result.getSize());
+            assertEquals(2, result.getMaxSize());
+            assertEquals(1, result.getHits());
+            assertEquals(1, result.getMisses());
+            assertEquals(1, result.getEvictions());
+        }
+    }
+
+    @Test
+    void shouldIndexAssetIdsAboveDenseRange() {
+        cryptoCachingService.addToCache(CryptoCachingService.MAX_DENSE_ASSET_ID + 1, "bitcoin", "Bitcoin", "BTC");
+
+        assertTrue(cryptoCachingService.getAssetDetails(CryptoCachingService.MAX_DENSE_ASSET_ID + 1).isPresent());
+        assertFalse(cryptoCachingService.getAssetDetails(1).isPresent());
+    }
+}
@@ -0,0 +1,136 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import com.dmsc.coincapjavasdk.model.response.PriceData;
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CryptoPriceBulkLoadServiceTest {
+
+    private JdbcTemplate mockJdbcTemplate;
+    private TransactionTemplate mockTransactionTemplate;
+    private CryptoPricePartitionService mockCryptoPricePartitionService;
+    private AssetService mockAssetService;
+    private CryptoProvider mockCryptoProvider;
+
+    private CryptoPriceBulkLoadService classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        mockJdbcTemplate = mock(JdbcTemplate.class);
+        mockTransactionTemplate = mock(TransactionTemplate.class);
+        mockCryptoPricePartitionService = mock(CryptoPricePartitionService.class);
+        mockAssetService = mock(AssetService.class);
+        mockCryptoProvider = mock(CryptoProvider.class);
+        classUnderTest = new CryptoPriceBulkLoadService(mockJdbcTemplate, mockTransactionTemplate,
+            mockCryptoPricePartitionService, mockAssetService, mockCryptoProvider);
+    }
+
+    @Nested
+    class LoadHistory {
+
+        @Test
+        void shouldCopyFetchedHistoryOfAsset() {
+            Instant start = Instant.parse("2024-01-01T00:00:00Z");
+            Instant end = Instant.parse("2024-02-01T00:00:00Z");
+            when(mockCryptoProvider.getAssetHistory("bitcoin", IntervalValue.H1, start, end))
+                .thenReturn(Flux.just(new PriceData("42000.10", start.toEpochMilli()), new PriceData("43000.20", end.toEpochMilli())));
+            when(mockAssetService.getOrCreateAsset(eq("bitcoin"), isNull(), isNull()))
+                .thenReturn(CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").build());
+            when(mockTransactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Long>>getArgument(0).doInTransaction(null));
+            when(mockJdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Long>>any())).thenReturn(2L);
+
+            Long result = classUnderTest.loadHistory("bitcoin", IntervalValue.H1, start, end).block();
+
+            assertEquals(2L, result);
+            verify(mockCryptoPricePartitionService).ensurePartitions(start, end);
+        }
+
+        @Test
+        void shouldSkipEmptyHistory() {
+            when(mockCryptoProvider.getAssetHistory(any(), any(), any(), any())).thenReturn(Flux.empty());
+
+            Long result = classUnderTest.loadHistory("bitcoin", IntervalValue.M1, Instant.EPOCH, Instant.EPOCH).block();
+
+            assertEquals(0L, result);
+            verifyNoInteractions(mockAssetService, mockTransactionTemplate, mockJdbcTemplate);
+        }
+    }
+
+    @Nested
+    class BinaryCopyFormat {
+
+        @Test
+        void shouldWriteRowWithLengthPrefixedFields() {
+            byte[] price = CryptoPriceBulkLoadService.toNumeric(new BigDecimal("42000.10"));
+            ByteBuffer buffer = ByteBuffer.allocate(CryptoPriceBulkLoadService.getRowSize(price));
+
+            CryptoPriceBulkLoadService.writeRow(buffer, 51L, 7, price, Instant.parse("2000-01-01T00:00:01Z").toEpochMilli());
+
+            assertEquals(0, buffer.remaining());
+            buffer.flip();
+            assertEquals(4, buffer.getShort());
+            assertEquals(8, buffer.getInt());
+            assertEquals(51L, buffer.getLong());
+            assertEquals(4, buffer.getInt());
+            assertEquals(7, buffer.getInt());
+            assertEquals(price.length, buffer.getInt());
+            byte[] writtenPrice = new byte[price.length];
+            buffer.get(writtenPrice);
+            assertArrayEquals(price, writtenPrice);
+            assertEquals(8, buffer.getInt());
+            // One second after the Postgres epoch, in microseconds
+            assertEquals(1_000_000L, buffer.getLong());
+        }
+
+        @Test
+        void shouldWriteMissingPriceAsNull() {
+            ByteBuffer buffer = ByteBuffer.allocate(CryptoPriceBulkLoadService.getRowSize(null));
+
+            CryptoPriceBulkLoadService.writeRow(buffer, 1L, 1, null, 0L);
+
+            assertEquals(-1, buffer.getInt(Short.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES));
+        }
+
+        @Test
+        void shouldEncodeNumericInBase10000Digits() {
+            // ndigits, weight, sign, dscale, digits
+            assertArrayEquals(getNumeric(3, 1, 0x0000, 2, 4, 2000, 1000), CryptoPriceBulkLoadService.toNumeric(new BigDecimal("42000.10")));
+            assertArrayEquals(getNumeric(1, -1, 0x0000, 8, 12), CryptoPriceBulkLoadService.toNumeric(new BigDecimal("0.00120000")));
+            assertArrayEquals(getNumeric(1, 1, 0x4000, 0, 1), CryptoPriceBulkLoadService.toNumeric(new BigDecimal("-10000")));
+            assertArrayEquals(getNumeric(0, 0, 0x0000, 2), CryptoPriceBulkLoadService.toNumeric(new BigDecimal("0.00")));
+            assertArrayEquals(getNumeric(1, 0, 0x0000, 0, 1200), CryptoPriceBulkLoadService.toNumeric(new BigDecimal("1.2E+3")));
+        }
+
+        private static byte[] getNumeric(int... values) {
+            ByteBuffer buffer = ByteBuffer.allocate(values.length * Short.BYTES);
+            for (int value : values) {
+                buffer.putShort((short) value);
+            }
+            return buffer.array();
+        }
+    }
+}
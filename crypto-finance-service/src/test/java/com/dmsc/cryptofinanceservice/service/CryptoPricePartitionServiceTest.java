@@ -0,0 +1,90 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.properties.CryptoPricePartitionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CryptoPricePartitionServiceTest {
+
+    private JdbcTemplate mockJdbcTemplate;
+    private TaskScheduler mockTaskScheduler;
+    private CryptoPricePartitionProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        mockJdbcTemplate = mock(JdbcTemplate.class);
+        mockTaskScheduler = mock(TaskScheduler.class);
+        properties = new CryptoPricePartitionProperties();
+        properties.setMonthsAhead(2);
+    }
+
+    private CryptoPricePartitionService getClassUnderTest() {
+        CryptoPricePartitionService classUnderTest = new CryptoPricePartitionService(mockJdbcTemplate, properties);
+        classUnderTest.setTaskScheduler(mockTaskScheduler);
+        return classUnderTest;
+    }
+
+    @Test
+    void shouldCreateCurrentAndNextMonthsPartitions() {
+        getClassUnderTest().ensurePartitions(LocalDate.of(2024, 12, 15));
+
+        verify(mockJdbcTemplate).queryForObject(anyString(), eq(Object.class), eq(LocalDate.of(2024, 12, 1)));
+        verify(mockJdbcTemplate).queryForObject(anyString(), eq(Object.class), eq(LocalDate.of(2025, 1, 1)));
+        verify(mockJdbcTemplate).queryForObject(anyString(), eq(Object.class), eq(LocalDate.of(2025, 2, 1)));
+        verify(mockJdbcTemplate, times(3)).queryForObject(anyString(), eq(Object.class), any(Object[].class));
+    }
+
+    @Test
+    void shouldKeepCreatingPartitionsWhenOneFails() {
+        when(mockJdbcTemplate.queryForObject(anyString(), eq(Object.class), eq(LocalDate.of(2024, 12, 1))))
+            .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        getClassUnderTest().ensurePartitions(LocalDate.of(2024, 12, 15));
+
+        verify(mockJdbcTemplate).queryForObject(anyString(), eq(Object.class), eq(LocalDate.of(2025, 2, 1)));
+    }
+
+    @Test
+    void shouldCreatePartitionsOfEveryMonthInRange() {
+        getClassUnderTest().ensurePartitions(Instant.parse("2023-11-30T23:59:00Z"), Instant.parse("2024-01-01T00:00:00Z"));
+
+        verify(mockJdbcTemplate).queryForObject(anyString(), eq(Object.class), eq(LocalDate.of(2023, 11, 1)));
+        verify(mockJdbcTemplate).queryForObject(anyString(), eq(Object.class), eq(LocalDate.of(2023, 12, 1)));
+        verify(mockJdbcTemplate).queryForObject(anyString(), eq(Object.class), eq(LocalDate.of(2024, 1, 1)));
+        verify(mockJdbcTemplate, times(3)).queryForObject(anyString(), eq(Object.class), any(Object[].class));
+    }
+
+    @Test
+    void shouldScheduleMaintenanceOnStartup() {
+        properties.setCheckInterval(Duration.ofHours(1));
+
+        getClassUnderTest().schedulePartitionMaintenance();
+
+        verify(mockTaskScheduler).scheduleAtFixedRate(any(Runnable.class), eq(Duration.ofHours(1)));
+    }
+
+    @Test
+    void shouldNotScheduleMaintenanceWhenDisabled() {
+        properties.setEnabled(false);
+
+        getClassUnderTest().schedulePartitionMaintenance();
+
+        verifyNoInteractions(mockTaskScheduler);
+    }
+}
@@ -1,27 +1,52 @@
 package com.dmsc.cryptofinanceservice.service;
 
+import com.dmsc.coincapjavasdk.model.IntervalValue;
 import com.dmsc.cryptofinanceservice.exception.AssetDataNotFound;
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoHistoryDto;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoHistoryItemDto;
+import com.dmsc.cryptofinanceservice.model.dto.AssetPriceHistoryDto;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
 import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
+import com.dmsc.cryptofinanceservice.model.entity.AssetEntity;
 import com.dmsc.cryptofinanceservice.model.entity.CryptoPriceEntity;
+import com.dmsc.cryptofinanceservice.properties.CacheProperties;
 import com.dmsc.cryptofinanceservice.properties.WalletRequestProperties;
+import com.dmsc.cryptofinanceservice.repository.AssetRepository;
 import com.dmsc.cryptofinanceservice.repository.CryptoPriceRepository;
+import com.dmsc.cryptofinanceservice.repository.HistoryCoverageRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -32,9 +57,13 @@ import static org.mockito.Mockito.when;
 class CryptoPriceServiceTest {
 
     private WalletAssetService mockWalletAssetService;
+    private SymbolResolutionService mockSymbolResolutionService;
     private CryptoPriceRepository mockCryptoPriceRepository;
     private CryptoProvider mockCryptoProvider;
-    private CryptoCachingService mockCryptoCachingService;
+    private AssetService assetService;
+    private LatestPriceCachingService latestPriceCachingService;
+    private AsOfPriceCachingService asOfPriceCachingService;
+    private HistoryCoverageService historyCoverageService;
 
     private CryptoPriceService cryptoPriceService;
 
@@ -47,12 +76,10 @@ class CryptoPriceServiceTest {
         return dto;
     }
 
-    public static CryptoPriceEntity createCryptoPriceEntity(Long id, String externalId, String name, String symbol, BigDecimal price, Instant time) {
+    private CryptoPriceEntity createCryptoPriceEntity(Long id, String externalId, String name, String symbol, BigDecimal price, Instant time) {
         CryptoPriceEntity entity = new CryptoPriceEntity();
         entity.setId(id);
-        entity.setExternalId(externalId);
-        entity.setName(name);
-        entity.setSymbol(symbol);
+        entity.setAssetId(assetService.getOrCreateAsset(externalId, name, symbol).getAssetId());
         entity.setPrice(price);
         entity.setTime(time);
         return entity;
@@ -61,79 +88,369 @@ class CryptoPriceServiceTest {
     @BeforeEach
     void setUp() {
         mockWalletAssetService = mock(WalletAssetService.class);
+        mockSymbolResolutionService = mock(SymbolResolutionService.class);
         mockCryptoPriceRepository = mock(CryptoPriceRepository.class);
         mockCryptoProvider = mock(CryptoProvider.class);
-        mockCryptoCachingService = mock(CryptoCachingService.class);
+        assetService = new AssetService(getAssetRepository(), new CryptoCachingService(new CacheProperties()), mock(AssetSnapshotService.class));
+        latestPriceCachingService = new LatestPriceCachingService();
+        asOfPriceCachingService = new AsOfPriceCachingService(new CacheProperties());
+        historyCoverageService = new HistoryCoverageService(mock(HistoryCoverageRepository.class));
         WalletRequestProperties walletRequestProperties = new WalletRequestProperties();
 
-        cryptoPriceService = new CryptoPriceService(mockWalletAssetService, mockCryptoPriceRepository, mockCryptoProvider, mockCryptoCachingService, walletRequestProperties);
+        cryptoPriceService = new CryptoPriceService(mockWalletAssetService, mockCryptoPriceRepository, mockCryptoProvider, assetService, latestPriceCachingService, asOfPriceCachingService, historyCoverageService, mockSymbolResolutionService, walletRequestProperties);
+    }
+
+    /**
+     * Asset repository keeping the saved assets in memory
+     *
+     * @return AssetRepository
+     */
+    private static AssetRepository getAssetRepository() {
+        AssetRepository assetRepository = mock(AssetRepository.class);
+        Map<String, AssetEntity> assets = new ConcurrentHashMap<>();
+        AtomicInteger sequence = new AtomicInteger();
+        when(assetRepository.findByExternalId(any())).thenAnswer(invocation -> Optional.ofNullable(assets.get(invocation.<String>getArgument(0))));
+        when(assetRepository.save(any())).thenAnswer(invocation -> {
+            AssetEntity assetEntity = invocation.getArgument(0);
+            if (assetEntity.getId() == null) {
+                assetEntity.setId(sequence.incrementAndGet());
+            }
+            assets.put(assetEntity.getExternalId(), assetEntity);
+            return assetEntity;
+        });
+        return assetRepository;
     }
 
     @Nested
-    class PopulateCacheWithExistingCryptoData {
+    class FetchWalletPrices {
 
         @Test
-        void shouldPopulateCacheWhenDistinctEntitiesExist() {
-            CryptoPriceEntity entity = createCryptoPriceEntity(1L, "bitcoin", "Bitcoin", "BTC", BigDecimal.TEN, Instant.now());
-            CryptoPriceEntity entity2 = createCryptoPriceEntity(2L, "ethereum", "Ethereum", "ETH", BigDecimal.ONE, Instant.now());
+        void shouldProcessWalletPricesInBatches() {
+            UUID walletId = UUID.randomUUID();
+            List<WalletAssetDto> assets = List.of(
+                getWalletAssetDto(1L, "bitcoin", "BTC", new BigDecimal("100000")),
+                getWalletAssetDto(2L, "ethereum", "ETH", BigDecimal.TEN),
+                getWalletAssetDto(3L, "solana", "SOL", new BigDecimal("0.01"))
+            );
 
+            when(mockWalletAssetService.findWalletAssetsByWalletId(walletId)).thenReturn(assets);
+            when(mockCryptoProvider.getAssetsBySymbols(anyList())).thenAnswer(invocation -> {
+                String symbol = invocation.<List<String>>getArgument(0).getFirst();
+                return Mono.just(List.of(CryptoItemDto.builder().id(symbol.toLowerCase()).symbol(symbol).price(BigDecimal.TEN).build()));
+            });
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
-            List<CryptoPriceEntity> entities = List.of(
-                entity,
-                entity2
-            );
+            cryptoPriceService.fetchWalletPrices(walletId);
+
+            verify(mockWalletAssetService, times(1)).findWalletAssetsByWalletId(walletId);
+            verify(mockCryptoProvider, times(3)).getAssetsBySymbols(anyList());
+            verify(mockCryptoPriceRepository, times(1)).saveAll(anyList());
+        }
+
+        @Test
+        void shouldResolveCachedSymbolWithoutSymbolSearchNorLinkingIt() {
+            UUID walletId = UUID.randomUUID();
+            assetService.getOrCreateAsset("bitcoin", "Bitcoin", "BTC");
 
-            when(mockCryptoPriceRepository.findDistinctEntities()).thenReturn(entities);
+            when(mockWalletAssetService.findWalletAssetsByWalletId(walletId)).thenReturn(List.of(getWalletAssetDto(1L, "bitcoin", "btc", BigDecimal.TEN)));
+            when(mockCryptoProvider.getAssetsById(List.of("bitcoin"))).thenReturn(Mono.just(List.of(
+                CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.TEN).build()
+            )));
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
-            cryptoPriceService = new CryptoPriceService(mockWalletAssetService, mockCryptoPriceRepository, mockCryptoProvider, mockCryptoCachingService, new WalletRequestProperties());
+            cryptoPriceService.fetchWalletPrices(walletId);
 
-            verify(mockCryptoCachingService, times(1)).addToCache("bitcoin", "Bitcoin", "BTC");
-            verify(mockCryptoCachingService, times(1)).addToCache("ethereum", "Ethereum", "ETH");
+            verify(mockCryptoProvider, never()).getAssetsBySymbols(anyList());
+            // The cache doesn't know the rank of the assets sharing the symbol, the wallet asset is not linked from it
+            verify(mockWalletAssetService, never()).linkWalletAsset(any(), any(), any());
+            verify(mockWalletAssetService, never()).updateWalletAsset(any(), any(), any());
         }
 
         @Test
-        void shouldNotPopulateCacheWhenNoEntitiesExist() {
-            when(mockCryptoPriceRepository.findDistinctEntities()).thenReturn(Collections.emptyList());
+        void shouldLinkMappedSymbolBeforeCachedOne() {
+            UUID walletId = UUID.randomUUID();
+            assetService.getOrCreateAsset("bitcoin-token", "Bitcoin Token", "BTC");
+            CacheCryptoDetails mappedAsset = assetService.getOrCreateAsset("bitcoin", "Bitcoin", "BTC");
+            when(mockSymbolResolutionService.findMappedAsset("btc")).thenReturn(Optional.of(mappedAsset));
 
-            cryptoPriceService = new CryptoPriceService(mockWalletAssetService, mockCryptoPriceRepository, mockCryptoProvider, mockCryptoCachingService, new WalletRequestProperties());
+            when(mockWalletAssetService.findWalletAssetsByWalletId(walletId)).thenReturn(List.of(getWalletAssetDto(1L, "bitcoin", "btc", BigDecimal.TEN)));
+            when(mockCryptoProvider.getAssetsById(List.of("bitcoin"))).thenReturn(Mono.just(List.of(
+                CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.TEN).build()
+            )));
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
-            verify(mockCryptoCachingService, never()).addToCache(any(), any(), any());
+            cryptoPriceService.fetchWalletPrices(walletId);
+
+            verify(mockCryptoProvider, never()).getAssetsBySymbols(anyList());
+            verify(mockCryptoProvider, never()).getAssetsById(List.of("bitcoin-token"));
+            verify(mockWalletAssetService).linkWalletAsset(walletId, 1L, mappedAsset.getAssetId());
         }
     }
 
     @Nested
-    class FetchWalletPrices {
+    class FetchWalletPricesMultiAsset {
+
+        @BeforeEach
+        void setUp() {
+            WalletRequestProperties walletRequestProperties = new WalletRequestProperties();
+            walletRequestProperties.setRefreshMode(WalletRequestProperties.RefreshMode.MULTI_ASSET);
+            walletRequestProperties.setMaxIdsQueryLength(16);
+            walletRequestProperties.setMarketSnapshotLimit(0);
+
+            cryptoPriceService = new CryptoPriceService(mockWalletAssetService, mockCryptoPriceRepository, mockCryptoProvider, assetService, latestPriceCachingService, asOfPriceCachingService, historyCoverageService, mockSymbolResolutionService, walletRequestProperties);
+        }
 
         @Test
-        void shouldProcessWalletPricesInBatches() {
+        void shouldResolveAssetsWithExternalIdInChunksAndSaveOnce() {
             UUID walletId = UUID.randomUUID();
             List<WalletAssetDto> assets = List.of(
-                getWalletAssetDto(1L, "bitcoin", "BTC", new BigDecimal("100000")),
-                getWalletAssetDto(2L, "ethereum", "ETH", BigDecimal.TEN),
-                getWalletAssetDto(3L, "solana", "SOL", new BigDecimal("0.01"))
+                new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.TEN),
+                new WalletAssetDto(2L, "ethereum", "ETH", "Ethereum", BigDecimal.ONE, BigDecimal.TEN),
+                new WalletAssetDto(3L, "solana", "SOL", "Solana", BigDecimal.ONE, BigDecimal.TEN)
             );
 
-            when(mockWalletAssetService.findWalletAssetsByWalletId(walletId)).thenReturn(assets);
-            when(mockCryptoProvider.getAssetsBySymbols(anyList())).thenReturn(Mono.just(List.of(
+            when(mockCryptoProvider.getAssetsById(List.of("bitcoin", "ethereum"))).thenReturn(Mono.just(List.of(
                 CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.TEN).build(),
                 CryptoItemDto.builder().id("ethereum").symbol("ETH").price(BigDecimal.ONE).build()
             )));
-            CryptoPriceEntity entity = new CryptoPriceEntity();
-            entity.setSymbol("BTC");
-            entity.setExternalId("bitcoin");
-            entity.setPrice(BigDecimal.TEN);
-            CryptoPriceEntity entity2 = new CryptoPriceEntity();
-            entity2.setSymbol("ETH");
-            entity2.setExternalId("ethereum");
-            entity2.setPrice(BigDecimal.ONE);
-
-            when(mockCryptoPriceRepository.save(entity)).thenReturn(entity);
-            when(mockCryptoPriceRepository.save(entity2)).thenReturn(entity2);
+            when(mockCryptoProvider.getAssetsById(List.of("solana"))).thenReturn(Mono.just(List.of(
+                CryptoItemDto.builder().id("solana").symbol("SOL").price(BigDecimal.TWO).build()
+            )));
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
-            cryptoPriceService.fetchWalletPrices(walletId);
+            List<CryptoItemDto> result = cryptoPriceService.fetchWalletPricesManuallyTriggered(walletId, assets);
 
-            verify(mockWalletAssetService, times(1)).findWalletAssetsByWalletId(walletId);
-            verify(mockCryptoProvider, times(3)).getAssetsBySymbols(anyList());
+            assertEquals(3, result.size());
+            verify(mockCryptoProvider, times(2)).getAssetsById(anyList());
+            verify(mockCryptoProvider, never()).getAssetsBySymbols(anyList());
+            verify(mockCryptoPriceRepository, times(1)).saveAll(anyList());
+            verify(mockCryptoPriceRepository, never()).save(any());
+        }
+
+        @Test
+        void shouldFallbackToSymbolSearchWhenExternalIdIsMissing() {
+            UUID walletId = UUID.randomUUID();
+            List<WalletAssetDto> assets = List.of(getWalletAssetDto(1L, "bitcoin", "BTC", BigDecimal.TEN));
+
+            when(mockCryptoProvider.getAssetsBySymbols(anyList())).thenReturn(Mono.just(List.of(
+                CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.TEN).build()
+            )));
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            List<CryptoItemDto> result = cryptoPriceService.fetchWalletPricesManuallyTriggered(walletId, assets);
+
+            assertEquals(1, result.size());
+            verify(mockCryptoProvider, never()).getAssetsById(anyList());
+            verify(mockCryptoProvider, times(1)).getAssetsBySymbols(anyList());
+        }
+    }
+
+    @Nested
+    class FetchWalletPricesReactive {
+
+        @BeforeEach
+        void setUp() {
+            WalletRequestProperties walletRequestProperties = new WalletRequestProperties();
+            walletRequestProperties.setRefreshMode(WalletRequestProperties.RefreshMode.REACTIVE);
+
+            cryptoPriceService = new CryptoPriceService(mockWalletAssetService, mockCryptoPriceRepository, mockCryptoProvider, assetService, latestPriceCachingService, asOfPriceCachingService, historyCoverageService, mockSymbolResolutionService, walletRequestProperties);
+        }
+
+        @Test
+        void shouldKeepConfiguredNumberOfAssetsInFlight() {
+            UUID walletId = UUID.randomUUID();
+            List<WalletAssetDto> assets = IntStream.range(0, 7)
+                .mapToObj(i -> new WalletAssetDto((long) i, "asset-" + i, "A" + i, "Asset" + i, BigDecimal.ONE, BigDecimal.TEN))
+                .toList();
+
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            when(mockCryptoProvider.getAssetsById(anyList())).thenAnswer(invocation -> {
+                String id = invocation.<List<String>>getArgument(0).getFirst();
+                return Mono.defer(() -> {
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        return Mono.delay(Duration.ofMillis(20));
+                    })
+                    .doOnNext(ignored -> inFlight.decrementAndGet())
+                    .thenReturn(List.of(CryptoItemDto.builder().id(id).price(BigDecimal.ONE).build()));
+            });
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            List<CryptoItemDto> result = cryptoPriceService.fetchWalletPricesManuallyTriggered(walletId, assets);
+
+            assertEquals(7, result.size());
+            assertEquals(3, maxInFlight.get());
+            // All the prices of the refresh cycle are persisted as a single batch
+            verify(mockCryptoPriceRepository, times(1)).saveAll(argThat(entities -> ((List<?>) entities).size() == 7));
+            verify(mockCryptoPriceRepository, never()).save(any());
+        }
+
+        @Test
+        void shouldSkipFailedAssets() {
+            UUID walletId = UUID.randomUUID();
+            List<WalletAssetDto> assets = List.of(
+                new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.TEN),
+                new WalletAssetDto(2L, "ethereum", "ETH", "Ethereum", BigDecimal.ONE, BigDecimal.TEN)
+            );
+
+            when(mockCryptoProvider.getAssetsById(List.of("bitcoin"))).thenReturn(Mono.error(new IllegalStateException("upstream error")));
+            when(mockCryptoProvider.getAssetsById(List.of("ethereum"))).thenReturn(Mono.just(List.of(
+                CryptoItemDto.builder().id("ethereum").symbol("ETH").price(BigDecimal.ONE).build()
+            )));
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            List<CryptoItemDto> result = cryptoPriceService.fetchWalletPricesManuallyTriggered(walletId, assets);
+
+            assertEquals(1, result.size());
+            assertEquals("ethereum", result.getFirst().getId());
+        }
+
+        @Test
+        void shouldShareConcurrentFetchOfSameAsset() {
+            WalletAssetDto bitcoin = new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.TEN);
+            Sinks.One<List<CryptoItemDto>> upstream = Sinks.one();
+            when(mockCryptoProvider.getAssetsById(List.of("bitcoin"))).thenReturn(upstream.asMono());
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Both wallets ask for bitcoin while the first request is in flight
+            CompletableFuture<List<CryptoItemDto>> first = cryptoPriceService.fetchWalletPricesAsync(UUID.randomUUID(), List.of(bitcoin), null).collectList().toFuture();
+            CompletableFuture<List<CryptoItemDto>> second = cryptoPriceService.fetchWalletPricesAsync(UUID.randomUUID(), List.of(bitcoin), null).collectList().toFuture();
+            upstream.tryEmitValue(List.of(CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.TEN).timestamp(Instant.now()).build()));
+
+            assertEquals(BigDecimal.TEN, first.join().getFirst().getPrice());
+            assertEquals(BigDecimal.TEN, second.join().getFirst().getPrice());
+            verify(mockCryptoProvider, times(1)).getAssetsById(anyList());
+            // The price is persisted once, by the caller that claimed it
+            verify(mockCryptoPriceRepository, times(1)).saveAll(argThat(entities -> ((List<?>) entities).size() == 1));
+        }
+    }
+
+    @Nested
+    class FetchWalletPricesVirtualThreads {
+
+        @Test
+        void shouldBoundAssetsInFlightWithSemaphore() {
+            WalletRequestProperties walletRequestProperties = new WalletRequestProperties();
+            walletRequestProperties.setRefreshMode(WalletRequestProperties.RefreshMode.VIRTUAL_THREADS);
+            cryptoPriceService = new CryptoPriceService(mockWalletAssetService, mockCryptoPriceRepository, mockCryptoProvider, assetService, latestPriceCachingService, asOfPriceCachingService, historyCoverageService, mockSymbolResolutionService, walletRequestProperties);
+
+            UUID walletId = UUID.randomUUID();
+            List<WalletAssetDto> assets = IntStream.range(0, 7)
+                .mapToObj(i -> new WalletAssetDto((long) i, "asset-" + i, "A" + i, "Asset" + i, BigDecimal.ONE, BigDecimal.TEN))
+                .toList();
+
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            when(mockCryptoProvider.getAssetsById(anyList())).thenAnswer(invocation -> {
+                String id = invocation.<List<String>>getArgument(0).getFirst();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return Mono.delay(Duration.ofMillis(20))
+                    .doOnNext(ignored -> inFlight.decrementAndGet())
+                    .thenReturn(List.of(CryptoItemDto.builder().id(id).price(BigDecimal.ONE).build()));
+            });
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            List<CryptoItemDto> result = cryptoPriceService.fetchWalletPricesManuallyTriggered(walletId, assets);
+
+            assertEquals(7, result.size());
+            assertTrue(maxInFlight.get() <= 3);
+        }
+    }
+
+    @Nested
+    class FetchMarketPrices {
+
+        @Test
+        void shouldFetchEachDistinctAssetOnceForAllWallets() {
+            List<UUID> walletIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+            when(mockWalletAssetService.findDistinctExternalIds(walletIds)).thenReturn(Set.of("bitcoin"));
+            when(mockWalletAssetService.findWalletAssetsWithoutExternalId(walletIds)).thenReturn(Collections.emptyMap());
+            when(mockCryptoProvider.getAssetsById(List.of("bitcoin"))).thenReturn(Mono.just(List.of(
+                CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.TEN).build()
+            )));
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            List<CryptoItemDto> result = cryptoPriceService.fetchMarketPrices(walletIds);
+
+            assertEquals(1, result.size());
+            verify(mockCryptoProvider, times(1)).getAssetsById(anyList());
+            verify(mockCryptoProvider, never()).getAssetsSnapshot(anyInt());
+            verify(mockCryptoPriceRepository, times(1)).saveAll(anyList());
+        }
+
+        @Test
+        void shouldUseMarketSnapshotWhenIdsDoNotFitSingleRequest() {
+            WalletRequestProperties walletRequestProperties = new WalletRequestProperties();
+            walletRequestProperties.setMaxIdsQueryLength(10);
+            walletRequestProperties.setMarketSnapshotLimit(100);
+            cryptoPriceService = new CryptoPriceService(mockWalletAssetService, mockCryptoPriceRepository, mockCryptoProvider, assetService, latestPriceCachingService, asOfPriceCachingService, historyCoverageService, mockSymbolResolutionService, walletRequestProperties);
+
+            List<UUID> walletIds = List.of(UUID.randomUUID());
+            when(mockWalletAssetService.findDistinctExternalIds(walletIds)).thenReturn(new LinkedHashSet<>(List.of("bitcoin", "ethereum", "unranked")));
+            when(mockWalletAssetService.findWalletAssetsWithoutExternalId(walletIds)).thenReturn(Collections.emptyMap());
+            when(mockCryptoProvider.getAssetsSnapshot(100)).thenReturn(Mono.just(List.of(
+                CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.TEN).build(),
+                CryptoItemDto.builder().id("ethereum").symbol("ETH").price(BigDecimal.ONE).build(),
+                CryptoItemDto.builder().id("tether").symbol("USDT").price(BigDecimal.ONE).build()
+            )));
+            when(mockCryptoProvider.getAssetsById(List.of("unranked"))).thenReturn(Mono.just(List.of(
+                CryptoItemDto.builder().id("unranked").symbol("UNR").price(BigDecimal.ONE).build()
+            )));
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            List<CryptoItemDto> result = cryptoPriceService.fetchMarketPrices(walletIds);
+
+            assertEquals(3, result.size());
+            verify(mockCryptoProvider, times(1)).getAssetsSnapshot(100);
+            verify(mockCryptoProvider, times(1)).getAssetsById(List.of("unranked"));
+        }
+    }
+
+    @Nested
+    class ChunkIdsByQueryLength {
+
+        @Test
+        void shouldSplitIdsWhenMaxLengthIsReached() {
+            List<List<String>> chunks = CryptoPriceService.chunkIdsByQueryLength(List.of("bitcoin", "ethereum", "solana"), 16);
+
+            assertEquals(List.of(List.of("bitcoin", "ethereum"), List.of("solana")), chunks);
+        }
+
+        @Test
+        void shouldIgnoreDuplicatedIds() {
+            List<List<String>> chunks = CryptoPriceService.chunkIdsByQueryLength(List.of("bitcoin", "bitcoin"), 100);
+
+            assertEquals(List.of(List.of("bitcoin")), chunks);
+        }
+
+        @Test
+        void shouldKeepIdLongerThanMaxLengthOnItsOwnChunk() {
+            List<List<String>> chunks = CryptoPriceService.chunkIdsByQueryLength(List.of("bitcoin", "ethereum"), 3);
+
+            assertEquals(List.of(List.of("bitcoin"), List.of("ethereum")), chunks);
+        }
+    }
+
+    @Nested
+    class GetAssetsPriceHistory {
+
+        @Test
+        void shouldLoadHistoryOfEachAssetWithRangeQueryFromAsOfTolerance() {
+            Instant start = Instant.parse("2024-12-01T10:00:00Z");
+            Instant end = start.plus(Duration.ofHours(1));
+            CryptoPriceEntity first = createCryptoPriceEntity(1L, "bitcoin", "Bitcoin", "BTC", BigDecimal.ONE, start.minusSeconds(30));
+            CryptoPriceEntity second = createCryptoPriceEntity(2L, "bitcoin", "Bitcoin", "BTC", BigDecimal.TWO, start.plusSeconds(60));
+            when(mockCryptoPriceRepository.findByAssetIdAndTimeBetweenOrderByTimeAsc(first.getAssetId(), start.minus(Duration.ofMinutes(1)), end))
+                .thenReturn(List.of(first, second));
+
+            Map<String, AssetPriceHistoryDto> result = cryptoPriceService.getAssetsPriceHistory(List.of("bitcoin", "bitcoin", "unknown"), start, end);
+
+            assertEquals(1, result.size());
+            assertEquals(Duration.ofMinutes(1), result.get("bitcoin").getTolerance());
+            assertEquals(List.of(BigDecimal.ONE, BigDecimal.TWO), result.get("bitcoin").getPrices().stream().map(CryptoItemDto::getPrice).toList());
+            assertEquals("BTC", result.get("bitcoin").getPrices().getFirst().getSymbol());
+            verify(mockCryptoPriceRepository, times(1)).findByAssetIdAndTimeBetweenOrderByTimeAsc(any(), any(), any());
         }
     }
 
@@ -144,9 +461,9 @@ class CryptoPriceServiceTest {
         void shouldReturnLatestPriceWithoutDate() {
             CryptoPriceEntity entity = createCryptoPriceEntity(1L, "bitcoin", "Bitcoin", "BTC", BigDecimal.TEN, Instant.now());
 
-            when(mockCryptoPriceRepository.findTopByExternalIdOrderByTimeDesc("1")).thenReturn(Optional.of(entity));
+            when(mockCryptoPriceRepository.findTopByAssetIdOrderByTimeDesc(entity.getAssetId())).thenReturn(Optional.of(entity));
 
-            CryptoItemDto result = cryptoPriceService.getAssetLatestPrice("1");
+            CryptoItemDto result = cryptoPriceService.getAssetLatestPrice("bitcoin");
 
             assertNotNull(result);
             assertEquals("bitcoin", result.getId());
@@ -155,12 +472,257 @@ class CryptoPriceServiceTest {
             assertEquals(BigDecimal.TEN, result.getPrice());
         }
 
+        @Test
+        void shouldReturnCachedLatestPriceWithoutQueryingDatabase() {
+            CryptoPriceEntity entity = createCryptoPriceEntity(1L, "bitcoin", "Bitcoin", "BTC", BigDecimal.TEN, Instant.now());
+            when(mockCryptoPriceRepository.findTopByAssetIdOrderByTimeDesc(entity.getAssetId())).thenReturn(Optional.of(entity));
+
+            cryptoPriceService.getAssetLatestPrice("bitcoin");
+            CryptoItemDto result = cryptoPriceService.getAssetLatestPrice("bitcoin");
+
+            assertEquals(BigDecimal.TEN, result.getPrice());
+            verify(mockCryptoPriceRepository, times(1)).findTopByAssetIdOrderByTimeDesc(entity.getAssetId());
+        }
+
+        @Test
+        void shouldWarmCacheWithLatestPricesOnStartup() {
+            CryptoPriceEntity entity = createCryptoPriceEntity(1L, "bitcoin", "Bitcoin", "BTC", BigDecimal.TEN, Instant.now());
+
+            cryptoPriceService.populateLatestPriceCache(List.of(entity));
+            CryptoItemDto result = cryptoPriceService.getAssetLatestPrice("bitcoin");
+
+            assertEquals("BTC", result.getSymbol());
+            verify(mockCryptoPriceRepository, never()).findTopByAssetIdOrderByTimeDesc(any());
+        }
+
+        @Test
+        void shouldUpdateCacheOnIngest() {
+            UUID walletId = UUID.randomUUID();
+            Instant timestamp = Instant.now();
+            List<WalletAssetDto> assets = List.of(new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.TEN));
+            when(mockCryptoProvider.getAssetsById(anyList())).thenReturn(Mono.just(List.of(
+                CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.TWO).timestamp(timestamp).build()
+            )));
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            cryptoPriceService.fetchWalletPricesManuallyTriggered(walletId, assets);
+            CryptoItemDto result = cryptoPriceService.getAssetLatestPrice("bitcoin");
+
+            assertEquals(BigDecimal.TWO, result.getPrice());
+            assertEquals(timestamp, result.getTimestamp());
+            verify(mockCryptoPriceRepository, never()).findTopByAssetIdOrderByTimeDesc(any());
+        }
+
+        @Test
+        void shouldReturnLatestPricesOfAllAssetsWithSingleQuery() {
+            CryptoPriceEntity bitcoin = createCryptoPriceEntity(1L, "bitcoin", "Bitcoin", "BTC", BigDecimal.TEN, Instant.now());
+            CryptoPriceEntity ethereum = createCryptoPriceEntity(2L, "ethereum", "Ethereum", "ETH", BigDecimal.ONE, Instant.now());
+            latestPriceCachingService.updateLatestPrice(CryptoItemDto.builder().id("solana").price(BigDecimal.TWO).build());
+            when(mockCryptoPriceRepository.findLatestPricesByAssetIds(List.of(bitcoin.getAssetId(), ethereum.getAssetId()), null, null))
+                .thenReturn(List.of(bitcoin, ethereum));
+
+            Map<String, CryptoItemDto> result = cryptoPriceService.getAssetsLatestPrice(List.of("bitcoin", "ethereum", "solana", "unknown"), null);
+
+            assertEquals(3, result.size());
+            assertEquals(BigDecimal.TWO, result.get("solana").getPrice());
+            assertEquals("ETH", result.get("ethereum").getSymbol());
+            verify(mockCryptoPriceRepository, times(1)).findLatestPricesByAssetIds(anyCollection(), any(), any());
+        }
+
+        @Test
+        void shouldNotUseLatestPriceCacheWhenDateIsSet() {
+            Instant date = Instant.parse("2024-12-01T10:00:00Z");
+            CryptoPriceEntity bitcoin = createCryptoPriceEntity(1L, "bitcoin", "Bitcoin", "BTC", BigDecimal.ONE, date);
+            latestPriceCachingService.updateLatestPrice(CryptoItemDto.builder().id("bitcoin").price(BigDecimal.TEN).build());
+            when(mockCryptoPriceRepository.findLatestPricesByAssetIds(List.of(bitcoin.getAssetId()), date.minus(Duration.ofMinutes(1)), date)).thenReturn(List.of(bitcoin));
+
+            Map<String, CryptoItemDto> result = cryptoPriceService.getAssetsLatestPrice(List.of("bitcoin"), date);
+
+            assertEquals(BigDecimal.ONE, result.get("bitcoin").getPrice());
+        }
+
+        @Test
+        void shouldReturnAsOfPriceAtMinuteWithinTolerance() {
+            Instant date = Instant.parse("2024-12-01T10:00:30Z");
+            Instant minute = Instant.parse("2024-12-01T10:00:00Z");
+            CryptoPriceEntity entity = createCryptoPriceEntity(1L, "bitcoin", "Bitcoin", "BTC", BigDecimal.TEN, Instant.parse("2024-12-01T09:59:40Z"));
+            when(mockCryptoPriceRepository.findTopByAssetIdAndTimeBetweenOrderByTimeDesc(entity.getAssetId(), minute.minus(Duration.ofMinutes(1)), minute))
+                .thenReturn(Optional.of(entity));
+
+            CryptoItemDto result = cryptoPriceService.getAssetLatestPrice("bitcoin", date);
+
+            assertEquals(BigDecimal.TEN, result.getPrice());
+            assertEquals(entity.getTime(), result.getTimestamp());
+        }
+
+        @Test
+        void shouldAnswerAsOfLookupsOfSameMinuteFromCache() {
+            Instant date = Instant.parse("2024-12-01T10:00:30Z");
+            Instant minute = Instant.parse("2024-12-01T10:00:00Z");
+            CryptoPriceEntity entity = createCryptoPriceEntity(1L, "bitcoin", "Bitcoin", "BTC", BigDecimal.TEN, minute);
+            when(mockCryptoPriceRepository.findTopByAssetIdAndTimeBetweenOrderByTimeDesc(entity.getAssetId(), minute.minus(Duration.ofMinutes(1)), minute))
+                .thenReturn(Optional.of(entity));
+
+            cryptoPriceService.getAssetLatestPrice("bitcoin", date);
+            CryptoItemDto result = cryptoPriceService.getAssetLatestPrice("bitcoin", Instant.parse("2024-12-01T10:00:50Z"));
+            Map<String, CryptoItemDto> results = cryptoPriceService.getAssetsLatestPrice(List.of("bitcoin"), Instant.parse("2024-12-01T10:00:10Z"));
+
+            assertEquals(BigDecimal.TEN, result.getPrice());
+            assertEquals(BigDecimal.TEN, results.get("bitcoin").getPrice());
+            verify(mockCryptoPriceRepository, times(1)).findTopByAssetIdAndTimeBetweenOrderByTimeDesc(any(), any(), any());
+            verify(mockCryptoPriceRepository, never()).findLatestPricesByAssetIds(anyCollection(), any(), any());
+        }
+
+        @Test
+        void shouldUseCoveredIntervalAsAsOfTolerance() {
+            Instant date = Instant.parse("2024-12-01T10:30:00Z");
+            CryptoPriceEntity entity = createCryptoPriceEntity(1L, "bitcoin", "Bitcoin", "BTC", BigDecimal.TEN, Instant.parse("2024-12-01T10:00:00Z"));
+            historyCoverageService.addCoverage(entity.getAssetId(), IntervalValue.H1, Instant.parse("2024-12-01T00:00:00Z"), Instant.parse("2024-12-02T00:00:00Z"));
+            when(mockCryptoPriceRepository.findLatestPricesByAssetIds(List.of(entity.getAssetId()), date.minus(Duration.ofHours(1)), date))
+                .thenReturn(List.of(entity));
+
+            Map<String, CryptoItemDto> result = cryptoPriceService.getAssetsLatestPrice(List.of("bitcoin"), date);
+
+            assertEquals(BigDecimal.TEN, result.get("bitcoin").getPrice());
+        }
+
+        @Test
+        void shouldThrowExceptionWhenNoAsOfPriceFound() {
+            Instant date = Instant.parse("2024-12-01T10:00:30Z");
+            assetService.getOrCreateAsset("bitcoin", "Bitcoin", "BTC");
+            when(mockCryptoPriceRepository.findTopByAssetIdAndTimeBetweenOrderByTimeDesc(any(), any(), any())).thenReturn(Optional.empty());
+
+            assertThrows(AssetDataNotFound.class, () -> cryptoPriceService.getAssetLatestPrice("bitcoin", date));
+        }
+
         @Test
         void shouldThrowExceptionWhenNoDataFound() {
-            when(mockCryptoPriceRepository.findTopByExternalIdOrderByTimeDesc("1")).thenReturn(Optional.empty());
+            assetService.getOrCreateAsset("bitcoin", "Bitcoin", "BTC");
+            when(mockCryptoPriceRepository.findTopByAssetIdOrderByTimeDesc(any())).thenReturn(Optional.empty());
+
+            assertThrows(AssetDataNotFound.class, () -> cryptoPriceService.getAssetLatestPrice("bitcoin"));
+        }
+
+        @Test
+        void shouldThrowExceptionWhenAssetIsUnknown() {
+            assertThrows(AssetDataNotFound.class, () -> cryptoPriceService.getAssetLatestPrice("unknown"));
+            verify(mockCryptoPriceRepository, never()).findTopByAssetIdOrderByTimeDesc(any());
+        }
+
+        @Test
+        void shouldStoreHistoryPricesWithAssetKey() {
+            Instant date = Instant.parse("2024-12-01T10:00:00Z");
+            CryptoHistoryItemDto historyItem = new CryptoHistoryItemDto();
+            historyItem.setPrice(BigDecimal.TEN);
+            historyItem.setTime(date);
+            CryptoHistoryDto cryptoHistoryDto = new CryptoHistoryDto();
+            cryptoHistoryDto.setCryptoHistory(List.of(historyItem));
+            when(mockCryptoProvider.getAssetByIdBetweenDates("bitcoin", Instant.parse("2024-12-01T09:55:00Z"), Instant.parse("2024-12-01T10:06:00Z")))
+                .thenReturn(Mono.just(cryptoHistoryDto));
+            mockSaveAllAssigningIds();
+
+            List<CryptoItemDto> result = cryptoPriceService.fetchWalletPricesManuallyTriggeredByDate(UUID.randomUUID(),
+                List.of(new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.TEN)), date);
+
+            assertEquals(1, result.size());
+            assertEquals("bitcoin", result.getFirst().getId());
+            // History is persisted when fetched and not persisted again with the refresh cycle
+            verify(mockCryptoPriceRepository).saveAll(List.of(createCryptoPriceEntity(1L, "bitcoin", null, null, BigDecimal.TEN, date)));
+        }
+
+        @Test
+        void shouldNotRequestHistoryOfCoveredDate() {
+            Instant date = Instant.parse("2024-12-01T10:03:00Z");
+            Integer assetId = assetService.getOrCreateAsset("bitcoin", null, null).getAssetId();
+            historyCoverageService.addCoverage(assetId, IntervalValue.M1, Instant.parse("2024-12-01T09:55:00Z"), Instant.parse("2024-12-01T10:06:00Z"));
+
+            List<CryptoItemDto> result = cryptoPriceService.fetchWalletPricesManuallyTriggeredByDate(UUID.randomUUID(),
+                List.of(new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.TEN)), date);
 
-            assertThrows(AssetDataNotFound.class, () -> cryptoPriceService.getAssetLatestPrice("1"));
+            assertTrue(result.isEmpty());
+            verify(mockCryptoProvider, never()).getAssetByIdBetweenDates(any(), any(), any());
+            verify(mockCryptoPriceRepository, never()).saveAll(anyList());
+        }
+
+        @Test
+        void shouldRequestOnlyMissingHistoryOfNeighbouringDate() {
+            Instant date = Instant.parse("2024-12-01T10:08:30Z");
+            Integer assetId = assetService.getOrCreateAsset("bitcoin", null, null).getAssetId();
+            historyCoverageService.addCoverage(assetId, IntervalValue.M1, Instant.parse("2024-12-01T09:55:00Z"), Instant.parse("2024-12-01T10:06:00Z"));
+            CryptoHistoryItemDto coveredItem = new CryptoHistoryItemDto();
+            coveredItem.setPrice(BigDecimal.ONE);
+            coveredItem.setTime(Instant.parse("2024-12-01T10:05:00Z"));
+            CryptoHistoryItemDto historyItem = new CryptoHistoryItemDto();
+            historyItem.setPrice(BigDecimal.TEN);
+            historyItem.setTime(Instant.parse("2024-12-01T10:08:00Z"));
+            CryptoHistoryDto cryptoHistoryDto = new CryptoHistoryDto();
+            cryptoHistoryDto.setCryptoHistory(List.of(coveredItem, historyItem));
+            when(mockCryptoProvider.getAssetByIdBetweenDates("bitcoin", Instant.parse("2024-12-01T10:06:00Z"), Instant.parse("2024-12-01T10:14:00Z")))
+                .thenReturn(Mono.just(cryptoHistoryDto));
+            mockSaveAllAssigningIds();
+
+            List<CryptoItemDto> result = cryptoPriceService.fetchWalletPricesManuallyTriggeredByDate(UUID.randomUUID(),
+                List.of(new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.TEN)), date);
+
+            assertEquals(BigDecimal.TEN, result.getFirst().getPrice());
+            // The price already covered is not stored again
+            verify(mockCryptoPriceRepository).saveAll(List.of(createCryptoPriceEntity(1L, "bitcoin", null, null, BigDecimal.TEN, historyItem.getTime())));
+            // Covered up to the minute of the last returned price
+            assertTrue(historyCoverageService.isCovered(assetId, Instant.parse("2024-12-01T10:08:59Z")));
+            assertFalse(historyCoverageService.isCovered(assetId, Instant.parse("2024-12-01T10:09:00Z")));
+        }
+
+        @Test
+        void shouldNotCoverRecentDateWithoutReturnedHistory() {
+            Instant date = Instant.now().minusSeconds(60);
+            Integer assetId = assetService.getOrCreateAsset("bitcoin", null, null).getAssetId();
+            CryptoHistoryDto cryptoHistoryDto = new CryptoHistoryDto();
+            cryptoHistoryDto.setCryptoHistory(List.of());
+            when(mockCryptoProvider.getAssetByIdBetweenDates(eq("bitcoin"), any(), any())).thenReturn(Mono.just(cryptoHistoryDto));
+
+            List<CryptoItemDto> result = cryptoPriceService.fetchWalletPricesManuallyTriggeredByDate(UUID.randomUUID(),
+                List.of(new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.TEN)), date);
+
+            assertTrue(result.isEmpty());
+            ArgumentCaptor<Instant> endCaptor = ArgumentCaptor.forClass(Instant.class);
+            verify(mockCryptoProvider).getAssetByIdBetweenDates(eq("bitcoin"), any(), endCaptor.capture());
+            // The window is capped at now, the minutes not elapsed yet are not requested
+            assertFalse(endCaptor.getValue().isAfter(Instant.now()));
+            assertFalse(historyCoverageService.isCovered(assetId, date));
+        }
+
+        @Test
+        void shouldEvictCachedAsOfPricesReplacedByFetchedHistory() {
+            Instant date = Instant.parse("2024-12-01T10:00:00Z");
+            Instant cachedMinute = Instant.parse("2024-12-01T10:02:00Z");
+            assetService.getOrCreateAsset("bitcoin", null, null);
+            asOfPriceCachingService.putPrice("bitcoin", cachedMinute, CryptoItemDto.builder().id("bitcoin").price(BigDecimal.ONE)
+                .timestamp(Instant.parse("2024-12-01T09:40:00Z")).build());
+            CryptoHistoryItemDto historyItem = new CryptoHistoryItemDto();
+            historyItem.setPrice(BigDecimal.TEN);
+            historyItem.setTime(Instant.parse("2024-12-01T10:01:00Z"));
+            CryptoHistoryDto cryptoHistoryDto = new CryptoHistoryDto();
+            cryptoHistoryDto.setCryptoHistory(List.of(historyItem));
+            when(mockCryptoProvider.getAssetByIdBetweenDates("bitcoin", Instant.parse("2024-12-01T09:55:00Z"), Instant.parse("2024-12-01T10:06:00Z")))
+                .thenReturn(Mono.just(cryptoHistoryDto));
+            mockSaveAllAssigningIds();
+
+            cryptoPriceService.fetchWalletPricesManuallyTriggeredByDate(UUID.randomUUID(),
+                List.of(new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.TEN)), date);
+
+            assertTrue(asOfPriceCachingService.getPrice("bitcoin", cachedMinute).isEmpty());
+        }
+
+        /**
+         * Assign the ids on saveAll as JPA does
+         */
+        private void mockSaveAllAssigningIds() {
+            AtomicInteger sequence = new AtomicInteger();
+            when(mockCryptoPriceRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<CryptoPriceEntity> entities = invocation.getArgument(0);
+                entities.forEach(entity -> entity.setId((long) sequence.incrementAndGet()));
+                return entities;
+            });
         }
     }
 }
-
@@ -1,6 +1,7 @@
 package com.dmsc.cryptofinanceservice.service;
 
 import com.dmsc.coincapjavasdk.WebClientAssetsRestSdk;
+import com.dmsc.coincapjavasdk.model.IntervalValue;
 import com.dmsc.coincapjavasdk.model.request.CryptoDataRequest;
 import com.dmsc.coincapjavasdk.model.request.CryptoHistoryRequest;
 import com.dmsc.coincapjavasdk.model.response.CryptoData;
@@ -21,8 +22,10 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ExternalCryptoProviderServiceTest {
@@ -112,9 +115,33 @@ class ExternalCryptoProviderServiceTest {
     }
 
     @Nested
-    class GetAssetByIdAtGivenDate {
+    class GetAssetsSnapshot {
         @Test
-        void shouldReturnCryptoHistoryWhenIdAndDateAreProvided() {
+        void shouldRequestSnapshotWithLimit() {
+            // Arrange
+            CryptoData mockResponse = new CryptoData();
+            mockResponse.setData(List.of(
+                createDataDetails("BTC", "Bitcoin", "50000.00", "bitcoin")
+            ));
+            mockResponse.setTimestamp(Instant.now().toEpochMilli());
+
+            when(mockAssetsReactiveSdk.getAssetsAsync(argThat(request -> Integer.valueOf(100).equals(request.getLimit()))))
+                .thenReturn(Mono.just(mockResponse));
+
+            // Act
+            List<CryptoItemDto> result = classUnderTest.getAssetsSnapshot(100).block();
+
+            // Assert
+            assertNotNull(result);
+            assertEquals(1, result.size());
+            assertEquals("bitcoin", result.get(0).getId());
+        }
+    }
+
+    @Nested
+    class GetAssetByIdBetweenDates {
+        @Test
+        void shouldReturnCryptoHistoryWhenIdAndDatesAreProvided() {
             // Arrange
             String id = "1";
             Instant date = Instant.now();
@@ -129,15 +156,52 @@ class ExternalCryptoProviderServiceTest {
                 .thenReturn(Mono.just(mockResponse));
 
             // Act
-            CryptoHistoryDto result = classUnderTest.getAssetByIdAtGivenDate(id, date).block();
+            CryptoHistoryDto result = classUnderTest.getAssetByIdBetweenDates(id, date.minusSeconds(300), date.plusSeconds(300)).block();
 
             // Assert
             assertNotNull(result);
+            verify(mockAssetsReactiveSdk).getHistoryByAssetAsync(eq(id), argThat(request -> request.getDuration() == IntervalValue.M1 &&
+                date.minusSeconds(300).equals(request.getStart()) && date.plusSeconds(300).equals(request.getEnd())));
             assertEquals(2, result.getCryptoHistory().size());
             assertEquals(new BigDecimal("46000.00"), result.getCryptoHistory().get(1).getPrice());
         }
     }
 
+    @Nested
+    class GetAssetHistory {
+        @Test
+        void shouldStreamRawPricePointsOfRequestedRange() {
+            // Arrange
+            Instant start = Instant.parse("2024-01-01T00:00:00Z");
+            Instant end = Instant.parse("2024-01-02T00:00:00Z");
+            CryptoPriceHistoryData mockResponse = new CryptoPriceHistoryData();
+            mockResponse.setData(List.of(
+                createHistoryEntry("45000.00", start.toEpochMilli()),
+                createHistoryEntry("46000.00", end.toEpochMilli())
+            ));
+
+            when(mockAssetsReactiveSdk.getHistoryByAssetAsync(eq("bitcoin"), argThat(request ->
+                request.getDuration() == IntervalValue.H1 && start.equals(request.getStart()) && end.equals(request.getEnd()))))
+                .thenReturn(Mono.just(mockResponse));
+
+            // Act
+            List<PriceData> result = classUnderTest.getAssetHistory("bitcoin", IntervalValue.H1, start, end).collectList().block();
+
+            // Assert
+            assertNotNull(result);
+            assertEquals(2, result.size());
+            assertEquals("46000.00", result.get(1).getPriceUsd());
+        }
+
+        @Test
+        void shouldReturnEmptyWhenHistoryHasNoData() {
+            when(mockAssetsReactiveSdk.getHistoryByAssetAsync(eq("bitcoin"), any(CryptoHistoryRequest.class)))
+                .thenReturn(Mono.just(new CryptoPriceHistoryData()));
+
+            assertEquals(0, classUnderTest.getAssetHistory("bitcoin", IntervalValue.M1, Instant.EPOCH, Instant.EPOCH).count().block());
+        }
+    }
+
     // Helper methods
     private DataDetails createDataDetails(String symbol, String name, String priceUsd) {
         return createDataDetails(symbol, name, priceUsd, null);
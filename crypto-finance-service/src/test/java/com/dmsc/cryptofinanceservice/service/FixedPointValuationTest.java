@@ -0,0 +1,216 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.service.FixedPointValuation.ScaledDecimal;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the long arithmetic gives the same results as the BigDecimal arithmetic it replaces, on random decimals
+ */
+class FixedPointValuationTest {
+
+    private static final int SAMPLES = 50_000;
+    private static final long SEED = 20241201L;
+
+    @Nested
+    class PerformanceTests {
+
+        @Test
+        void shouldMatchBigDecimalPerformance() {
+            Random random = new Random(SEED);
+            for (int i = 0; i < SAMPLES; i++) {
+                BigDecimal latestPrice = randomDecimal(random);
+                BigDecimal initialPrice = randomDecimal(random);
+                if (initialPrice.signum() == 0) {
+                    continue;
+                }
+
+                assertEquals(bigDecimalPerformance(latestPrice, initialPrice), FixedPointValuation.calculateAssetPerformance(latestPrice, initialPrice),
+                    () -> latestPrice + " / " + initialPrice);
+            }
+        }
+
+        @Test
+        void shouldMatchBigDecimalPerformanceOfUpstreamPrices() {
+            Random random = new Random(SEED);
+            for (int i = 0; i < SAMPLES; i++) {
+                BigDecimal latestPrice = randomUpstreamPrice(random);
+                BigDecimal initialPrice = random.nextBoolean() ? randomUpstreamPrice(random) : randomStoredPrice(random);
+
+                long performance = FixedPointValuation.performance(ScaledDecimal.of(latestPrice), ScaledDecimal.of(initialPrice));
+                assertEquals(bigDecimalPerformance(latestPrice, initialPrice), FixedPointValuation.toDecimal(performance),
+                    () -> latestPrice + " / " + initialPrice);
+            }
+        }
+
+        @Test
+        void shouldStayOnLongArithmeticForStoredPrices() {
+            Random random = new Random(SEED);
+            for (int i = 0; i < SAMPLES; i++) {
+                BigDecimal latestPrice = randomStoredPrice(random);
+                BigDecimal initialPrice = randomStoredPrice(random);
+
+                long performance = FixedPointValuation.performance(latestPrice.unscaledValue().longValueExact(), latestPrice.scale(),
+                    initialPrice.unscaledValue().longValueExact(), initialPrice.scale());
+                assertEquals(bigDecimalPerformance(latestPrice, initialPrice), FixedPointValuation.toDecimal(performance),
+                    () -> latestPrice + " / " + initialPrice);
+            }
+        }
+
+        @Test
+        void shouldRoundTiesAwayFromZero() {
+            // 0.00005 rounds to 0.01 %, on the long and on the double arithmetic
+            assertEquals(new BigDecimal("0.01"), FixedPointValuation.calculateAssetPerformance(new BigDecimal("1.00005"), BigDecimal.ONE));
+            assertEquals(new BigDecimal("-0.01"), FixedPointValuation.calculateAssetPerformance(new BigDecimal("0.99995"), BigDecimal.ONE));
+            assertEquals(new BigDecimal("0.01"), FixedPointValuation.calculateAssetPerformance(
+                new BigDecimal("10000.5000000000000000000"), new BigDecimal("10000.0000000000000000000")));
+            assertEquals(bigDecimalPerformance(new BigDecimal("2"), new BigDecimal("3")),
+                FixedPointValuation.calculateAssetPerformance(new BigDecimal("2"), new BigDecimal("3")));
+        }
+
+        @Test
+        void shouldReturnZeroWithoutPrices() {
+            assertEquals(BigDecimal.ZERO, FixedPointValuation.calculateAssetPerformance(null, BigDecimal.ONE));
+            assertEquals(BigDecimal.ZERO, FixedPointValuation.calculateAssetPerformance(BigDecimal.ONE, null));
+            assertEquals(BigDecimal.ZERO, FixedPointValuation.calculateAssetPerformance(BigDecimal.ONE, BigDecimal.ZERO));
+        }
+
+        @Test
+        void shouldFallBackToBigDecimalOutOfRange() {
+            BigDecimal latestPrice = new BigDecimal("123456789012345678901234.5");
+            BigDecimal initialPrice = new BigDecimal("0.0000000000000000001");
+
+            assertEquals(bigDecimalPerformance(latestPrice, initialPrice), FixedPointValuation.calculateAssetPerformance(latestPrice, initialPrice));
+        }
+    }
+
+    @Nested
+    class AddValueTests {
+
+        @Test
+        void shouldMatchBigDecimalTotal() {
+            Random random = new Random(SEED);
+            for (int wallet = 0; wallet < SAMPLES / 10; wallet++) {
+                BigDecimal expected = new BigDecimal(0);
+                BigDecimal total = null;
+                for (int asset = 0; asset < 10; asset++) {
+                    BigDecimal price = randomDecimal(random);
+                    BigDecimal quantity = randomQuantity(random);
+                    expected = bigDecimalAddValue(expected, price, quantity);
+                    total = FixedPointValuation.addValue(total, price, quantity);
+                    assertEquals(expected, total);
+                }
+            }
+        }
+
+        @Test
+        void shouldMatchBigDecimalTotalOfUpstreamPrices() {
+            Random random = new Random(SEED);
+            for (int wallet = 0; wallet < SAMPLES / 10; wallet++) {
+                BigDecimal expected = new BigDecimal(0);
+                long total = 0;
+                for (int asset = 0; asset < 10; asset++) {
+                    BigDecimal price = randomUpstreamPrice(random);
+                    BigDecimal quantity = randomQuantity(random);
+                    expected = bigDecimalAddValue(expected, price, quantity);
+                    total = FixedPointValuation.addValue(total, ScaledDecimal.of(price), ScaledDecimal.of(quantity));
+                    assertEquals(expected, FixedPointValuation.toDecimal(total), () -> price + " * " + quantity);
+                }
+            }
+        }
+
+        @Test
+        void shouldStayOnLongArithmeticForStoredPrices() {
+            Random random = new Random(SEED);
+            for (int wallet = 0; wallet < SAMPLES / 10; wallet++) {
+                BigDecimal expected = new BigDecimal(0);
+                long total = 0;
+                for (int asset = 0; asset < 10; asset++) {
+                    BigDecimal price = randomStoredPrice(random);
+                    BigDecimal quantity = randomStoredPrice(random);
+                    expected = bigDecimalAddValue(expected, price, quantity);
+                    total = FixedPointValuation.addValue(total, price.unscaledValue().longValueExact(), price.scale(),
+                        quantity.unscaledValue().longValueExact(), quantity.scale());
+                    assertEquals(expected, FixedPointValuation.toDecimal(total));
+                }
+            }
+        }
+
+        @Test
+        void shouldRoundEachAdditionHalfUp() {
+            assertEquals(new BigDecimal("0.01"), FixedPointValuation.addValue(null, new BigDecimal("0.005"), BigDecimal.ONE));
+            assertEquals(new BigDecimal("-1.00"), FixedPointValuation.addValue(new BigDecimal("-1.00"), new BigDecimal("0.005"), BigDecimal.ONE));
+            assertEquals(new BigDecimal("1200.00"), FixedPointValuation.addValue(new BigDecimal("200.00"), new BigDecimal("1E+2"), BigDecimal.TEN));
+        }
+
+        @Test
+        void shouldFallBackToBigDecimalOutOfRange() {
+            BigDecimal price = new BigDecimal("98765432109876543210.123456789");
+            BigDecimal quantity = new BigDecimal("12345678901.123456789");
+
+            assertEquals(bigDecimalAddValue(new BigDecimal(0), price, quantity), FixedPointValuation.addValue(null, price, quantity));
+        }
+    }
+
+    /**
+     * Decimals with up to 18 digits and up to 12 decimals, signed, a tenth of them on the ties of the rounding
+     */
+    private static BigDecimal randomDecimal(Random random) {
+        int scale = random.nextInt(13);
+        if (random.nextInt(10) == 0) {
+            return new BigDecimal(BigInteger.valueOf(random.nextInt(1000) * 10L + 5), scale);
+        }
+        long unscaled = Math.floorMod(random.nextLong(), pow10(1 + random.nextInt(18)));
+        return new BigDecimal(BigInteger.valueOf(random.nextInt(20) == 0 ? -unscaled : unscaled), scale);
+    }
+
+    /**
+     * Prices as returned upstream, 20 significant digits with 16 decimals
+     */
+    private static BigDecimal randomUpstreamPrice(Random random) {
+        BigInteger unscaled = new BigInteger(80, random).mod(BigInteger.TEN.pow(12 + random.nextInt(9)));
+        return new BigDecimal(unscaled.add(BigInteger.ONE), 16);
+    }
+
+    /**
+     * Prices as stored, with 2 decimals, up to a million
+     */
+    private static BigDecimal randomStoredPrice(Random random) {
+        return new BigDecimal(BigInteger.valueOf(1 + Math.floorMod(random.nextLong(), pow10(2 + random.nextInt(7)))), 2);
+    }
+
+    private static BigDecimal randomQuantity(Random random) {
+        int scale = random.nextInt(9);
+        long unscaled = Math.floorMod(random.nextLong(), pow10(1 + random.nextInt(12)));
+        return new BigDecimal(BigInteger.valueOf(random.nextBoolean() ? unscaled : -unscaled), scale);
+    }
+
+    private static long pow10(int exponent) {
+        long value = 1;
+        for (int i = 0; i < exponent; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+
+    /**
+     * BigDecimal arithmetic replaced by {@link FixedPointValuation}
+     */
+    private static BigDecimal bigDecimalPerformance(BigDecimal latestPrice, BigDecimal initialPrice) {
+        return latestPrice.subtract(initialPrice)
+            .divide(initialPrice, 10, RoundingMode.HALF_UP)
+            .multiply(BigDecimal.valueOf(100))
+            .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal bigDecimalAddValue(BigDecimal total, BigDecimal price, BigDecimal quantity) {
+        return total.add(price.multiply(quantity)).setScale(2, RoundingMode.HALF_UP);
+    }
+}
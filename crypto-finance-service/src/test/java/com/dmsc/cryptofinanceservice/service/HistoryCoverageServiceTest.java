@@ -0,0 +1,163 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.coincapjavasdk.model.IntervalValue;
+import com.dmsc.cryptofinanceservice.model.dto.TimeRangeDto;
+import com.dmsc.cryptofinanceservice.model.entity.HistoryCoverageEntity;
+import com.dmsc.cryptofinanceservice.repository.HistoryCoverageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HistoryCoverageServiceTest {
+
+    private static final Instant T0 = Instant.parse("2024-12-01T10:00:00Z");
+
+    private HistoryCoverageRepository mockHistoryCoverageRepository;
+
+    private HistoryCoverageService classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        mockHistoryCoverageRepository = mock(HistoryCoverageRepository.class);
+        AtomicLong sequence = new AtomicLong();
+        when(mockHistoryCoverageRepository.save(any())).thenAnswer(invocation -> {
+            HistoryCoverageEntity entity = invocation.getArgument(0);
+            entity.setId(sequence.incrementAndGet());
+            return entity;
+        });
+        classUnderTest = new HistoryCoverageService(mockHistoryCoverageRepository);
+    }
+
+    private static HistoryCoverageEntity createRange(Long id, IntervalValue interval, Instant start, Instant end) {
+        HistoryCoverageEntity entity = new HistoryCoverageEntity();
+        entity.setId(id);
+        entity.setAssetId(1);
+        entity.setIntervalValue(interval);
+        entity.setRangeStart(start);
+        entity.setRangeEnd(end);
+        return entity;
+    }
+
+    private static Instant minutes(long minutes) {
+        return T0.plus(Duration.ofMinutes(minutes));
+    }
+
+    @Nested
+    class AddCoverage {
+
+        @Test
+        void shouldMergeOverlappingAndAdjacentRanges() {
+            classUnderTest.addCoverage(1, IntervalValue.M1, minutes(0), minutes(10));
+            classUnderTest.addCoverage(1, IntervalValue.M1, minutes(20), minutes(30));
+            classUnderTest.addCoverage(1, IntervalValue.M1, minutes(10), minutes(20));
+
+            assertTrue(classUnderTest.getMissingRange(1, minutes(0), minutes(30)).isEmpty());
+            assertTrue(classUnderTest.isCovered(1, minutes(29)));
+            assertFalse(classUnderTest.isCovered(1, minutes(30)));
+            verify(mockHistoryCoverageRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        }
+
+        @Test
+        void shouldNotStoreRangeAlreadyCovered() {
+            classUnderTest.addCoverage(1, IntervalValue.M1, minutes(0), minutes(10));
+            classUnderTest.addCoverage(1, IntervalValue.M1, minutes(2), minutes(8));
+
+            verify(mockHistoryCoverageRepository, times(1)).save(any());
+            verify(mockHistoryCoverageRepository, never()).deleteAllByIdInBatch(anyList());
+        }
+
+        @Test
+        void shouldLoadStoredRanges() {
+            when(mockHistoryCoverageRepository.findAll()).thenReturn(List.of(
+                createRange(1L, IntervalValue.M1, minutes(0), minutes(10)),
+                createRange(2L, IntervalValue.M1, minutes(5), minutes(15))
+            ));
+
+            assertFalse(classUnderTest.isCovered(1, minutes(14)));
+
+            assertEquals(2, classUnderTest.warmUpCoverage());
+
+            assertTrue(classUnderTest.isCovered(1, minutes(14)));
+            assertTrue(classUnderTest.getMissingRange(1, minutes(0), minutes(15)).isEmpty());
+        }
+
+        @Test
+        void shouldKeepRangesAddedBeforeWarmup() {
+            classUnderTest.addCoverage(1, IntervalValue.M1, minutes(10), minutes(20));
+            when(mockHistoryCoverageRepository.findAll()).thenReturn(List.of(
+                createRange(100L, IntervalValue.M1, minutes(0), minutes(12)),
+                createRange(101L, IntervalValue.M1, minutes(30), minutes(40))
+            ));
+
+            classUnderTest.warmUpCoverage();
+
+            assertTrue(classUnderTest.getMissingRange(1, minutes(0), minutes(20)).isEmpty());
+            assertEquals(Optional.of(new TimeRangeDto(minutes(20), minutes(30))), classUnderTest.getMissingRange(1, minutes(0), minutes(40)));
+        }
+    }
+
+    @Nested
+    class GetMissingRange {
+
+        @Test
+        void shouldReturnWholeRangeWhenNotCovered() {
+            assertEquals(Optional.of(new TimeRangeDto(minutes(0), minutes(10))), classUnderTest.getMissingRange(1, minutes(0), minutes(10)));
+        }
+
+        @Test
+        void shouldReturnGapAfterCoveredRange() {
+            classUnderTest.addCoverage(1, IntervalValue.M1, minutes(-10), minutes(4));
+
+            assertEquals(Optional.of(new TimeRangeDto(minutes(4), minutes(10))), classUnderTest.getMissingRange(1, minutes(0), minutes(10)));
+        }
+
+        @Test
+        void shouldMergeGapsIntoSingleRange() {
+            classUnderTest.addCoverage(1, IntervalValue.M1, minutes(0), minutes(2));
+            classUnderTest.addCoverage(1, IntervalValue.H1, minutes(4), minutes(6));
+
+            assertEquals(Optional.of(new TimeRangeDto(minutes(2), minutes(10))), classUnderTest.getMissingRange(1, minutes(0), minutes(10)));
+        }
+
+        @Test
+        void shouldNotUseRangesOfOtherAssets() {
+            classUnderTest.addCoverage(2, IntervalValue.M1, minutes(0), minutes(10));
+
+            assertEquals(Optional.of(new TimeRangeDto(minutes(0), minutes(10))), classUnderTest.getMissingRange(1, minutes(0), minutes(10)));
+        }
+    }
+
+    @Nested
+    class GetCoveredSteps {
+
+        @Test
+        void shouldKeepLargestStepOfAsset() {
+            classUnderTest.addCoverage(1, IntervalValue.M5, minutes(-60), minutes(60));
+            classUnderTest.addCoverage(1, IntervalValue.H1, minutes(-60), minutes(60));
+            classUnderTest.addCoverage(2, IntervalValue.M1, minutes(-60), minutes(60));
+            classUnderTest.addCoverage(3, IntervalValue.M1, minutes(-60), minutes(-30));
+
+            Map<Integer, Duration> result = classUnderTest.getCoveredSteps(List.of(1, 2, 3), T0);
+
+            assertEquals(Map.of(1, Duration.ofHours(1), 2, Duration.ofMinutes(1)), result);
+        }
+    }
+}
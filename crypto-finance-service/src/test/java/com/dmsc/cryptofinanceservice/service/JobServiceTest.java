@@ -8,14 +8,21 @@ import org.springframework.scheduling.TaskScheduler;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -114,4 +121,70 @@ class JobServiceTest {
         // Assert
         verify(mockCryptoPriceService).fetchWalletPrices(WALLET_ID);
     }
+
+    @Test
+    void testMarketPoller_SchedulesSinglePollerForAllWallets() {
+        // Arrange
+        JobServiceProperties properties = new JobServiceProperties();
+        properties.setJobDelayStartTime(Instant.ofEpochMilli(0));
+        properties.setMode(JobServiceProperties.Mode.MARKET_POLLER);
+        classUnderTest = new JobService(mockCryptoPriceService, properties);
+        classUnderTest.setTaskScheduler(mockTaskScheduler);
+        ScheduledFuture mockScheduledFuture = mock(ScheduledFuture.class);
+        when(mockTaskScheduler.scheduleAtFixedRate(any(), any(), any())).thenReturn(mockScheduledFuture);
+
+        // Act
+        classUnderTest.addOrUpdateJob(WALLET_ID, Duration.ofMinutes(5));
+        classUnderTest.addOrUpdateJob(UUID.randomUUID(), Duration.ofMinutes(10));
+
+        // Assert
+        verify(mockTaskScheduler, times(1)).scheduleAtFixedRate(any(Runnable.class), any(Instant.class), eq(properties.getMarketPollerTick()));
+    }
+
+    @Test
+    void testMarketPoller_OnlyFetchesDueWallets() {
+        // Arrange
+        JobServiceProperties properties = new JobServiceProperties();
+        properties.setMode(JobServiceProperties.Mode.MARKET_POLLER);
+        classUnderTest = new JobService(mockCryptoPriceService, properties);
+        classUnderTest.setTaskScheduler(mockTaskScheduler);
+
+        UUID otherWalletId = UUID.randomUUID();
+        classUnderTest.addOrUpdateJob(WALLET_ID, Duration.ofMinutes(1));
+        classUnderTest.addOrUpdateJob(otherWalletId, Duration.ofMinutes(10));
+        Instant now = Instant.now();
+
+        // Act
+        classUnderTest.pollDueWallets(now);
+        classUnderTest.pollDueWallets(now.plus(Duration.ofMinutes(1)));
+
+        // Assert
+        ArgumentCaptor<Collection<UUID>> walletIdsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(mockCryptoPriceService, times(2)).fetchMarketPrices(walletIdsCaptor.capture());
+        assertEquals(2, walletIdsCaptor.getAllValues().get(0).size());
+        assertEquals(List.of(WALLET_ID), walletIdsCaptor.getAllValues().get(1));
+        verify(mockCryptoPriceService, never()).fetchWalletPrices(any());
+    }
+
+    @Test
+    void testVirtualThreads_RunsScheduledWalletJob() throws InterruptedException {
+        // Arrange
+        JobServiceProperties properties = new JobServiceProperties();
+        properties.setJobDelayStartTime(Instant.ofEpochMilli(0));
+        properties.setVirtualThreads(true);
+        classUnderTest = new JobService(mockCryptoPriceService, properties);
+
+        CountDownLatch executed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            assertTrue(Thread.currentThread().isVirtual());
+            executed.countDown();
+            return null;
+        }).when(mockCryptoPriceService).fetchWalletPrices(WALLET_ID);
+
+        // Act
+        classUnderTest.addOrUpdateJob(WALLET_ID, Duration.ofMinutes(10));
+
+        // Assert
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+    }
 }
@@ -0,0 +1,80 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatestPriceCachingServiceTest {
+
+    private LatestPriceCachingService classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        classUnderTest = new LatestPriceCachingService();
+    }
+
+    @Test
+    void shouldReturnEmptyWhenAssetIsUnknown() {
+        assertTrue(classUnderTest.getLatestPrice("bitcoin").isEmpty());
+        assertTrue(classUnderTest.getLatestPrice(null).isEmpty());
+    }
+
+    @Test
+    void shouldKeepNewestPrice() {
+        Instant now = Instant.now();
+        classUnderTest.updateLatestPrice(getCryptoItemDto(BigDecimal.TEN, now));
+        classUnderTest.updateLatestPrice(getCryptoItemDto(BigDecimal.ONE, now.minusSeconds(60)));
+
+        Optional<CryptoItemDto> result = classUnderTest.getLatestPrice("bitcoin");
+
+        assertTrue(result.isPresent());
+        assertEquals(BigDecimal.TEN, result.get().getPrice());
+    }
+
+    @Test
+    void shouldReplaceWithNewerPrice() {
+        Instant now = Instant.now();
+        classUnderTest.updateLatestPrice(getCryptoItemDto(BigDecimal.ONE, now.minusSeconds(60)));
+        classUnderTest.updateLatestPrice(getCryptoItemDto(BigDecimal.TEN, now));
+
+        assertEquals(BigDecimal.TEN, classUnderTest.getLatestPrice("bitcoin").orElseThrow().getPrice());
+    }
+
+    @Test
+    void shouldIgnoreItemsWithoutIdOrPrice() {
+        classUnderTest.updateLatestPrice(CryptoItemDto.builder().price(BigDecimal.TEN).build());
+        classUnderTest.updateLatestPrice(CryptoItemDto.builder().id("bitcoin").build());
+
+        assertTrue(classUnderTest.getLatestPrice("bitcoin").isEmpty());
+    }
+
+    @Test
+    void shouldNotifyListenersOfAcceptedPricesOnly() {
+        List<CryptoItemDto> notified = new ArrayList<>();
+        classUnderTest.addListener(notified::add);
+        Instant now = Instant.now();
+        CryptoItemDto latest = getCryptoItemDto(BigDecimal.TEN, now);
+        classUnderTest.updateLatestPrice(latest);
+        classUnderTest.updateLatestPrice(getCryptoItemDto(BigDecimal.ONE, now.minusSeconds(60)));
+
+        assertEquals(List.of(latest), notified);
+    }
+
+    private static CryptoItemDto getCryptoItemDto(BigDecimal price, Instant timestamp) {
+        return CryptoItemDto.builder()
+            .id("bitcoin")
+            .symbol("BTC")
+            .price(price)
+            .timestamp(timestamp)
+            .build();
+    }
+}
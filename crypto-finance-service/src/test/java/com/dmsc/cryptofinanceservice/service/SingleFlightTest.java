@@ -0,0 +1,47 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void shouldShareComputationInFlight() {
+        AtomicInteger computations = new AtomicInteger();
+        Sinks.One<String> result = Sinks.one();
+
+        CompletableFuture<String> first = singleFlight.execute("key", () -> {
+            computations.incrementAndGet();
+            return result.asMono();
+        }).toFuture();
+        CompletableFuture<String> second = singleFlight.execute("key", () -> {
+            computations.incrementAndGet();
+            return Mono.just("other");
+        }).toFuture();
+        result.tryEmitValue("value");
+
+        assertEquals("value", first.join());
+        assertEquals("value", second.join());
+        assertEquals(1, computations.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void shouldStartNewComputationOnceTerminated() {
+        AtomicInteger computations = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("key", () -> Mono.<String>error(new IllegalStateException("error"))).block());
+        assertEquals("1", singleFlight.execute("key", () -> Mono.just(String.valueOf(computations.incrementAndGet()))).block());
+        assertEquals("2", singleFlight.execute("key", () -> Mono.just(String.valueOf(computations.incrementAndGet()))).block());
+        assertEquals("3", singleFlight.execute("other", () -> Mono.just(String.valueOf(computations.incrementAndGet()))).block());
+    }
+}
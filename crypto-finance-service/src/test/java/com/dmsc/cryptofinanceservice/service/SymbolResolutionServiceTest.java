@@ -0,0 +1,169 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.model.entity.SymbolAssetEntity;
+import com.dmsc.cryptofinanceservice.properties.WalletRequestProperties;
+import com.dmsc.cryptofinanceservice.repository.SymbolAssetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SymbolResolutionServiceTest {
+
+    private static final CacheCryptoDetails BITCOIN = CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").name("Bitcoin").symbol("BTC").build();
+    private static final CacheCryptoDetails ETHEREUM = CacheCryptoDetails.builder().assetId(2).externalId("ethereum").name("Ethereum").symbol("ETH").build();
+
+    private SymbolAssetRepository mockSymbolAssetRepository;
+    private AssetService mockAssetService;
+    private CryptoProvider mockCryptoProvider;
+
+    private SymbolResolutionService classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        mockSymbolAssetRepository = mock(SymbolAssetRepository.class);
+        mockAssetService = mock(AssetService.class);
+        mockCryptoProvider = mock(CryptoProvider.class);
+        when(mockSymbolAssetRepository.insertIfAbsent(anyString(), anyInt())).thenReturn(1);
+        classUnderTest = new SymbolResolutionService(mockSymbolAssetRepository, mockAssetService, mockCryptoProvider, new WalletRequestProperties());
+    }
+
+    @Nested
+    class ResolveSymbols {
+
+        @Test
+        void shouldResolveMappedSymbolsWithoutUpstreamRequest() {
+            when(mockSymbolAssetRepository.findAllById(any())).thenReturn(List.of(new SymbolAssetEntity("BTC", 1)));
+            when(mockAssetService.findByAssetId(1)).thenReturn(Optional.of(BITCOIN));
+
+            Map<String, CacheCryptoDetails> result = classUnderTest.resolveSymbols(List.of("btc"));
+
+            assertEquals(Map.of("btc", BITCOIN), result);
+            verify(mockCryptoProvider, never()).getAssetsSnapshot(anyInt());
+            verify(mockSymbolAssetRepository, never()).insertIfAbsent(anyString(), anyInt());
+        }
+
+        @Test
+        void shouldResolveCachedSymbolWithoutMappingIt() {
+            when(mockAssetService.findExternalIdBySymbol("BTC")).thenReturn(Optional.of("bitcoin"));
+            when(mockAssetService.findByExternalId("bitcoin")).thenReturn(Optional.of(BITCOIN));
+
+            Map<String, CacheCryptoDetails> result = classUnderTest.resolveSymbols(List.of("BTC"));
+
+            assertEquals(Map.of("BTC", BITCOIN), result);
+            // The cached asset is not known to be the highest ranked one holding the symbol
+            verify(mockSymbolAssetRepository, never()).insertIfAbsent(anyString(), anyInt());
+            verify(mockCryptoProvider, never()).getAssetsSnapshot(anyInt());
+        }
+
+        @Test
+        void shouldResolveRemainingSymbolsWithSingleSnapshot() {
+            when(mockAssetService.findExternalIdBySymbol(anyString())).thenReturn(Optional.empty());
+            when(mockCryptoProvider.getAssetsSnapshot(anyInt())).thenReturn(Mono.just(List.of(
+                CryptoItemDto.builder().id("bitcoin").name("Bitcoin").symbol("BTC").price(BigDecimal.TEN).build(),
+                CryptoItemDto.builder().id("ethereum").name("Ethereum").symbol("ETH").price(BigDecimal.ONE).build(),
+                CryptoItemDto.builder().id("bitcoin-token").name("Bitcoin Token").symbol("BTC").price(BigDecimal.ONE).build()
+            )));
+            when(mockAssetService.getOrCreateAsset("bitcoin", "Bitcoin", "BTC")).thenReturn(BITCOIN);
+            when(mockAssetService.getOrCreateAsset("ethereum", "Ethereum", "ETH")).thenReturn(ETHEREUM);
+
+            Map<String, CacheCryptoDetails> result = classUnderTest.resolveSymbols(List.of("BTC", "ETH", "UNKNOWN"));
+
+            assertEquals(Map.of("BTC", BITCOIN, "ETH", ETHEREUM), result);
+            verify(mockCryptoProvider, times(1)).getAssetsSnapshot(anyInt());
+            verify(mockCryptoProvider, never()).getAssetsBySymbols(anyList());
+            verify(mockSymbolAssetRepository).insertIfAbsent("BTC", 1);
+            verify(mockSymbolAssetRepository).insertIfAbsent("ETH", 2);
+        }
+
+        @Test
+        void shouldKeepAssetMappedConcurrently() {
+            when(mockAssetService.findExternalIdBySymbol("BTC")).thenReturn(Optional.empty());
+            when(mockCryptoProvider.getAssetsSnapshot(anyInt())).thenReturn(Mono.just(List.of(
+                CryptoItemDto.builder().id("bitcoin-token").name("Bitcoin Token").symbol("BTC").price(BigDecimal.ONE).build())));
+            when(mockAssetService.getOrCreateAsset("bitcoin-token", "Bitcoin Token", "BTC"))
+                .thenReturn(CacheCryptoDetails.builder().assetId(3).externalId("bitcoin-token").build());
+            when(mockSymbolAssetRepository.insertIfAbsent("BTC", 3)).thenReturn(0);
+            when(mockSymbolAssetRepository.findById("BTC")).thenReturn(Optional.of(new SymbolAssetEntity("BTC", 1)));
+            when(mockAssetService.findByAssetId(1)).thenReturn(Optional.of(BITCOIN));
+
+            Map<String, CacheCryptoDetails> result = classUnderTest.resolveSymbols(List.of("BTC"));
+
+            assertEquals(Map.of("BTC", BITCOIN), result);
+        }
+
+        @Test
+        void shouldLeaveSymbolsUnresolvedWhenSnapshotFails() {
+            when(mockAssetService.findExternalIdBySymbol(anyString())).thenReturn(Optional.empty());
+            when(mockCryptoProvider.getAssetsSnapshot(anyInt())).thenReturn(Mono.error(new IllegalStateException("503")));
+
+            Map<String, CacheCryptoDetails> result = classUnderTest.resolveSymbols(List.of("BTC"));
+
+            assertEquals(Map.of(), result);
+            verify(mockSymbolAssetRepository, never()).insertIfAbsent(anyString(), anyInt());
+        }
+
+        @Test
+        void shouldRequestSharedSnapshotOnceForManyResolutions() {
+            when(mockAssetService.findExternalIdBySymbol(anyString())).thenReturn(Optional.empty());
+            AtomicInteger requests = new AtomicInteger();
+            List<CryptoItemDto> snapshot = List.of(
+                CryptoItemDto.builder().id("bitcoin").name("Bitcoin").symbol("BTC").price(BigDecimal.TEN).build(),
+                CryptoItemDto.builder().id("ethereum").name("Ethereum").symbol("ETH").price(BigDecimal.ONE).build());
+            when(mockCryptoProvider.getAssetsSnapshot(anyInt())).thenReturn(Mono.fromCallable(() -> {
+                requests.incrementAndGet();
+                return snapshot;
+            }));
+            when(mockAssetService.getOrCreateAsset("bitcoin", "Bitcoin", "BTC")).thenReturn(BITCOIN);
+            when(mockAssetService.getOrCreateAsset("ethereum", "Ethereum", "ETH")).thenReturn(ETHEREUM);
+            Supplier<List<CryptoItemDto>> marketSnapshot = classUnderTest.getSharedMarketSnapshot();
+
+            Map<String, CacheCryptoDetails> first = classUnderTest.resolveSymbols(List.of("BTC"), marketSnapshot);
+            Map<String, CacheCryptoDetails> second = classUnderTest.resolveSymbols(List.of("ETH"), marketSnapshot);
+
+            assertEquals(Map.of("BTC", BITCOIN), first);
+            assertEquals(Map.of("ETH", ETHEREUM), second);
+            assertEquals(1, requests.get());
+        }
+    }
+
+    @Nested
+    class FindMappedAsset {
+
+        @Test
+        void shouldFindMappedAssetIgnoringCase() {
+            when(mockSymbolAssetRepository.findById("BTC")).thenReturn(Optional.of(new SymbolAssetEntity("BTC", 1)));
+            when(mockAssetService.findByAssetId(1)).thenReturn(Optional.of(BITCOIN));
+
+            assertEquals(Optional.of(BITCOIN), classUnderTest.findMappedAsset("btc"));
+        }
+
+        @Test
+        void shouldNotResolveUnmappedSymbolFromCache() {
+            when(mockSymbolAssetRepository.findById("BTC")).thenReturn(Optional.empty());
+
+            assertEquals(Optional.empty(), classUnderTest.findMappedAsset("BTC"));
+            verify(mockAssetService, never()).findExternalIdBySymbol(any());
+        }
+    }
+}
@@ -3,22 +3,35 @@ package com.dmsc.cryptofinanceservice.service;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.dmsc.cryptofinanceservice.exception.WalletNotFoundException;
+import com.dmsc.cryptofinanceservice.model.dto.AssetPriceHistoryDto;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
 import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
 import com.dmsc.cryptofinanceservice.model.dto.WalletDto;
 import com.dmsc.cryptofinanceservice.model.rest.CreateWalletRequest;
 import com.dmsc.cryptofinanceservice.model.rest.CreateWalletResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletHistoryPointResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletImportResponse;
 import com.dmsc.cryptofinanceservice.model.rest.WalletItem;
 import com.dmsc.cryptofinanceservice.model.rest.WalletResponse;
+import com.dmsc.cryptofinanceservice.model.rest.WalletValuationResponse;
+import com.dmsc.cryptofinanceservice.properties.WalletRequestProperties;
 import org.junit.jupiter.api.*;
 import org.mockito.*;
 import org.springframework.http.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 class WalletAggregatorServiceTest {
 
@@ -26,14 +39,22 @@ class WalletAggregatorServiceTest {
     private WalletService walletService;
     private WalletAssetService walletAssetService;
     private CryptoPriceService cryptoPriceService;
+    private LatestPriceCachingService latestPriceCachingService;
+    private WalletValuationService walletValuationService;
+    private WalletImportService walletImportService;
 
     @BeforeEach
     void setUp() {
         walletService = mock(WalletService.class);
         walletAssetService = mock(WalletAssetService.class);
         cryptoPriceService = mock(CryptoPriceService.class);
+        walletImportService = mock(WalletImportService.class);
 
-        walletAggregatorService = new WalletAggregatorService(walletService, walletAssetService, cryptoPriceService);
+        latestPriceCachingService = new LatestPriceCachingService();
+        walletValuationService = new WalletValuationService(latestPriceCachingService);
+
+        walletAggregatorService = new WalletAggregatorService(walletService, walletAssetService, cryptoPriceService, walletValuationService,
+            walletImportService, new WalletRequestProperties());
     }
 
     @Nested
@@ -102,6 +123,19 @@ class WalletAggregatorServiceTest {
             assertNotNull(response.getBody());
             assertEquals(walletDto.getId(), response.getBody().getWalletId());
         }
+
+        @Test
+        void shouldReturnBadRequestWhenNothingImported() {
+            ByteArrayInputStream body = new ByteArrayInputStream("BTC,abc,1".getBytes());
+            Duration frequency = Duration.ofHours(1);
+            WalletImportResponse importResponse = WalletImportResponse.builder().rejectedLines(1).errors(List.of("Line 1: invalid quantity")).build();
+            when(walletImportService.importWallet(body, frequency)).thenReturn(importResponse);
+
+            ResponseEntity<WalletImportResponse> response = walletAggregatorService.importWallet(body, frequency);
+
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            assertEquals(importResponse, response.getBody());
+        }
     }
 
     @Nested
@@ -128,10 +162,10 @@ class WalletAggregatorServiceTest {
                 .timestamp(Instant.now())
                 .build();
 
-            when(cryptoPriceService.getAssetLatestPrice(anyString())).thenReturn(cryptoItemDto);
+            when(cryptoPriceService.getAssetsLatestPrice(anyCollection(), isNull())).thenReturn(Map.of("bitcoin", cryptoItemDto));
 
             // Execute method
-            ResponseEntity<WalletResponse> response = walletAggregatorService.fetchWalletInfo(walletId.toString(), date);
+            ResponseEntity<WalletResponse> response = walletAggregatorService.fetchWalletInfo(walletId.toString(), date, Optional.empty()).block();
 
             // Capture walletId argument
             ArgumentCaptor<UUID> walletIdCaptor = ArgumentCaptor.forClass(UUID.class);
@@ -146,6 +180,304 @@ class WalletAggregatorServiceTest {
             assertNotNull(response.getBody());
             assertEquals(cryptoItemDto.getPrice().setScale(2, RoundingMode.HALF_UP), response.getBody().getTotal());
         }
+
+        @Test
+        void shouldFetchOnlyMissingAssetsByDate() {
+            // Prepare mock data
+            UUID walletId = UUID.randomUUID();
+            Instant date = Instant.parse("2024-12-01T10:00:00Z");
+            WalletDto walletDto = new WalletDto();
+            walletDto.setId(walletId);
+
+            WalletAssetDto bitcoin = new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.valueOf(100));
+            WalletAssetDto ethereum = new WalletAssetDto(2L, "ethereum", "ETH", "Ethereum", BigDecimal.ONE, BigDecimal.valueOf(100));
+            when(walletService.findWalletById(walletId)).thenReturn(walletDto);
+            when(walletAssetService.findWalletAssetsByWalletId(walletId)).thenReturn(List.of(bitcoin, ethereum));
+
+            CryptoItemDto bitcoinPrice = CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.valueOf(110)).build();
+            CryptoItemDto ethereumPrice = CryptoItemDto.builder().id("ethereum").symbol("ETH").price(BigDecimal.valueOf(90)).build();
+            when(cryptoPriceService.getAssetsLatestPrice(anyCollection(), eq(date))).thenReturn(Map.of("bitcoin", bitcoinPrice));
+            when(cryptoPriceService.fetchWalletPricesAsync(null, List.of(ethereum), date)).thenReturn(Flux.just(ethereumPrice));
+
+            // Execute method
+            ResponseEntity<WalletResponse> response = walletAggregatorService.fetchWalletInfo(walletId.toString(), Optional.of(date), Optional.empty()).block();
+
+            // Validate response
+            assertNotNull(response.getBody());
+            assertEquals(new BigDecimal("200.00"), response.getBody().getTotal());
+            assertEquals("BTC", response.getBody().getBestAsset());
+            assertEquals("ETH", response.getBody().getWorstAsset());
+            verify(cryptoPriceService, times(1)).getAssetsLatestPrice(anyCollection(), eq(date));
+            verify(cryptoPriceService, never()).getAssetLatestPrice(anyString(), any());
+            verify(cryptoPriceService, never()).fetchWalletPricesManuallyTriggeredByDate(any(), anyList(), any());
+        }
+
+        @Test
+        void shouldShareConcurrentReadsOfSameWalletAndDate() {
+            UUID walletId = UUID.randomUUID();
+            Instant date = Instant.parse("2024-12-01T10:00:00Z");
+            WalletDto walletDto = new WalletDto();
+            walletDto.setId(walletId);
+
+            WalletAssetDto bitcoin = new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.valueOf(100));
+            when(walletService.findWalletById(walletId)).thenReturn(walletDto);
+            when(walletAssetService.findWalletAssetsByWalletId(walletId)).thenReturn(List.of(bitcoin));
+            when(cryptoPriceService.getAssetsLatestPrice(anyCollection(), eq(date))).thenReturn(Map.of());
+            Sinks.One<CryptoItemDto> upstream = Sinks.one();
+            when(cryptoPriceService.fetchWalletPricesAsync(null, List.of(bitcoin), date)).thenReturn(upstream.asMono().flux());
+
+            // Both requests arrive while the missing price is being fetched
+            CompletableFuture<ResponseEntity<WalletResponse>> first = walletAggregatorService.fetchWalletInfo(walletId.toString(), Optional.of(date), Optional.empty()).toFuture();
+            CompletableFuture<ResponseEntity<WalletResponse>> second = walletAggregatorService.fetchWalletInfo(walletId.toString(), Optional.of(date), Optional.empty()).toFuture();
+            verify(cryptoPriceService, timeout(1000)).fetchWalletPricesAsync(null, List.of(bitcoin), date);
+            upstream.tryEmitValue(CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.valueOf(110)).build());
+
+            assertEquals(new BigDecimal("110.00"), first.join().getBody().getTotal());
+            assertSame(first.join(), second.join());
+            verify(walletService, times(1)).findWalletById(walletId);
+            verify(cryptoPriceService, times(1)).fetchWalletPricesAsync(any(), anyList(), any());
+        }
+
+        @Test
+        void shouldFailWithoutRegisteringWhenMissingPriceIsNotFetched() {
+            UUID walletId = UUID.randomUUID();
+            WalletDto walletDto = new WalletDto();
+            walletDto.setId(walletId);
+
+            WalletAssetDto bitcoin = new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.valueOf(100));
+            WalletAssetDto ethereum = new WalletAssetDto(2L, "ethereum", "ETH", "Ethereum", BigDecimal.ONE, BigDecimal.valueOf(100));
+            when(walletService.findWalletById(walletId)).thenReturn(walletDto);
+            when(walletAssetService.findWalletAssetsByWalletId(walletId)).thenReturn(List.of(bitcoin, ethereum));
+            CryptoItemDto bitcoinPrice = CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.valueOf(110)).build();
+            when(cryptoPriceService.getAssetsLatestPrice(anyCollection(), isNull())).thenReturn(Map.of("bitcoin", bitcoinPrice));
+            when(cryptoPriceService.fetchWalletPricesAsync(null, List.of(ethereum), null)).thenReturn(Flux.empty());
+
+            Mono<ResponseEntity<WalletResponse>> response = walletAggregatorService.fetchWalletInfo(walletId.toString(), Optional.empty(), Optional.empty());
+
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class, response::block);
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+            assertEquals("No price for assets [ETH]", exception.getReason());
+            assertTrue(walletValuationService.getValuation(walletId).isEmpty());
+        }
+
+        @Test
+        void shouldFailWithNotFoundOnSubscription() {
+            UUID walletId = UUID.randomUUID();
+            when(walletService.findWalletById(walletId)).thenThrow(new WalletNotFoundException("Wallet with id " + walletId + " not found"));
+
+            // Nothing is loaded until the response is subscribed
+            Mono<ResponseEntity<WalletResponse>> response = walletAggregatorService.fetchWalletInfo(walletId.toString(), Optional.empty(), Optional.empty());
+            verify(walletService, never()).findWalletById(any());
+
+            assertThrows(WalletNotFoundException.class, response::block);
+        }
+
+        @Test
+        void shouldReturnMaterializedValuationUpdatedByIngestedPrices() {
+            // Prepare mock data
+            UUID walletId = UUID.randomUUID();
+            WalletDto walletDto = new WalletDto();
+            walletDto.setId(walletId);
+
+            WalletAssetDto bitcoin = new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.valueOf(100));
+            WalletAssetDto ethereum = new WalletAssetDto(2L, "ethereum", "ETH", "Ethereum", BigDecimal.TEN, BigDecimal.valueOf(100));
+            when(walletService.findWalletById(walletId)).thenReturn(walletDto);
+            when(walletAssetService.findWalletAssetsByWalletId(walletId)).thenReturn(List.of(bitcoin, ethereum));
+
+            Instant now = Instant.now();
+            CryptoItemDto bitcoinPrice = CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.valueOf(110)).timestamp(now).build();
+            CryptoItemDto ethereumPrice = CryptoItemDto.builder().id("ethereum").symbol("ETH").price(BigDecimal.valueOf(90)).timestamp(now).build();
+            when(cryptoPriceService.getAssetsLatestPrice(anyCollection(), isNull())).thenReturn(Map.of("bitcoin", bitcoinPrice, "ethereum", ethereumPrice));
+
+            // First request values the wallet
+            WalletResponse first = walletAggregatorService.fetchWalletInfo(walletId.toString(), Optional.empty(), Optional.empty()).block().getBody();
+            assertNotNull(first);
+            assertEquals(new BigDecimal("1010.00"), first.getTotal());
+            assertEquals("BTC", first.getBestAsset());
+
+            // A newer ethereum price is ingested
+            latestPriceCachingService.updateLatestPrice(CryptoItemDto.builder().id("ethereum").symbol("ETH").price(BigDecimal.valueOf(150)).timestamp(now.plusSeconds(60)).build());
+
+            ResponseEntity<WalletResponse> response = walletAggregatorService.fetchWalletInfo(walletId.toString(), Optional.empty(), Optional.empty()).block();
+
+            // Validate response, served without looking up the wallet again
+            assertNotNull(response.getBody());
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(new BigDecimal("1610.00"), response.getBody().getTotal());
+            assertEquals("ETH", response.getBody().getBestAsset());
+            assertEquals(new BigDecimal("50.00"), response.getBody().getBestPerformance());
+            assertEquals("BTC", response.getBody().getWorstAsset());
+            verify(walletService, times(1)).findWalletById(walletId);
+            verify(cryptoPriceService, times(1)).getAssetsLatestPrice(anyCollection(), isNull());
+        }
+
+        @Test
+        void shouldReturnNotModifiedWhileVersionMatches() {
+            // Prepare mock data
+            UUID walletId = UUID.randomUUID();
+            WalletDto walletDto = new WalletDto();
+            walletDto.setId(walletId);
+
+            WalletAssetDto bitcoin = new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.valueOf(100));
+            when(walletService.findWalletById(walletId)).thenReturn(walletDto);
+            when(walletAssetService.findWalletAssetsByWalletId(walletId)).thenReturn(List.of(bitcoin));
+
+            Instant now = Instant.now();
+            CryptoItemDto bitcoinPrice = CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.valueOf(110)).timestamp(now).build();
+            when(cryptoPriceService.getAssetsLatestPrice(anyCollection(), isNull())).thenReturn(Map.of("bitcoin", bitcoinPrice));
+
+            // First request values the wallet and returns its version
+            String eTag = walletAggregatorService.fetchWalletInfo(walletId.toString(), Optional.empty(), Optional.empty()).block().getHeaders().getETag();
+            assertNotNull(eTag);
+
+            ResponseEntity<WalletResponse> notModified = walletAggregatorService.fetchWalletInfo(walletId.toString(), Optional.empty(),
+                Optional.of("\"other\", W/" + eTag)).block();
+            assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+            assertNull(notModified.getBody());
+
+            // A newer bitcoin price is ingested
+            latestPriceCachingService.updateLatestPrice(CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.valueOf(120)).timestamp(now.plusSeconds(60)).build());
+
+            ResponseEntity<WalletResponse> modified = walletAggregatorService.fetchWalletInfo(walletId.toString(), Optional.empty(), Optional.of(eTag)).block();
+            assertEquals(HttpStatus.OK, modified.getStatusCode());
+            assertNotEquals(eTag, modified.getHeaders().getETag());
+            assertEquals(new BigDecimal("120.00"), modified.getBody().getTotal());
+            verify(walletService, times(1)).findWalletById(walletId);
+        }
+    }
+
+    @Nested
+    class FetchWalletsInfoTests {
+
+        @Test
+        void shouldValueWalletsWithSingleLookupAndFetchMissingPricesOnce() {
+            // Prepare mock data, both wallets hold ethereum, without stored price
+            UUID firstWalletId = UUID.randomUUID();
+            UUID secondWalletId = UUID.randomUUID();
+            UUID unknownWalletId = UUID.randomUUID();
+            List<UUID> walletIds = List.of(firstWalletId, secondWalletId, unknownWalletId);
+
+            WalletAssetDto bitcoin = new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.valueOf(100));
+            WalletAssetDto firstEthereum = new WalletAssetDto(2L, "ethereum", "ETH", "Ethereum", BigDecimal.ONE, BigDecimal.valueOf(100));
+            WalletAssetDto secondEthereum = new WalletAssetDto(3L, "ethereum", "ETH", "Ethereum", BigDecimal.TEN, BigDecimal.valueOf(100));
+            when(walletService.findExistingWalletIds(walletIds)).thenReturn(Set.of(firstWalletId, secondWalletId));
+            when(walletAssetService.findWalletAssetsByWalletIds(Set.of(firstWalletId, secondWalletId)))
+                .thenReturn(Map.of(firstWalletId, List.of(bitcoin), secondWalletId, List.of(bitcoin, firstEthereum, secondEthereum)));
+
+            Instant now = Instant.now();
+            CryptoItemDto bitcoinPrice = CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.valueOf(110)).timestamp(now).build();
+            CryptoItemDto ethereumPrice = CryptoItemDto.builder().id("ethereum").symbol("ETH").price(BigDecimal.valueOf(90)).timestamp(now).build();
+            when(cryptoPriceService.getAssetsLatestPrice(anyCollection(), isNull())).thenReturn(Map.of("bitcoin", bitcoinPrice));
+            when(cryptoPriceService.fetchWalletPricesAsync(isNull(), eq(List.of(firstEthereum)), isNull())).thenReturn(Flux.just(ethereumPrice));
+
+            // Execute method
+            List<WalletValuationResponse> responses = walletAggregatorService.fetchWalletsInfo(
+                    List.of(firstWalletId.toString(), "invalid", secondWalletId.toString(), unknownWalletId.toString(), firstWalletId.toString()), Optional.empty())
+                .collectList()
+                .block();
+
+            // Validate responses, invalid ids first, then the wallets as they are valued
+            assertNotNull(responses);
+            assertEquals(4, responses.size());
+            assertEquals("invalid", responses.get(0).getWalletId());
+            assertNotNull(responses.get(0).getError());
+
+            assertEquals(firstWalletId.toString(), responses.get(1).getWalletId());
+            assertEquals(new BigDecimal("110.00"), responses.get(1).getWallet().getTotal());
+
+            assertEquals(unknownWalletId.toString(), responses.get(2).getWalletId());
+            assertNull(responses.get(2).getWallet());
+            assertNotNull(responses.get(2).getError());
+
+            assertEquals(secondWalletId.toString(), responses.get(3).getWalletId());
+            assertEquals(new BigDecimal("1100.00"), responses.get(3).getWallet().getTotal());
+            assertEquals("BTC", responses.get(3).getWallet().getBestAsset());
+            assertEquals("ETH", responses.get(3).getWallet().getWorstAsset());
+
+            verify(cryptoPriceService, times(1)).getAssetsLatestPrice(anyCollection(), isNull());
+            verify(cryptoPriceService, times(1)).fetchWalletPricesAsync(any(), anyList(), any());
+            verify(walletService, never()).findWalletById(any());
+        }
+
+        @Test
+        void shouldReturnMaterializedValuationsAndLoadRemainingWalletsInChunks() {
+            WalletRequestProperties walletRequestProperties = new WalletRequestProperties();
+            walletRequestProperties.setBulkWalletsPerQuery(1);
+            WalletAggregatorService classUnderTest = new WalletAggregatorService(walletService, walletAssetService, cryptoPriceService,
+                new WalletValuationService(latestPriceCachingService), walletImportService, walletRequestProperties);
+
+            UUID valuedWalletId = UUID.randomUUID();
+            UUID firstWalletId = UUID.randomUUID();
+            UUID secondWalletId = UUID.randomUUID();
+            WalletAssetDto bitcoin = new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.valueOf(100));
+            CryptoItemDto bitcoinPrice = CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.valueOf(110)).timestamp(Instant.now()).build();
+            when(walletService.findExistingWalletIds(anyCollection())).thenAnswer(invocation -> new HashSet<>(invocation.<Collection<UUID>>getArgument(0)));
+            when(walletAssetService.findWalletAssetsByWalletIds(anyCollection())).thenAnswer(invocation -> invocation.<Collection<UUID>>getArgument(0).stream()
+                .collect(Collectors.toMap(walletId -> walletId, walletId -> List.of(bitcoin))));
+            when(cryptoPriceService.getAssetsLatestPrice(anyCollection(), isNull())).thenReturn(Map.of("bitcoin", bitcoinPrice));
+
+            // A wallet already valued
+            classUnderTest.fetchWalletsInfo(List.of(valuedWalletId.toString()), Optional.empty()).collectList().block();
+            clearInvocations(walletService, walletAssetService, cryptoPriceService);
+
+            // Execute method
+            List<WalletValuationResponse> responses = classUnderTest.fetchWalletsInfo(
+                List.of(firstWalletId.toString(), valuedWalletId.toString(), secondWalletId.toString()), Optional.empty()).collectList().block();
+
+            // Validate responses, the materialized valuation first, each remaining wallet on its own chunk
+            assertNotNull(responses);
+            assertEquals(List.of(valuedWalletId.toString(), firstWalletId.toString(), secondWalletId.toString()),
+                responses.stream().map(WalletValuationResponse::getWalletId).toList());
+            responses.forEach(response -> assertEquals(new BigDecimal("110.00"), response.getWallet().getTotal()));
+            verify(walletService, times(2)).findExistingWalletIds(anyCollection());
+            verify(walletAssetService, times(2)).findWalletAssetsByWalletIds(anyCollection());
+        }
+    }
+
+    @Nested
+    class FetchWalletHistoryTests {
+
+        @Test
+        void shouldValueEachPointFromHistoryLoadedOnce() {
+            UUID walletId = UUID.randomUUID();
+            WalletDto walletDto = new WalletDto();
+            walletDto.setId(walletId);
+            Instant start = Instant.parse("2024-12-01T10:00:00Z");
+            Instant end = start.plus(Duration.ofHours(2));
+
+            WalletAssetDto bitcoin = new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.valueOf(100));
+            when(walletService.findWalletById(walletId)).thenReturn(walletDto);
+            when(walletAssetService.findWalletAssetsByWalletId(walletId)).thenReturn(List.of(bitcoin));
+            List<CryptoItemDto> prices = List.of(
+                CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.valueOf(110)).timestamp(start).build(),
+                CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.valueOf(120)).timestamp(start.plus(Duration.ofHours(1))).build(),
+                CryptoItemDto.builder().id("bitcoin").symbol("BTC").price(BigDecimal.valueOf(130)).timestamp(end).build());
+            when(cryptoPriceService.getAssetsPriceHistory(Set.of("bitcoin"), start, end))
+                .thenReturn(Map.of("bitcoin", new AssetPriceHistoryDto("bitcoin", Duration.ofMinutes(1), prices)));
+
+            // Execute method
+            List<WalletHistoryPointResponse> points = walletAggregatorService.fetchWalletHistory(walletId.toString(), start, end, Duration.ofHours(1))
+                .collectList()
+                .block();
+
+            // Validate response
+            assertNotNull(points);
+            assertEquals(List.of(new BigDecimal("110.00"), new BigDecimal("120.00"), new BigDecimal("130.00")),
+                points.stream().map(point -> point.getWallet().getTotal()).toList());
+            assertEquals(end, points.get(2).getDate());
+            verify(cryptoPriceService, times(1)).getAssetsPriceHistory(anyCollection(), any(), any());
+        }
+
+        @Test
+        void shouldRejectInvalidRange() {
+            Instant start = Instant.parse("2024-12-01T10:00:00Z");
+            String walletId = UUID.randomUUID().toString();
+
+            assertThrows(ResponseStatusException.class, () -> walletAggregatorService.fetchWalletHistory(walletId, start, start.minusSeconds(1), Duration.ofMinutes(1)).blockLast());
+            assertThrows(ResponseStatusException.class, () -> walletAggregatorService.fetchWalletHistory(walletId, start, start.plusSeconds(60), Duration.ZERO).blockLast());
+            assertThrows(ResponseStatusException.class, () -> walletAggregatorService.fetchWalletHistory(walletId, start, start.plus(Duration.ofDays(365)), Duration.ofSeconds(1)).blockLast());
+            verifyNoInteractions(walletService);
+        }
     }
 
     @Nested
@@ -1,5 +1,6 @@
 package com.dmsc.cryptofinanceservice.service;
 
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
 import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
 import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
 import com.dmsc.cryptofinanceservice.model.entity.WalletAssetEntity;
@@ -11,7 +12,9 @@ import org.junit.jupiter.api.Test;
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -25,13 +28,17 @@ import static org.mockito.Mockito.when;
 class WalletAssetServiceTest {
 
     private WalletAssetRepository mockWalletAssetRepository;
+    private AssetService mockAssetService;
+    private SymbolResolutionService mockSymbolResolutionService;
 
     private WalletAssetService classUnderTest;
 
     @BeforeEach
     void setUp() {
         mockWalletAssetRepository = mock(WalletAssetRepository.class);
-        classUnderTest = new WalletAssetService(mockWalletAssetRepository);
+        mockAssetService = mock(AssetService.class);
+        mockSymbolResolutionService = mock(SymbolResolutionService.class);
+        classUnderTest = new WalletAssetService(mockWalletAssetRepository, mockAssetService, mockSymbolResolutionService);
     }
 
     @Test
@@ -43,18 +50,16 @@ class WalletAssetServiceTest {
         savedWalletEntity.setId(walletId);
 
         WalletAssetEntity existingAsset = new WalletAssetEntity();
-        existingAsset.setName("Bitcoin");
         existingAsset.setWallet(savedWalletEntity);
         existingAsset.setPrice(new BigDecimal(5000));
         existingAsset.setSymbol("BTC");
-        existingAsset.setExternalId("external-1");
+        existingAsset.setAssetId(1);
         existingAsset.setId(1L);
         WalletAssetEntity existingAsset2 = new WalletAssetEntity();
-        existingAsset2.setName("Ethereum");
         existingAsset2.setWallet(savedWalletEntity);
         existingAsset2.setPrice(new BigDecimal(100));
         existingAsset2.setSymbol("ETH");
-        existingAsset2.setExternalId("external-2");
+        existingAsset2.setAssetId(2);
         existingAsset2.setId(1L);
 
         List<WalletAssetEntity> assetList = List.of(
@@ -63,6 +68,8 @@ class WalletAssetServiceTest {
         );
 
         when(mockWalletAssetRepository.findByWalletId(walletId)).thenReturn(assetList);
+        when(mockAssetService.findByAssetId(1)).thenReturn(Optional.of(CacheCryptoDetails.builder()
+            .assetId(1).externalId("external-1").name("Bitcoin").symbol("BTC").build()));
 
         // Act
         List<WalletAssetDto> result = classUnderTest.findWalletAssetsByWalletId(walletId);
@@ -70,6 +77,8 @@ class WalletAssetServiceTest {
         // Assert
         assertEquals(2, result.size());
         assertEquals("BTC", result.get(0).getSymbol());
+        assertEquals("external-1", result.get(0).getExternalId());
+        assertEquals("Bitcoin", result.get(0).getName());
         assertEquals("ETH", result.get(1).getSymbol());
     }
 
@@ -96,18 +105,16 @@ class WalletAssetServiceTest {
         savedWalletEntity.setId(walletId);
 
         WalletAssetEntity existingAsset = new WalletAssetEntity();
-        existingAsset.setName("Bitcoin");
         existingAsset.setWallet(savedWalletEntity);
         existingAsset.setPrice(new BigDecimal(5000));
         existingAsset.setSymbol("BTC");
-        existingAsset.setExternalId("external-1");
+        existingAsset.setAssetId(1);
         existingAsset.setId(1L);
         WalletAssetEntity existingAsset2 = new WalletAssetEntity();
-        existingAsset2.setName("Ethereum");
         existingAsset2.setWallet(savedWalletEntity);
         existingAsset2.setPrice(new BigDecimal(100));
         existingAsset2.setSymbol("ETH");
-        existingAsset2.setExternalId("external-2");
+        existingAsset2.setAssetId(2);
         existingAsset2.setId(1L);
 
         List<WalletAssetEntity> assetList = List.of(
@@ -126,9 +133,6 @@ class WalletAssetServiceTest {
     void testUpdateWalletAsset_ExistingAsset() {
         // Arrange
         UUID walletId = UUID.randomUUID();
-        WalletEntity savedWalletEntity = new WalletEntity();
-        savedWalletEntity.setId(walletId);
-
         Long walletAssetId = 1L;
         CryptoItemDto cryptoItemDto = CryptoItemDto.builder()
             .id("external-1")
@@ -137,46 +141,105 @@ class WalletAssetServiceTest {
             .price(new BigDecimal(10000))
             .build();
 
-        WalletAssetEntity existingAsset = new WalletAssetEntity();
-        existingAsset.setName("Bitcoin");
-        existingAsset.setWallet(savedWalletEntity);
-        existingAsset.setPrice(new BigDecimal(5000));
-        existingAsset.setSymbol("BTC");
-        existingAsset.setExternalId("external-1");
-        existingAsset.setId(1L);
-
-        when(mockWalletAssetRepository.findByWalletIdAndId(walletId, walletAssetId)).thenReturn(Optional.of(existingAsset));
+        CacheCryptoDetails asset = CacheCryptoDetails.builder()
+            .assetId(5).externalId("external-1").name("Bitcoin Updated").symbol("BTC").build();
+        when(mockAssetService.getOrCreateAsset("external-1", "Bitcoin Updated", "BTC")).thenReturn(asset);
+        when(mockWalletAssetRepository.updateAssetId(walletId, walletAssetId, 5)).thenReturn(1);
 
         // Act
         classUnderTest.updateWalletAsset(walletId, walletAssetId, cryptoItemDto);
 
         // Assert
-        verify(mockWalletAssetRepository).findByWalletIdAndId(walletId, walletAssetId);
-        verify(mockWalletAssetRepository).save(existingAsset);
-        assertEquals("Bitcoin Updated", existingAsset.getName());
-        assertEquals("external-1", existingAsset.getExternalId());
+        verify(mockWalletAssetRepository).updateAssetId(walletId, walletAssetId, 5);
+        verify(mockWalletAssetRepository, never()).save(any(WalletAssetEntity.class));
+        verify(mockSymbolResolutionService).addMapping("BTC", asset);
     }
 
     @Test
-    void testUpdateWalletAsset_NonExistingAsset() {
+    void testLinkWalletAsset() {
         // Arrange
         UUID walletId = UUID.randomUUID();
         Long walletAssetId = 1L;
-        CryptoItemDto cryptoItemDto = CryptoItemDto.builder()
-            .id("external-1")
-            .symbol("BTC")
-            .name("Bitcoin Updated")
-            .price(new BigDecimal(10000))
-            .build();
 
-        when(mockWalletAssetRepository.findByWalletIdAndId(walletId, walletAssetId)).thenReturn(Optional.empty());
+        // Act
+        classUnderTest.linkWalletAsset(walletId, walletAssetId, 7);
+
+        // Assert
+        verify(mockWalletAssetRepository).updateAssetId(walletId, walletAssetId, 7);
+        verify(mockAssetService, never()).getOrCreateAsset(any(), any(), any());
+    }
+
+    @Test
+    void testFindWalletAssetsWithoutExternalId_GroupedByWallet() {
+        // Arrange
+        UUID walletId = UUID.randomUUID();
+        WalletEntity savedWalletEntity = new WalletEntity();
+        savedWalletEntity.setId(walletId);
+
+        WalletAssetEntity asset = new WalletAssetEntity();
+        asset.setWallet(savedWalletEntity);
+        asset.setSymbol("BTC");
+        asset.setId(1L);
+
+        when(mockWalletAssetRepository.findByWalletIdInAndAssetIdIsNull(List.of(walletId))).thenReturn(List.of(asset));
 
         // Act
-        classUnderTest.updateWalletAsset(walletId, walletAssetId, cryptoItemDto);
+        Map<UUID, List<WalletAssetDto>> result = classUnderTest.findWalletAssetsWithoutExternalId(List.of(walletId));
 
         // Assert
-        verify(mockWalletAssetRepository).findByWalletIdAndId(walletId, walletAssetId);
-        verify(mockWalletAssetRepository, never()).save(any(WalletAssetEntity.class));
+        assertEquals(1, result.size());
+        assertEquals("BTC", result.get(walletId).getFirst().getSymbol());
+    }
+
+    @Test
+    void testFindWalletAssetsByWalletIds_GroupedByWallet() {
+        // Arrange
+        UUID walletId = UUID.randomUUID();
+        WalletEntity savedWalletEntity = new WalletEntity();
+        savedWalletEntity.setId(walletId);
+
+        WalletAssetEntity asset = new WalletAssetEntity();
+        asset.setWallet(savedWalletEntity);
+        asset.setSymbol("BTC");
+        asset.setAssetId(1);
+        asset.setId(1L);
+
+        when(mockWalletAssetRepository.findByWalletIdIn(List.of(walletId))).thenReturn(List.of(asset));
+        when(mockAssetService.findByAssetId(1)).thenReturn(Optional.of(CacheCryptoDetails.builder()
+            .assetId(1)
+            .externalId("bitcoin")
+            .build()));
+
+        // Act
+        Map<UUID, List<WalletAssetDto>> result = classUnderTest.findWalletAssetsByWalletIds(List.of(walletId));
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("bitcoin", result.get(walletId).getFirst().getExternalId());
+    }
+
+    @Test
+    void testFindDistinctExternalIds_NoWallets() {
+        // Act
+        Set<String> result = classUnderTest.findDistinctExternalIds(Collections.emptyList());
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(mockWalletAssetRepository, never()).findDistinctAssetIdsByWalletIdIn(any());
     }
-}
 
+    @Test
+    void testFindDistinctExternalIds_ResolvedFromAssetIds() {
+        // Arrange
+        UUID walletId = UUID.randomUUID();
+        when(mockWalletAssetRepository.findDistinctAssetIdsByWalletIdIn(List.of(walletId))).thenReturn(Set.of(1));
+        when(mockAssetService.findByAssetId(1)).thenReturn(Optional.of(CacheCryptoDetails.builder()
+            .assetId(1).externalId("bitcoin").build()));
+
+        // Act
+        Set<String> result = classUnderTest.findDistinctExternalIds(List.of(walletId));
+
+        // Assert
+        assertEquals(Set.of("bitcoin"), result);
+    }
+}
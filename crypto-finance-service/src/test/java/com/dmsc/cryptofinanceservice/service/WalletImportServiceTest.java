@@ -0,0 +1,159 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.model.dto.WalletDto;
+import com.dmsc.cryptofinanceservice.model.rest.WalletImportResponse;
+import com.dmsc.cryptofinanceservice.properties.WalletRequestProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WalletImportServiceTest {
+
+    private JdbcTemplate mockJdbcTemplate;
+    private TransactionTemplate mockTransactionTemplate;
+    private WalletService mockWalletService;
+    private SymbolResolutionService mockSymbolResolutionService;
+    private JobService mockJobService;
+    private List<List<Object[]>> insertedBatches;
+    private final Supplier<List<CryptoItemDto>> marketSnapshot = List::of;
+
+    private WalletImportService classUnderTest;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mockJdbcTemplate = mock(JdbcTemplate.class);
+        mockTransactionTemplate = mock(TransactionTemplate.class);
+        mockWalletService = mock(WalletService.class);
+        mockSymbolResolutionService = mock(SymbolResolutionService.class);
+        mockJobService = mock(JobService.class);
+
+        when(mockTransactionTemplate.execute(any()))
+            .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(mock(TransactionStatus.class)));
+        // The batch is reused, keep a copy of each one
+        insertedBatches = new ArrayList<>();
+        when(mockJdbcTemplate.batchUpdate(anyString(), anyList(), any(int[].class))).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            insertedBatches.add(batch.stream().map(Object[]::clone).toList());
+            return new int[batch.size()];
+        });
+
+        when(mockSymbolResolutionService.getSharedMarketSnapshot()).thenReturn(marketSnapshot);
+
+        WalletRequestProperties walletRequestProperties = new WalletRequestProperties();
+        walletRequestProperties.setImportBatchSize(2);
+        walletRequestProperties.setMaxImportErrors(1);
+        classUnderTest = new WalletImportService(mockJdbcTemplate, mockTransactionTemplate, mockWalletService,
+            mockSymbolResolutionService, mockJobService, walletRequestProperties);
+    }
+
+    @Nested
+    class ImportWallet {
+
+        @Test
+        void shouldInsertAssetsInBatchesAndReportInvalidLines() {
+            UUID walletId = UUID.randomUUID();
+            Duration frequency = Duration.ofMinutes(5);
+            WalletDto wallet = new WalletDto();
+            wallet.setId(walletId);
+            when(mockWalletService.createEmptyWallet(frequency)).thenReturn(wallet);
+            when(mockSymbolResolutionService.resolveSymbols(Set.of("BTC", "ETH"), marketSnapshot))
+                .thenReturn(Map.of("BTC", CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").build()));
+            when(mockSymbolResolutionService.resolveSymbols(Set.of("SOL"), marketSnapshot)).thenReturn(Map.of());
+
+            WalletImportResponse response = classUnderTest.importWallet(body("BTC,1,10\nETH,2,20\nBTC,x,1\nBTC,3,30\nSOL,4,40\nETH,\n"), frequency);
+
+            assertEquals(walletId, response.getWalletId());
+            assertEquals(4, response.getImportedAssets());
+            assertEquals(2, response.getRejectedLines());
+            assertEquals(List.of("Line 3: invalid quantity"), response.getErrors());
+
+            assertEquals(2, insertedBatches.size());
+            assertArrayEquals(new Object[]{walletId, 1, "BTC", BigDecimal.ONE, BigDecimal.TEN}, insertedBatches.get(0).get(0));
+            assertArrayEquals(new Object[]{walletId, null, "ETH", new BigDecimal("2"), new BigDecimal("20")}, insertedBatches.get(0).get(1));
+            assertArrayEquals(new Object[]{walletId, 1, "BTC", new BigDecimal("3"), new BigDecimal("30")}, insertedBatches.get(1).get(0));
+            assertArrayEquals(new Object[]{walletId, null, "SOL", new BigDecimal("4"), new BigDecimal("40")}, insertedBatches.get(1).get(1));
+            verify(mockJobService).addOrUpdateJob(walletId, frequency);
+            // The wallet is created once, with the first batch, and each batch is committed on its own
+            verify(mockWalletService, times(1)).createEmptyWallet(frequency);
+            verify(mockTransactionTemplate, times(2)).execute(any());
+            verify(mockSymbolResolutionService, times(1)).getSharedMarketSnapshot();
+        }
+
+        @Test
+        void shouldNotCreateWalletWhenNoLineIsImported() {
+            Duration frequency = Duration.ofMinutes(5);
+
+            WalletImportResponse response = classUnderTest.importWallet(body("BTC;1;10\n"), frequency);
+
+            assertNull(response.getWalletId());
+            assertEquals(0, response.getImportedAssets());
+            assertEquals(1, response.getRejectedLines());
+            verify(mockWalletService, never()).createEmptyWallet(any());
+            verify(mockJdbcTemplate, never()).batchUpdate(anyString(), anyList(), any(int[].class));
+            verify(mockJobService, never()).addOrUpdateJob(any(), eq(frequency));
+        }
+
+        @Test
+        void shouldDiscardCommittedBatchesWhenBodyCannotBeRead() {
+            UUID walletId = UUID.randomUUID();
+            Duration frequency = Duration.ofMinutes(5);
+            WalletDto wallet = new WalletDto();
+            wallet.setId(walletId);
+            when(mockWalletService.createEmptyWallet(frequency)).thenReturn(wallet);
+            when(mockSymbolResolutionService.resolveSymbols(Set.of("BTC"), marketSnapshot)).thenReturn(Map.of());
+            InputStream body = new SequenceInputStream(body("BTC,1,10\nBTC,2,20\n"), new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("Connection reset");
+                }
+            });
+
+            assertThrows(UncheckedIOException.class, () -> classUnderTest.importWallet(body, frequency));
+
+            assertEquals(1, insertedBatches.size());
+            verify(mockJdbcTemplate).update("DELETE FROM wallet_assets WHERE wallet_id = ?", walletId);
+            verify(mockWalletService).deleteWallet(walletId);
+            verify(mockJobService, never()).addOrUpdateJob(any(), any());
+        }
+    }
+
+    private static ByteArrayInputStream body(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,62 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.rest.WalletItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WalletItemReaderTest {
+
+    @Test
+    void shouldReadCommaAndTabSeparatedLines() throws IOException {
+        List<WalletItemReader.Line> lines = readAll("Symbol\tQuantity\tPrice\r\nBTC\t0.12345\t37870.5058\r\n\n ETH , 4.89532 , 2004.9774 ");
+
+        assertEquals(2, lines.size());
+        assertEquals(new WalletItemReader.Line(2, new WalletItem("BTC", new BigDecimal("0.12345"), new BigDecimal("37870.5058")), null), lines.get(0));
+        assertEquals(new WalletItemReader.Line(4, new WalletItem("ETH", new BigDecimal("4.89532"), new BigDecimal("2004.9774")), null), lines.get(1));
+    }
+
+    @Test
+    void shouldReportInvalidLinesAndKeepReading() throws IOException {
+        String longLine = "BTC,1," + "1".repeat(WalletItemReader.MAX_LINE_LENGTH);
+        List<WalletItemReader.Line> lines = readAll("BTC,abc,1\nBTC,1\n,1,1\nBTC,1,2,3\nBTC,1,x\n" + longLine + "\nETH,2,3\n");
+
+        assertEquals(List.of("invalid quantity", "expected symbol, quantity and price", "missing symbol",
+                "expected symbol, quantity and price", "invalid price", "line longer than " + WalletItemReader.MAX_LINE_LENGTH + " characters"),
+            lines.subList(0, 6).stream().map(WalletItemReader.Line::error).toList());
+        assertEquals(6, lines.get(5).number());
+        assertNull(lines.get(6).error());
+        assertEquals(7, lines.get(6).number());
+    }
+
+    @Test
+    void shouldReadLinesAcrossBufferBoundaries() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            body.append("S").append(i).append(',').append(i).append(".5,1.25\n");
+        }
+
+        List<WalletItemReader.Line> lines = readAll(body.toString());
+
+        assertEquals(5_000, lines.size());
+        assertEquals(new WalletItem("S4999", new BigDecimal("4999.5"), new BigDecimal("1.25")), lines.get(4_999).item());
+        assertEquals(0, lines.stream().filter(line -> line.error() != null).count());
+    }
+
+    private static List<WalletItemReader.Line> readAll(String body) throws IOException {
+        WalletItemReader reader = new WalletItemReader(new StringReader(body));
+        List<WalletItemReader.Line> lines = new ArrayList<>();
+        WalletItemReader.Line line;
+        while ((line = reader.next()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+}
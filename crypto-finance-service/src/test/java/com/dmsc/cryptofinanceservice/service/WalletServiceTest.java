@@ -1,7 +1,9 @@
 package com.dmsc.cryptofinanceservice.service;
 
 import com.dmsc.cryptofinanceservice.exception.WalletNotFoundException;
+import com.dmsc.cryptofinanceservice.model.cache.CacheCryptoDetails;
 import com.dmsc.cryptofinanceservice.model.dto.WalletDto;
+import com.dmsc.cryptofinanceservice.model.entity.WalletAssetEntity;
 import com.dmsc.cryptofinanceservice.model.entity.WalletEntity;
 import com.dmsc.cryptofinanceservice.model.entity.WalletJobEntity;
 import com.dmsc.cryptofinanceservice.model.rest.CreateWalletRequest;
@@ -10,21 +12,25 @@ import com.dmsc.cryptofinanceservice.repository.WalletJobRepository;
 import com.dmsc.cryptofinanceservice.repository.WalletRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,6 +39,7 @@ class WalletServiceTest {
     private WalletRepository mockWalletRepository;
     private WalletJobRepository mockWalletJobRepository;
     private WalletAssetService mockWalletAssetService;
+    private SymbolResolutionService mockSymbolResolutionService;
     private JobService mockJobService;
 
     private WalletService classUnderTest;
@@ -42,12 +49,14 @@ class WalletServiceTest {
         mockWalletRepository = mock(WalletRepository.class);
         mockWalletJobRepository = mock(WalletJobRepository.class);
         mockWalletAssetService = mock(WalletAssetService.class);
+        mockSymbolResolutionService = mock(SymbolResolutionService.class);
         mockJobService = mock(JobService.class);
 
         this.classUnderTest = new WalletService(
             mockWalletRepository,
             mockWalletJobRepository,
             mockWalletAssetService,
+            mockSymbolResolutionService,
             mockJobService
         );
     }
@@ -79,6 +88,8 @@ class WalletServiceTest {
 
         when(mockWalletRepository.save(any(WalletEntity.class))).thenReturn(savedWalletEntity);
         when(mockWalletJobRepository.save(any(WalletJobEntity.class))).thenReturn(savedWalletJobEntity);
+        when(mockSymbolResolutionService.resolveSymbols(List.of("BTC", "ETH"))).thenReturn(Map.of(
+            "BTC", CacheCryptoDetails.builder().assetId(1).externalId("bitcoin").symbol("BTC").build()));
 
         // Act
         WalletDto actualWalletDto = classUnderTest.createWallet(frequency, request);
@@ -86,7 +97,10 @@ class WalletServiceTest {
         // Assert
         verify(mockWalletRepository).save(any(WalletEntity.class));
         verify(mockWalletJobRepository).save(any(WalletJobEntity.class));
-        verify(mockWalletAssetService).saveWalletAssetsForWallet(anyList());
+        ArgumentCaptor<List<WalletAssetEntity>> assetsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockWalletAssetService).saveWalletAssetsForWallet(assetsCaptor.capture());
+        assertEquals(1, assetsCaptor.getValue().get(0).getAssetId());
+        assertNull(assetsCaptor.getValue().get(1).getAssetId());
         verify(mockJobService).addOrUpdateJob(eq(uuid), eq(frequency));
 
         assertEquals(expectedWalletDto, actualWalletDto);
@@ -121,6 +135,21 @@ class WalletServiceTest {
         assertEquals("404 NOT_FOUND \"Wallet with id " + walletId + " not found\"", exception.getMessage());
     }
 
+    @Test
+    void testFindExistingWalletIds() {
+        // Arrange
+        UUID walletId = UUID.randomUUID();
+        UUID unknownWalletId = UUID.randomUUID();
+        when(mockWalletRepository.findIdsByIdIn(List.of(walletId, unknownWalletId))).thenReturn(Set.of(walletId));
+
+        // Act
+        Set<UUID> existingWalletIds = classUnderTest.findExistingWalletIds(List.of(walletId, unknownWalletId));
+
+        // Assert
+        assertEquals(Set.of(walletId), existingWalletIds);
+        verify(mockWalletRepository, never()).findAllById(any());
+    }
+
     @Test
     void testUpdateWalletIdConfigurations_FrequencyEmpty() {
         // Act
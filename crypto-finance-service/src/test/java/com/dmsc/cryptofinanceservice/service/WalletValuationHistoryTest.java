@@ -0,0 +1,96 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.dto.AssetPriceHistoryDto;
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
+import com.dmsc.cryptofinanceservice.model.rest.WalletHistoryPointResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class WalletValuationHistoryTest {
+
+    private static final Instant START = Instant.parse("2024-12-01T10:00:00Z");
+    private static final Duration STEP = Duration.ofMinutes(1);
+    private static final Duration TOLERANCE = Duration.ofMinutes(1);
+
+    /**
+     * 1 BTC and 10 ETH, both bought at 100
+     */
+    private static final List<WalletAssetDto> WALLET_ASSETS = List.of(
+        new WalletAssetDto(1L, "bitcoin", "BTC", "Bitcoin", BigDecimal.ONE, BigDecimal.valueOf(100)),
+        new WalletAssetDto(2L, "ethereum", "ETH", "Ethereum", BigDecimal.TEN, BigDecimal.valueOf(100)));
+
+    @Test
+    void shouldValueEachPointWithLatestPriceAtOrBeforeIt() {
+        Map<String, AssetPriceHistoryDto> histories = Map.of(
+            "bitcoin", getHistory("bitcoin", "BTC", getPrice(-30, 100), getPrice(60, 100), getPrice(90, 200), getPrice(100, 300)),
+            "ethereum", getHistory("ethereum", "ETH", getPrice(0, 100), getPrice(60, 50), getPrice(120, 50)));
+
+        List<WalletHistoryPointResponse> points = getPoints(histories, START.plus(STEP.multipliedBy(2)));
+
+        assertEquals(List.of(START, START.plus(STEP), START.plus(STEP.multipliedBy(2))), points.stream().map(WalletHistoryPointResponse::getDate).toList());
+        assertEquals(new BigDecimal("1100.00"), points.get(0).getWallet().getTotal());
+        assertEquals(new BigDecimal("600.00"), points.get(1).getWallet().getTotal());
+        assertEquals("ETH", points.get(1).getWallet().getWorstAsset());
+        assertEquals(new BigDecimal("-50.00"), points.get(1).getWallet().getWorstPerformance());
+        // Only the latest of the prices between two points is used
+        assertEquals(new BigDecimal("800.00"), points.get(2).getWallet().getTotal());
+        assertEquals("BTC", points.get(2).getWallet().getBestAsset());
+        assertEquals(new BigDecimal("200.00"), points.get(2).getWallet().getBestPerformance());
+    }
+
+    @Test
+    void shouldSkipPointsWhereAnAssetHasNoPrice() {
+        // No ethereum price before 10:01, and none within the tolerance at 10:03
+        Map<String, AssetPriceHistoryDto> histories = Map.of(
+            "bitcoin", getHistory("bitcoin", "BTC", getPrice(0, 100), getPrice(90, 200), getPrice(240, 300)),
+            "ethereum", getHistory("ethereum", "ETH", getPrice(60, 100), getPrice(240, 200)));
+
+        List<WalletHistoryPointResponse> points = getPoints(histories, START.plus(STEP.multipliedBy(4)));
+
+        assertEquals(List.of(START.plus(STEP), START.plus(STEP.multipliedBy(2)), START.plus(STEP.multipliedBy(4))),
+            points.stream().map(WalletHistoryPointResponse::getDate).toList());
+        assertEquals(new BigDecimal("1100.00"), points.get(0).getWallet().getTotal());
+        assertEquals(new BigDecimal("1200.00"), points.get(1).getWallet().getTotal());
+        assertEquals(new BigDecimal("2300.00"), points.get(2).getWallet().getTotal());
+    }
+
+    @Test
+    void shouldNotValueWalletWithAssetWithoutHistory() {
+        Map<String, AssetPriceHistoryDto> histories = Map.of("bitcoin", getHistory("bitcoin", "BTC", getPrice(0, 100)));
+
+        assertFalse(new WalletValuationHistory(WALLET_ASSETS, histories, START, START.plus(STEP), STEP).hasNext());
+    }
+
+    private static List<WalletHistoryPointResponse> getPoints(Map<String, AssetPriceHistoryDto> histories, Instant end) {
+        List<WalletHistoryPointResponse> points = new ArrayList<>();
+        new WalletValuationHistory(WALLET_ASSETS, histories, START, end, STEP).forEachRemaining(points::add);
+        return points;
+    }
+
+    private static AssetPriceHistoryDto getHistory(String externalId, String symbol, CryptoItemDto... prices) {
+        List<CryptoItemDto> history = new ArrayList<>();
+        for (CryptoItemDto price : prices) {
+            price.setId(externalId);
+            price.setSymbol(symbol);
+            history.add(price);
+        }
+        return new AssetPriceHistoryDto(externalId, TOLERANCE, history);
+    }
+
+    private static CryptoItemDto getPrice(long secondsFromStart, long price) {
+        return CryptoItemDto.builder()
+            .price(BigDecimal.valueOf(price))
+            .timestamp(START.plusSeconds(secondsFromStart))
+            .build();
+    }
+}
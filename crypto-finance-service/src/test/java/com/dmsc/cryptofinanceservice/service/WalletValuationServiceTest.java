@@ -0,0 +1,206 @@
+package com.dmsc.cryptofinanceservice.service;
+
+import com.dmsc.cryptofinanceservice.model.dto.CryptoItemDto;
+import com.dmsc.cryptofinanceservice.model.dto.WalletAssetDto;
+import com.dmsc.cryptofinanceservice.model.dto.WalletValuationDto;
+import com.dmsc.cryptofinanceservice.model.rest.WalletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WalletValuationServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-12-01T10:00:00Z");
+
+    private LatestPriceCachingService latestPriceCachingService;
+    private WalletValuationService classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        latestPriceCachingService = new LatestPriceCachingService();
+        classUnderTest = new WalletValuationService(latestPriceCachingService);
+    }
+
+    @Nested
+    class RegisterTests {
+
+        @Test
+        void shouldValueWallet() {
+            UUID walletId = UUID.randomUUID();
+
+            WalletResponse result = classUnderTest.register(walletId, getAssetData()).orElseThrow();
+
+            assertEquals(new BigDecimal("1200.00"), result.getTotal());
+            assertEquals("BTC", result.getBestAsset());
+            assertEquals(new BigDecimal("100.00"), result.getBestPerformance());
+            assertEquals("ETH", result.getWorstAsset());
+            assertEquals(new BigDecimal("-50.00"), result.getWorstPerformance());
+            assertEquals(result, classUnderTest.getValuation(walletId).orElseThrow());
+        }
+
+        @Test
+        void shouldNotValueWalletWithAssetWithoutPrice() {
+            UUID walletId = UUID.randomUUID();
+            Map<WalletAssetDto, CryptoItemDto> assetData = getAssetData();
+            assetData.put(getWalletAsset(3L, "SOL", BigDecimal.ONE, BigDecimal.TEN), null);
+
+            assertTrue(classUnderTest.register(walletId, assetData).isEmpty());
+            assertTrue(classUnderTest.getValuation(walletId).isEmpty());
+        }
+
+        @Test
+        void shouldApplyLatestPriceAcceptedBeforeRegistration() {
+            UUID walletId = UUID.randomUUID();
+            latestPriceCachingService.updateLatestPrice(getPrice("ethereum", "ETH", BigDecimal.valueOf(500), NOW.plusSeconds(60)));
+
+            WalletResponse result = classUnderTest.register(walletId, getAssetData()).orElseThrow();
+
+            assertEquals(new BigDecimal("5200.00"), result.getTotal());
+            assertEquals("ETH", result.getBestAsset());
+            assertEquals(new BigDecimal("150.00"), result.getBestPerformance());
+        }
+    }
+
+    @Nested
+    class UpdatePriceTests {
+
+        @Test
+        void shouldUpdateEveryWalletHoldingTheAsset() {
+            UUID firstWalletId = UUID.randomUUID();
+            UUID secondWalletId = UUID.randomUUID();
+            classUnderTest.register(firstWalletId, getAssetData());
+            classUnderTest.register(secondWalletId, getAssetData());
+
+            latestPriceCachingService.updateLatestPrice(getPrice("bitcoin", "BTC", BigDecimal.valueOf(50), NOW.plusSeconds(60)));
+
+            for (UUID walletId : new UUID[]{firstWalletId, secondWalletId}) {
+                WalletResponse result = classUnderTest.getValuation(walletId).orElseThrow();
+                assertEquals(new BigDecimal("1050.00"), result.getTotal());
+                assertEquals("BTC", result.getWorstAsset());
+                assertEquals(new BigDecimal("-50.00"), result.getWorstPerformance());
+            }
+        }
+
+        @Test
+        void shouldOnlyUpdateLatestValuationOfWalletRegisteredTwice() {
+            UUID walletId = UUID.randomUUID();
+            classUnderTest.register(walletId, getAssetData());
+            classUnderTest.register(walletId, getAssetData());
+
+            latestPriceCachingService.updateLatestPrice(getPrice("bitcoin", "BTC", BigDecimal.valueOf(50), NOW.plusSeconds(60)));
+
+            assertEquals(new BigDecimal("1050.00"), classUnderTest.getValuation(walletId).orElseThrow().getTotal());
+            assertEquals(1, classUnderTest.countValuationsHolding("bitcoin"));
+            assertEquals(1, classUnderTest.countValuationsHolding("ethereum"));
+        }
+
+        @Test
+        void shouldMoveBestAndWorstWhenPerformanceChanges() {
+            UUID walletId = UUID.randomUUID();
+            classUnderTest.register(walletId, getAssetData());
+
+            classUnderTest.updatePrice(getPrice("bitcoin", "BTC", BigDecimal.valueOf(10), NOW.plusSeconds(60)));
+            classUnderTest.updatePrice(getPrice("ethereum", "ETH", BigDecimal.valueOf(400), NOW.plusSeconds(60)));
+
+            WalletResponse result = classUnderTest.getValuation(walletId).orElseThrow();
+            assertEquals(new BigDecimal("4010.00"), result.getTotal());
+            assertEquals("ETH", result.getBestAsset());
+            assertEquals(new BigDecimal("100.00"), result.getBestPerformance());
+            assertEquals("BTC", result.getWorstAsset());
+            assertEquals(new BigDecimal("-90.00"), result.getWorstPerformance());
+        }
+
+        @Test
+        void shouldIgnoreOlderPrice() {
+            UUID walletId = UUID.randomUUID();
+            WalletResponse registered = classUnderTest.register(walletId, getAssetData()).orElseThrow();
+
+            classUnderTest.updatePrice(getPrice("bitcoin", "BTC", BigDecimal.valueOf(1), NOW.minusSeconds(60)));
+
+            assertEquals(registered, classUnderTest.getValuation(walletId).orElseThrow());
+        }
+
+        @Test
+        void shouldIgnoreAssetsNotHeld() {
+            UUID walletId = UUID.randomUUID();
+            WalletResponse registered = classUnderTest.register(walletId, getAssetData()).orElseThrow();
+
+            classUnderTest.updatePrice(getPrice("solana", "SOL", BigDecimal.valueOf(1), NOW.plusSeconds(60)));
+
+            assertEquals(registered, classUnderTest.getValuation(walletId).orElseThrow());
+        }
+    }
+
+    @Nested
+    class VersionTests {
+
+        @Test
+        void shouldKeepVersionForSamePrices() {
+            UUID firstWalletId = UUID.randomUUID();
+            UUID secondWalletId = UUID.randomUUID();
+            classUnderTest.register(firstWalletId, getAssetData());
+            String version = classUnderTest.getVersionedValuation(firstWalletId).orElseThrow().getVersion();
+
+            // Older prices are not applied
+            classUnderTest.updatePrice(getPrice("bitcoin", "BTC", BigDecimal.valueOf(1), NOW.minusSeconds(60)));
+            // Valuing the same assets again, e.g. after a restart, gives the same version
+            classUnderTest.register(secondWalletId, getAssetData());
+
+            assertEquals(version, classUnderTest.getVersionedValuation(firstWalletId).orElseThrow().getVersion());
+            assertEquals(version, classUnderTest.getVersionedValuation(secondWalletId).orElseThrow().getVersion());
+        }
+
+        @Test
+        void shouldChangeVersionWithAppliedPrice() {
+            UUID walletId = UUID.randomUUID();
+            classUnderTest.register(walletId, getAssetData());
+            WalletValuationDto registered = classUnderTest.getVersionedValuation(walletId).orElseThrow();
+
+            classUnderTest.updatePrice(getPrice("bitcoin", "BTC", BigDecimal.valueOf(200), NOW.plusSeconds(60)));
+
+            WalletValuationDto updated = classUnderTest.getVersionedValuation(walletId).orElseThrow();
+            // Same value, newer price
+            assertEquals(registered.getWallet(), updated.getWallet());
+            assertNotEquals(registered.getVersion(), updated.getVersion());
+            assertTrue(classUnderTest.getVersionedValuation(UUID.randomUUID()).isEmpty());
+        }
+    }
+
+    /**
+     * 1 BTC bought at 100 and now at 200, 10 ETH bought at 200 and now at 100
+     */
+    private static Map<WalletAssetDto, CryptoItemDto> getAssetData() {
+        Map<WalletAssetDto, CryptoItemDto> assetData = new LinkedHashMap<>();
+        assetData.put(getWalletAsset(1L, "BTC", BigDecimal.ONE, BigDecimal.valueOf(100)), getPrice("bitcoin", "BTC", BigDecimal.valueOf(200), NOW));
+        assetData.put(getWalletAsset(2L, "ETH", BigDecimal.TEN, BigDecimal.valueOf(200)), getPrice("ethereum", "ETH", BigDecimal.valueOf(100), NOW));
+        return assetData;
+    }
+
+    private static WalletAssetDto getWalletAsset(Long id, String symbol, BigDecimal quantity, BigDecimal price) {
+        return WalletAssetDto.builder()
+            .id(id)
+            .symbol(symbol)
+            .quantity(quantity)
+            .price(price)
+            .build();
+    }
+
+    private static CryptoItemDto getPrice(String id, String symbol, BigDecimal price, Instant timestamp) {
+        return CryptoItemDto.builder()
+            .id(id)
+            .symbol(symbol)
+            .price(price)
+            .timestamp(timestamp)
+            .build();
+    }
+}